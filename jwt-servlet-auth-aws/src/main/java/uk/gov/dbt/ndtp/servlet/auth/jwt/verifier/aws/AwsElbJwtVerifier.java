@@ -38,8 +38,17 @@ public class AwsElbJwtVerifier extends SignedJwtVerifier {
      * @param awsRegion AWS region
      */
     public AwsElbJwtVerifier(String awsRegion) {
-        super(new AwsElbKeyResolver(awsRegion));
-        this.awsRegion = awsRegion;
+        this(new AwsElbKeyResolver(awsRegion));
+    }
+
+    /**
+     * Creates a new verifier using a custom configured key resolver
+     *
+     * @param resolver AWS ELB key resolver
+     */
+    public AwsElbJwtVerifier(AwsElbKeyResolver resolver) {
+        super(resolver);
+        this.awsRegion = resolver.getRegion();
     }
 
     @Override
@@ -0,0 +1,85 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verifier.aws;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.JfrEvents;
+
+/**
+ * JFR event recording the location of an AWS ELB public key by an {@link AwsElbKeyResolver}
+ */
+@Name(JfrEvents.PREFIX + "AwsElbKeyLocate")
+@Label("AWS ELB Key Locate")
+@Category(JfrEvents.CATEGORY)
+@Description("Location of an AWS ELB public key")
+@Threshold(JfrEvents.DEFAULT_THRESHOLD)
+@StackTrace(false)
+public final class AwsElbKeyLocateEvent extends Event {
+
+    /**
+     * Outcome recorded when the key was already cached
+     */
+    public static final String OUTCOME_CACHED = "CACHED";
+
+    /**
+     * Outcome recorded when the key was fetched from AWS, or awaited from a concurrent fetch of the same key
+     */
+    public static final String OUTCOME_FETCHED = "FETCHED";
+
+    /**
+     * Outcome recorded when the key was rejected due to a recently remembered failure to resolve it
+     */
+    public static final String OUTCOME_FAILURE_CACHED = "FAILURE_CACHED";
+
+    @Label("Region")
+    String region;
+
+    @Label("Key ID")
+    String keyId;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Completes the event, committing it if it is enabled
+     *
+     * @param region  AWS region
+     * @param keyId   Key ID
+     * @param outcome Outcome
+     */
+    public void complete(String region, String keyId, String outcome) {
+        if (shouldCommit()) {
+            this.region = region;
+            this.keyId = keyId;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
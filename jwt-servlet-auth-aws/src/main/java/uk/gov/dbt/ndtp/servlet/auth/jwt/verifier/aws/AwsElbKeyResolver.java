@@ -23,25 +23,83 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.verifier.aws;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.InvalidKeyException;
 import java.io.InputStream;
 import java.net.URI;
-import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.JfrEvents;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
 
 /**
  * A key resolver that resolves AWS ELB public keys per <a
  * href="https://docs.aws.amazon.com/elasticloadbalancing/latest/application/listener-authenticate-users.html#user-claims-encoding">Authenticate
  * users using an Application Load Balancer</a>.
+ * <p>
+ * AWS ELB never changes the public key for a given Key ID, so resolved keys are cached without expiry, subject to a
+ * maximum number of cached keys.  Concurrent resolutions of the same Key ID share a single fetch of the key, which is
+ * made outside of the key cache so that a slow fetch never blocks access to the cache, and failed resolutions are
+ * remembered for a short period so that tokens bearing unresolvable Key IDs are rejected without repeatedly contacting
+ * AWS.
+ * </p>
+ * <p>
+ * Keys are fetched via a {@link HttpClient}, by default a client shared by all resolvers which reuses connections and
+ * prefers HTTP/2.  Every fetch is bounded by a request timeout, and the number of fetches a resolver has in-flight at
+ * once is capped so that a slow key endpoint cannot tie up an unbounded number of request threads.
+ * </p>
  */
 public class AwsElbKeyResolver extends LocatorAdapter<Key> {
 
+    /**
+     * The default maximum number of keys that are cached
+     */
+    public static final long DEFAULT_MAX_CACHED_KEYS = 1_000;
+
+    /**
+     * The default duration for which a failure to resolve a key is remembered
+     */
+    public static final Duration DEFAULT_FAILURE_CACHE_DURATION = Duration.ofSeconds(30);
+
+    /**
+     * The default timeout for establishing a connection to the key endpoint
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * The default timeout for a key fetch to complete, this includes time spent waiting for a fetch permit
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * The default maximum number of key fetches that may be in-flight at once
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_FETCHES = 16;
+
+    private static HttpClient DEFAULT_CLIENT;
+
     private final String region;
+    private final HttpClient client;
+    private final String keyUrlFormat;
+    private final Duration requestTimeout;
+    private final Semaphore fetchPermits;
+    private final Cache<String, Key> keys;
+    private final Cache<String, String> failures;
+    private final ConcurrentMap<String, CompletableFuture<Key>> inFlight = new ConcurrentHashMap<>();
 
     /**
      * Creates a new resolver
@@ -49,33 +107,279 @@ public class AwsElbKeyResolver extends LocatorAdapter<Key> {
      * @param region AWS region
      */
     public AwsElbKeyResolver(String region) {
+        this(region, DEFAULT_MAX_CACHED_KEYS, DEFAULT_FAILURE_CACHE_DURATION);
+    }
+
+    /**
+     * Creates a new resolver
+     *
+     * @param region               AWS region
+     * @param maxCachedKeys        Maximum number of resolved keys to cache, and of failed resolutions to remember
+     * @param failureCacheDuration How long a failure to resolve a key is remembered for, a zero duration means failures
+     *                             are not remembered
+     */
+    public AwsElbKeyResolver(String region, long maxCachedKeys, Duration failureCacheDuration) {
+        this(region, defaultClient(), null, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_CONCURRENT_FETCHES, maxCachedKeys,
+             failureCacheDuration);
+    }
+
+    /**
+     * Creates a new resolver
+     *
+     * @param region               AWS region
+     * @param client               HTTP Client used to fetch keys
+     * @param keyUrlFormat         Key URL format, per {@link AwsElbKeyUrlRegistry#register(String, String)}, used to
+     *                             locate keys, if {@code null} the format registered for the region is used
+     * @param requestTimeout       Timeout for a key fetch to complete
+     * @param maxConcurrentFetches Maximum number of key fetches that may be in-flight at once
+     * @param maxCachedKeys        Maximum number of resolved keys to cache, and of failed resolutions to remember
+     * @param failureCacheDuration How long a failure to resolve a key is remembered for, a zero duration means failures
+     *                             are not remembered
+     */
+    public AwsElbKeyResolver(String region, HttpClient client, String keyUrlFormat, Duration requestTimeout,
+                             int maxConcurrentFetches, long maxCachedKeys, Duration failureCacheDuration) {
         this.region = Objects.requireNonNull(region, "AWS region cannot be null");
+        this.client = Objects.requireNonNull(client, "HTTP Client cannot be null");
+        this.keyUrlFormat = keyUrlFormat;
+        Objects.requireNonNull(requestTimeout, "Request timeout cannot be null");
+        if (requestTimeout.isNegative() || requestTimeout.isZero()) {
+            throw new IllegalArgumentException("Request timeout must be greater than zero");
+        }
+        this.requestTimeout = requestTimeout;
+        if (maxConcurrentFetches <= 0) {
+            throw new IllegalArgumentException("Maximum concurrent fetches must be greater than zero");
+        }
+        this.fetchPermits = new Semaphore(maxConcurrentFetches);
+        if (maxCachedKeys <= 0) {
+            throw new IllegalArgumentException("Maximum cached keys must be greater than zero");
+        }
+        Objects.requireNonNull(failureCacheDuration, "Failure cache duration cannot be null");
+        if (failureCacheDuration.isNegative()) {
+            throw new IllegalArgumentException("Failure cache duration cannot be negative");
+        }
+        this.keys = Caffeine.newBuilder().maximumSize(maxCachedKeys).build();
+        this.failures = failureCacheDuration.isZero() ? null : Caffeine.newBuilder()
+                                                                       .maximumSize(maxCachedKeys)
+                                                                       .expireAfterWrite(failureCacheDuration)
+                                                                       .build();
+    }
+
+    /**
+     * Creates a HTTP Client suitable for fetching AWS ELB keys
+     *
+     * @param connectTimeout Timeout for establishing a connection
+     * @return HTTP Client
+     */
+    public static HttpClient createClient(Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_2)
+                         .followRedirects(HttpClient.Redirect.NORMAL)
+                         .connectTimeout(Objects.requireNonNull(connectTimeout, "Connect timeout cannot be null"))
+                         .build();
+    }
+
+    /**
+     * Gets the default HTTP Client shared by all resolvers that are not given an explicit client
+     *
+     * @return Default HTTP Client
+     */
+    static synchronized HttpClient defaultClient() {
+        if (DEFAULT_CLIENT == null) {
+            DEFAULT_CLIENT = createClient(DEFAULT_CONNECT_TIMEOUT);
+        }
+        return DEFAULT_CLIENT;
     }
 
     @Override
     public Key locate(JwsHeader header) {
-        if (StringUtils.isBlank(header.getKeyId())) {
+        String keyId = header.getKeyId();
+        if (StringUtils.isBlank(keyId)) {
             throw new InvalidKeyException(
                     "JWT contained no Key ID (kid) in Header, unable to resolve an AWS ELB Key without a valid Key ID");
         }
 
+        AwsElbKeyLocateEvent event = new AwsElbKeyLocateEvent();
+        event.begin();
+        Key key = this.keys.getIfPresent(keyId);
+        if (key != null) {
+            event.complete(this.region, keyId, AwsElbKeyLocateEvent.OUTCOME_CACHED);
+            return key;
+        }
+        String failure = this.failures != null ? this.failures.getIfPresent(keyId) : null;
+        if (failure != null) {
+            event.complete(this.region, keyId, AwsElbKeyLocateEvent.OUTCOME_FAILURE_CACHED);
+            throw new InvalidKeyException(failure);
+        }
+        try {
+            key = resolveOnce(keyId);
+            event.complete(this.region, keyId, AwsElbKeyLocateEvent.OUTCOME_FETCHED);
+            return key;
+        } catch (RuntimeException e) {
+            event.complete(this.region, keyId, JfrEvents.OUTCOME_FAILURE);
+            throw e;
+        }
+    }
+
+    /**
+     * Resolves a key, sharing a single resolution amongst concurrent callers for the same Key ID
+     * <p>
+     * The first caller for a Key ID fetches the key on its own thread and caches it, any other callers for that Key ID
+     * wait for that fetch to complete rather than starting their own.  The fetch deliberately happens outside of the
+     * key cache, rather than as a cache computation, so that waiting for a fetch permit or a slow key endpoint never
+     * holds a lock within the cache.
+     * </p>
+     *
+     * @param keyId Key ID
+     * @return Key
+     * @throws InvalidKeyException Thrown if the key cannot be resolved
+     */
+    private Key resolveOnce(String keyId) {
+        CompletableFuture<Key> resolution = new CompletableFuture<>();
+        CompletableFuture<Key> existing = this.inFlight.putIfAbsent(keyId, resolution);
+        if (existing != null) {
+            return await(keyId, existing);
+        }
+
         try {
-            String rawKeyUrl = AwsElbKeyUrlRegistry.prepareKeyUrl(this.region, header.getKeyId());
-            URI keyUrl = new URI(rawKeyUrl);
-            URLConnection connection = keyUrl.toURL().openConnection();
-            try (InputStream input = connection.getInputStream()) {
-                return KeyUtils.loadPublicKey(KeyUtils.EC, input);
+            // Another caller may have completed a resolution between our cache checks and registering our resolution
+            Key key = this.keys.getIfPresent(keyId);
+            if (key == null) {
+                String failure = this.failures != null ? this.failures.getIfPresent(keyId) : null;
+                if (failure != null) {
+                    throw new InvalidKeyException(failure);
+                }
+                key = resolve(keyId);
+                this.keys.put(keyId, key);
             }
-        } catch (Exception e) {
+            resolution.complete(key);
+            return key;
+        } catch (RuntimeException | Error e) {
+            resolution.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(keyId, resolution);
+        }
+    }
+
+    /**
+     * Waits for a resolution already in progress on another thread
+     *
+     * @param keyId      Key ID
+     * @param resolution Resolution
+     * @return Key
+     * @throws InvalidKeyException Thrown if the key could not be resolved, or if interrupted while waiting
+     */
+    private Key await(String keyId, CompletableFuture<Key> resolution) {
+        try {
+            return resolution.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidKeyException(
+                    String.format("Interrupted while resolving AWS ELB Key %s from URL %s", keyId, keyUrl(keyId)));
+        } catch (ExecutionException e) {
+            // Resolutions only ever complete exceptionally with unchecked exceptions
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Resolves a key from AWS, remembering the failure if it cannot be resolved
+     * <p>
+     * Failing to obtain a fetch permit within the request timeout is not remembered as a failure since it reflects load
+     * on the resolver rather than a problem with the key.
+     * </p>
+     *
+     * @param keyId Key ID
+     * @return Key
+     * @throws InvalidKeyException Thrown if the key cannot be resolved
+     */
+    private Key resolve(String keyId) {
+        String rawKeyUrl = keyUrl(keyId);
+        try {
+            if (!this.fetchPermits.tryAcquire(this.requestTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new InvalidKeyException(String.format(
+                        "Failed to resolve AWS ELB Key %s from URL %s: too many concurrent key fetches in progress",
+                        keyId, rawKeyUrl));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidKeyException(
+                    String.format("Interrupted while resolving AWS ELB Key %s from URL %s", keyId, rawKeyUrl));
+        }
+
+        try {
+            return fetch(new URI(rawKeyUrl));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new InvalidKeyException(
-                    String.format("Failed to resolve AWS ELB Key %s from URL %s: %s", header.getKeyId(),
-                                  AwsElbKeyUrlRegistry.prepareKeyUrl(this.region, header.getKeyId()), e.getMessage()));
+                    String.format("Interrupted while resolving AWS ELB Key %s from URL %s", keyId, rawKeyUrl));
+        } catch (Exception e) {
+            String failure = String.format("Failed to resolve AWS ELB Key %s from URL %s: %s", keyId, rawKeyUrl,
+                                           StringUtils.defaultIfBlank(e.getMessage(), e.getClass().getSimpleName()));
+            if (this.failures != null) {
+                this.failures.put(keyId, failure);
+            }
+            throw new InvalidKeyException(failure);
+        } finally {
+            this.fetchPermits.release();
         }
     }
 
+    /**
+     * Fetches a key
+     *
+     * @param keyUrl Key URL
+     * @return Key
+     * @throws Exception Thrown if the key cannot be fetched
+     */
+    private Key fetch(URI keyUrl) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(keyUrl).GET().timeout(this.requestTimeout).build();
+        HttpResponse<InputStream> response = this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream input = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Key URL returned HTTP Status " + response.statusCode());
+            }
+            return KeyUtils.loadPublicKey(KeyUtils.EC, input);
+        }
+    }
+
+    /**
+     * Prepares the Key URL for a Key ID
+     *
+     * @param keyId Key ID
+     * @return Key URL
+     */
+    private String keyUrl(String keyId) {
+        return this.keyUrlFormat != null ?
+               AwsElbKeyUrlRegistry.prepareKeyUrl(this.keyUrlFormat, this.region, keyId) :
+               AwsElbKeyUrlRegistry.prepareKeyUrl(this.region, keyId);
+    }
+
+    /**
+     * Gets the AWS region from which keys are resolved
+     *
+     * @return AWS region
+     */
+    public String getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Gets the approximate number of keys currently cached
+     *
+     * @return Estimated number of cached keys
+     */
+    long estimatedSize() {
+        this.keys.cleanUp();
+        return this.keys.estimatedSize();
+    }
+
     @Override
     public String toString() {
-        return "AwsElbKeyResolver{region=" + region + "}";
+        return "AwsElbKeyResolver{region=" + region + ", requestTimeout=" + requestTimeout + "}";
     }
 
 }
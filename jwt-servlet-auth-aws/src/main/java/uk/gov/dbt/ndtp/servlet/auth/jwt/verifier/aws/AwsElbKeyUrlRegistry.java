@@ -91,7 +91,19 @@ public class AwsElbKeyUrlRegistry {
      * @return Key URL
      */
     public static String prepareKeyUrl(String region, String keyId) {
-        String keyFormat = lookupUrlFormat(region);
+        return prepareKeyUrl(lookupUrlFormat(region), region, keyId);
+    }
+
+    /**
+     * Prepares the actual Key URL for looking up a Key with the given ID using an explicit Key URL format
+     *
+     * @param keyFormat Key URL format, should contain at least one {@code %s} placeholder for injecting the Key ID.  If
+     *                  two such placeholders are present then the Region and Key ID will be injected.
+     * @param region    AWS Region
+     * @param keyId     Key ID
+     * @return Key URL
+     */
+    public static String prepareKeyUrl(String keyFormat, String region, String keyId) {
         switch (StringUtils.countMatches(keyFormat, "%s")) {
             case 0:
                 throw new IllegalArgumentException(
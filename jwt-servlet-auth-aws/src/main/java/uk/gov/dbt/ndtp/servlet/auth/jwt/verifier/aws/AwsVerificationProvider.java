@@ -23,11 +23,14 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.verifier.aws;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.Utils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.VerificationProvider;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 
@@ -42,12 +45,29 @@ public class AwsVerificationProvider implements VerificationProvider {
      * Parameter used to configure the AWS region from which public keys should be obtained for JWT verification
      */
     public static final String PARAM_AWS_REGION = "jwt.aws.region";
+    /**
+     * Parameter used to override the Key URL format from which public keys are obtained, per
+     * {@link AwsElbKeyUrlRegistry#register(String, String)}
+     */
+    public static final String PARAM_AWS_KEY_URL = "jwt.aws.key-url";
+    /**
+     * Parameter used to configure the timeout, in seconds, for connecting to the Key URL
+     */
+    public static final String PARAM_AWS_CONNECT_TIMEOUT = "jwt.aws.connect-timeout.seconds";
+    /**
+     * Parameter used to configure the timeout, in seconds, for fetching a public key
+     */
+    public static final String PARAM_AWS_REQUEST_TIMEOUT = "jwt.aws.request-timeout.seconds";
+    /**
+     * Parameter used to configure the maximum number of public key fetches that may be in-flight at once
+     */
+    public static final String PARAM_AWS_MAX_CONCURRENT_FETCHES = "jwt.aws.max-concurrent-fetches";
 
     @Override
     public boolean configure(UnaryOperator<String> paramSupplier, Consumer<JwtVerifier> verifierConsumer) {
         String region = paramSupplier.apply(PARAM_AWS_REGION);
         if (StringUtils.isNotBlank(region)) {
-            AwsElbJwtVerifier jwtVerifier = new AwsElbJwtVerifier(region);
+            AwsElbJwtVerifier jwtVerifier = new AwsElbJwtVerifier(createResolver(paramSupplier, region));
             verifierConsumer.accept(jwtVerifier);
             LOGGER.info("Configured the AWS JWT Verifier: {}", jwtVerifier);
             return true;
@@ -57,6 +77,46 @@ public class AwsVerificationProvider implements VerificationProvider {
         return false;
     }
 
+    /**
+     * Creates the key resolver, any timeout or concurrency parameters that are missing or invalid fall back to their
+     * defaults.  Unless a custom connect timeout is configured the resolver uses the HTTP Client shared by all
+     * resolvers.
+     *
+     * @param paramSupplier Parameter supplier
+     * @param region        AWS region
+     * @return Key resolver
+     */
+    private static AwsElbKeyResolver createResolver(UnaryOperator<String> paramSupplier, String region) {
+        String keyUrl = StringUtils.trimToNull(paramSupplier.apply(PARAM_AWS_KEY_URL));
+        Duration connectTimeout = seconds(paramSupplier.apply(PARAM_AWS_CONNECT_TIMEOUT),
+                                          AwsElbKeyResolver.DEFAULT_CONNECT_TIMEOUT);
+        HttpClient client = connectTimeout.equals(AwsElbKeyResolver.DEFAULT_CONNECT_TIMEOUT) ?
+                            AwsElbKeyResolver.defaultClient() : AwsElbKeyResolver.createClient(connectTimeout);
+        Duration requestTimeout = seconds(paramSupplier.apply(PARAM_AWS_REQUEST_TIMEOUT),
+                                          AwsElbKeyResolver.DEFAULT_REQUEST_TIMEOUT);
+        int maxConcurrentFetches = Utils.parseParameter(paramSupplier.apply(PARAM_AWS_MAX_CONCURRENT_FETCHES),
+                                                        Integer::parseInt,
+                                                        AwsElbKeyResolver.DEFAULT_MAX_CONCURRENT_FETCHES);
+        if (maxConcurrentFetches <= 0) {
+            maxConcurrentFetches = AwsElbKeyResolver.DEFAULT_MAX_CONCURRENT_FETCHES;
+        }
+        return new AwsElbKeyResolver(region, client, keyUrl, requestTimeout,
+                                     maxConcurrentFetches, AwsElbKeyResolver.DEFAULT_MAX_CACHED_KEYS,
+                                     AwsElbKeyResolver.DEFAULT_FAILURE_CACHE_DURATION);
+    }
+
+    /**
+     * Parses a positive number of seconds
+     *
+     * @param value        Raw parameter value
+     * @param defaultValue Default used if the value is missing, invalid or not positive
+     * @return Duration
+     */
+    private static Duration seconds(String value, Duration defaultValue) {
+        Integer seconds = Utils.parseParameter(value, Integer::parseInt, null);
+        return seconds != null && seconds > 0 ? Duration.ofSeconds(seconds) : defaultValue;
+    }
+
     @Override
     public int priority() {
         return 1;
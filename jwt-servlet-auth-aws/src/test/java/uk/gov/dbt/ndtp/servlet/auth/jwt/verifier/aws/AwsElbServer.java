@@ -36,11 +36,18 @@ import org.eclipse.jetty.server.Server;
 
 import java.io.IOException;
 import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A mock ELB Key Server for testing
  */
 public class AwsElbServer extends JwksServer {
+
+    private final AtomicInteger requests = new AtomicInteger(0);
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger maxInFlight = new AtomicInteger(0);
+    private volatile long delay = 0;
+
     public AwsElbServer(int port, JwkSet jwks) {
         super(port, jwks);
     }
@@ -64,6 +71,33 @@ public class AwsElbServer extends JwksServer {
         }
     }
 
+    /**
+     * Sets a delay that is applied to all responses
+     *
+     * @param millis Delay in milliseconds
+     */
+    public void setDelay(long millis) {
+        this.delay = millis;
+    }
+
+    /**
+     * Gets how many requests the server has received
+     *
+     * @return Request count
+     */
+    public int getRequestCount() {
+        return this.requests.get();
+    }
+
+    /**
+     * Gets the maximum number of requests the server has been processing at once
+     *
+     * @return Maximum concurrent requests
+     */
+    public int getMaxConcurrentRequests() {
+        return this.maxInFlight.get();
+    }
+
     @Override
     public String getUrl() {
         if (this.server != null) {
@@ -73,7 +107,7 @@ public class AwsElbServer extends JwksServer {
         }
     }
 
-    private static final class PemKeyServlet extends JwksServlet {
+    private final class PemKeyServlet extends JwksServlet {
 
         public PemKeyServlet(JwkSet jwks) {
             super(jwks);
@@ -81,6 +115,17 @@ public class AwsElbServer extends JwksServer {
 
         @Override
         protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
             String keyId = StringUtils.stripStart(req.getRequestURI(), "/");
 
             Jwk<?> jwk = this.jwks.getKeys()
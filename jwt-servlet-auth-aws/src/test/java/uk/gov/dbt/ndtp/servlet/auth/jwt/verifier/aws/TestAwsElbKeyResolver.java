@@ -25,12 +25,30 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.verifier.aws;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.JfrEvents;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Key;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.mockito.Mockito.*;
 
@@ -43,6 +61,33 @@ public class TestAwsElbKeyResolver {
     private static final String TEST_JWT =
             "eyJ0eXAiOiJKV1QiLCJraWQiOiIwMDc3MGU4NC05MWQ3LTRhMWQtYmFiNy0yZmJlOWRlNGI1YWIiLCJhbGciOiJFUzI1NiIsImlzcyI6Imh0dHBzOi8vY29nbml0by1pZHAuZXUtd2VzdC0xLmFtYXpvbmF3cy5jb20vZXUtd2VzdC0xX0hSMWMxWGozTiIsImNsaWVudCI6IjU2NXZqOW42ZnQ5b2ZicnFvbTA5NW10cWIiLCJzaWduZXIiOiJhcm46YXdzOmVsYXN0aWNsb2FkYmFsYW5jaW5nOmV1LXdlc3QtMTowOTg2Njk1ODk1NDE6bG9hZGJhbGFuY2VyL2FwcC9UZWxpYy1BcHBsaS02TDhBMFhPVkJQOFgvMGQ0MzA0NWI3NmVlNjFhNSIsImV4cCI6MTY1NDYxNjkxOH0=.eyJzdWIiOiI1Zjc0ZmNjYS1jZjBhLTRjZGQtOGM4ZC1iZmM4NjhjYWY0NGMiLCJlbWFpbF92ZXJpZmllZCI6InRydWUiLCJlbWFpbCI6InRvbUB0ZWxpY2VudC5pbyIsInVzZXJuYW1lIjoiNWY3NGZjY2EtY2YwYS00Y2RkLThjOGQtYmZjODY4Y2FmNDRjIiwiZXhwIjoxNjU0NjE2OTE4LCJpc3MiOiJodHRwczovL2NvZ25pdG8taWRwLmV1LXdlc3QtMS5hbWF6b25hd3MuY29tL2V1LXdlc3QtMV9IUjFjMVhqM04ifQ==.SdlxvcVug6g4xM6seIUIfsq56CW4A9aZynvlWmT3ry939KgrZc9JXoYe9zBVptPxs_7FHkFzBSfocAp4A7I1Mg==";
 
+    private static final String TEST_CUSTOM_REGION = "custom";
+
+    private static final AtomicInteger TEST_PORT = new AtomicInteger(35891);
+
+    private Jwk<?> key;
+    private AwsElbServer keyServer;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.key = Jwks.builder().key(Jwts.SIG.ES256.keyPair().build().getPublic()).idFromThumbprint().build();
+        this.keyServer = new AwsElbServer(TEST_PORT.getAndIncrement(), Jwks.set().add(this.key).build());
+        this.keyServer.start();
+        AwsElbKeyUrlRegistry.register(TEST_CUSTOM_REGION, this.keyServer.getUrl() + "/%s");
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        AwsElbKeyUrlRegistry.reset();
+        this.keyServer.stop();
+    }
+
+    private static JwsHeader header(String keyId) {
+        JwsHeader header = mock(JwsHeader.class);
+        when(header.getKeyId()).thenReturn(keyId);
+        return header;
+    }
+
     private Key verifyKeyResolution(String region, String keyId) {
         AwsElbKeyResolver resolver = new AwsElbKeyResolver(region);
         JwsHeader header = mock(JwsHeader.class);
@@ -121,4 +166,313 @@ public class TestAwsElbKeyResolver {
         // When and Then
         locator.locate(header);
     }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*greater than zero")
+    public void givenZeroMaxCachedKeys_whenCreatingResolver_thenError() {
+        // Given, When and Then
+        new AwsElbKeyResolver(TEST_AWS_REGION, 0, Duration.ofSeconds(30));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullFailureCacheDuration_whenCreatingResolver_thenError() {
+        // Given, When and Then
+        new AwsElbKeyResolver(TEST_AWS_REGION, 10, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*cannot be negative")
+    public void givenNegativeFailureCacheDuration_whenCreatingResolver_thenError() {
+        // Given, When and Then
+        new AwsElbKeyResolver(TEST_AWS_REGION, 10, Duration.ofSeconds(-1));
+    }
+
+    @Test
+    public void givenResolver_whenResolvingRepeatedly_thenKeyFetchedOnce() {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION);
+
+        // When
+        Key first = resolver.locate(header(this.key.getId()));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertSame(resolver.locate(header(this.key.getId())), first);
+        }
+
+        // Then
+        Assert.assertEquals(first, this.key.toKey());
+        Assert.assertEquals(this.keyServer.getRequestCount(), 1);
+        Assert.assertEquals(resolver.estimatedSize(), 1);
+    }
+
+    @Test
+    public void givenResolver_whenResolvingConcurrently_thenKeyFetchedOnce() throws Exception {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION);
+        this.keyServer.setDelay(250);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // When
+            List<Future<Key>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> resolver.locate(header(this.key.getId()))));
+            }
+
+            // Then
+            for (Future<Key> future : futures) {
+                Assert.assertEquals(future.get(), this.key.toKey());
+            }
+            Assert.assertEquals(this.keyServer.getRequestCount(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenResolver_whenResolvingNonExistentKeyConcurrently_thenFailureSharedBySingleFetch() throws Exception {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION, 10, Duration.ZERO);
+        this.keyServer.setDelay(250);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // When
+            List<Future<InvalidKeyException>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(
+                        () -> Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("missing")))));
+            }
+
+            // Then
+            for (Future<InvalidKeyException> future : futures) {
+                Assert.assertTrue(StringUtils.contains(future.get().getMessage(), "Failed to resolve AWS ELB Key"));
+            }
+            Assert.assertEquals(this.keyServer.getRequestCount(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenSlowFetchInProgress_whenWaitingCallerInterrupted_thenStopsWaiting() throws Exception {
+        // Given
+        this.keyServer.setDelay(2_000);
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION);
+        Thread fetching = new Thread(() -> resolver.locate(header(this.key.getId())));
+        fetching.start();
+        Thread.sleep(100);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread waiting = new Thread(() -> {
+            try {
+                resolver.locate(header(this.key.getId()));
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        waiting.start();
+        Thread.sleep(100);
+
+        // When
+        waiting.interrupt();
+        waiting.join(500);
+
+        // Then
+        Assert.assertFalse(waiting.isAlive(), "Waiting caller should have stopped waiting once interrupted");
+        Assert.assertTrue(error.get() instanceof InvalidKeyException);
+        Assert.assertTrue(StringUtils.contains(error.get().getMessage(), "Interrupted while resolving"));
+        fetching.join();
+        Assert.assertEquals(this.keyServer.getRequestCount(), 1);
+        Assert.assertEquals(resolver.estimatedSize(), 1);
+    }
+
+    @Test
+    public void givenResolver_whenResolvingNonExistentKeyRepeatedly_thenFailureRemembered() {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            InvalidKeyException e =
+                    Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("no-such-key")));
+            Assert.assertTrue(StringUtils.contains(e.getMessage(), "Failed to resolve AWS ELB Key no-such-key"));
+        }
+
+        // Then
+        Assert.assertEquals(this.keyServer.getRequestCount(), 1);
+        Assert.assertEquals(resolver.estimatedSize(), 0);
+    }
+
+    @Test
+    public void givenResolverWithoutFailureCache_whenResolvingNonExistentKeyRepeatedly_thenFetchedEachTime() {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION, 10, Duration.ZERO);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("no-such-key")));
+        }
+
+        // Then
+        Assert.assertEquals(this.keyServer.getRequestCount(), 3);
+    }
+
+    @Test
+    public void givenExpiredFailure_whenResolvingKeyAgain_thenKeyFetchedAgain() throws InterruptedException {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION, 10, Duration.ofMillis(100));
+        Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("no-such-key")));
+
+        // When
+        Thread.sleep(250);
+        Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("no-such-key")));
+
+        // Then
+        Assert.assertEquals(this.keyServer.getRequestCount(), 2);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullClient_whenCreatingResolver_thenError() {
+        // Given, When and Then
+        new AwsElbKeyResolver(TEST_AWS_REGION, null, null, Duration.ofSeconds(1), 1, 10, Duration.ZERO);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*greater than zero")
+    public void givenZeroRequestTimeout_whenCreatingResolver_thenError() {
+        // Given, When and Then
+        new AwsElbKeyResolver(TEST_AWS_REGION, AwsElbKeyResolver.defaultClient(), null, Duration.ZERO, 1, 10,
+                              Duration.ZERO);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*greater than zero")
+    public void givenZeroMaxConcurrentFetches_whenCreatingResolver_thenError() {
+        // Given, When and Then
+        new AwsElbKeyResolver(TEST_AWS_REGION, AwsElbKeyResolver.defaultClient(), null, Duration.ofSeconds(1), 0, 10,
+                              Duration.ZERO);
+    }
+
+    @Test
+    public void givenExplicitKeyUrlFormat_whenResolving_thenKeyFetchedFromThatUrl() {
+        // Given
+        AwsElbKeyUrlRegistry.reset();
+        AwsElbKeyResolver resolver =
+                new AwsElbKeyResolver(TEST_AWS_REGION, AwsElbKeyResolver.defaultClient(),
+                                      this.keyServer.getUrl() + "/%s", Duration.ofSeconds(5), 1, 10, Duration.ZERO);
+
+        // When
+        Key key = resolver.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(key, this.key.toKey());
+        Assert.assertEquals(this.keyServer.getRequestCount(), 1);
+        Assert.assertEquals(resolver.getRegion(), TEST_AWS_REGION);
+    }
+
+    @Test
+    public void givenSlowKeyServer_whenResolving_thenRequestTimesOut() {
+        // Given
+        this.keyServer.setDelay(3_000);
+        AwsElbKeyResolver resolver =
+                new AwsElbKeyResolver(TEST_CUSTOM_REGION, AwsElbKeyResolver.defaultClient(), null,
+                                      Duration.ofMillis(250), 1, 10, Duration.ZERO);
+
+        // When
+        long start = System.currentTimeMillis();
+        InvalidKeyException e =
+                Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header(this.key.getId())));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then
+        Assert.assertTrue(StringUtils.contains(e.getMessage(), "Failed to resolve AWS ELB Key"));
+        Assert.assertTrue(elapsed < 2_000, "Resolution should have timed out but took " + elapsed + " milliseconds");
+    }
+
+    @Test
+    public void givenLimitedConcurrentFetches_whenResolvingManyKeysConcurrently_thenFetchesLimited() throws Exception {
+        // Given
+        this.keyServer.setDelay(100);
+        AwsElbKeyResolver resolver =
+                new AwsElbKeyResolver(TEST_CUSTOM_REGION, AwsElbKeyResolver.defaultClient(), null,
+                                      Duration.ofSeconds(5), 1, 10, Duration.ZERO);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String keyId = "key-" + i;
+                futures.add(executor.submit(
+                        () -> Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header(keyId)))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Then
+            Assert.assertEquals(this.keyServer.getRequestCount(), 4);
+            Assert.assertEquals(this.keyServer.getMaxConcurrentRequests(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenNoFetchPermitAvailable_whenResolving_thenFailureNotRemembered() throws Exception {
+        // Given
+        this.keyServer.setDelay(800);
+        AwsElbKeyResolver resolver =
+                new AwsElbKeyResolver(TEST_CUSTOM_REGION, AwsElbKeyResolver.defaultClient(), null,
+                                      Duration.ofMillis(1_000), 1, 10, Duration.ofMinutes(5));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(
+                    () -> Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("first"))));
+            Thread.sleep(100);
+            Future<?> second = executor.submit(
+                    () -> Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("second"))));
+            Thread.sleep(100);
+
+            // When
+            InvalidKeyException e =
+                    Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("third")));
+            first.get();
+            second.get();
+
+            // Then
+            Assert.assertTrue(StringUtils.contains(e.getMessage(), "too many concurrent key fetches"));
+            Assert.assertEquals(this.keyServer.getRequestCount(), 2);
+            this.keyServer.setDelay(0);
+            Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("third")));
+            Assert.assertEquals(this.keyServer.getRequestCount(), 3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenRecording_whenLocatingKeys_thenLocateEventsAreRecorded() throws Exception {
+        // Given
+        AwsElbKeyResolver resolver = new AwsElbKeyResolver(TEST_CUSTOM_REGION);
+        Path dump = Files.createTempFile("aws-elb", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(AwsElbKeyLocateEvent.class).withoutThreshold();
+            recording.start();
+
+            // When
+            resolver.locate(header(this.key.getId()));
+            resolver.locate(header(this.key.getId()));
+            Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("unknown")));
+            Assert.expectThrows(InvalidKeyException.class, () -> resolver.locate(header("unknown")));
+            recording.stop();
+            recording.dump(dump);
+            events = RecordingFile.readAllEvents(dump)
+                                  .stream()
+                                  .filter(e -> e.getEventType().getName().equals(JfrEvents.PREFIX + "AwsElbKeyLocate"))
+                                  .toList();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+
+        // Then
+        Assert.assertEquals(events.stream().map(e -> e.getString("outcome")).toList(),
+                            List.of(AwsElbKeyLocateEvent.OUTCOME_FETCHED, AwsElbKeyLocateEvent.OUTCOME_CACHED,
+                                    JfrEvents.OUTCOME_FAILURE, AwsElbKeyLocateEvent.OUTCOME_FAILURE_CACHED));
+        Assert.assertTrue(events.stream().allMatch(e -> TEST_CUSTOM_REGION.equals(e.getString("region"))));
+        Assert.assertEquals(events.get(0).getString("keyId"), this.key.getId());
+    }
 }
@@ -23,6 +23,12 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.verifier.aws;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import java.security.KeyPair;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.UnaryOperator;
@@ -62,4 +68,56 @@ public class TestAwsVerificationProvider {
         Assert.assertNotNull(verifier.get());
         Assert.assertTrue(verifier.get() instanceof AwsElbJwtVerifier);
     }
+
+    @Test
+    public void givenAwsRegionAndKeyUrl_whenConfiguringVerifier_thenTokensVerifiedAgainstKeyUrl() throws Exception {
+        // Given
+        KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+        Jwk<?> jwk = Jwks.builder().key(keyPair.getPublic()).idFromThumbprint().build();
+        AwsElbServer keyServer = new AwsElbServer(35991, Jwks.set().add(jwk).build());
+        keyServer.start();
+        try {
+            AtomicReference<JwtVerifier> verifier = new AtomicReference<>();
+            Map<String, String> config = Map.of(AwsVerificationProvider.PARAM_AWS_REGION, "eu-west-1",
+                                                AwsVerificationProvider.PARAM_AWS_KEY_URL,
+                                                keyServer.getUrl() + "/%s",
+                                                AwsVerificationProvider.PARAM_AWS_CONNECT_TIMEOUT, "2",
+                                                AwsVerificationProvider.PARAM_AWS_REQUEST_TIMEOUT, "3",
+                                                AwsVerificationProvider.PARAM_AWS_MAX_CONCURRENT_FETCHES, "4");
+            String jwt = Jwts.builder()
+                             .header()
+                             .keyId(jwk.getId())
+                             .and()
+                             .subject("test")
+                             .signWith(keyPair.getPrivate())
+                             .compact();
+
+            // When
+            VerificationFactory.configure(mapSupplier(config), verifier::set);
+            Jws<Claims> jws = verifier.get().verify(jwt);
+
+            // Then
+            Assert.assertEquals(jws.getPayload().getSubject(), "test");
+            Assert.assertEquals(keyServer.getRequestCount(), 1);
+        } finally {
+            keyServer.stop();
+        }
+    }
+
+    @Test
+    public void givenAwsRegionAndInvalidTuning_whenConfiguringVerifier_thenVerifierIsConfigured() {
+        // Given
+        AtomicReference<JwtVerifier> verifier = new AtomicReference<>();
+        Map<String, String> config = Map.of(AwsVerificationProvider.PARAM_AWS_REGION, "eu-west-1",
+                                            AwsVerificationProvider.PARAM_AWS_CONNECT_TIMEOUT, "-1",
+                                            AwsVerificationProvider.PARAM_AWS_REQUEST_TIMEOUT, "foo",
+                                            AwsVerificationProvider.PARAM_AWS_MAX_CONCURRENT_FETCHES, "0");
+
+        // When
+        VerificationFactory.configure(mapSupplier(config), verifier::set);
+
+        // Then
+        Assert.assertTrue(verifier.get() instanceof AwsElbJwtVerifier);
+        Assert.assertTrue(verifier.get().toString().contains("eu-west-1"));
+    }
 }
@@ -0,0 +1,150 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.benchmarks;
+
+import io.jsonwebtoken.Jwts;
+import java.security.Key;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
+
+/**
+ * Abstract base for benchmarks of the authentication engines, this prepares the tokens and headers for the chosen
+ * {@link SigningAlgorithm} and {@link Scenario} so that each runtime specific benchmark only needs to wrap these into
+ * its own request/response types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractEngineBenchmark {
+
+    /**
+     * Custom header used for the {@link Scenario#MULTI_HEADER} scenario
+     */
+    public static final String CUSTOM_HEADER = "X-Benchmark-JWT";
+
+    /**
+     * Header sources that the engines under test are configured with
+     */
+    public static final List<HeaderSource> HEADER_SOURCES =
+            List.of(new HeaderSource(JwtHttpConstants.HEADER_AUTHORIZATION, JwtHttpConstants.AUTH_SCHEME_BEARER),
+                    new HeaderSource(CUSTOM_HEADER, null));
+
+    /**
+     * Request path used for all benchmark requests
+     */
+    public static final String REQUEST_PATH = "/benchmark/resource";
+
+    @Param
+    public SigningAlgorithm algorithm;
+
+    @Param
+    public Scenario scenario;
+
+    /**
+     * The verifier to use
+     */
+    protected JwtVerifier verifier;
+
+    /**
+     * The request headers to use
+     */
+    protected Map<String, List<String>> headers;
+
+    /**
+     * Prepares the verifier and request headers for the configured algorithm and scenario
+     */
+    protected void prepareTokens() {
+        SigningAlgorithm.KeyMaterial keys = this.algorithm.generate();
+        this.verifier = keys.verifier();
+        this.headers = new LinkedHashMap<>();
+
+        switch (this.scenario) {
+            case SUCCESS:
+                addBearer(createToken(keys.signingKey(), Instant.now().plus(1, ChronoUnit.DAYS)));
+                break;
+            case EXPIRED:
+                addBearer(createToken(keys.signingKey(), Instant.now().minus(1, ChronoUnit.DAYS)));
+                break;
+            case BAD_SIGNATURE:
+                addBearer(createToken(this.algorithm.generate().signingKey(), Instant.now().plus(1, ChronoUnit.DAYS)));
+                break;
+            case MULTI_HEADER:
+                addBearer(createToken(keys.signingKey(), Instant.now().minus(1, ChronoUnit.DAYS)));
+                this.headers.put(CUSTOM_HEADER,
+                                 List.of(createToken(keys.signingKey(), Instant.now().plus(1, ChronoUnit.DAYS))));
+                break;
+            default:
+                throw new IllegalStateException("Unsupported scenario " + this.scenario);
+        }
+    }
+
+    private void addBearer(String token) {
+        this.headers.put(JwtHttpConstants.HEADER_AUTHORIZATION,
+                         List.of(JwtHttpConstants.AUTH_SCHEME_BEARER + " " + token));
+    }
+
+    private static String createToken(Key signingKey, Instant expiry) {
+        return Jwts.builder()
+                   .subject("benchmark")
+                   .issuer("https://issuer.example")
+                   .issuedAt(new Date())
+                   .expiration(Date.from(expiry))
+                   .signWith(signingKey)
+                   .compact();
+    }
+
+    /**
+     * Verifies that a benchmark setup produces the expected outcome for the configured scenario before any measurement
+     * happens, this guards against benchmarks silently measuring the wrong code path
+     *
+     * @param authenticated Result of authentication, {@code null} if authentication failed
+     */
+    protected void verifyOutcome(Object authenticated) {
+        if (this.scenario.authenticates() != (authenticated != null)) {
+            throw new IllegalStateException(
+                    String.format("Scenario %s with algorithm %s produced an unexpected authentication outcome",
+                                  this.scenario, this.algorithm));
+        }
+    }
+}
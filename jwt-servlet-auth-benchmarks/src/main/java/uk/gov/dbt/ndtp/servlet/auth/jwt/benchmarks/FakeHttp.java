@@ -0,0 +1,283 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.benchmarks;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriInfo;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Provides minimal in-memory fakes of the HTTP request/response types of the various runtimes.
+ * <p>
+ * These are implemented as dynamic proxies, rather than full implementations of the runtime interfaces, so that they
+ * remain valid as the runtime APIs evolve and because the same implementation serves both the {@code javax.servlet} and
+ * {@code jakarta.servlet} APIs.  Only the methods the authentication engines actually use are implemented, anything
+ * else throws an {@link UnsupportedOperationException} so a benchmark can never silently exercise an unexpected code
+ * path.  The proxy dispatch overhead is constant across runs so does not affect comparisons between runs.
+ * </p>
+ * <p>
+ * Fakes are intended to be reused across benchmark invocations, therefore all state they hold is overwritten, rather
+ * than accumulated, by each invocation.
+ * </p>
+ */
+public final class FakeHttp {
+
+    private FakeHttp() {
+    }
+
+    /**
+     * Creates a fake Servlet request
+     *
+     * @param type    Servlet request interface to fake e.g. {@code jakarta.servlet.http.HttpServletRequest}
+     * @param headers Request headers
+     * @param path    Request path
+     * @param <T>     Servlet request type
+     * @return Fake request
+     */
+    public static <T> T servletRequest(Class<T> type, Map<String, List<String>> headers, String path) {
+        return proxy(type, new ServletRequestHandler(headers, path));
+    }
+
+    /**
+     * Creates a fake Servlet response
+     *
+     * @param type Servlet response interface to fake e.g. {@code jakarta.servlet.http.HttpServletResponse}
+     * @param <T>  Servlet response type
+     * @return Fake response
+     */
+    public static <T> T servletResponse(Class<T> type) {
+        return proxy(type, new ServletResponseHandler());
+    }
+
+    /**
+     * Creates a fake JAX-RS container request context
+     *
+     * @param headers Request headers
+     * @param path    Request path
+     * @return Fake request context
+     */
+    public static ContainerRequestContext containerRequest(Map<String, List<String>> headers, String path) {
+        MultivaluedMap<String, String> jaxRsHeaders = new MultivaluedHashMap<>();
+        headers.forEach(jaxRsHeaders::addAll);
+        UriInfo uriInfo = proxy(UriInfo.class, new UriInfoHandler(path));
+        return proxy(ContainerRequestContext.class, new ContainerRequestHandler(jaxRsHeaders, uriInfo));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeHttp.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * Base handler that deals with the standard {@link Object} methods
+     */
+    private abstract static class AbstractHandler implements InvocationHandler {
+
+        @Override
+        public final Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return getClass().getSimpleName();
+                default:
+                    return handle(method.getName(), args);
+            }
+        }
+
+        /**
+         * Handles a method invocation
+         *
+         * @param method Method name
+         * @param args   Arguments
+         * @return Return value
+         */
+        protected abstract Object handle(String method, Object[] args);
+
+        /**
+         * Produces an error for an unsupported method
+         *
+         * @param method Method name
+         * @return Unsupported operation error
+         */
+        protected final UnsupportedOperationException unsupported(String method) {
+            return new UnsupportedOperationException(getClass().getSimpleName() + " does not support " + method);
+        }
+    }
+
+    private static final class ServletRequestHandler extends AbstractHandler {
+        private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final String path;
+
+        private ServletRequestHandler(Map<String, List<String>> headers, String path) {
+            this.headers.putAll(headers);
+            this.path = path;
+        }
+
+        @Override
+        protected Object handle(String method, Object[] args) {
+            switch (method) {
+                case "getHeader":
+                    List<String> values = this.headers.get((String) args[0]);
+                    return values != null && !values.isEmpty() ? values.get(0) : null;
+                case "getHeaders":
+                    return Collections.enumeration(this.headers.getOrDefault((String) args[0], List.of()));
+                case "getHeaderNames":
+                    return Collections.enumeration(this.headers.keySet());
+                case "getMethod":
+                    return "GET";
+                case "getRequestURI":
+                case "getServletPath":
+                    return this.path;
+                case "getRequestURL":
+                    return new StringBuffer("http://localhost").append(this.path);
+                case "getContextPath":
+                case "getPathInfo":
+                case "getRemoteUser":
+                case "getUserPrincipal":
+                    return null;
+                case "getAttribute":
+                    return this.attributes.get((String) args[0]);
+                case "setAttribute":
+                    this.attributes.put((String) args[0], args[1]);
+                    return null;
+                case "removeAttribute":
+                    this.attributes.remove((String) args[0]);
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private static final class ServletResponseHandler extends AbstractHandler {
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private int status = 200;
+
+        @Override
+        protected Object handle(String method, Object[] args) {
+            switch (method) {
+                case "addHeader":
+                case "setHeader":
+                    this.headers.put((String) args[0], (String) args[1]);
+                    return null;
+                case "getHeader":
+                    return this.headers.get((String) args[0]);
+                case "containsHeader":
+                    return this.headers.containsKey((String) args[0]);
+                case "setStatus":
+                case "sendError":
+                    this.status = (Integer) args[0];
+                    return null;
+                case "getStatus":
+                    return this.status;
+                case "isCommitted":
+                    return false;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private static final class UriInfoHandler extends AbstractHandler {
+        private final String path;
+        private final URI uri;
+
+        private UriInfoHandler(String path) {
+            this.path = path;
+            this.uri = URI.create("http://localhost" + path);
+        }
+
+        @Override
+        protected Object handle(String method, Object[] args) {
+            switch (method) {
+                case "getPath":
+                    return this.path.substring(1);
+                case "getRequestUri":
+                case "getAbsolutePath":
+                    return this.uri;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private static final class ContainerRequestHandler extends AbstractHandler {
+        private final MultivaluedMap<String, String> headers;
+        private final UriInfo uriInfo;
+        private final Map<String, Object> properties = new HashMap<>();
+        private Object securityContext;
+        private Object abortResponse;
+
+        private ContainerRequestHandler(MultivaluedMap<String, String> headers, UriInfo uriInfo) {
+            this.headers = headers;
+            this.uriInfo = uriInfo;
+        }
+
+        @Override
+        protected Object handle(String method, Object[] args) {
+            switch (method) {
+                case "getHeaders":
+                    return this.headers;
+                case "getHeaderString":
+                    List<String> values = this.headers.get((String) args[0]);
+                    return values != null ? String.join(",", values) : null;
+                case "getMethod":
+                    return "GET";
+                case "getUriInfo":
+                    return this.uriInfo;
+                case "getSecurityContext":
+                    return this.securityContext;
+                case "setSecurityContext":
+                    this.securityContext = args[0];
+                    return null;
+                case "abortWith":
+                    this.abortResponse = args[0];
+                    return null;
+                case "getProperty":
+                    return this.properties.get((String) args[0]);
+                case "setProperty":
+                    this.properties.put((String) args[0], args[1]);
+                    return null;
+                case "removeProperty":
+                    this.properties.remove((String) args[0]);
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+}
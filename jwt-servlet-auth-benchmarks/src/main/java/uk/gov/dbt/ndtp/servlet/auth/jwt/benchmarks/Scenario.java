@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.benchmarks;
+
+/**
+ * The authentication scenarios that benchmarks are run with
+ */
+public enum Scenario {
+    /**
+     * A single valid token is presented
+     */
+    SUCCESS(true),
+    /**
+     * A single expired token is presented
+     */
+    EXPIRED(false),
+    /**
+     * A single token signed with the wrong key is presented
+     */
+    BAD_SIGNATURE(false),
+    /**
+     * Multiple tokens are presented in different headers, the first of which is expired and the second valid
+     */
+    MULTI_HEADER(true);
+
+    private final boolean authenticates;
+
+    Scenario(boolean authenticates) {
+        this.authenticates = authenticates;
+    }
+
+    /**
+     * Gets whether the scenario is expected to result in successful authentication
+     *
+     * @return True if authentication should succeed, false otherwise
+     */
+    public boolean authenticates() {
+        return this.authenticates;
+    }
+}
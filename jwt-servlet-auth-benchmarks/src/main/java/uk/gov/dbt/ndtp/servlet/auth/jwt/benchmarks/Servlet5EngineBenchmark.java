@@ -0,0 +1,62 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.benchmarks;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.servlet5.Servlet5JwtAuthenticationEngine;
+
+/**
+ * Benchmarks the {@link Servlet5JwtAuthenticationEngine}
+ */
+public class Servlet5EngineBenchmark extends AbstractEngineBenchmark {
+
+    private Servlet5JwtAuthenticationEngine engine;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    /**
+     * Prepares the engine and fake request/response
+     */
+    @Setup
+    public void setup() {
+        prepareTokens();
+        this.engine = new Servlet5JwtAuthenticationEngine(HEADER_SOURCES, null, null);
+        this.request = FakeHttp.servletRequest(HttpServletRequest.class, this.headers, REQUEST_PATH);
+        this.response = FakeHttp.servletResponse(HttpServletResponse.class);
+        verifyOutcome(authenticate());
+    }
+
+    /**
+     * Benchmarks authentication of a request
+     *
+     * @return Authenticated request, or {@code null} if authentication failed
+     */
+    @Benchmark
+    public HttpServletRequest authenticate() {
+        return this.engine.authenticate(this.request, this.response, this.verifier);
+    }
+}
@@ -0,0 +1,95 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.benchmarks;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import java.security.Key;
+import java.security.KeyPair;
+import javax.crypto.SecretKey;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
+
+/**
+ * The signing algorithms that benchmarks are run with
+ */
+public enum SigningAlgorithm {
+    /**
+     * HMAC with SHA-256
+     */
+    HS256 {
+        @Override
+        KeyMaterial generate() {
+            SecretKey key = Jwts.SIG.HS256.key().build();
+            return new KeyMaterial(key, new SignedJwtVerifier(key));
+        }
+    },
+    /**
+     * RSA PKCS#1 v1.5 with SHA-256
+     */
+    RS256 {
+        @Override
+        KeyMaterial generate() {
+            return fromKeyPair(Jwts.SIG.RS256.keyPair().build());
+        }
+    },
+    /**
+     * ECDSA using the P-256 curve with SHA-256
+     */
+    ES256 {
+        @Override
+        KeyMaterial generate() {
+            return fromKeyPair(Jwts.SIG.ES256.keyPair().build());
+        }
+    },
+    /**
+     * EdDSA using the Ed25519 curve
+     */
+    EdDSA {
+        @Override
+        KeyMaterial generate() {
+            return fromKeyPair(Jwks.CRV.Ed25519.keyPair().build());
+        }
+    };
+
+    /**
+     * Generates fresh key material for this algorithm
+     *
+     * @return Key material
+     */
+    abstract KeyMaterial generate();
+
+    private static KeyMaterial fromKeyPair(KeyPair keyPair) {
+        return new KeyMaterial(keyPair.getPrivate(), new SignedJwtVerifier(keyPair.getPublic()));
+    }
+
+    /**
+     * Key material for an algorithm
+     *
+     * @param signingKey Key used to sign tokens
+     * @param verifier   Verifier that verifies tokens signed with the signing key
+     */
+    record KeyMaterial(Key signingKey, JwtVerifier verifier) {
+    }
+}
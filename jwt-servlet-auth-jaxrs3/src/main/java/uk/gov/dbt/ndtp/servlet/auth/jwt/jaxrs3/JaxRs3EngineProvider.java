@@ -41,6 +41,15 @@ public class JaxRs3EngineProvider extends AbstractHeaderBasedEngineProvider {
                                                                                                 usernameClaims);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <TRequest, TResponse> JwtAuthenticationEngine<TRequest, TResponse> createEngine(
+            List<HeaderSource> headerSources, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return (JwtAuthenticationEngine<TRequest, TResponse>) new JaxRs3JwtAuthenticationEngine(headerSources, realm,
+                                                                                                usernameClaims,
+                                                                                                roleClaims);
+    }
+
     @Override
     public int priority() {
         return 2;
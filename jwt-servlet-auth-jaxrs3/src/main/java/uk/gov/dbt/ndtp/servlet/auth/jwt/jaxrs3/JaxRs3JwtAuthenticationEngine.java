@@ -39,7 +39,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.security.Principal;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -67,6 +67,19 @@ public class JaxRs3JwtAuthenticationEngine
         super(headers, realm, usernameClaims);
     }
 
+    /**
+     * Creates a new authentication engine using the provided configuration
+     *
+     * @param headers        Header sources
+     * @param realm          Realm
+     * @param usernameClaims Username claims
+     * @param roleClaims     Role claims
+     */
+    public JaxRs3JwtAuthenticationEngine(Collection<HeaderSource> headers, String realm,
+                                         Collection<String> usernameClaims, Collection<String> roleClaims) {
+        super(headers, realm, usernameClaims, roleClaims);
+    }
+
     @Override
     protected boolean hasRequiredParameters(ContainerRequestContext request) {
         return this.headers.stream()
@@ -90,6 +103,12 @@ public class JaxRs3JwtAuthenticationEngine
     @Override
     protected ContainerRequestContext prepareRequest(ContainerRequestContext request, Jws<Claims> jws,
                                                      String username) {
+        return prepareRequest(request, jws, username, extractRoles(jws));
+    }
+
+    @Override
+    protected ContainerRequestContext prepareRequest(ContainerRequestContext request, Jws<Claims> jws, String username,
+                                                     Set<String> roles) {
         request.setSecurityContext(new SecurityContext() {
             @Override
             public Principal getUserPrincipal() {
@@ -98,7 +117,7 @@ public class JaxRs3JwtAuthenticationEngine
 
             @Override
             public boolean isUserInRole(String role) {
-                return false;
+                return role != null && roles.contains(role);
             }
 
             @Override
@@ -117,10 +136,7 @@ public class JaxRs3JwtAuthenticationEngine
     @Override
     protected void sendChallenge(ContainerRequestContext request, ContainerResponseContext response,
                                  Challenge challenge) {
-        String realm = selectRealm(JwtHttpConstants.sanitiseHeaderParameterValue(getRequestUrl(request)));
-        Map<String, String> additionalParams =
-                buildChallengeParameters(challenge.errorCode(), challenge.errorDescription());
-        String authChallenge = buildAuthorizationHeader(realm, additionalParams);
+        String authChallenge = buildChallengeHeader(getRequestUrl(request), challenge);
 
         // Explicitly abort the request with the relevant status and HTTP Authentication challenge
         request.abortWith(buildChallengeResponse(authChallenge, challenge));
@@ -152,6 +168,17 @@ public class JaxRs3JwtAuthenticationEngine
         return request.getUriInfo().getRequestUri().toString();
     }
 
+    @Override
+    protected String getRequestPath(ContainerRequestContext request) {
+        // Consistent with the path used by the JwtAuthFilter when applying path exclusions
+        return "/" + request.getUriInfo().getPath();
+    }
+
+    @Override
+    protected String getRequestMethod(ContainerRequestContext request) {
+        return request.getMethod();
+    }
+
     @Override
     protected void setRequestAttribute(ContainerRequestContext request, String attribute,
                                        Object value) {
@@ -28,6 +28,7 @@ import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractJwtAuthFilter;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtLoggingConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.FrozenFilterConfiguration;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.FrozenFilterConfiguration.Snapshot;
 import jakarta.annotation.Priority;
 import jakarta.servlet.ServletContext;
 import jakarta.ws.rs.Priorities;
@@ -37,7 +38,6 @@ import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
-import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -72,37 +72,36 @@ public class JwtAuthFilter extends AbstractJwtAuthFilter
     public void filter(ContainerRequestContext request) throws IOException {
         MDC.put(JwtLoggingConstants.MDC_JWT_USER, null);
 
-        if (this.config.getExclusions() == null) {
+        Snapshot<ContainerRequestContext, ContainerResponseContext> current = this.config.snapshot();
+        if (current.exclusions() == null) {
             this.config.tryFreezeExclusionsConfiguration(
                     this.servletContext.getAttribute(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS));
+            current = this.config.snapshot();
         }
-        Function<String, Object> attributeGetter = x -> this.servletContext.getAttribute(x);
-        this.config.warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS, attributeGetter,
-                                                this.config.getExclusions());
-        if (this.isExcludedPath("/" + request.getUriInfo().getPath(), this.config.getExclusions())) {
+        if (this.isExcludedPath(request.getMethod(), "/" + request.getUriInfo().getPath(), current.exclusions())) {
             return;
         }
 
-        if (this.config.getEngine() == null) {
-            this.config.tryFreezeEngineConfiguration(
-                    this.servletContext.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE),
-                    new JaxRs3JwtAuthenticationEngine());
+        if (!current.isComplete()) {
+            if (current.engine() == null) {
+                this.config.tryFreezeEngineConfiguration(
+                        this.servletContext.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE),
+                        new JaxRs3JwtAuthenticationEngine());
+            }
+            if (current.verifier() == null) {
+                this.config.tryFreezeVerifierConfiguration(
+                        this.servletContext.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_VERIFIER));
+            }
+            current = this.config.snapshot();
         }
-        this.config.warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_JWT_ENGINE, attributeGetter,
-                                                this.config.getEngine());
-        if (this.config.getVerifier() == null) {
-            this.config.tryFreezeVerifierConfiguration(
-                    this.servletContext.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_VERIFIER));
-        }
-        this.config.warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_JWT_VERIFIER, attributeGetter,
-                                                this.config.getVerifier());
+        this.config.checkForModifications(this.servletContext::getAttribute);
 
         if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace("Using JWT Authentication engine {} with JWT verifier {}", this.config.getEngine(),
-                         this.config.getVerifier());
+            LOGGER.trace("Using JWT Authentication engine {} with JWT verifier {}", current.engine(),
+                         current.verifier());
         }
 
-        if (this.config.getEngine().authenticate(request, null, this.config.getVerifier()) == null) {
+        if (current.engine().authenticate(request, null, current.verifier()) == null) {
             LOGGER.warn("Request to {} rejected as unauthenticated", request.getUriInfo() !=null
                 ? request.getUriInfo().getRequestUri()
                 : StringUtils.EMPTY);
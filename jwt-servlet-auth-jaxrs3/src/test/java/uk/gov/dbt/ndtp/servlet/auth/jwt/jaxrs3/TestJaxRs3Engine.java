@@ -68,6 +68,15 @@ public class TestJaxRs3Engine
         return mockRequest(TEST_REQUEST_URI, headers);
     }
 
+    @Override
+    protected ContainerRequestContext createMockRequest(String method, String path, Map<String, String> headers) {
+        ContainerRequestContext request = mockRequest(TEST_REQUEST_URI, headers);
+        // Stub the path directly, rather than via a URI, so that paths the runtime might normalise are preserved
+        when(request.getUriInfo().getPath()).thenReturn(path.substring(1));
+        when(request.getMethod()).thenReturn(method);
+        return request;
+    }
+
     public static ContainerRequestContext mockRequest(URI requestUri, Map<String, String> headers) {
         ContainerRequestContext request = mock(ContainerRequestContext.class);
         MultivaluedMap<String, String> mockHeaders = mock(MultivaluedMap.class);
@@ -149,6 +158,12 @@ public class TestJaxRs3Engine
         return new JaxRs3JwtAuthenticationEngine(authHeaders, realm, usernameClaims);
     }
 
+    @Override
+    protected JwtAuthenticationEngine<ContainerRequestContext, ContainerResponseContext> createEngine(
+            List<HeaderSource> authHeaders, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return new JaxRs3JwtAuthenticationEngine(authHeaders, realm, usernameClaims, roleClaims);
+    }
+
     @Override
     protected boolean throwsOnUnexpectedErrors() {
         return true;
@@ -188,6 +203,13 @@ public class TestJaxRs3Engine
         return verifyAuthenticatedUser(authenticatedRequest);
     }
 
+    @Override
+    protected boolean isUserInRole(ContainerRequestContext authenticatedRequest, String role) {
+        ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
+        verify(authenticatedRequest).setSecurityContext(captor.capture());
+        return captor.getValue().isUserInRole(role);
+    }
+
     public final static String verifyAuthenticatedUser(ContainerRequestContext authenticatedRequest) {
         ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
         verify(authenticatedRequest).setSecurityContext(captor.capture());
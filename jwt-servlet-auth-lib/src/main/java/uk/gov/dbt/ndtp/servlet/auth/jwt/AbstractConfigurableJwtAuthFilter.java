@@ -23,16 +23,25 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
-import java.util.function.Function;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.AutomatedConfiguration;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.FrozenFilterConfiguration;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.FrozenFilterConfiguration.Snapshot;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.RuntimeConfigurationAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.AuthenticationConfigurationError;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicy;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicyRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.AsyncJwtVerifier;
 
 /**
  * An abstract configurable JWT authentication filter
@@ -51,12 +60,57 @@ public abstract class AbstractConfigurableJwtAuthFilter<TRequest, TResponse>
     protected FrozenFilterConfiguration<TRequest, TResponse> config = new FrozenFilterConfiguration<>();
 
     /**
-     * The last authenticated request.
-     * <p>
-     * <strong>NOT THREAD SAFE</strong>, intended for unit test usage only
-     * </p>
+     * Observers of authentication results, replaced wholesale whenever an observer is added/removed so that the request
+     * path only ever performs a single volatile read
+     */
+    private volatile List<AuthenticationObserver<TRequest>> observers = List.of();
+
+    /**
+     * Adds an observer that will be notified of the outcome of each request filtered by this filter
+     *
+     * @param observer Observer
+     */
+    public synchronized void addObserver(AuthenticationObserver<TRequest> observer) {
+        Objects.requireNonNull(observer, "Observer cannot be null");
+        List<AuthenticationObserver<TRequest>> updated = new ArrayList<>(this.observers);
+        updated.add(observer);
+        this.observers = List.copyOf(updated);
+    }
+
+    /**
+     * Removes a previously added observer
+     *
+     * @param observer Observer
+     * @return True if the observer was removed, false if it was not present
      */
-    protected TRequest lastAuthenticatedRequest;
+    public synchronized boolean removeObserver(AuthenticationObserver<TRequest> observer) {
+        List<AuthenticationObserver<TRequest>> updated = new ArrayList<>(this.observers);
+        boolean removed = updated.remove(observer);
+        if (removed) {
+            this.observers = List.copyOf(updated);
+        }
+        return removed;
+    }
+
+    /**
+     * Notifies any observers of the outcome of a request
+     *
+     * @param request              Request
+     * @param authenticatedRequest Authenticated request, {@code null} if rejected or excluded
+     */
+    private void notifyObservers(TRequest request, TRequest authenticatedRequest) {
+        List<AuthenticationObserver<TRequest>> current = this.observers;
+        if (current.isEmpty()) {
+            return;
+        }
+        for (AuthenticationObserver<TRequest> observer : current) {
+            try {
+                observer.onAuthenticationResult(request, authenticatedRequest);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Authentication observer {} failed: {}", observer, e.getMessage());
+            }
+        }
+    }
 
     /**
      * Called to automatically configure the filter from the available configuration parameters
@@ -106,6 +160,58 @@ public abstract class AbstractConfigurableJwtAuthFilter<TRequest, TResponse>
      */
     protected abstract String getPath(TRequest request);
 
+    /**
+     * Gets the request HTTP method, used to apply method qualified path exclusions
+     * <p>
+     * The default implementation returns {@code null} in which case method qualified path exclusions never apply.
+     * </p>
+     *
+     * @param request Request
+     * @return HTTP method, or {@code null} if not known
+     */
+    protected String getMethod(TRequest request) {
+        return null;
+    }
+
+    /**
+     * Gets whether the request can be suspended while it is authenticated asynchronously
+     * <p>
+     * When this returns {@code true}, and the configured verifier is an {@link AsyncJwtVerifier}, the request is
+     * authenticated asynchronously and if verification cannot complete immediately then the request is suspended via
+     * {@link #suspend(Object, Object)} so that the calling thread is released.  The default implementation returns
+     * {@code false} so requests are always authenticated synchronously.
+     * </p>
+     *
+     * @param request Request
+     * @return True if the request can be suspended, false otherwise
+     */
+    protected boolean isSuspendable(TRequest request) {
+        return false;
+    }
+
+    /**
+     * Suspends the request while it is authenticated asynchronously, only called if
+     * {@link #isSuspendable(Object)} returned {@code true}
+     * <p>
+     * This is called on the request thread, and authentication is not permitted to complete, i.e. the response is not
+     * written to, until this has returned.
+     * </p>
+     * <p>
+     * The returned function is called exactly once when authentication completes, potentially on another thread, with
+     * the authenticated request, or {@code null} if authentication failed in which case the response has already been
+     * sent.  It is responsible for resuming the request, and for continuing processing of an authenticated request in
+     * the same way that {@code onSuccess} would for a request authenticated synchronously.
+     * </p>
+     *
+     * @param request  Request
+     * @param response Response
+     * @return Function that resumes the request, or {@code null} if the request could not be suspended in which case the
+     * calling thread waits for authentication to complete
+     */
+    protected Consumer<TRequest> suspend(TRequest request, TResponse response) {
+        return null;
+    }
+
     /**
      * Gets the default authentication engine to use if an engine has not been explicitly configured
      *
@@ -130,51 +236,115 @@ public abstract class AbstractConfigurableJwtAuthFilter<TRequest, TResponse>
      *                  unnecessary)
      */
     public final void doFilter(TRequest request, TResponse response, BiConsumer<TRequest, TResponse> onSuccess) {
-        this.lastAuthenticatedRequest = null;
         MDC.put(JwtLoggingConstants.MDC_JWT_USER, null);
 
-        if (this.config.getExclusions() == null) {
+        Snapshot<TRequest, TResponse> current = this.config.snapshot();
+        if (current.exclusions() == null) {
             this.config.tryFreezeExclusionsConfiguration(
                     this.getAttribute(request, JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS));
+            current = this.config.snapshot();
         }
-        Function<String, Object> attributeGetter = x -> this.getAttribute(request, x);
-        this.config.warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS, attributeGetter,
-                                                this.config.getExclusions());
-        if (this.isExcludedPath(this.getPath(request), this.config.getExclusions())) {
+        if (this.isExcludedPath(this.getMethod(request), this.getPath(request), current.exclusions())) {
             // If the path is excluded this filter doesn't apply to the request, and we treat it as a success
+            notifyObservers(request, null);
             onSuccess.accept(request, response);
             return;
         }
 
-        if (this.config.getEngine() == null) {
-            this.config.tryFreezeEngineConfiguration(this.getAttribute(request, JwtServletConstants.ATTRIBUTE_JWT_ENGINE),
-                                                     this.getDefaultEngine());
-        }
-        this.config.warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_JWT_ENGINE, attributeGetter,
-                                                this.config.getEngine());
-        if (this.config.getVerifier() == null) {
-            this.config.tryFreezeVerifierConfiguration(
-                    this.getAttribute(request, JwtServletConstants.ATTRIBUTE_JWT_VERIFIER));
+        if (!current.isComplete()) {
+            current = this.freezeRemainingConfiguration(request, current);
         }
-        this.config.warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_JWT_VERIFIER, attributeGetter,
-                                                this.config.getVerifier());
+        this.config.checkForModifications(x -> this.getAttribute(request, x));
 
         if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace("Using JWT Authentication engine {} with JWT verifier {}", this.config.getEngine(),
-                         this.config.getVerifier());
+            LOGGER.trace("Using JWT Authentication engine {} with JWT verifier {}", current.engine(),
+                         current.verifier());
         }
 
-        TRequest authenticatedRequest =
-                this.config.getEngine().authenticate(request, response, this.config.getVerifier());
+        JwtAuthenticationEngine<TRequest, TResponse> engine = current.engine();
+        TRequest authenticatedRequest;
+        if (current.verifier() instanceof AsyncJwtVerifier asyncVerifier && this.isSuspendable(request)) {
+            // Suspend the request before the engine is permitted to complete authentication on another thread, so the
+            // response is never written to concurrently with suspending the request
+            AtomicReference<Consumer<TRequest>> suspended = new AtomicReference<>();
+            CompletableFuture<TRequest> authentication =
+                    engine.authenticateAsync(request, response, asyncVerifier,
+                                             () -> suspended.set(this.suspend(request, response)))
+                          .toCompletableFuture();
+            Consumer<TRequest> resume = suspended.get();
+            if (resume != null) {
+                authentication.whenComplete(
+                        (authenticated, e) -> resume(request, response, engine, authenticated, resume));
+                return;
+            }
+            authenticatedRequest = authentication.join();
+        } else {
+            authenticatedRequest = engine.authenticate(request, response, current.verifier());
+        }
+        notifyObservers(request, authenticatedRequest);
         if (authenticatedRequest != null) {
-            this.lastAuthenticatedRequest = authenticatedRequest;
             onSuccess.accept(authenticatedRequest, response);
         } else {
-            LOGGER.warn("Request to {} rejected as unauthenticated with HTTP {}",
-                        this.config.getEngine() != null
-                            ? this.config.getEngine().getRequestUrl(request)
-                            : StringUtils.EMPTY,
-                getStatus(response));
+            warnRejected(request, response, engine);
+        }
+    }
+
+    /**
+     * Resumes a request that was suspended while it was authenticated asynchronously
+     *
+     * @param request       Request
+     * @param response      Response
+     * @param engine        Authentication engine
+     * @param authenticated Authenticated request, {@code null} if authentication failed
+     * @param resume        Function that resumes the request
+     */
+    private void resume(TRequest request, TResponse response, JwtAuthenticationEngine<TRequest, TResponse> engine,
+                        TRequest authenticated, Consumer<TRequest> resume) {
+        notifyObservers(request, authenticated);
+        if (authenticated == null) {
+            warnRejected(request, response, engine);
+        }
+        try {
+            resume.accept(authenticated);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to resume request to {} after asynchronous authentication: {}",
+                        engine.getRequestUrl(request), e.getMessage());
+        }
+    }
+
+    /**
+     * Logs that a request was rejected as unauthenticated
+     *
+     * @param request  Request
+     * @param response Response
+     * @param engine   Authentication engine
+     */
+    private void warnRejected(TRequest request, TResponse response, JwtAuthenticationEngine<TRequest, TResponse> engine) {
+        if (LOGGER.isWarnEnabled()) {
+            String url = engine != null ? engine.getRequestUrl(request) : StringUtils.EMPTY;
+            if (AuthenticationLogPolicyRegistry.get().shouldLog(AuthenticationLogPolicy.REJECTED, url)) {
+                LOGGER.warn("Request to {} rejected as unauthenticated with HTTP {}", url, getStatus(response));
+            }
+        }
+    }
+
+    /**
+     * Freezes any configuration that was not previously frozen, only called until the configuration is complete
+     *
+     * @param request Request
+     * @param current Current configuration snapshot
+     * @return Updated configuration snapshot
+     */
+    private Snapshot<TRequest, TResponse> freezeRemainingConfiguration(TRequest request,
+                                                                      Snapshot<TRequest, TResponse> current) {
+        if (current.engine() == null) {
+            this.config.tryFreezeEngineConfiguration(this.getAttribute(request, JwtServletConstants.ATTRIBUTE_JWT_ENGINE),
+                                                     this.getDefaultEngine());
+        }
+        if (current.verifier() == null) {
+            this.config.tryFreezeVerifierConfiguration(
+                    this.getAttribute(request, JwtServletConstants.ATTRIBUTE_JWT_VERIFIER));
         }
+        return this.config.snapshot();
     }
 }
@@ -45,33 +45,63 @@ public class AbstractJwtAuthFilter {
      */
     protected static final int EXCLUSIONS_CACHE_SIZE = 10;
     /**
-     * We create a basic cache to control the flow of path exclusion warnings because without this these warnings can
-     * dominate the logs of relatively quiet services if automated monitoring tools are regularly pinging a health
-     * status endpoint (or other equivalent) that's been configured for exclusion and detracts from actual useful
-     * logging from the service.
-     * <p>
-     * Note that we set the cache size intentionally quite small (see {@link #EXCLUSIONS_CACHE_SIZE}) as applications
-     * should generally have very few exclusions, if they have too many paths being excluded then that's most likely a
-     * sign that they are misconfigured.  In that case we want them to be spammed by the warnings so they realise their
-     * mistake!
-     * </p>
+     * Maximum number of non-excluded path decisions memoised per filter
+     */
+    protected static final int INCLUDED_PATHS_CACHE_SIZE = 1_000;
+    /**
+     * Maximum length of a non-excluded path whose decision will be memoised, longer paths are always evaluated against
+     * the exclusions since they are unlikely to be repeated
+     */
+    protected static final int MAX_MEMOISED_PATH_LENGTH = 256;
+    /**
+     * How long an excluded path decision is memoised, and thus how often the warning for an excluded path may be
+     * repeated
+     */
+    private static final Duration EXCLUSION_WARNING_INTERVAL = Duration.ofMinutes(15);
+
+    /**
+     * Formerly used to control the flow of path exclusion warnings, this is now done by the per-filter memo of excluded
+     * path decisions so this cache is no longer consulted.
+     *
+     * @deprecated No longer used, excluded path decisions and their warnings are now memoised per filter
      */
+    @Deprecated(forRemoval = true)
     protected static final Cache<String, Boolean> EXCLUSION_WARNINGS_CACHE =
             Caffeine.newBuilder()
-                    .expireAfterWrite(Duration.ofMinutes(15))
+                    .expireAfterWrite(EXCLUSION_WARNING_INTERVAL)
                     .initialCapacity(EXCLUSIONS_CACHE_SIZE)
                     .maximumSize(
                             EXCLUSIONS_CACHE_SIZE)
                     .build();
 
+    /**
+     * The exclusions most recently checked against, compiled into a single matcher, along with the memoised decisions
+     */
+    private volatile ExclusionDecisions exclusionDecisions;
+
     /**
      * Gets whether the given path is an excluded path to which the filter should not apply
+     * <p>
+     * Since the HTTP method is not known any exclusions that are qualified with an HTTP method will not apply.
+     * </p>
      *
      * @param path       Path
      * @param exclusions Exclusions
      * @return True if the path is excluded from filtering i.e. no JWT authentication is required, false otherwise
      */
     protected boolean isExcludedPath(String path, List<PathExclusion> exclusions) {
+        return isExcludedPath(null, path, exclusions);
+    }
+
+    /**
+     * Gets whether the given request is to an excluded path to which the filter should not apply
+     *
+     * @param method     HTTP method of the request, may be {@code null} if unknown
+     * @param path       Path
+     * @param exclusions Exclusions
+     * @return True if the path is excluded from filtering i.e. no JWT authentication is required, false otherwise
+     */
+    protected boolean isExcludedPath(String method, String path, List<PathExclusion> exclusions) {
         if (exclusions == null || exclusions.isEmpty()) {
             return false;
         }
@@ -79,16 +109,72 @@ public class AbstractJwtAuthFilter {
             return false;
         }
 
-        boolean excluded = exclusions.stream().anyMatch(e -> e.matches(path));
-        if (excluded && EXCLUSION_WARNINGS_CACHE.getIfPresent(path) == null) {
-            //"TODO" Use a cache to prevent these warnings being spammed endlessly, this is especially true when something
-            // like a health status endpoint is excluded from authentication and being regularly hit by automated
-            // monitoring tools
-                LOGGER.warn("Request to path {} is excluded from JWT Authentication filtering by filter configuration",
-                            path);
-                EXCLUSION_WARNINGS_CACHE.put(path, Boolean.TRUE);
+        ExclusionDecisions decisions = this.exclusionDecisions;
+        if (decisions == null || !decisions.matcher.isCompiledFrom(exclusions)) {
+            decisions = new ExclusionDecisions(PathExclusionMatcher.compile(exclusions),
+                                               exclusions.stream().anyMatch(e -> e.getMethod() != null));
+            this.exclusionDecisions = decisions;
         }
-        return excluded;
+        return decisions.isExcluded(method, path);
     }
-}
 
+    /**
+     * A bounded memo of the exclusion decisions made for a specific set of path exclusions
+     * <p>
+     * Excluded paths are memoised in a deliberately small cache (see {@link #EXCLUSIONS_CACHE_SIZE}), and a warning is
+     * issued each time an excluded path is added to it.  This controls the flow of path exclusion warnings because
+     * without this these warnings can dominate the logs of relatively quiet services if automated monitoring tools are
+     * regularly pinging a health status endpoint (or other equivalent) that's been configured for exclusion and
+     * detracts from actual useful logging from the service.  Applications should generally have very few exclusions,
+     * if they have too many paths being excluded then that's most likely a sign that they are misconfigured.  In that
+     * case we want them to be spammed by the warnings so they realise their mistake!
+     * </p>
+     * <p>
+     * Non-excluded paths are memoised in a larger cache (see {@link #INCLUDED_PATHS_CACHE_SIZE}), whose frequency based
+     * admission policy, along with the {@link #MAX_MEMOISED_PATH_LENGTH} limit, prevents high cardinality paths, e.g.
+     * those containing identifiers, from displacing the frequently repeated paths.
+     * </p>
+     */
+    private static final class ExclusionDecisions {
+        private final PathExclusionMatcher matcher;
+        private final boolean methodQualified;
+        private final Cache<String, Boolean> excluded = Caffeine.newBuilder()
+                                                                .expireAfterWrite(EXCLUSION_WARNING_INTERVAL)
+                                                                .initialCapacity(EXCLUSIONS_CACHE_SIZE)
+                                                                .maximumSize(EXCLUSIONS_CACHE_SIZE)
+                                                                .build();
+        private final Cache<String, Boolean> included = Caffeine.newBuilder()
+                                                                .maximumSize(INCLUDED_PATHS_CACHE_SIZE)
+                                                                .build();
+
+        private ExclusionDecisions(PathExclusionMatcher matcher, boolean methodQualified) {
+            this.matcher = matcher;
+            this.methodQualified = methodQualified;
+        }
+
+        private boolean isExcluded(String method, String path) {
+            // Only need to include the method in the key if some exclusions are method specific
+            String key = this.methodQualified ? method + " " + path : path;
+            if (this.excluded.getIfPresent(key) != null) {
+                return true;
+            }
+            boolean memoise = path.length() <= MAX_MEMOISED_PATH_LENGTH;
+            if (memoise && this.included.getIfPresent(key) != null) {
+                return false;
+            }
+
+            boolean excluded = this.matcher.matches(method, path);
+            if (excluded) {
+                warnExcluded(path);
+                this.excluded.put(key, Boolean.TRUE);
+            } else if (memoise) {
+                this.included.put(key, Boolean.FALSE);
+            }
+            return excluded;
+        }
+
+        private static void warnExcluded(String path) {
+            LOGGER.warn("Request to path {} is excluded from JWT Authentication filtering by filter configuration", path);
+        }
+    }
+}
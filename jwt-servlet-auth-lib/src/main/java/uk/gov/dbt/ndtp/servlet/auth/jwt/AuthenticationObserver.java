@@ -0,0 +1,48 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+/**
+ * An observer that is notified of the outcome of each request filtered by an
+ * {@link AbstractConfigurableJwtAuthFilter}
+ * <p>
+ * Observers are called synchronously on the request thread so <strong>MUST</strong> be thread-safe and should return
+ * quickly.  Observers <strong>SHOULD NOT</strong> retain references to requests beyond the scope of the notification as
+ * doing so keeps the request, and its verified token, reachable after the request has completed.
+ * </p>
+ *
+ * @param <TRequest> Request type
+ */
+@FunctionalInterface
+public interface AuthenticationObserver<TRequest> {
+
+    /**
+     * Called with the outcome of filtering a request
+     *
+     * @param request              Request as received by the filter
+     * @param authenticatedRequest Authenticated request, or {@code null} if the request was rejected as unauthenticated,
+     *                             or did not require authentication because its path is excluded
+     */
+    void onAuthenticationResult(TRequest request, TRequest authenticatedRequest);
+}
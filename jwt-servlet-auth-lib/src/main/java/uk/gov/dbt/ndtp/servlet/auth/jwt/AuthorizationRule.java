@@ -0,0 +1,258 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.claims.ClaimPath;
+
+/**
+ * Represents an authorization rule that applies to requests whose path, and optionally HTTP method, match the rule
+ * <p>
+ * A rule is expressed as an optional HTTP method, a path pattern, and then one or more whitespace separated
+ * requirements, e.g. {@code GET /reports/** role=reader|admin claim:tenant=acme}.  Path patterns use the same Ant style
+ * wildcards as path exclusions, {@code *} matches zero or more characters within a single path segment, and {@code **}
+ * matches zero or more whole path segments.  The following requirements are supported:
+ * </p>
+ * <ul>
+ *     <li>{@code role=<role>[|<role>...]} requires that the user has at least one of the given roles, as extracted
+ *     from the configured role claims.</li>
+ *     <li>{@code claim:<claim>=<value>[|<value>...]} requires that the given claim, which may be a nested claim path
+ *     as described in {@link ClaimPath}, contains at least one of the given values.  The claim may be either a single
+ *     string or an array of strings.</li>
+ * </ul>
+ * <p>
+ * A request satisfies the rule only if it satisfies all the rule's requirements.
+ * </p>
+ */
+public final class AuthorizationRule {
+
+    /**
+     * Prefix for role requirements
+     */
+    public static final String ROLE_REQUIREMENT = "role=";
+    /**
+     * Prefix for claim requirements
+     */
+    public static final String CLAIM_REQUIREMENT = "claim:";
+
+    private static final Pattern METHOD = Pattern.compile("[A-Za-z]+");
+    private static final String REGEX_SYNTAX = "\\^$|?+()[]{}";
+
+    private final String rule;
+    private final String method;
+    private final String pathPattern;
+    private final Set<String> roles;
+    private final List<ClaimRequirement> claims;
+    private final boolean denyAll;
+
+    /**
+     * Creates a new authorization rule
+     *
+     * @param rule Rule
+     * @throws IllegalArgumentException Thrown if the rule is not valid
+     */
+    public AuthorizationRule(String rule) {
+        if (StringUtils.isBlank(rule)) {
+            throw new IllegalArgumentException("Cannot have a blank authorization rule");
+        }
+        this.rule = rule.strip();
+        String[] tokens = StringUtils.split(this.rule);
+        int i = 0;
+        if (METHOD.matcher(tokens[0]).matches()) {
+            this.method = tokens[0].toUpperCase(Locale.ROOT);
+            i++;
+        } else {
+            this.method = null;
+        }
+        if (i >= tokens.length || !tokens[i].startsWith("/")) {
+            throw invalid("path pattern must start with /");
+        }
+        if (StringUtils.containsAny(tokens[i], REGEX_SYNTAX)) {
+            throw invalid("path pattern may only use * and ** wildcards");
+        }
+        if (tokens[i].indexOf(';') >= 0) {
+            throw invalid("path pattern may not contain path parameters");
+        }
+        // Patterns are canonicalised in the same way as request paths so that e.g. /admin/ and /admin are equivalent
+        this.pathPattern = AuthorizationRules.canonicalise(tokens[i++]);
+        if (this.pathPattern == null) {
+            throw invalid("path pattern may not contain . or .. segments");
+        }
+        if (i >= tokens.length) {
+            throw invalid("at least one requirement must be given");
+        }
+
+        Set<String> requiredRoles = new LinkedHashSet<>();
+        List<ClaimRequirement> requiredClaims = new ArrayList<>();
+        for (; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.startsWith(ROLE_REQUIREMENT)) {
+                if (!requiredRoles.isEmpty()) {
+                    throw invalid("only one role requirement may be given, use | to separate alternative roles");
+                }
+                requiredRoles.addAll(values(token.substring(ROLE_REQUIREMENT.length())));
+            } else if (token.startsWith(CLAIM_REQUIREMENT)) {
+                String requirement = token.substring(CLAIM_REQUIREMENT.length());
+                int equals = requirement.indexOf('=');
+                if (equals <= 0) {
+                    throw invalid("claim requirement " + token + " must be of the form claim:<claim>=<value>");
+                }
+                requiredClaims.add(new ClaimRequirement(ClaimPath.parse(requirement.substring(0, equals)),
+                                                        values(requirement.substring(equals + 1))));
+            } else {
+                throw invalid("unrecognised requirement " + token);
+            }
+        }
+        this.roles = Set.copyOf(requiredRoles);
+        this.claims = List.copyOf(requiredClaims);
+        this.denyAll = false;
+    }
+
+    /**
+     * Creates a rule that applies to all requests and is never satisfied
+     *
+     * @param description Description of the rule
+     * @param denyAll     Whether the rule is never satisfied
+     */
+    private AuthorizationRule(String description, boolean denyAll) {
+        this.rule = description;
+        this.method = null;
+        this.pathPattern = "/" + PathExclusion.MULTI_SEGMENT_WILDCARD;
+        this.roles = Set.of();
+        this.claims = List.of();
+        this.denyAll = denyAll;
+    }
+
+    /**
+     * Creates a rule that is never satisfied, used to refuse requests that cannot be safely checked against the
+     * configured rules
+     *
+     * @param description Description of why requests are refused
+     * @return Rule
+     */
+    static AuthorizationRule denyAll(String description) {
+        return new AuthorizationRule(description, true);
+    }
+
+    private IllegalArgumentException invalid(String reason) {
+        return new IllegalArgumentException(
+                String.format("Authorization rule %s is not valid, %s", this.rule, reason));
+    }
+
+    private Set<String> values(String rawValues) {
+        Set<String> values = new LinkedHashSet<>();
+        for (String value : StringUtils.split(rawValues, '|')) {
+            if (StringUtils.isNotBlank(value)) {
+                values.add(value);
+            }
+        }
+        if (values.isEmpty()) {
+            throw invalid("requirements must specify at least one value");
+        }
+        return Set.copyOf(values);
+    }
+
+    /**
+     * Gets the HTTP method this rule is restricted to (if any)
+     *
+     * @return HTTP method, {@code null} if this rule applies to all methods
+     */
+    public String getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Gets the canonical path pattern for this rule i.e. without any HTTP method qualifier or requirements
+     *
+     * @return Path pattern
+     */
+    public String getPathPattern() {
+        return this.pathPattern;
+    }
+
+    /**
+     * Gets the roles of which a user must have at least one to satisfy this rule
+     *
+     * @return Roles, empty if this rule has no role requirement
+     */
+    public Set<String> getRoles() {
+        return this.roles;
+    }
+
+    /**
+     * Gets whether a user satisfies this rule
+     *
+     * @param claims Claims of the user's verified token
+     * @param roles  Supplier of the user's roles, only called if this rule has a role requirement
+     * @return True if satisfied, false otherwise
+     */
+    public boolean isSatisfiedBy(Map<String, ?> claims, Supplier<Set<String>> roles) {
+        if (this.denyAll) {
+            return false;
+        }
+        if (!this.roles.isEmpty()) {
+            Set<String> actual = roles.get();
+            if (actual == null || this.roles.stream().noneMatch(actual::contains)) {
+                return false;
+            }
+        }
+        for (ClaimRequirement claim : this.claims) {
+            if (!claim.isSatisfiedBy(claims)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.rule;
+    }
+
+    /**
+     * A requirement that a claim contains one of a set of values
+     *
+     * @param path   Claim path
+     * @param values Acceptable values
+     */
+    private record ClaimRequirement(ClaimPath path, Set<String> values) {
+
+        private boolean isSatisfiedBy(Map<String, ?> claims) {
+            for (String value : this.path.resolveStrings(claims)) {
+                if (this.values.contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A set of {@link AuthorizationRule}'s compiled into a single trie of path segments, so that a request can be checked
+ * against all the rules in a single pass over the path rather than testing each rule in turn.
+ * <p>
+ * The trie has the same structure as that used for path exclusions (see {@link PathExclusionMatcher}), except that
+ * each node holds the rules whose patterns end at that node.  Every rule that matches a request must be satisfied for
+ * the request to be authorized, requests that match no rules are authorized by virtue of being authenticated.
+ * </p>
+ */
+public final class AuthorizationRules {
+
+    /**
+     * An empty set of rules, which authorizes every authenticated request
+     */
+    public static final AuthorizationRules NONE = new AuthorizationRules(List.of());
+
+    /**
+     * The rule reported as unsatisfied for requests whose path is not known, or which contains {@code .} or {@code ..}
+     * segments, such requests cannot be reliably matched against the rules so are always refused
+     */
+    static final AuthorizationRule NON_CANONICAL_PATH =
+            AuthorizationRule.denyAll("Request path is unknown or contains . or .. segments");
+
+    private static final int END = -1;
+
+    private final List<AuthorizationRule> rules;
+    private final Node root = new Node();
+
+    private AuthorizationRules(List<AuthorizationRule> rules) {
+        this.rules = List.copyOf(rules);
+        for (AuthorizationRule rule : this.rules) {
+            Node node = this.root;
+            for (String segment : StringUtils.splitPreserveAllTokens(rule.getPathPattern(), '/')) {
+                node = node.child(segment);
+            }
+            node.add(rule);
+        }
+    }
+
+    /**
+     * Compiles the given rules
+     *
+     * @param rules Rules
+     * @return Compiled rules
+     */
+    public static AuthorizationRules compile(List<AuthorizationRule> rules) {
+        return rules == null || rules.isEmpty() ? NONE : new AuthorizationRules(rules);
+    }
+
+    /**
+     * Parses raw authorization rules, specified as a semicolon separated list of strings, into compiled rules
+     *
+     * @param rawRules Raw rules
+     * @return Compiled rules
+     * @throws IllegalArgumentException Thrown if any of the rules are invalid
+     */
+    public static AuthorizationRules parse(String rawRules) {
+        if (StringUtils.isBlank(rawRules)) {
+            return NONE;
+        }
+        List<AuthorizationRule> rules = new ArrayList<>();
+        for (String rawRule : StringUtils.split(rawRules, ';')) {
+            if (StringUtils.isNotBlank(rawRule)) {
+                rules.add(new AuthorizationRule(rawRule));
+            }
+        }
+        return compile(rules);
+    }
+
+    /**
+     * Gets whether there are no rules
+     *
+     * @return True if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.rules.isEmpty();
+    }
+
+    /**
+     * Gets the rules
+     *
+     * @return Rules
+     */
+    public List<AuthorizationRule> getRules() {
+        return this.rules;
+    }
+
+    /**
+     * Finds a rule, applicable to the given request, that the user does not satisfy
+     *
+     * @param method HTTP method of the request, may be {@code null} if unknown in which case rules qualified with any
+     *               HTTP method apply
+     * @param path   Path, relative to the application, this is canonicalised per {@link #canonicalise(String)} prior to
+     *               matching
+     * @param claims Claims of the user's verified token
+     * @param roles  Supplier of the user's roles, called at most once and only if an applicable rule has a role
+     *               requirement
+     * @return Unsatisfied rule, or {@code null} if the user satisfies all applicable rules
+     */
+    public AuthorizationRule findUnsatisfied(String method, String path, Map<String, ?> claims,
+                                             Supplier<Set<String>> roles) {
+        if (this.rules.isEmpty()) {
+            return null;
+        }
+        String canonical = canonicalise(path);
+        if (canonical == null) {
+            return NON_CANONICAL_PATH;
+        }
+        Request request =
+                new Request(method != null ? method.toUpperCase(Locale.ROOT) : null, canonical, claims, roles);
+        return find(this.root, request, 0);
+    }
+
+    /**
+     * Canonicalises a path so that all the variants of a path that a servlet container would map to the same resource
+     * are matched identically
+     * <p>
+     * Path parameters, i.e. anything from a {@code ;} to the end of a segment, are removed, as are empty segments, so
+     * a trailing {@code /} and repeated {@code /} are ignored.  Paths containing {@code .} or {@code ..} segments,
+     * including their percent encoded forms, are not canonicalised, since whether they are resolved before reaching
+     * the application depends upon the runtime, as are paths that are not absolute.
+     * </p>
+     *
+     * @param path Path
+     * @return Canonical path, or {@code null} if the path cannot be canonicalised
+     */
+    static String canonicalise(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+        StringBuilder canonical = new StringBuilder(path.length());
+        for (String segment : StringUtils.split(path, '/')) {
+            int parameters = segment.indexOf(';');
+            if (parameters >= 0) {
+                segment = segment.substring(0, parameters);
+            }
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (isDotSegment(segment)) {
+                return null;
+            }
+            canonical.append('/').append(segment);
+        }
+        return canonical.isEmpty() ? "/" : canonical.toString();
+    }
+
+    private static boolean isDotSegment(String segment) {
+        if (segment.length() > 6 || (segment.charAt(0) != '.' && segment.charAt(0) != '%')) {
+            return false;
+        }
+        String decoded = segment.replace("%2e", ".").replace("%2E", ".");
+        return ".".equals(decoded) || "..".equals(decoded);
+    }
+
+    private static AuthorizationRule find(Node node, Request request, int start) {
+        String path = request.path;
+        if (start == END) {
+            AuthorizationRule unsatisfied = node.findUnsatisfied(request);
+            if (unsatisfied == null && node.multiSegment != null) {
+                unsatisfied = find(node.multiSegment, request, END);
+            }
+            return unsatisfied;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end == -1) {
+            end = path.length();
+        }
+        int next = end < path.length() ? end + 1 : END;
+
+        if (!node.literals.isEmpty()) {
+            Node literal = node.literals.get(path.substring(start, end));
+            if (literal != null) {
+                AuthorizationRule unsatisfied = find(literal, request, next);
+                if (unsatisfied != null) {
+                    return unsatisfied;
+                }
+            }
+        }
+        for (Map.Entry<String, Node> wildcard : node.wildcards.entrySet()) {
+            if (PathExclusionMatcher.globMatches(wildcard.getKey(), path, start, end)) {
+                AuthorizationRule unsatisfied = find(wildcard.getValue(), request, next);
+                if (unsatisfied != null) {
+                    return unsatisfied;
+                }
+            }
+        }
+        if (node.multiSegment != null) {
+            // A multi-segment wildcard may consume zero or more segments so try each possible remainder of the path
+            int remainder = start;
+            while (remainder != END) {
+                AuthorizationRule unsatisfied = find(node.multiSegment, request, remainder);
+                if (unsatisfied != null) {
+                    return unsatisfied;
+                }
+                int slash = path.indexOf('/', remainder);
+                remainder = slash != -1 ? slash + 1 : END;
+            }
+            return find(node.multiSegment, request, END);
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.join(this.rules, "; ");
+    }
+
+    /**
+     * The request being authorized, with the user's roles resolved at most once
+     */
+    private static final class Request {
+        private final String method;
+        private final String path;
+        private final Map<String, ?> claims;
+        private final Supplier<Set<String>> rolesSupplier;
+        private Set<String> roles;
+
+        private Request(String method, String path, Map<String, ?> claims, Supplier<Set<String>> rolesSupplier) {
+            this.method = method;
+            this.path = path;
+            this.claims = claims;
+            this.rolesSupplier = rolesSupplier;
+        }
+
+        private Set<String> roles() {
+            if (this.roles == null) {
+                Set<String> resolved = this.rolesSupplier != null ? this.rolesSupplier.get() : null;
+                this.roles = resolved != null ? resolved : Set.of();
+            }
+            return this.roles;
+        }
+    }
+
+    /**
+     * A node within the trie
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final Map<String, Node> wildcards = new LinkedHashMap<>();
+        private Node multiSegment;
+        private final List<AuthorizationRule> anyMethod = new ArrayList<>();
+        private Map<String, List<AuthorizationRule>> methods;
+
+        private Node child(String segment) {
+            if (PathExclusion.MULTI_SEGMENT_WILDCARD.equals(segment)) {
+                if (this.multiSegment == null) {
+                    this.multiSegment = new Node();
+                }
+                return this.multiSegment;
+            } else if (segment.contains(PathExclusion.WILDCARD)) {
+                return this.wildcards.computeIfAbsent(segment, s -> new Node());
+            } else {
+                return this.literals.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+
+        private void add(AuthorizationRule rule) {
+            if (rule.getMethod() == null) {
+                this.anyMethod.add(rule);
+            } else {
+                if (this.methods == null) {
+                    this.methods = new HashMap<>();
+                }
+                this.methods.computeIfAbsent(rule.getMethod(), m -> new ArrayList<>()).add(rule);
+            }
+        }
+
+        private AuthorizationRule findUnsatisfied(Request request) {
+            AuthorizationRule unsatisfied = findUnsatisfied(this.anyMethod, request);
+            if (unsatisfied == null && this.methods != null) {
+                if (request.method != null) {
+                    unsatisfied = findUnsatisfied(this.methods.getOrDefault(request.method, List.of()), request);
+                } else {
+                    // Method is unknown so fail closed and apply the rules for every method
+                    for (List<AuthorizationRule> methodRules : this.methods.values()) {
+                        unsatisfied = findUnsatisfied(methodRules, request);
+                        if (unsatisfied != null) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return unsatisfied;
+        }
+
+        private static AuthorizationRule findUnsatisfied(List<AuthorizationRule> rules, Request request) {
+            for (AuthorizationRule rule : rules) {
+                if (!rule.isSatisfiedBy(request.claims, request::roles)) {
+                    return rule;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -25,12 +25,14 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.RequiredTypeException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.claims.ClaimPath;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
 
 /**
@@ -57,6 +59,22 @@ public abstract class HeaderBasedJwtAuthenticationEngine<TRequest, TResponse>
      * The claim(s) from which to extract the username
      */
     protected final List<String> usernameClaims;
+    /**
+     * The username claim(s) compiled into claim paths
+     */
+    private final List<ClaimPath> usernameClaimPaths;
+    /**
+     * The claim(s) from which to extract the roles of the user
+     */
+    protected final List<String> roleClaims;
+    /**
+     * The role claim(s) compiled into claim paths
+     */
+    private final List<ClaimPath> roleClaimPaths;
+    /**
+     * The configured realm sanitised for use in challenges, {@code null} if no realm was configured
+     */
+    private final String sanitisedRealm;
 
     /**
      * Creates a new engine
@@ -64,40 +82,83 @@ public abstract class HeaderBasedJwtAuthenticationEngine<TRequest, TResponse>
      * @param headers        HTTP Headers that may be used to provide a token
      * @param realm          Realm to use in challenges
      * @param usernameClaims Username claim(s) from which the username should be extracted.  The first claim that
-     *                       contains a non-empty value that is a valid string will be used.
+     *                       contains a non-empty value that is a valid string will be used.  Claims may be nested
+     *                       claim paths as described in {@link ClaimPath}.
      */
     protected HeaderBasedJwtAuthenticationEngine(Collection<HeaderSource> headers, String realm,
                                               Collection<String> usernameClaims) {
+        this(headers, realm, usernameClaims, null);
+    }
+
+    /**
+     * Creates a new engine
+     *
+     * @param headers        HTTP Headers that may be used to provide a token
+     * @param realm          Realm to use in challenges
+     * @param usernameClaims Username claim(s) from which the username should be extracted.  The first claim that
+     *                       contains a non-empty value that is a valid string will be used.  Claims may be nested
+     *                       claim paths as described in {@link ClaimPath}.
+     * @param roleClaims     Role claim(s) from which the roles of the user should be extracted.  The roles are the
+     *                       union of the string values of all these claims, each claim may contain either a single
+     *                       string or an array of strings.  Claims may be nested claim paths as described in
+     *                       {@link ClaimPath}.
+     */
+    protected HeaderBasedJwtAuthenticationEngine(Collection<HeaderSource> headers, String realm,
+                                              Collection<String> usernameClaims, Collection<String> roleClaims) {
         Objects.requireNonNull(headers, "Header sources cannot be null");
         if (headers.isEmpty()) {
             throw new IllegalArgumentException("Header sources cannot be empty");
         }
         this.headers.addAll(headers);
         this.realm = realm;
+        this.sanitisedRealm =
+                StringUtils.isNotBlank(realm) ? JwtHttpConstants.sanitiseHeaderParameterValue(realm) : null;
         this.usernameClaims = usernameClaims != null ? List.copyOf(usernameClaims) : List.of();
+        this.usernameClaimPaths = ClaimPath.parseAll(this.usernameClaims);
+        this.roleClaims = roleClaims != null ? List.copyOf(roleClaims) : List.of();
+        this.roleClaimPaths = ClaimPath.parseAll(this.roleClaims);
     }
 
     @Override
     protected String extractUsername(Jws<Claims> jws) {
         // Try all the configured username claims in the provided order
-        for (String claim : this.usernameClaims) {
-            try {
-                if (!jws.getPayload().containsKey(claim)) {
-                    continue;
-                }
+        Claims claims = jws.getPayload();
+        for (ClaimPath claim : this.usernameClaimPaths) {
+            // Claims could be absent, not a string, or present but have a blank value (#17) in which case we want to
+            // continue to try another configured claim, or fallback to the subject of the JWS
+            String username = claim.resolveString(claims);
+            if (StringUtils.isNotBlank(username)) {
+                return username;
+            }
+        }
+        // Fallback to the subject of the JWS if none of the other claims provided a valid username
+        return claims.getSubject();
+    }
 
-                // Claims could be present but have a blank value (#17) in which case we want to continue to try another
-                // configured claim, or fallback to the subject of the JWS
-                String username = jws.getPayload().get(claim, String.class);
-                if (StringUtils.isNotBlank(username)) {
-                    return username;
+    /**
+     * Extracts the roles of the authenticated user from the configured role claims
+     * <p>
+     * This is intended to be called once per request when preparing the authenticated request so that role checks,
+     * e.g. {@code isUserInRole()}, are then a simple set lookup rather than repeatedly inspecting the claims.
+     * </p>
+     *
+     * @param jws Verified JWT
+     * @return Immutable set of roles, empty if no role claims are configured or none were present
+     */
+    @Override
+    protected Set<String> extractRoles(Jws<Claims> jws) {
+        if (this.roleClaimPaths.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> roles = new HashSet<>();
+        for (ClaimPath claim : this.roleClaimPaths) {
+            for (String role : claim.resolveStrings(jws.getPayload())) {
+                if (StringUtils.isNotBlank(role)) {
+                    roles.add(role);
                 }
-            } catch (RequiredTypeException e) {
-                // Claim value was not a string, so we'll try the next claim, or fallback to the subject of the JWS
             }
         }
-        // Fallback to the subject of the JWS if none of the other claims provided a valid username
-        return jws.getPayload().getSubject();
+        return Set.copyOf(roles);
     }
 
     /**
@@ -106,9 +167,15 @@ public abstract class HeaderBasedJwtAuthenticationEngine<TRequest, TResponse>
      * @param defaultRealm Default realm to use if one has not been explicitly configured
      * @return Realm
      */
+    @Override
     protected String selectRealm(String defaultRealm) {
-        return JwtHttpConstants.sanitiseHeaderParameterValue(
-                StringUtils.isNotBlank(this.realm) ? this.realm : defaultRealm);
+        return this.sanitisedRealm != null ? this.sanitisedRealm :
+               JwtHttpConstants.sanitiseHeaderParameterValue(defaultRealm);
+    }
+
+    @Override
+    protected boolean hasFixedRealm() {
+        return this.sanitisedRealm != null;
     }
 
     @Override
@@ -122,6 +189,8 @@ public abstract class HeaderBasedJwtAuthenticationEngine<TRequest, TResponse>
                .append(this.realm)
                .append(", usernameClaims=[")
                .append(StringUtils.join(this.usernameClaims, ", "))
+               .append("], roleClaims=[")
+               .append(StringUtils.join(this.roleClaims, ", "))
                .append("]}");
         return builder.toString();
     }
@@ -24,26 +24,35 @@
 package uk.gov.dbt.ndtp.servlet.auth.jwt;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.PrematureJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
-import io.jsonwebtoken.security.KeyException;
-import io.jsonwebtoken.security.SignatureException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.ChallengeRenderer;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.TokenCandidate;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.VerifiedToken;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.ChallengeEvent;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.JfrEvents;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.TokenExtractionEvent;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.TokenVerificationEvent;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.UsernameExtractionEvent;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicy;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicyRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.AsyncJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.TokenPrecheck;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
 
 /**
  * An authentication engine that verifies JSON Web Tokens (JWT)
@@ -54,7 +63,66 @@ import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthenticationEngine.class);
-    
+
+    private static final Challenge NO_CREDENTIALS = new Challenge(401, "", "");
+    private static final Challenge NO_TOKENS =
+            new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST, "No Bearer token(s) provided");
+    private static final Challenge NO_USERNAME =
+            new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Failed to find a username for the user");
+    private static final Challenge TOKEN_TOO_LONG =
+            new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Token is malformed: exceeds maximum length");
+    private static final Challenge TOKEN_MALFORMED =
+            new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Token is malformed: not a compact JWS");
+    private static final Challenge TOKEN_UNVERIFIED =
+            new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "JWT error: Token could not be verified");
+    private static final Challenge TOKEN_PREMATURE =
+            new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
+                          "Token is not yet valid, are server clocks out of sync?");
+    private static final Challenge TOKEN_ENCRYPTED =
+            new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST,
+                          "Token uses an unsupported JWT feature: encrypted JWTs are not supported");
+    private static final Challenge TOKEN_UNSECURED =
+            new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST,
+                          "Token uses an unsupported JWT feature: unsecured JWTs are not permitted");
+    private static final Challenge INSUFFICIENT_SCOPE =
+            new Challenge(403, OAuth2Constants.ERROR_INSUFFICIENT_SCOPE,
+                          "Insufficient privileges to access the requested resource");
+
+    /**
+     * Challenges with a fixed description, whose rendered headers may be cached
+     */
+    private static final Set<Challenge> FIXED_CHALLENGES =
+            Set.of(NO_CREDENTIALS, NO_TOKENS, NO_USERNAME, TOKEN_TOO_LONG, TOKEN_MALFORMED,
+                   TOKEN_UNVERIFIED, TOKEN_PREMATURE, TOKEN_ENCRYPTED, TOKEN_UNSECURED, INSUFFICIENT_SCOPE);
+
+    private final ChallengeRenderer challengeRenderer = new ChallengeRenderer();
+
+    private volatile AuthorizationRules authorizationRules = AuthorizationRules.NONE;
+
+    /**
+     * Sets the authorization rules that authenticated requests must additionally satisfy
+     * <p>
+     * Rules are evaluated after the authenticated request has been prepared, a request that does not satisfy all the
+     * rules applicable to it is rejected with a {@code 403 Forbidden} challenge with an error code of
+     * {@value OAuth2Constants#ERROR_INSUFFICIENT_SCOPE}.  By default there are no rules so any authenticated request is
+     * permitted.
+     * </p>
+     *
+     * @param rules Authorization rules, {@code null} to remove any previously set rules
+     */
+    public void setAuthorizationRules(AuthorizationRules rules) {
+        this.authorizationRules = rules != null ? rules : AuthorizationRules.NONE;
+    }
+
+    /**
+     * Gets the authorization rules that authenticated requests must additionally satisfy
+     *
+     * @return Authorization rules
+     */
+    public AuthorizationRules getAuthorizationRules() {
+        return this.authorizationRules;
+    }
+
     /**
      * Attempts to authenticate a request, returning either an authenticated request object upon success or {@code null}
      * on failure.
@@ -70,19 +138,10 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
      * @return Authenticated request if successful, or {@code null} if authentication failed
      */
     public final TRequest authenticate(TRequest request, TResponse response, JwtVerifier verifier) {
+        long start = System.nanoTime();
         try {
-            MDC.put(JwtLoggingConstants.MDC_JWT_USER, null);
-            if (!hasRequiredParameters(request)) {
-                // No authentication parameters provided so abort immediately
-                sendChallenge(request, response, new Challenge(401, "", ""));
-                return null;
-            }
-
-            // Extract all the possible raw tokens from the request
-            List<TokenCandidate> rawTokens = extractTokens(request);
-            if (rawTokens.isEmpty()) {
-                sendChallenge(request, response,
-                              new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST, "No Bearer token(s) provided"));
+            List<TokenCandidate> rawTokens = candidateTokens(request, response, start);
+            if (rawTokens == null) {
                 return null;
             }
 
@@ -91,79 +150,402 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
             List<VerifiedToken> validTokens = new ArrayList<>();
             for (TokenCandidate candidateToken : rawTokens) {
                 // Verify the token and record a challenge if it fails verification
-                try {
-                    String rawToken = candidateToken.source().getRawToken(candidateToken.value());
-                    if (StringUtils.isBlank(rawToken)) {
-                        challenges.add(new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST,
-                                                     "No Bearer token(s) provided"));
-                        continue;
-                    }
-                    Jws<Claims> jws = verifier.verify(rawToken);
-                    validTokens.add(new VerifiedToken(candidateToken, jws));
-                } catch (JwtException jwtErr) {
-                    handleException(jwtErr, challenges);
+                TokenVerificationEvent event = new TokenVerificationEvent();
+                event.begin();
+                String rawToken = candidateToken.source().getRawToken(candidateToken.value());
+                Challenge rejected = reject(verifier, rawToken);
+                if (rejected != null) {
+                    event.complete(verifier, candidateToken.source(), rawToken, rejected.errorDescription());
+                    challenges.add(rejected);
+                    continue;
                 }
+                VerificationResult result = verifier.tryVerify(rawToken);
+                event.complete(verifier, candidateToken.source(), rawToken, outcome(result));
+                record(candidateToken, result, challenges, validTokens);
+            }
+
+            return complete(request, response, challenges, validTokens, start);
+        } catch (Exception e) {
+            error(response, e, start);
+        }
+
+        return null;
+    }
+
+    /**
+     * Attempts to authenticate a request asynchronously, completing with either an authenticated request object upon
+     * success or {@code null} on failure.
+     * <p>
+     * This behaves exactly like {@link #authenticate(Object, Object, JwtVerifier)} except that candidate tokens are
+     * verified via {@link AsyncJwtVerifier#tryVerifyAsync(String)}, so the calling thread is not held while
+     * verification waits on I/O.  Unexpected errors are communicated via {@link #sendError(Object, Throwable)} and the
+     * stage completes with {@code null}, so the returned stage only completes exceptionally if that method itself
+     * throws.  If verification completes on another thread then the authenticated request is also prepared on that
+     * thread.
+     * </p>
+     *
+     * @param request  Request
+     * @param response Response
+     * @param verifier Asynchronous JWT Verifier
+     * @return Future authenticated request if successful, or {@code null} if authentication failed
+     */
+    public final CompletionStage<TRequest> authenticateAsync(TRequest request, TResponse response,
+                                                            AsyncJwtVerifier verifier) {
+        return authenticateAsync(request, response, verifier, null);
+    }
+
+    /**
+     * Attempts to authenticate a request asynchronously, calling the given function before the request is completed on
+     * another thread
+     * <p>
+     * This behaves exactly like {@link #authenticateAsync(Object, Object, AsyncJwtVerifier)} except that if the
+     * candidate tokens cannot all be verified synchronously then {@code onPending} is called, on the calling thread,
+     * before any further processing is scheduled.  Thus, the response is never written to, nor the authenticated
+     * request prepared, until {@code onPending} has returned, allowing callers to safely suspend the request.
+     * </p>
+     *
+     * @param request   Request
+     * @param response  Response
+     * @param verifier  Asynchronous JWT Verifier
+     * @param onPending Function called if verification is still pending, may be {@code null}
+     * @return Future authenticated request if successful, or {@code null} if authentication failed
+     */
+    public final CompletionStage<TRequest> authenticateAsync(TRequest request, TResponse response,
+                                                            AsyncJwtVerifier verifier, Runnable onPending) {
+        long start = System.nanoTime();
+        try {
+            List<TokenCandidate> rawTokens = candidateTokens(request, response, start);
+            if (rawTokens == null) {
+                return CompletableFuture.completedFuture(null);
             }
 
-            // Consider all the valid tokens to try and extract a valid username
-            String username = null;
-            VerifiedToken jws = null;
-            for (VerifiedToken validToken : validTokens) {
-                username = extractUsername(validToken.verifiedToken());
-                if (StringUtils.isBlank(username)) {
-                    challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                                                 "Failed to find a username for the user"));
+            // Start verifying all candidate tokens, recording any challenges from candidates that are rejected outright
+            // in the corresponding position so that challenges are ultimately recorded in candidate order
+            Challenge[] rejections = new Challenge[rawTokens.size()];
+            List<CompletableFuture<VerificationResult>> results = new ArrayList<>(rawTokens.size());
+            for (int i = 0; i < rawTokens.size(); i++) {
+                TokenCandidate candidateToken = rawTokens.get(i);
+                TokenVerificationEvent event = new TokenVerificationEvent();
+                event.begin();
+                String rawToken = candidateToken.source().getRawToken(candidateToken.value());
+                rejections[i] = reject(verifier, rawToken);
+                if (rejections[i] != null) {
+                    event.complete(verifier, candidateToken.source(), rawToken,
+                                   rejections[i].errorDescription());
+                    results.add(null);
                 } else {
-                    jws = validToken;
-                    break;
+                    results.add(verifier.tryVerifyAsync(rawToken)
+                                        .toCompletableFuture()
+                                        .whenComplete((result, e) -> event.complete(
+                                                verifier, candidateToken.source(), rawToken,
+                                                e != null ? JfrEvents.OUTCOME_FAILURE : outcome(result))));
                 }
             }
 
-            // If there was no valid token with a valid username present we need to send a challenge at this point
-            if (jws == null) {
-                // Should be at least one challenge if we reach here so just send the first challenge from our list
-                Challenge challenge = challenges.get(0);
-                LOGGER.warn("Request to {} not authenticated, {} challenge(s) recorded: {}", getRequestUrl(request),
-                            challenges.size(), StringUtils.join(challenges, ", "));
-                sendChallenge(request, response, challenge);
+            Thread caller = Thread.currentThread();
+            CompletableFuture<Void> verified = CompletableFuture.allOf(
+                    results.stream().filter(Objects::nonNull).toArray(CompletableFuture[]::new));
+            if (onPending != null && !verified.isDone()) {
+                onPending.run();
+            }
+            return verified.handle((ignored, err) -> completeAsync(request, response, rawTokens, rejections, results,
+                                                                   err, caller, start));
+        } catch (Exception e) {
+            error(response, e, start);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Completes asynchronous authentication once all candidate tokens have been verified
+     *
+     * @param request     Request
+     * @param response    Response
+     * @param rawTokens   Candidate tokens
+     * @param rejections  Challenges for candidate tokens that were rejected without verification
+     * @param results     Verification results for candidate tokens that were verified
+     * @param err         Unexpected verification error, {@code null} if verification completed normally
+     * @param caller      Thread that started the authentication
+     * @param start       Time at which authentication started, per {@link System#nanoTime()}
+     * @return Authenticated request if successful, or {@code null} if authentication failed
+     */
+    private TRequest completeAsync(TRequest request, TResponse response, List<TokenCandidate> rawTokens,
+                                   Challenge[] rejections, List<CompletableFuture<VerificationResult>> results,
+                                   Throwable err, Thread caller, long start) {
+        try {
+            if (err != null) {
+                error(response, err.getCause() != null ? err.getCause() : err, start);
                 return null;
             }
+            List<Challenge> challenges = new ArrayList<>();
+            List<VerifiedToken> validTokens = new ArrayList<>();
+            for (int i = 0; i < rejections.length; i++) {
+                if (rejections[i] != null) {
+                    challenges.add(rejections[i]);
+                } else {
+                    record(rawTokens.get(i), results.get(i).join(), challenges, validTokens);
+                }
+            }
+            return complete(request, response, challenges, validTokens, start);
+        } catch (Exception e) {
+            error(response, e, start);
+            return null;
+        } finally {
+            // Don't leak the authenticated user into the logging context of whichever thread completed verification
+            if (Thread.currentThread() != caller) {
+                MDC.remove(JwtLoggingConstants.MDC_JWT_USER);
+            }
+        }
+    }
 
-            // If we reach here then at least one token was considered valid, so we go ahead and prepare an
-            // authenticated request that records the authenticated user identity
-            setRequestAttributes(request, username, jws);
+    /**
+     * Obtains the candidate tokens from the request, sending a challenge if there are none
+     *
+     * @param request  Request
+     * @param response Response
+     * @param start    Time at which authentication started, per {@link System#nanoTime()}
+     * @return Candidate tokens, or {@code null} if a challenge was sent
+     */
+    private List<TokenCandidate> candidateTokens(TRequest request, TResponse response, long start) {
+        MDC.put(JwtLoggingConstants.MDC_JWT_USER, null);
+        TokenExtractionEvent event = new TokenExtractionEvent();
+        event.begin();
+        if (!hasRequiredParameters(request)) {
+            // No authentication parameters provided so abort immediately
+            event.complete(0);
+            challenge(request, response, NO_CREDENTIALS, start);
+            return null;
+        }
 
-            return prepareRequest(request, jws.verifiedToken(), username);
-        } catch (Exception e) {
-            sendError(response, e);
+        // Extract all the possible raw tokens from the request
+        List<TokenCandidate> rawTokens = extractTokens(request);
+        event.complete(rawTokens.size());
+        if (rawTokens.isEmpty()) {
+            challenge(request, response, NO_TOKENS, start);
+            return null;
         }
+        return rawTokens;
+    }
 
-        return null;
+    /**
+     * Rejects a raw token that is blank, or fails the verifiers pre-check, without verifying it
+     *
+     * @param verifier JWT Verifier
+     * @param rawToken Raw token
+     * @return Challenge if the token was rejected, {@code null} if it should be fully verified
+     */
+    private static Challenge reject(JwtVerifier verifier, String rawToken) {
+        if (StringUtils.isBlank(rawToken)) {
+            return NO_TOKENS;
+        }
+        return precheck(verifier, rawToken);
     }
 
-    private void handleException(JwtException jwtErr, List<Challenge> challenges) {
-        if (jwtErr instanceof KeyException) {
-            challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                "Invalid/weak key: " + jwtErr.getMessage()));
-        } else if (jwtErr instanceof SignatureException) {
-            challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                "Token failed signature verification: " + jwtErr.getMessage()));
-        } else if (jwtErr instanceof MalformedJwtException) {
-            challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                "Token is malformed: " + jwtErr.getMessage()));
-        } else if (jwtErr instanceof UnsupportedJwtException) {
-            challenges.add(new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST,
-                "Token uses an unsupported JWT feature: " + jwtErr.getMessage()));
-        } else if (jwtErr instanceof ExpiredJwtException) {
-            challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                "Token expired: " + jwtErr.getMessage()));
-        } else if (jwtErr instanceof PrematureJwtException) {
-            challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                "Token is not yet valid, are server clocks out of sync?"));
+    /**
+     * Records the result of verifying a candidate token
+     *
+     * @param candidateToken Candidate token
+     * @param result         Verification result
+     * @param challenges     Challenges, a challenge is added if verification failed
+     * @param validTokens    Valid tokens, the verified token is added if verification succeeded
+     */
+    private static void record(TokenCandidate candidateToken, VerificationResult result, List<Challenge> challenges,
+                               List<VerifiedToken> validTokens) {
+        if (result instanceof VerificationResult.Success success) {
+            validTokens.add(new VerifiedToken(candidateToken, success.jws()));
         } else {
-            challenges.add(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
-                "JWT error: " + jwtErr.getMessage()));
+            challenges.add(toChallenge(result));
+        }
+    }
+
+    /**
+     * Completes authentication once all candidate tokens have been considered
+     *
+     * @param request     Request
+     * @param response    Response
+     * @param challenges  Challenges recorded for rejected candidate tokens
+     * @param validTokens Verified candidate tokens
+     * @param start       Time at which authentication started, per {@link System#nanoTime()}
+     * @return Authenticated request if successful, or {@code null} if a challenge was sent
+     */
+    private TRequest complete(TRequest request, TResponse response, List<Challenge> challenges,
+                              List<VerifiedToken> validTokens, long start) {
+        // Consider all the valid tokens to try and extract a valid username
+        String username = null;
+        VerifiedToken jws = null;
+        for (VerifiedToken validToken : validTokens) {
+            UsernameExtractionEvent event = new UsernameExtractionEvent();
+            event.begin();
+            username = extractUsername(validToken.verifiedToken());
+            event.complete(StringUtils.isNotBlank(username));
+            if (StringUtils.isBlank(username)) {
+                challenges.add(NO_USERNAME);
+            } else {
+                jws = validToken;
+                break;
+            }
+        }
+
+        // If there was no valid token with a valid username present we need to send a challenge at this point
+        if (jws == null) {
+            // Should be at least one challenge if we reach here so just send the first challenge from our list
+            Challenge challenge = challenges.get(0);
+            if (LOGGER.isWarnEnabled()) {
+                String url = getRequestUrl(request);
+                if (AuthenticationLogPolicyRegistry.get().shouldLog(logEvent(challenge), url)) {
+                    LOGGER.warn("Request to {} not authenticated, {} challenge(s) recorded: {}", url,
+                                challenges.size(), StringUtils.join(challenges, ", "));
+                }
+            }
+            challenge(request, response, challenge, start);
+            return null;
         }
+
+        // If we reach here then at least one token was considered valid, so we go ahead and prepare an
+        // authenticated request that records the authenticated user identity
+        setRequestAttributes(request, username, jws);
+
+        // Roles are resolved once and shared by the authenticated request and the authorization rules
+        Set<String> roles = extractRoles(jws.verifiedToken());
+        TRequest authenticated = prepareRequest(request, jws.verifiedToken(), username, roles);
+        if (!authorize(request, response, jws.verifiedToken(), username, roles, start)) {
+            return null;
+        }
+        AuthenticationMetricsRegistry.get().onAuthenticated(System.nanoTime() - start);
+        return authenticated;
+    }
+
+    /**
+     * Checks that an authenticated request satisfies the configured authorization rules, sending a challenge if not
+     *
+     * @param request  Request
+     * @param response Response
+     * @param jws      Verified JSON Web Token
+     * @param username Username
+     * @param roles    User's roles
+     * @param start    Time at which authentication started, per {@link System#nanoTime()}
+     * @return True if authorized, false if a challenge was sent
+     */
+    private boolean authorize(TRequest request, TResponse response, Jws<Claims> jws, String username,
+                              Set<String> roles, long start) {
+        AuthorizationRules rules = this.authorizationRules;
+        if (rules.isEmpty()) {
+            return true;
+        }
+        String path = getRequestPath(request);
+        AuthorizationRule unsatisfied =
+                rules.findUnsatisfied(getRequestMethod(request), path, jws.getPayload(), () -> roles);
+        if (unsatisfied == null) {
+            return true;
+        }
+
+        if (LOGGER.isWarnEnabled()
+                && AuthenticationLogPolicyRegistry.get().shouldLog(logEvent(INSUFFICIENT_SCOPE), path)) {
+            LOGGER.warn("Request to {} by {} forbidden, does not satisfy authorization rule {}", path, username,
+                        unsatisfied);
+        }
+        challenge(request, response, INSUFFICIENT_SCOPE, start);
+        return false;
+    }
+
+    /**
+     * Records, and sends, an authentication challenge
+     *
+     * @param request   Request
+     * @param response  Response
+     * @param challenge Challenge
+     * @param start     Time at which authentication started, per {@link System#nanoTime()}
+     */
+    private void challenge(TRequest request, TResponse response, Challenge challenge, long start) {
+        AuthenticationMetricsRegistry.get().onChallenge(challenge, System.nanoTime() - start);
+        ChallengeEvent event = new ChallengeEvent();
+        event.begin();
+        sendChallenge(request, response, challenge);
+        event.complete(challenge);
+    }
+
+    /**
+     * Records, and sends, an unexpected authentication error
+     *
+     * @param response Response
+     * @param err      Unexpected error
+     * @param start    Time at which authentication started, per {@link System#nanoTime()}
+     */
+    private void error(TResponse response, Throwable err, long start) {
+        AuthenticationMetricsRegistry.get().onError(err, System.nanoTime() - start);
+        sendError(response, err);
+    }
+
+    /**
+     * Pre-checks a raw token so that obviously invalid tokens are rejected without incurring the costs of full
+     * verification
+     *
+     * @param verifier JWT Verifier
+     * @param rawToken Raw token
+     * @return Challenge if the token was rejected, {@code null} if it should be fully verified
+     */
+    private static Challenge precheck(JwtVerifier verifier, String rawToken) {
+        TokenPrecheck.Result result = verifier.precheck(rawToken);
+        if (result == null) {
+            return null;
+        }
+        return switch (result) {
+            case TOO_LONG -> TOKEN_TOO_LONG;
+            case MALFORMED -> TOKEN_MALFORMED;
+            case ENCRYPTED -> TOKEN_ENCRYPTED;
+            case UNSECURED -> TOKEN_UNSECURED;
+            default -> null;
+        };
+    }
+
+    /**
+     * Identifies the event that a challenge is logged as for the purposes of the {@link AuthenticationLogPolicy}
+     *
+     * @param challenge Challenge
+     * @return Event
+     */
+    private static String logEvent(Challenge challenge) {
+        return StringUtils.isEmpty(challenge.errorCode()) ? AuthenticationLogPolicy.UNAUTHENTICATED :
+               challenge.errorCode();
+    }
+
+    /**
+     * Describes the outcome of verifying a token for diagnostic events
+     *
+     * @param result Verification result
+     * @return Outcome
+     */
+    private static String outcome(VerificationResult result) {
+        if (result instanceof VerificationResult.Failure failure) {
+            return failure.reason().name();
+        }
+        return result != null && result.isSuccess() ? JfrEvents.OUTCOME_SUCCESS : JfrEvents.OUTCOME_FAILURE;
+    }
+
+    /**
+     * Converts a failed verification result into a challenge
+     *
+     * @param result Verification result
+     * @return Challenge
+     */
+    private static Challenge toChallenge(VerificationResult result) {
+        if (!(result instanceof VerificationResult.Failure failure)) {
+            return TOKEN_UNVERIFIED;
+        }
+        return switch (failure.reason()) {
+            case KEY -> new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
+                                      "Invalid/weak key: " + failure.message());
+            case SIGNATURE -> new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
+                                            "Token failed signature verification: " + failure.message());
+            case MALFORMED -> new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
+                                            "Token is malformed: " + failure.message());
+            case UNSUPPORTED -> new Challenge(400, OAuth2Constants.ERROR_INVALID_REQUEST,
+                                              "Token uses an unsupported JWT feature: " + failure.message());
+            case EXPIRED -> new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN,
+                                          "Token expired: " + failure.message());
+            case PREMATURE -> TOKEN_PREMATURE;
+            default -> new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "JWT error: " + failure.message());
+        };
     }
 
     private void setRequestAttributes(TRequest request, String username, VerifiedToken jws) {
@@ -174,8 +556,12 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
             jws.candidateToken().source().getRawToken(jws.candidateToken().value()));
         setRequestAttribute(request, JwtServletConstants.REQUEST_ATTRIBUTE_VERIFIED_JWT,
             jws.verifiedToken());
-        LOGGER.info("Request to {} successfully authenticated as {}", getRequestUrl(request),
-            username);
+        if (LOGGER.isInfoEnabled()) {
+            String url = getRequestUrl(request);
+            if (AuthenticationLogPolicyRegistry.get().shouldLog(AuthenticationLogPolicy.AUTHENTICATED, url)) {
+                LOGGER.info("Request to {} successfully authenticated as {}", url, username);
+            }
+        }
     }
     
     /**
@@ -210,6 +596,19 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
      */
     protected abstract String extractUsername(Jws<Claims> jws);
 
+    /**
+     * Extracts the roles of the authenticated user from the parsed JWT
+     * <p>
+     * The default implementation returns no roles, derived classes should override this if they support role claims.
+     * </p>
+     *
+     * @param jws Parsed JWT
+     * @return Immutable set of roles, empty if none
+     */
+    protected Set<String> extractRoles(Jws<Claims> jws) {
+        return Set.of();
+    }
+
     /**
      * Sets a request attribute
      *
@@ -229,6 +628,24 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
      */
     protected abstract TRequest prepareRequest(TRequest request, Jws<Claims> jws, String username);
 
+    /**
+     * Prepares the authenticated request given the user's roles, as already resolved via {@link #extractRoles(Jws)}
+     * <p>
+     * This is the method actually called during authentication, the default implementation ignores the roles and calls
+     * {@link #prepareRequest(Object, Jws, String)}.  Engines that expose the user's roles on the authenticated request
+     * should override this so that roles are only resolved once per request.
+     * </p>
+     *
+     * @param request  Request
+     * @param jws      Verified JSON Web Token
+     * @param username Username
+     * @param roles    User's roles
+     * @return Authenticated request
+     */
+    protected TRequest prepareRequest(TRequest request, Jws<Claims> jws, String username, Set<String> roles) {
+        return prepareRequest(request, jws, username);
+    }
+
     /**
      * Sends an authentication challenge
      *
@@ -238,8 +655,53 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
      */
     protected abstract void sendChallenge(TRequest request, TResponse response, Challenge challenge);
 
+    /**
+     * Builds the {@value JwtHttpConstants#HEADER_WWW_AUTHENTICATE} header value for a challenge
+     * <p>
+     * The realm is selected via {@link #selectRealm(String)}.  When a fixed realm is configured, see
+     * {@link #hasFixedRealm()}, challenges issued by this engine that have a fixed description, e.g. for requests with
+     * no token, have their rendered header values cached so repeatedly issuing them is cheap.  Otherwise the realm
+     * varies per request and the header is rendered directly.
+     * </p>
+     *
+     * @param defaultRealm Default realm to use if one has not been explicitly configured, typically the request URL
+     * @param challenge    Challenge
+     * @return Header value
+     */
+    protected String buildChallengeHeader(String defaultRealm, Challenge challenge) {
+        String realm = selectRealm(defaultRealm);
+        if (!hasFixedRealm()) {
+            return ChallengeRenderer.render(realm, challenge.errorCode(), challenge.errorDescription());
+        }
+        return this.challengeRenderer.render(realm, challenge, FIXED_CHALLENGES.contains(challenge));
+    }
+
+    /**
+     * Indicates whether a fixed realm is configured, in which case {@link #selectRealm(String)} ignores its default
+     * realm and rendered challenge headers may be cached
+     *
+     * @return True if a fixed realm is configured, false otherwise
+     */
+    protected boolean hasFixedRealm() {
+        return false;
+    }
+
+    /**
+     * Selects the realm to use for HTTP Challenge responses
+     *
+     * @param defaultRealm Default realm to use if one has not been explicitly configured
+     * @return Realm
+     */
+    protected String selectRealm(String defaultRealm) {
+        return JwtHttpConstants.sanitiseHeaderParameterValue(defaultRealm);
+    }
+
     /**
      * Builds the Authorization header
+     * <p>
+     * The engines provided by this library now use {@link #buildChallengeHeader(String, Challenge)} instead, this is
+     * retained for derived classes that build their own challenges.
+     * </p>
      *
      * @param realm            Realm
      * @param additionalParams Map of extra parameters to potentially apply
@@ -298,4 +760,34 @@ public abstract class JwtAuthenticationEngine<TRequest, TResponse> {
      */
     protected abstract String getRequestUrl(TRequest request);
 
+    /**
+     * Gets the request path, used to apply {@link AuthorizationRules}
+     * <p>
+     * This <strong>SHOULD</strong> be the path relative to the application, as already decoded and normalised by the
+     * runtime, so that it reflects the resource the request is actually dispatched to.  The default implementation
+     * returns {@link #getRequestUrl(Object)}, derived classes whose request URL is not just the path should override
+     * this.  If the returned path is not absolute then any request to which rules are applied is refused.
+     * </p>
+     *
+     * @param request Request
+     * @return Request path
+     */
+    protected String getRequestPath(TRequest request) {
+        return getRequestUrl(request);
+    }
+
+    /**
+     * Gets the request HTTP method, used to apply method qualified {@link AuthorizationRules}
+     * <p>
+     * The default implementation returns {@code null}, in which case all method qualified rules for the request path
+     * apply, derived classes <strong>SHOULD</strong> override this.
+     * </p>
+     *
+     * @param request Request
+     * @return HTTP method, or {@code null} if not known
+     */
+    protected String getRequestMethod(TRequest request) {
+        return null;
+    }
+
 }
@@ -26,7 +26,6 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt;
 import java.util.Collection;
 import java.util.List;
 import java.util.regex.Pattern;
-import org.apache.commons.lang3.RegExUtils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
 
 /**
@@ -36,7 +35,7 @@ public class JwtHttpConstants {
 
     /**
      * A regular expression that matches characters that are considered invalid for use in a sanitised HTTP Header
-     * parameter value, this is utilised by the {@link #sanitiseHeaderParameterValue(String)} method.
+     * parameter value, this defines the characters removed by the {@link #sanitiseHeaderParameterValue(String)} method.
      * <p>
      * This pattern considers anything that is not one of the following as invalid:
      * </p>
@@ -55,7 +54,7 @@ public class JwtHttpConstants {
 
     /**
      * A regular expression that matches characters that are considered invalid for use in a sanitised HTTP Header
-     * value, this is utilised by the {@link #sanitiseHeader(String)} method.
+     * value, this defines the characters removed by the {@link #sanitiseHeader(String)} method.
      * <p>
      * This considers anything that is not an acceptable character for {@link #INVALID_PARAM_CHARACTERS}, or a double
      * quote {@code "}, as invalid.
@@ -63,6 +62,31 @@ public class JwtHttpConstants {
      */
     public static final Pattern INVALID_HEADER_CHARACTERS = Pattern.compile("[^\\p{L}\\d\\-_.,;/'\"=+ ]");
 
+    /**
+     * Lookup table of the ASCII characters that are valid in a sanitised HTTP Header parameter value
+     */
+    private static final boolean[] VALID_PARAM_ASCII = new boolean[128];
+
+    /**
+     * Lookup table of the ASCII characters that are valid in a sanitised HTTP Header value
+     */
+    private static final boolean[] VALID_HEADER_ASCII = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            VALID_PARAM_ASCII[c] = true;
+            VALID_PARAM_ASCII[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            VALID_PARAM_ASCII[c] = true;
+        }
+        for (char c : "-_.,;/'=+ ".toCharArray()) {
+            VALID_PARAM_ASCII[c] = true;
+        }
+        System.arraycopy(VALID_PARAM_ASCII, 0, VALID_HEADER_ASCII, 0, VALID_PARAM_ASCII.length);
+        VALID_HEADER_ASCII['"'] = true;
+    }
+
     private JwtHttpConstants() {
     }
 
@@ -98,27 +122,78 @@ public class JwtHttpConstants {
      * request/response splitting attacks
      * <p>
      * A sanitised value consists only of characters not matching the {@link #INVALID_PARAM_CHARACTERS} regular
-     * expression, any other characters are removed from the provided value.
+     * expression, any other characters are removed from the provided value.  Values are sanitised in a single pass
+     * without using the regular expression, and a value that is already valid is returned as-is.
      * </p>
      *
      * @param value Value to sanitise
      * @return Sanitised values
      */
     public static String sanitiseHeaderParameterValue(String value) {
-        return RegExUtils.removeAll(value, INVALID_PARAM_CHARACTERS);
+        return sanitise(value, VALID_PARAM_ASCII);
     }
 
     /**
      * Sanitises a value that is intended to be a value for an HTTP Header to avoid request/response splitting attacks
      * <p>
      * A sanitised value consists only of characters not matching the {@link #INVALID_HEADER_CHARACTERS} regular
-     * expression, any other characters are removed from the provided value.
+     * expression, any other characters are removed from the provided value.  Values are sanitised in a single pass
+     * without using the regular expression, and a value that is already valid is returned as-is.
      * </p>
      *
      * @param header Header value to sanitise
      * @return Sanitised values
      */
     public static String sanitiseHeader(String header) {
-        return RegExUtils.removeAll(header, INVALID_HEADER_CHARACTERS);
+        return sanitise(header, VALID_HEADER_ASCII);
+    }
+
+    /**
+     * Sanitises a value by removing any invalid characters
+     *
+     * @param value      Value to sanitise
+     * @param validAscii Lookup table of valid ASCII characters, non-ASCII characters are valid if they are letters
+     * @return Sanitised value
+     */
+    private static String sanitise(String value, boolean[] validAscii) {
+        if (value == null) {
+            return null;
+        }
+
+        // Most values need no sanitisation so scan for the first invalid character before allocating anything
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            int c = value.codePointAt(i);
+            if (!isValid(c, validAscii)) {
+                break;
+            }
+            i += Character.charCount(c);
+        }
+        if (i == length) {
+            return value;
+        }
+
+        StringBuilder builder = new StringBuilder(length - 1);
+        builder.append(value, 0, i);
+        while (i < length) {
+            int c = value.codePointAt(i);
+            if (isValid(c, validAscii)) {
+                builder.appendCodePoint(c);
+            }
+            i += Character.charCount(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Determines whether a character is valid
+     *
+     * @param c          Character (code point)
+     * @param validAscii Lookup table of valid ASCII characters
+     * @return True if valid, false otherwise
+     */
+    private static boolean isValid(int c, boolean[] validAscii) {
+        return c < validAscii.length ? validAscii[c] : Character.isLetter(c);
     }
 }
@@ -61,4 +61,11 @@ public class JwtServletConstants {
      * Request attribute used to hold the verified JWT that authenticated the user
      */
     public static final String REQUEST_ATTRIBUTE_VERIFIED_JWT = "uk.gov.dbt.ndtp.servlet.auth.jwt.verified";
+
+    /**
+     * Request attribute used to hold the authenticated request while a request that was suspended during asynchronous
+     * authentication is dispatched back to the filter
+     */
+    public static final String REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST =
+            "uk.gov.dbt.ndtp.servlet.auth.jwt.authenticated-request";
 }
@@ -39,6 +39,10 @@ public class OAuth2Constants {
      * Error code for invalid requests
      */
     public static final String ERROR_INVALID_REQUEST = "invalid_request";
+    /**
+     * Error code for requests that require greater privileges than the token provides
+     */
+    public static final String ERROR_INSUFFICIENT_SCOPE = "insufficient_scope";
 
     /**
      * Challenge parameter used in HTTP Bearer Auth challenges to indicate a particular error state per <a
@@ -26,36 +26,76 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Represents a path exclusion
+ * <p>
+ * A path exclusion is either a fixed path, e.g. {@code /healthz}, or an Ant style path expression where {@code *}
+ * matches zero or more characters within a single path segment, and {@code **} matches zero or more whole path
+ * segments, e.g. {@code /status/*} or {@code /static/**}.  An exclusion may optionally be qualified with an HTTP method,
+ * e.g. {@code GET /healthz}, in which case it only applies to requests using that method.
+ * </p>
+ * <p>
+ * For backwards compatibility a wildcard expression that also contains regular expression syntax, e.g.
+ * {@code /\$/status/*}, or that does not start with a {@code /}, e.g. {@code *insecure}, is instead interpreted as a
+ * regular expression with {@code *} replaced by {@code .*}.
+ * </p>
  */
 public class PathExclusion {
 
+    /**
+     * Wildcard that matches zero or more characters within a single path segment
+     */
+    static final String WILDCARD = "*";
+    /**
+     * Wildcard that matches zero or more whole path segments
+     */
+    static final String MULTI_SEGMENT_WILDCARD = "**";
+
+    private static final Pattern METHOD_QUALIFIER = Pattern.compile("^([A-Za-z]+)\\s+(/.*)$");
+    private static final String REGEX_SYNTAX = "\\^$|?+()[]{}";
+
     private final boolean wildcard;
     private final String pattern;
+    private final String method;
+    private final String pathPattern;
     private final Pattern regex;
+    private final PathExclusionMatcher segments;
 
     /**
      * Creates a new path exclusion
      *
-     * @param pathPattern Path exclusion pattern
+     * @param pathPattern Path exclusion pattern, optionally prefixed with an HTTP method and whitespace
      */
     public PathExclusion(String pathPattern) {
         if (StringUtils.isBlank(pathPattern)) {
             throw new IllegalArgumentException("Cannot have a blank path exclusion");
-        } else if (StringUtils.containsOnly(pathPattern, " /*")) {
+        }
+        Matcher qualified = METHOD_QUALIFIER.matcher(pathPattern.strip());
+        String path = pathPattern;
+        if (qualified.matches()) {
+            this.method = qualified.group(1).toUpperCase(Locale.ROOT);
+            path = qualified.group(2);
+        } else {
+            this.method = null;
+        }
+        if (StringUtils.containsOnly(path, " /*")) {
             throw new IllegalArgumentException("Cannot have a path exclusion that excludes all paths");
         }
 
-        this.wildcard = StringUtils.contains(pathPattern, "*");
-        this.regex = this.wildcard ? parsePathPattern(pathPattern) : null;
+        this.wildcard = StringUtils.contains(path, WILDCARD);
+        this.regex = this.wildcard && (!path.startsWith("/") || StringUtils.containsAny(path, REGEX_SYNTAX))
+                     ? parsePathPattern(path)
+                     : null;
         this.pattern = pathPattern;
+        this.pathPattern = path;
+        this.segments = this.wildcard && this.regex == null ? PathExclusionMatcher.compile(List.of(this)) : null;
     }
-
     /**
      * Parses raw path patterns, specified as a comma separated list of strings, into a list of path exclusions
      *
@@ -77,9 +117,9 @@ public class PathExclusion {
     }
 
     /**
-     * Parses a path pattern into a regular expression
+     * Parses a legacy path pattern into a regular expression
      * <p>
-     * Raw path patterns may use {@code *} as a wildcard, when converting to a regex we want a {@code *} to match zero
+     * Legacy path patterns may use {@code *} as a wildcard, when converting to a regex we want a {@code *} to match zero
      * or more characters so need to convert into the appropriate regex syntax
      * </p>
      *
@@ -116,18 +156,69 @@ public class PathExclusion {
 
 
     /**
-     * Gets whether the given path matches this exclusion
+     * Gets the HTTP method this exclusion is restricted to (if any)
+     *
+     * @return HTTP method, {@code null} if this exclusion applies to all methods
+     */
+    public String getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Gets the path portion of the pattern for this exclusion i.e. without any HTTP method qualifier
+     *
+     * @return Path pattern
+     */
+    String getPathPattern() {
+        return this.pathPattern;
+    }
+
+    /**
+     * Gets whether this exclusion uses the legacy regular expression based matching
+     *
+     * @return True if a legacy regular expression, false otherwise
+     */
+    boolean isRegex() {
+        return this.regex != null;
+    }
+
+    /**
+     * Gets whether the given path matches this exclusion, regardless of HTTP method
+     * <p>
+     * Exclusions that are qualified with an HTTP method never match via this method, use
+     * {@link #matches(String, String)} instead.
+     * </p>
      *
      * @param path Path
      * @return True if the exclusion matches, false otherwise
      */
     public boolean matches(String path) {
+        return matches(null, path);
+    }
+
+    /**
+     * Gets whether the given request matches this exclusion
+     *
+     * @param method HTTP method of the request, may be {@code null} if unknown
+     * @param path   Path
+     * @return True if the exclusion matches, false otherwise
+     */
+    public boolean matches(String method, String path) {
         if (StringUtils.isBlank(path)) {
             return false;
-        } else if (this.wildcard) {
+        } else if (this.method != null && !StringUtils.equalsIgnoreCase(this.method, method)) {
+            return false;
+        } else if (this.regex != null) {
             return this.regex.matcher(path).matches();
+        } else if (this.wildcard) {
+            return this.segments.matches(method, path);
         } else {
-            return StringUtils.equals(this.pattern, path);
+            return StringUtils.equals(this.pathPattern, path);
         }
     }
+
+    @Override
+    public String toString() {
+        return this.pattern;
+    }
 }
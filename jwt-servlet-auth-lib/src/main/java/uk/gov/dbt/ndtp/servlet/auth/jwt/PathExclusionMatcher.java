@@ -0,0 +1,229 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A matcher that compiles a list of {@link PathExclusion}'s into a single trie of path segments, so that a request path
+ * can be checked against all the exclusions in a single pass over the path rather than testing each exclusion in turn.
+ * <p>
+ * Each level of the trie corresponds to a path segment, with literal segments held in a hash map, and segments
+ * containing {@code *} wildcards, or consisting of the {@code **} multi-segment wildcard, held as separate children
+ * that are only consulted if present.  Exclusions that use the legacy regular expression syntax are not compiled into
+ * the trie and are instead tested individually.
+ * </p>
+ */
+final class PathExclusionMatcher {
+
+    private static final int END = -1;
+
+    private final List<PathExclusion> source;
+    private final Node root = new Node();
+    private final List<PathExclusion> regexes = new ArrayList<>();
+
+    private PathExclusionMatcher(List<PathExclusion> exclusions) {
+        this.source = exclusions;
+        for (PathExclusion exclusion : exclusions) {
+            if (exclusion.isRegex()) {
+                this.regexes.add(exclusion);
+            } else {
+                this.add(exclusion);
+            }
+        }
+    }
+
+    /**
+     * Compiles the given exclusions into a matcher
+     *
+     * @param exclusions Exclusions
+     * @return Matcher
+     */
+    static PathExclusionMatcher compile(List<PathExclusion> exclusions) {
+        return new PathExclusionMatcher(exclusions);
+    }
+
+    /**
+     * Gets whether this matcher was compiled from the given exclusions
+     *
+     * @param exclusions Exclusions
+     * @return True if compiled from the given exclusions (by reference), false otherwise
+     */
+    boolean isCompiledFrom(List<PathExclusion> exclusions) {
+        return this.source == exclusions;
+    }
+
+    private void add(PathExclusion exclusion) {
+        Node node = this.root;
+        for (String segment : StringUtils.splitPreserveAllTokens(exclusion.getPathPattern(), '/')) {
+            node = node.child(segment);
+        }
+        node.accept(exclusion.getMethod());
+    }
+
+    /**
+     * Gets whether a request matches any of the compiled exclusions
+     *
+     * @param method HTTP method of the request, may be {@code null} if unknown
+     * @param path   Path
+     * @return True if excluded, false otherwise
+     */
+    boolean matches(String method, String path) {
+        if (StringUtils.isBlank(path)) {
+            return false;
+        }
+        if (match(this.root, method, path, 0)) {
+            return true;
+        }
+        for (PathExclusion regex : this.regexes) {
+            if (regex.matches(method, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean match(Node node, String method, String path, int start) {
+        if (start == END) {
+            return node.accepts(method) || (node.multiSegment != null && match(node.multiSegment, method, path, END));
+        }
+
+        int end = path.indexOf('/', start);
+        if (end == -1) {
+            end = path.length();
+        }
+        int next = end < path.length() ? end + 1 : END;
+
+        if (!node.literals.isEmpty()) {
+            Node literal = node.literals.get(path.substring(start, end));
+            if (literal != null && match(literal, method, path, next)) {
+                return true;
+            }
+        }
+        for (Map.Entry<String, Node> wildcard : node.wildcards.entrySet()) {
+            if (globMatches(wildcard.getKey(), path, start, end) && match(wildcard.getValue(), method, path, next)) {
+                return true;
+            }
+        }
+        if (node.multiSegment != null) {
+            // A multi-segment wildcard may consume zero or more segments so try each possible remainder of the path
+            int remainder = start;
+            while (remainder != END) {
+                if (match(node.multiSegment, method, path, remainder)) {
+                    return true;
+                }
+                int slash = path.indexOf('/', remainder);
+                remainder = slash != -1 ? slash + 1 : END;
+            }
+            return match(node.multiSegment, method, path, END);
+        }
+        return false;
+    }
+
+    /**
+     * Matches a single segment pattern, where {@code *} matches zero or more characters, against a region of the path
+     *
+     * @param glob  Segment pattern
+     * @param path  Path
+     * @param start Start of the segment within the path (inclusive)
+     * @param end   End of the segment within the path (exclusive)
+     * @return True if the segment matches, false otherwise
+     */
+    static boolean globMatches(String glob, String path, int start, int end) {
+        int g = 0;
+        int p = start;
+        int star = -1;
+        int backtrack = start;
+        while (p < end) {
+            if (g < glob.length() && glob.charAt(g) == '*') {
+                star = g++;
+                backtrack = p;
+            } else if (g < glob.length() && glob.charAt(g) == path.charAt(p)) {
+                g++;
+                p++;
+            } else if (star != -1) {
+                g = star + 1;
+                p = ++backtrack;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == glob.length();
+    }
+
+    /**
+     * A node within the trie
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final Map<String, Node> wildcards = new LinkedHashMap<>();
+        private Node multiSegment;
+        private boolean anyMethod;
+        private Set<String> methods;
+
+        private Node child(String segment) {
+            if (PathExclusion.MULTI_SEGMENT_WILDCARD.equals(segment)) {
+                if (this.multiSegment == null) {
+                    this.multiSegment = new Node();
+                }
+                return this.multiSegment;
+            } else if (segment.contains(PathExclusion.WILDCARD)) {
+                return this.wildcards.computeIfAbsent(segment, s -> new Node());
+            } else {
+                return this.literals.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+
+        private void accept(String method) {
+            if (method == null) {
+                this.anyMethod = true;
+            } else {
+                if (this.methods == null) {
+                    this.methods = new HashSet<>();
+                }
+                this.methods.add(method);
+            }
+        }
+
+        private boolean accepts(String method) {
+            if (this.anyMethod) {
+                return true;
+            } else if (this.methods == null || method == null) {
+                return false;
+            }
+            return this.methods.contains(method) || this.methods.contains(method.toUpperCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.challenges;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.OAuth2Constants;
+
+/**
+ * Renders {@link Challenge}'s into {@value JwtHttpConstants#HEADER_WWW_AUTHENTICATE} header values
+ * <p>
+ * The realm and challenge parameters are sanitised to prevent HTTP response splitting attacks, since every other part
+ * of the header is a constant there is no need to sanitise the rendered header as a whole.  Challenges whose
+ * description and realm are fixed, e.g. for a request with no token to an engine with a configured realm, may be
+ * rendered as cacheable in which case the rendered header is cached, per realm, error code and description, so
+ * repeatedly issuing the same challenge costs only a cache lookup.  The cache is bounded in size.
+ * </p>
+ */
+public class ChallengeRenderer {
+
+    /**
+     * Default maximum number of rendered challenges that are cached
+     */
+    public static final int DEFAULT_MAX_CACHED = 1_000;
+
+    private final Cache<Key, String> cache;
+
+    /**
+     * Creates a new renderer with the default cache size
+     */
+    public ChallengeRenderer() {
+        this(DEFAULT_MAX_CACHED);
+    }
+
+    /**
+     * Creates a new renderer
+     *
+     * @param maxCached Maximum number of rendered challenges that are cached
+     */
+    public ChallengeRenderer(int maxCached) {
+        if (maxCached <= 0) {
+            throw new IllegalArgumentException("Maximum cached challenges must be greater than zero");
+        }
+        this.cache = Caffeine.newBuilder().maximumSize(maxCached).build();
+    }
+
+    /**
+     * Renders a challenge
+     *
+     * @param realm     Realm, may be {@code null} or blank if no realm should be included
+     * @param challenge Challenge
+     * @param cacheable Whether the challenge has a fixed description and so its rendered form may be cached
+     * @return Rendered header value
+     */
+    public String render(String realm, Challenge challenge, boolean cacheable) {
+        if (!cacheable) {
+            return render(realm, challenge.errorCode(), challenge.errorDescription());
+        }
+        return this.cache.get(new Key(realm, challenge.errorCode(), challenge.errorDescription()),
+                              k -> render(k.realm(), k.errorCode(), k.errorDescription()));
+    }
+
+    /**
+     * Renders a challenge without caching
+     *
+     * @param realm            Realm, may be {@code null} or blank if no realm should be included
+     * @param errorCode        OAuth2 Error Code, may be {@code null} or blank if no error code should be included
+     * @param errorDescription OAuth2 Error Description, may be {@code null} or blank if no description should be
+     *                         included
+     * @return Rendered header value
+     */
+    public static String render(String realm, String errorCode, String errorDescription) {
+        StringBuilder builder = new StringBuilder(64);
+        builder.append(JwtHttpConstants.AUTH_SCHEME_BEARER).append(' ');
+        boolean first = true;
+        if (StringUtils.isNotBlank(realm)) {
+            appendParameter(builder, JwtHttpConstants.CHALLENGE_PARAMETER_REALM, realm, true);
+            first = false;
+        }
+        if (StringUtils.isNotBlank(errorCode)) {
+            appendParameter(builder, OAuth2Constants.CHALLENGE_PARAMETER_ERROR, errorCode, first);
+            first = false;
+        }
+        if (StringUtils.isNotBlank(errorDescription)) {
+            appendParameter(builder, OAuth2Constants.CHALLENGE_PARAMETER_ERROR_DESCRIPTION, errorDescription, first);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends a sanitised challenge parameter
+     *
+     * @param builder Builder
+     * @param name    Parameter name
+     * @param value   Parameter value, sanitised before being appended
+     * @param first   Whether this is the first parameter
+     */
+    private static void appendParameter(StringBuilder builder, String name, String value, boolean first) {
+        if (!first) {
+            builder.append(", ");
+        }
+        builder.append(name)
+               .append("=\"")
+               .append(JwtHttpConstants.sanitiseHeaderParameterValue(value))
+               .append('"');
+    }
+
+    /**
+     * Gets the approximate number of rendered challenges currently cached
+     *
+     * @return Estimated cache size
+     */
+    long estimatedSize() {
+        this.cache.cleanUp();
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * Cache key for a rendered challenge
+     *
+     * @param realm            Realm
+     * @param errorCode        Error Code
+     * @param errorDescription Error Description
+     */
+    private record Key(String realm, String errorCode, String errorDescription) {
+    }
+}
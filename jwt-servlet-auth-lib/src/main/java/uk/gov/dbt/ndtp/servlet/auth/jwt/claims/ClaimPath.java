@@ -0,0 +1,220 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.claims;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A compiled path to a, possibly nested, claim within a JWT's claims
+ * <p>
+ * A path may be expressed in one of two ways:
+ * </p>
+ * <ul>
+ *     <li>A dotted path, e.g. {@code realm_access.preferred_username}, where each segment names a claim within the
+ *     object named by the previous segment.  Since claim names may themselves contain dots, e.g. namespaced claims such
+ *     as {@code https://example.org/username}, a top level claim whose name is the entire expression always takes
+ *     precedence over the nested path.</li>
+ *     <li>A <a href="https://www.rfc-editor.org/rfc/rfc6901">JSON Pointer</a>, e.g. {@code /realm_access/username},
+ *     where {@code ~1} and {@code ~0} escape {@code /} and {@code ~} respectively.</li>
+ * </ul>
+ * <p>
+ * In either form a segment that is a non-negative integer may also index into an array.  Paths are parsed once, so
+ * resolving them against a token's claims requires only map lookups, and values of the wrong type are simply treated as
+ * absent rather than causing exceptions.
+ * </p>
+ */
+public final class ClaimPath {
+
+    private final String expression;
+    private final String literal;
+    private final String[] segments;
+
+    private ClaimPath(String expression, String literal, String[] segments) {
+        this.expression = expression;
+        this.literal = literal;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses a claim path expression
+     *
+     * @param expression Expression, either a dotted path or a JSON Pointer
+     * @return Claim path
+     * @throws IllegalArgumentException Thrown if the expression is blank
+     */
+    public static ClaimPath parse(String expression) {
+        if (StringUtils.isBlank(expression)) {
+            throw new IllegalArgumentException("Claim path cannot be blank");
+        }
+        if (expression.startsWith("/")) {
+            String[] segments = expression.substring(1).split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = segments[i].replace("~1", "/").replace("~0", "~");
+            }
+            return new ClaimPath(expression, null, segments);
+        }
+        String[] segments = StringUtils.splitPreserveAllTokens(expression, '.');
+        return new ClaimPath(expression, expression, segments.length > 1 ? segments : null);
+    }
+
+    /**
+     * Parses several claim path expressions, ignoring any blank expressions
+     *
+     * @param expressions Expressions
+     * @return Claim paths
+     */
+    public static List<ClaimPath> parseAll(Iterable<String> expressions) {
+        List<ClaimPath> paths = new ArrayList<>();
+        if (expressions != null) {
+            for (String expression : expressions) {
+                if (StringUtils.isNotBlank(expression)) {
+                    paths.add(parse(expression));
+                }
+            }
+        }
+        return List.copyOf(paths);
+    }
+
+    /**
+     * Resolves the claim value at this path
+     *
+     * @param claims Claims
+     * @return Claim value, or {@code null} if there is no value at this path
+     */
+    public Object resolve(Map<String, ?> claims) {
+        if (claims == null) {
+            return null;
+        }
+        if (this.literal != null) {
+            Object value = claims.get(this.literal);
+            if (value != null || this.segments == null) {
+                return value;
+            }
+        }
+
+        Object current = claims;
+        for (String segment : this.segments) {
+            current = child(current, segment);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the claim value at this path as a string
+     *
+     * @param claims Claims
+     * @return Claim value, or {@code null} if there is no value at this path or it is not a string
+     */
+    public String resolveString(Map<String, ?> claims) {
+        return resolve(claims) instanceof String value ? value : null;
+    }
+
+    /**
+     * Resolves the claim value at this path as strings, intended for multi-valued claims such as roles or groups
+     * <p>
+     * A string value is returned as a single element, while an array value returns all of its string elements, any
+     * other elements being ignored.
+     * </p>
+     *
+     * @param claims Claims
+     * @return Claim values, empty if there is no value at this path or it contains no strings
+     */
+    public List<String> resolveStrings(Map<String, ?> claims) {
+        Object value = resolve(claims);
+        if (value instanceof String single) {
+            return List.of(single);
+        } else if (value instanceof Collection<?> collection) {
+            List<String> values = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                if (item instanceof String string) {
+                    values.add(string);
+                }
+            }
+            return values;
+        }
+        return List.of();
+    }
+
+    /**
+     * Finds a child of a claim value
+     *
+     * @param value   Claim value
+     * @param segment Path segment
+     * @return Child value, or {@code null} if no such child
+     */
+    private static Object child(Object value, String segment) {
+        if (value instanceof Map<?, ?> map) {
+            return map.get(segment);
+        } else if (value instanceof List<?> list) {
+            int index = index(segment);
+            return index >= 0 && index < list.size() ? list.get(index) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Parses a path segment as an array index
+     *
+     * @param segment Segment
+     * @return Index, or {@code -1} if not a valid index
+     */
+    private static int index(String segment) {
+        if (segment.isEmpty() || segment.length() > 9 || !StringUtils.isNumeric(segment)) {
+            return -1;
+        }
+        return Integer.parseInt(segment);
+    }
+
+    /**
+     * Gets the expression this path was parsed from
+     *
+     * @return Expression
+     */
+    public String getExpression() {
+        return this.expression;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ClaimPath other && Objects.equals(this.expression, other.expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.expression.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+}
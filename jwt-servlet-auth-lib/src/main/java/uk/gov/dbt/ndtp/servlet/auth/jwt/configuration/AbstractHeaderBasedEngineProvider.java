@@ -80,6 +80,17 @@ public abstract class AbstractHeaderBasedEngineProvider implements EngineProvide
                                     AbstractHeaderBasedEngineProvider::parseList, null);
     }
 
+    /**
+     * Tries to configure the role claims
+     *
+     * @param paramSupplier Parameter supplier
+     * @return Role claims, or {@code null} if no configuration provided
+     */
+    protected List<String> configureRoleClaims(UnaryOperator<String> paramSupplier) {
+        return Utils.parseParameter(paramSupplier.apply(ConfigurationParameters.PARAM_ROLE_CLAIMS),
+                                    AbstractHeaderBasedEngineProvider::parseList, null);
+    }
+
     /**
      * Tries to configure the realm
      *
@@ -111,9 +122,11 @@ public abstract class AbstractHeaderBasedEngineProvider implements EngineProvide
         }
         String realm = this.configureRealm(paramSupplier);
         List<String> usernameClaims = this.configureUsernameClaims(paramSupplier);
+        List<String> roleClaims = this.configureRoleClaims(paramSupplier);
 
         try {
-            JwtAuthenticationEngine<TRequest, TResponse> engine = createEngine(headerSources, realm, usernameClaims);
+            JwtAuthenticationEngine<TRequest, TResponse> engine =
+                    createEngine(headerSources, realm, usernameClaims, roleClaims);
             if (engine == null) {
                 return false;
             }
@@ -136,4 +149,24 @@ public abstract class AbstractHeaderBasedEngineProvider implements EngineProvide
      */
     protected abstract <TRequest, TResponse> JwtAuthenticationEngine<TRequest, TResponse> createEngine(
             List<HeaderSource> headerSources, String realm, List<String> usernameClaims);
+
+    /**
+     * Creates the actual engine implementation with role claims
+     * <p>
+     * The default implementation ignores the role claims and calls
+     * {@link #createEngine(List, String, List)}, providers whose engines support role claims should override this.
+     * </p>
+     *
+     * @param headerSources  Header Sources
+     * @param realm          Realm
+     * @param usernameClaims Username claims
+     * @param roleClaims     Role claims
+     * @param <TRequest>     Request type
+     * @param <TResponse>    Response type
+     * @return JWT Authentication Engine
+     */
+    protected <TRequest, TResponse> JwtAuthenticationEngine<TRequest, TResponse> createEngine(
+            List<HeaderSource> headerSources, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return createEngine(headerSources, realm, usernameClaims);
+    }
 }
@@ -23,11 +23,17 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.configuration;
 
+import java.time.Duration;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.AuthorizationRules;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicyRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.SampledAuthenticationLogPolicy;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.DefaultAuthenticationMetrics;
 
 /**
  * Entry point for automated configuration
@@ -73,13 +79,93 @@ public class AutomatedConfiguration {
             LOGGER.warn("Path Exclusions already configured, skipping additional attempt to automatically configure.");
         }
 
+        // Configure the Authorization Rules, these are applied to the engine, if we configure it
+        AuthorizationRules rules =
+                AuthorizationRules.parse(adaptor.getParameter(ConfigurationParameters.PARAM_AUTHORIZATION_RULES));
+
+        // Configure the Authentication Logging
+        configureLogging(adaptor);
+
+        // Configure the Authentication Metrics
+        configureMetrics(adaptor);
+
         // Configure the Authentication Engine
         if (adaptor.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE) == null || allowMultiple) {
-            EngineFactory.configure(adaptor::getParameter,
-                                    e -> adaptor.setAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE, e));
+            EngineFactory.configure(adaptor::getParameter, e -> {
+                e.setAuthorizationRules(rules);
+                adaptor.setAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE, e);
+            });
         } else {
             LOGGER.warn(
                     "JWT Authentication Engine already configured, skipping additional attempt to automatically configure.");
+            if (!rules.isEmpty()) {
+                LOGGER.warn("Authorization rules ({}) are not applied to a pre-configured JWT Authentication Engine",
+                            ConfigurationParameters.PARAM_AUTHORIZATION_RULES);
+            }
+        }
+    }
+
+    /**
+     * Configures the JVM wide authentication logging policy, if a logging mode is explicitly configured
+     *
+     * @param adaptor Configuration adaptor
+     */
+    private static void configureLogging(RuntimeConfigurationAdaptor adaptor) {
+        String mode = adaptor.getParameter(ConfigurationParameters.PARAM_LOGGING_MODE);
+        if (StringUtils.isBlank(mode)) {
+            return;
+        }
+
+        if (StringUtils.equalsIgnoreCase(mode, ConfigurationParameters.LOGGING_MODE_SAMPLED)) {
+            double linesPerSecond =
+                    Utils.parseParameter(adaptor.getParameter(ConfigurationParameters.PARAM_LOGGING_LINES_PER_SECOND),
+                                         Double::parseDouble, SampledAuthenticationLogPolicy.DEFAULT_LINES_PER_SECOND);
+            int burst = Utils.parseParameter(adaptor.getParameter(ConfigurationParameters.PARAM_LOGGING_BURST),
+                                             Integer::parseInt, SampledAuthenticationLogPolicy.DEFAULT_BURST);
+            Duration summaryInterval =
+                    Utils.parseParameter(adaptor.getParameter(ConfigurationParameters.PARAM_LOGGING_SUMMARY_SECONDS),
+                                         x -> Duration.ofSeconds(Long.parseLong(x)),
+                                         SampledAuthenticationLogPolicy.DEFAULT_SUMMARY_INTERVAL);
+            try {
+                AuthenticationLogPolicyRegistry.install(
+                        new SampledAuthenticationLogPolicy(linesPerSecond, burst, summaryInterval,
+                                                           SampledAuthenticationLogPolicy.DEFAULT_MAX_TRACKED));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid sampled logging configuration ({}), using defaults", e.getMessage());
+                AuthenticationLogPolicyRegistry.install(new SampledAuthenticationLogPolicy());
+            }
+        } else if (StringUtils.equalsIgnoreCase(mode, ConfigurationParameters.LOGGING_MODE_ALL)) {
+            AuthenticationLogPolicyRegistry.reset();
+        } else {
+            LOGGER.warn("Unrecognised {} value {}, logging mode left unchanged",
+                        ConfigurationParameters.PARAM_LOGGING_MODE, mode);
+        }
+    }
+
+    /**
+     * Configures the JVM wide authentication metrics, if a metrics mode is explicitly configured
+     * <p>
+     * If {@link DefaultAuthenticationMetrics} are already installed, e.g. by another filter configured from the same
+     * parameters, they are left in place so that the metrics recorded so far are not lost.
+     * </p>
+     *
+     * @param adaptor Configuration adaptor
+     */
+    private static void configureMetrics(RuntimeConfigurationAdaptor adaptor) {
+        String mode = adaptor.getParameter(ConfigurationParameters.PARAM_METRICS);
+        if (StringUtils.isBlank(mode)) {
+            return;
+        }
+
+        if (StringUtils.equalsIgnoreCase(mode, ConfigurationParameters.METRICS_DEFAULT)) {
+            if (!(AuthenticationMetricsRegistry.get() instanceof DefaultAuthenticationMetrics)) {
+                AuthenticationMetricsRegistry.install(new DefaultAuthenticationMetrics());
+            }
+        } else if (StringUtils.equalsIgnoreCase(mode, ConfigurationParameters.METRICS_NONE)) {
+            AuthenticationMetricsRegistry.reset();
+        } else {
+            LOGGER.warn("Unrecognised {} value {}, metrics left unchanged", ConfigurationParameters.PARAM_METRICS,
+                        mode);
         }
     }
 }
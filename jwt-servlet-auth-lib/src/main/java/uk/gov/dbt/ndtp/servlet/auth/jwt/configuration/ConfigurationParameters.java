@@ -23,6 +23,7 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.configuration;
 
+import uk.gov.dbt.ndtp.servlet.auth.jwt.AuthorizationRule;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
 
@@ -60,6 +61,11 @@ public class ConfigurationParameters {
      * should be given in order of preference
      */
     public static final String PARAM_USERNAME_CLAIMS = "jwt.username.claims";
+    /**
+     * Parameter for configuring the list of claims that are used to find the roles for a user from a verified JWT, the
+     * user's roles are the union of the values of all these claims
+     */
+    public static final String PARAM_ROLE_CLAIMS = "jwt.roles.claims";
     /**
      * Parameter for configuring the realm that will be presented to users who are not authenticated as part of the HTTP
      * challenge
@@ -70,6 +76,11 @@ public class ConfigurationParameters {
      * are not subject to JWT authentication
      */
     public static final String PARAM_PATH_EXCLUSIONS = "jwt.path-exclusions";
+    /**
+     * Parameter for configuring a semicolon separated list of {@link AuthorizationRule} that authenticated requests must
+     * additionally satisfy
+     */
+    public static final String PARAM_AUTHORIZATION_RULES = "jwt.authorization.rules";
     /**
      * Parameter that configures a secret key for verification
      */
@@ -86,16 +97,106 @@ public class ConfigurationParameters {
      * Parameter that configures a JWKS URL from which keys can be obtained for verification
      */
     public static final String PARAM_JWKS_URL = "jwt.jwks.url";
+    /**
+     * Parameter that configures multiple JWKS URLs, keyed by issuer, as a comma separated list of {@code issuer=url}
+     * entries.  Tokens are routed to the JWKS for their issuer, with {@link #PARAM_JWKS_URL} (if any) used for tokens
+     * from any other issuer.
+     */
+    public static final String PARAM_JWKS_ISSUERS = "jwt.jwks.issuers";
     /**
      * Parameter that configures how long keys retrieved from a JWKS URL will be cached for
      */
     public static final String PARAM_JWKS_CACHE_KEYS_FOR = "jwt.jwks.cache.minutes";
+    /**
+     * Parameter that configures whether keys retrieved from a JWKS URL are refreshed in the background, in which case
+     * {@link #PARAM_JWKS_CACHE_KEYS_FOR} controls how frequently they are refreshed
+     */
+    public static final String PARAM_JWKS_REFRESH_AHEAD = "jwt.jwks.refresh-ahead";
+    /**
+     * Parameter that configures the minimum number of seconds between reloads of a JWKS URL triggered by tokens bearing
+     * unknown key IDs, set to zero to permit a reload upon every unknown key ID
+     */
+    public static final String PARAM_JWKS_MIN_REFETCH_SECONDS = "jwt.jwks.min-refetch.seconds";
+    /**
+     * Parameter that configures whether a prebuilt parser is pooled per key retrieved from a JWKS URL, rather than
+     * locating the key for every token verified
+     */
+    public static final String PARAM_JWKS_PARSER_POOL = "jwt.jwks.parser-pool";
+    /**
+     * Parameter that configures whether keys are retrieved from a JWKS URL asynchronously, allowing filters that support
+     * suspending requests to release their thread while keys are loaded
+     */
+    public static final String PARAM_JWKS_ASYNC = "jwt.jwks.async";
+    /**
+     * Parameter that configures a file to which keys retrieved from a JWKS URL are saved, and from which they are
+     * initially loaded at startup, so that authentication is possible before the JWKS URL has been contacted
+     */
+    public static final String PARAM_JWKS_SNAPSHOT_FILE = "jwt.jwks.snapshot.file";
     /**
      * Parameter that configures the allowed clock skew used for token verification
      */
     public static final String PARAM_ALLOWED_CLOCK_SKEW = "jwt.allowed.clock.skew";
+    /**
+     * Parameter that configures the maximum number of successfully verified tokens that will be cached, if not set, or
+     * set to zero, then no caching of verified tokens occurs
+     */
+    public static final String PARAM_VERIFICATION_CACHE_SIZE = "jwt.verification.cache.size";
+    /**
+     * Parameter that configures the maximum number of seconds for which a successfully verified token will be cached,
+     * tokens are never cached beyond their own expiry regardless of this setting
+     */
+    public static final String PARAM_VERIFICATION_CACHE_SECONDS = "jwt.verification.cache.seconds";
+    /**
+     * Parameter that configures the logging mode, either {@value #LOGGING_MODE_ALL} which logs every authenticated and
+     * rejected request, or {@value #LOGGING_MODE_SAMPLED} which samples per-request lines and periodically logs
+     * aggregated summaries instead
+     */
+    public static final String PARAM_LOGGING_MODE = "jwt.logging.mode";
+    /**
+     * Parameter that configures how many per-request lines per second are logged for each outcome and path when using
+     * sampled logging
+     */
+    public static final String PARAM_LOGGING_LINES_PER_SECOND = "jwt.logging.lines-per-second";
+    /**
+     * Parameter that configures how many per-request lines may be logged in a burst for each outcome and path when
+     * using sampled logging
+     */
+    public static final String PARAM_LOGGING_BURST = "jwt.logging.burst";
+    /**
+     * Parameter that configures the number of seconds between aggregated summaries when using sampled logging
+     */
+    public static final String PARAM_LOGGING_SUMMARY_SECONDS = "jwt.logging.summary.seconds";
+    /**
+     * Logging mode that logs every authenticated and rejected request
+     */
+    public static final String LOGGING_MODE_ALL = "all";
+    /**
+     * Logging mode that samples per-request lines and periodically logs aggregated summaries
+     */
+    public static final String LOGGING_MODE_SAMPLED = "sampled";
+    /**
+     * Parameter that configures the JVM wide authentication metrics, either {@value #METRICS_DEFAULT} which installs the
+     * lock-free in-memory {@code DefaultAuthenticationMetrics}, or {@value #METRICS_NONE} which records nothing
+     */
+    public static final String PARAM_METRICS = "jwt.metrics";
+    /**
+     * Metrics mode that installs the lock-free in-memory {@code DefaultAuthenticationMetrics}
+     */
+    public static final String METRICS_DEFAULT = "default";
+    /**
+     * Metrics mode that records nothing
+     */
+    public static final String METRICS_NONE = "none";
     /**
      * The default amount of time for which JWKS loaded keys will be cached
      */
     public static final int DEFAULT_JWKS_CACHE_KEYS_FOR = 60;
+    /**
+     * The default minimum number of seconds between reloads of a JWKS URL triggered by unknown key IDs
+     */
+    public static final int DEFAULT_JWKS_MIN_REFETCH_SECONDS = 10;
+    /**
+     * The default maximum number of seconds for which a verified token will be cached
+     */
+    public static final int DEFAULT_VERIFICATION_CACHE_SECONDS = 300;
 }
@@ -25,14 +25,13 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.configuration;
 
 import io.jsonwebtoken.JwtParserBuilder;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.Locator;
 import java.io.File;
 import java.net.URI;
 import java.net.http.HttpClient;
-import java.security.Key;
 import java.security.PublicKey;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
@@ -41,15 +40,22 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.AsyncJwksJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.CachingJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.IssuerRoutingJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.PooledParserJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.CachedJwksKeyLocator;
 
 /**
  * A provider for creating {@link JwtVerifier} from configuration.  This is able to configure a
  * {@link SignedJwtVerifier} using a secret/public key, or a JWKS URL, plus applies other common configuration (e.g.
- * allowed clock skew) to the verifier.
+ * allowed clock skew) to the verifier.  Optionally the verifier may be wrapped in a {@link CachingJwtVerifier} so that
+ * repeated presentations of the same token are not fully re-verified on every request, and JWKS based verifiers may be
+ * wrapped in an {@link AsyncJwksJwtVerifier} so that keys can be loaded asynchronously.  If JWKS URLs are configured
+ * for multiple issuers then tokens are routed to the appropriate JWKS by an {@link IssuerRoutingJwtVerifier}.
  */
 public class DefaultVerificationProvider implements VerificationProvider {
 
@@ -62,8 +68,17 @@ public class DefaultVerificationProvider implements VerificationProvider {
             ConfigurationParameters.PARAM_PUBLIC_KEY,
             ConfigurationParameters.PARAM_SECRET_KEY,
             ConfigurationParameters.PARAM_JWKS_URL,
+            ConfigurationParameters.PARAM_JWKS_ISSUERS,
+            ConfigurationParameters.PARAM_JWKS_CACHE_KEYS_FOR,
+            ConfigurationParameters.PARAM_JWKS_REFRESH_AHEAD,
+            ConfigurationParameters.PARAM_JWKS_MIN_REFETCH_SECONDS,
+            ConfigurationParameters.PARAM_JWKS_PARSER_POOL,
+            ConfigurationParameters.PARAM_JWKS_ASYNC,
+            ConfigurationParameters.PARAM_JWKS_SNAPSHOT_FILE,
             ConfigurationParameters.PARAM_KEY_ALGORITHM,
-            ConfigurationParameters.PARAM_ALLOWED_CLOCK_SKEW
+            ConfigurationParameters.PARAM_ALLOWED_CLOCK_SKEW,
+            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SIZE,
+            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SECONDS
     };
 
     private Map<String, String> prepareParameters(UnaryOperator<String> paramSupplier) {
@@ -109,17 +124,26 @@ public class DefaultVerificationProvider implements VerificationProvider {
      */
     private JwtVerifier create(Map<String, String> parameters) throws KeyLoadException {
         String jwksUrl = parameters.get(ConfigurationParameters.PARAM_JWKS_URL);
+        String jwksIssuers = parameters.get(ConfigurationParameters.PARAM_JWKS_ISSUERS);
         String secretKey = parameters.get(ConfigurationParameters.PARAM_SECRET_KEY);
         String publicKey = parameters.get(ConfigurationParameters.PARAM_PUBLIC_KEY);
         String algorithm = parameters.get(ConfigurationParameters.PARAM_KEY_ALGORITHM);
-        Integer cacheKeysFor =
-                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_JWKS_CACHE_KEYS_FOR, Integer::parseInt,
-                                     ConfigurationParameters.DEFAULT_JWKS_CACHE_KEYS_FOR);
 
-        if (StringUtils.isNotBlank(jwksUrl)) {
-            Locator<Key> jwks = new CachedJwksKeyLocator(asURI(jwksUrl), HttpClient.newBuilder().build(),
-                                                         Duration.ofMinutes(cacheKeysFor));
-            return create(parameters, Jwts.parser().keyLocator(jwks), SignedJwtVerifier.debugStringForLocator(jwks));
+        String snapshotFile = parameters.get(ConfigurationParameters.PARAM_JWKS_SNAPSHOT_FILE);
+        File snapshot = StringUtils.isNotBlank(snapshotFile) ? new File(snapshotFile) : null;
+
+        if (StringUtils.isNotBlank(jwksIssuers)) {
+            // Each issuer has its own JWKS, and thus its own key cache, but the snapshot file can only hold a single
+            // JWKS so is only used for the fallback JWKS (if any)
+            Map<String, JwtVerifier> issuers = new LinkedHashMap<>();
+            for (Map.Entry<String, String> issuer : parseIssuers(jwksIssuers).entrySet()) {
+                issuers.put(issuer.getKey(), createJwks(parameters, asURI(issuer.getValue()), null));
+            }
+            JwtVerifier fallback =
+                    StringUtils.isNotBlank(jwksUrl) ? createJwks(parameters, asURI(jwksUrl), snapshot) : null;
+            return new IssuerRoutingJwtVerifier(issuers, null, fallback);
+        } else if (StringUtils.isNotBlank(jwksUrl)) {
+            return createJwks(parameters, asURI(jwksUrl), snapshot);
         } else if (StringUtils.isNotBlank(secretKey)) {
             SecretKey secret = KeyUtils.loadSecretKey(new File(secretKey));
             return create(parameters, Jwts.parser().verifyWith(secret), SignedJwtVerifier.SECRET_KEY_DEBUG_STRING);
@@ -129,7 +153,89 @@ public class DefaultVerificationProvider implements VerificationProvider {
         } else {
             throw new KeyLoadException("No parameter available to supply a key or JWKS URL for JWT verification.");
         }
+    }
 
+    /**
+     * Parses the JWKS URLs keyed by issuer
+     *
+     * @param jwksIssuers Comma separated list of {@code issuer=url} entries
+     * @return JWKS URLs keyed by issuer
+     * @throws KeyLoadException Thrown if any entry is invalid
+     */
+    private static Map<String, String> parseIssuers(String jwksIssuers) throws KeyLoadException {
+        Map<String, String> issuers = new LinkedHashMap<>();
+        for (String entry : StringUtils.split(jwksIssuers, ',')) {
+            if (StringUtils.isBlank(entry)) {
+                continue;
+            }
+            // Split on the first = only as the URL may legitimately contain = in its query string
+            int separator = entry.indexOf('=');
+            String issuer = separator > 0 ? entry.substring(0, separator).strip() : null;
+            String url = separator > 0 ? entry.substring(separator + 1).strip() : null;
+            if (StringUtils.isAnyBlank(issuer, url)) {
+                throw new KeyLoadException("Parameter " + ConfigurationParameters.PARAM_JWKS_ISSUERS
+                                           + " must be a comma separated list of issuer=url entries");
+            }
+            if (issuers.put(issuer, url) != null) {
+                throw new KeyLoadException(
+                        "Parameter " + ConfigurationParameters.PARAM_JWKS_ISSUERS + " specifies issuer " + issuer
+                        + " more than once");
+            }
+        }
+        if (issuers.isEmpty()) {
+            throw new KeyLoadException(
+                    "Parameter " + ConfigurationParameters.PARAM_JWKS_ISSUERS + " does not specify any issuers");
+        }
+        return issuers;
+    }
+
+    /**
+     * Creates a {@link JwtVerifier} that verifies tokens using keys from a JWKS
+     *
+     * @param parameters Parameters
+     * @param jwksUri    JWKS URI
+     * @param snapshot   Snapshot file for the JWKS, may be {@code null}
+     * @return JWT Verifier
+     */
+    private JwtVerifier createJwks(Map<String, String> parameters, URI jwksUri, File snapshot) {
+        Integer cacheKeysFor =
+                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_JWKS_CACHE_KEYS_FOR, Integer::parseInt,
+                                     ConfigurationParameters.DEFAULT_JWKS_CACHE_KEYS_FOR);
+
+        if (cacheKeysFor <= 0) {
+            cacheKeysFor = ConfigurationParameters.DEFAULT_JWKS_CACHE_KEYS_FOR;
+        }
+        boolean refreshAhead =
+                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_JWKS_REFRESH_AHEAD, Boolean::parseBoolean,
+                                     false);
+        Integer minRefetchSeconds =
+                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_JWKS_MIN_REFETCH_SECONDS,
+                                     Integer::parseInt, ConfigurationParameters.DEFAULT_JWKS_MIN_REFETCH_SECONDS);
+        if (minRefetchSeconds < 0) {
+            minRefetchSeconds = ConfigurationParameters.DEFAULT_JWKS_MIN_REFETCH_SECONDS;
+        }
+
+        boolean parserPool =
+                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_JWKS_PARSER_POOL, Boolean::parseBoolean,
+                                     false);
+        boolean async =
+                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_JWKS_ASYNC, Boolean::parseBoolean, false);
+
+        CachedJwksKeyLocator jwks = new CachedJwksKeyLocator(jwksUri,
+                                                             HttpClient.newBuilder()
+                                                                       .connectTimeout(KeyUtils.JWKS_CONNECT_TIMEOUT)
+                                                                       .build(),
+                                                             Duration.ofMinutes(cacheKeysFor), refreshAhead,
+                                                             Duration.ofSeconds(minRefetchSeconds), snapshot);
+        JwtVerifier verifier;
+        if (parserPool) {
+            JwtVerifier pooled = new PooledParserJwtVerifier(jwks, () -> configureParser(parameters, Jwts.parser()));
+            verifier = withCaching(parameters, pooled);
+        } else {
+            verifier =
+                    create(parameters, Jwts.parser().keyLocator(jwks), SignedJwtVerifier.debugStringForLocator(jwks));
+        }
+        return async ? new AsyncJwksJwtVerifier(verifier, jwks) : verifier;
     }
 
     private static URI asURI(String jwksUrl) throws KeyLoadException {
@@ -166,13 +272,38 @@ public class DefaultVerificationProvider implements VerificationProvider {
     }
 
     private JwtVerifier create(Map<String, String> parameters, JwtParserBuilder builder, String debugString) {
-        Integer allowedClockSkew =
-                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_ALLOWED_CLOCK_SKEW, Integer::parseInt,
-                                     null);
+        return withCaching(parameters, new SignedJwtVerifier(configureParser(parameters, builder).build(), debugString));
+    }
+
+    private static Integer allowedClockSkew(Map<String, String> parameters) {
+        return Utils.parseParameter(parameters, ConfigurationParameters.PARAM_ALLOWED_CLOCK_SKEW, Integer::parseInt,
+                                    null);
+    }
+
+    private static JwtParserBuilder configureParser(Map<String, String> parameters, JwtParserBuilder builder) {
+        Integer allowedClockSkew = allowedClockSkew(parameters);
         if (allowedClockSkew != null) {
             builder.clockSkewSeconds(allowedClockSkew);
         }
         // TODO Allow configuring various requirements on the JWT parser e.g. issuer
-        return new SignedJwtVerifier(builder.build(), debugString);
+        return builder;
+    }
+
+    private JwtVerifier withCaching(Map<String, String> parameters, JwtVerifier verifier) {
+        Integer allowedClockSkew = allowedClockSkew(parameters);
+        Long cacheSize =
+                Utils.parseParameter(parameters, ConfigurationParameters.PARAM_VERIFICATION_CACHE_SIZE, Long::parseLong,
+                                     0L);
+        if (cacheSize > 0) {
+            Integer cacheSeconds =
+                    Utils.parseParameter(parameters, ConfigurationParameters.PARAM_VERIFICATION_CACHE_SECONDS,
+                                         Integer::parseInt, ConfigurationParameters.DEFAULT_VERIFICATION_CACHE_SECONDS);
+            if (cacheSeconds <= 0) {
+                cacheSeconds = ConfigurationParameters.DEFAULT_VERIFICATION_CACHE_SECONDS;
+            }
+            verifier = new CachingJwtVerifier(verifier, cacheSize, Duration.ofSeconds(cacheSeconds),
+                                              allowedClockSkew != null ? Duration.ofSeconds(allowedClockSkew) : null);
+        }
+        return verifier;
     }
 }
@@ -23,12 +23,18 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.configuration;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.AuthenticationConfigurationError;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
@@ -36,6 +42,17 @@ import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 /**
  * Holds configuration for a filter, allowing it to be set only once, and warning if an attempt to change the
  * configuration after the fact is detected
+ * <p>
+ * The configuration is held as a single immutable {@link Snapshot} which is replaced atomically, via compare and set,
+ * each time another piece of configuration is frozen.  Filters should read the {@link #snapshot()} once per request,
+ * which is a single volatile read with no locking, and then use that snapshot for the remainder of the request.
+ * </p>
+ * <p>
+ * Detecting attempted modifications requires looking up the runtime configuration, e.g. servlet context attributes,
+ * which may involve synchronisation within the container.  Therefore {@link #checkForModifications(Function)} only
+ * actually performs the check at most once per modification check interval, for all other calls it returns
+ * immediately.
+ * </p>
  *
  * @param <TRequest>  Request type
  * @param <TResponse> Response type
@@ -44,12 +61,84 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FrozenFilterConfiguration.class);
 
-    // These fields are intentionally null, they will be populated once configure() has been called and tried to
-    // autoconfigure these, or the first time they are successfully read from the runtime configuration if the user is
-    // doing the configuration another way e.g. via a ServletContextListener
-    private JwtAuthenticationEngine<TRequest, TResponse> engine = null;
-    private JwtVerifier verifier = null;
-    private List<PathExclusion> exclusions = null;
+    /**
+     * Default interval between checks for attempted configuration modifications
+     */
+    public static final Duration DEFAULT_MODIFICATION_CHECK_INTERVAL = Duration.ofSeconds(30);
+
+    private static final VarHandle SNAPSHOT;
+    private static final VarHandle NEXT_MODIFICATION_CHECK;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SNAPSHOT = lookup.findVarHandle(FrozenFilterConfiguration.class, "snapshot", Snapshot.class);
+            NEXT_MODIFICATION_CHECK =
+                    lookup.findVarHandle(FrozenFilterConfiguration.class, "nextModificationCheck", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // The snapshot fields are intentionally null initially, they will be populated once configure() has been called
+    // and tried to autoconfigure these, or the first time they are successfully read from the runtime configuration if
+    // the user is doing the configuration another way e.g. via a ServletContextListener
+    private volatile Snapshot<TRequest, TResponse> snapshot = new Snapshot<>(null, null, null);
+    private volatile long nextModificationCheck;
+    private final long modificationCheckInterval;
+
+    /**
+     * Creates a new configuration that checks for attempted modifications at the default interval
+     */
+    public FrozenFilterConfiguration() {
+        this(DEFAULT_MODIFICATION_CHECK_INTERVAL);
+    }
+
+    /**
+     * Creates a new configuration
+     *
+     * @param modificationCheckInterval Minimum interval between checks for attempted configuration modifications, zero
+     *                                  to check on every call to {@link #checkForModifications(Function)}
+     */
+    public FrozenFilterConfiguration(Duration modificationCheckInterval) {
+        Objects.requireNonNull(modificationCheckInterval, "Modification check interval cannot be null");
+        if (modificationCheckInterval.isNegative()) {
+            throw new IllegalArgumentException("Modification check interval cannot be negative");
+        }
+        this.modificationCheckInterval = modificationCheckInterval.toNanos();
+        this.nextModificationCheck = System.nanoTime();
+    }
+
+    /**
+     * An immutable snapshot of the frozen configuration
+     *
+     * @param engine     Engine, {@code null} if not yet frozen
+     * @param verifier   Verifier, {@code null} if not yet frozen
+     * @param exclusions Path exclusions, {@code null} if not yet frozen
+     * @param <TRequest>  Request type
+     * @param <TResponse> Response type
+     */
+    public record Snapshot<TRequest, TResponse>(JwtAuthenticationEngine<TRequest, TResponse> engine,
+                                                JwtVerifier verifier, List<PathExclusion> exclusions) {
+
+        /**
+         * Gets whether all configuration has been frozen
+         *
+         * @return True if complete, false otherwise
+         */
+        public boolean isComplete() {
+            return this.engine != null && this.verifier != null && this.exclusions != null;
+        }
+    }
+
+    /**
+     * Gets the current snapshot of the frozen configuration
+     *
+     * @return Snapshot
+     */
+    public Snapshot<TRequest, TResponse> snapshot() {
+        return this.snapshot;
+    }
 
     /**
      * Gets the configured engine (if any)
@@ -57,7 +146,7 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
      * @return Engine
      */
     public JwtAuthenticationEngine<TRequest, TResponse> getEngine() {
-        return engine;
+        return this.snapshot.engine();
     }
 
     /**
@@ -66,7 +155,7 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
      * @return Verifier
      */
     public JwtVerifier getVerifier() {
-        return verifier;
+        return this.snapshot.verifier();
     }
 
     /**
@@ -75,7 +164,31 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
      * @return Exclusions
      */
     public List<PathExclusion> getExclusions() {
-        return exclusions;
+        return this.snapshot.exclusions();
+    }
+
+    /**
+     * Checks whether any of the frozen configuration has changed relative to the runtime provided configuration
+     * <p>
+     * This is intended to be called on every request, but only actually performs the check at most once per
+     * modification check interval, and only on one thread, so that the runtime configuration is not looked up on every
+     * request.
+     * </p>
+     *
+     * @param attributeGetter Attribute getter function used to detect the currently configured values
+     */
+    public void checkForModifications(Function<String, Object> attributeGetter) {
+        long now = System.nanoTime();
+        long next = this.nextModificationCheck;
+        if (now - next < 0 || !NEXT_MODIFICATION_CHECK.compareAndSet(this, next,
+                                                                     now + this.modificationCheckInterval)) {
+            return;
+        }
+        Snapshot<TRequest, TResponse> current = this.snapshot;
+        warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS, attributeGetter,
+                                    current.exclusions());
+        warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_JWT_ENGINE, attributeGetter, current.engine());
+        warnIfModificationAttempted(JwtServletConstants.ATTRIBUTE_JWT_VERIFIER, attributeGetter, current.verifier());
     }
 
     /**
@@ -185,11 +298,12 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
      *
      * @param rawVerifier Raw verifier
      */
-    public synchronized void tryFreezeVerifierConfiguration(Object rawVerifier) {
-        if (this.verifier != null) {
+    public void tryFreezeVerifierConfiguration(Object rawVerifier) {
+        if (this.snapshot.verifier() != null) {
             return;
         }
-        this.verifier = this.prepareVerifier(rawVerifier);
+        JwtVerifier jwtVerifier = this.prepareVerifier(rawVerifier);
+        this.freeze(Snapshot::verifier, s -> new Snapshot<>(s.engine(), jwtVerifier, s.exclusions()));
     }
 
     /**
@@ -198,12 +312,13 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
      * @param rawEngine     Engine
      * @param defaultEngine Default engine to fallback configuration to
      */
-    public synchronized void tryFreezeEngineConfiguration(Object rawEngine,
-                                                          JwtAuthenticationEngine<TRequest, TResponse> defaultEngine) {
-        if (this.engine != null) {
+    public void tryFreezeEngineConfiguration(Object rawEngine,
+                                             JwtAuthenticationEngine<TRequest, TResponse> defaultEngine) {
+        if (this.snapshot.engine() != null) {
             return;
         }
-        this.engine = this.prepareEngine(rawEngine, defaultEngine);
+        JwtAuthenticationEngine<TRequest, TResponse> jwtEngine = this.prepareEngine(rawEngine, defaultEngine);
+        this.freeze(Snapshot::engine, s -> new Snapshot<>(jwtEngine, s.verifier(), s.exclusions()));
     }
 
     /**
@@ -211,10 +326,29 @@ public final class FrozenFilterConfiguration<TRequest, TResponse> {
      *
      * @param rawPathExclusions Path exclusions
      */
-    public synchronized void tryFreezeExclusionsConfiguration(Object rawPathExclusions) {
-        if (this.exclusions != null) {
+    public void tryFreezeExclusionsConfiguration(Object rawPathExclusions) {
+        if (this.snapshot.exclusions() != null) {
             return;
         }
-        this.exclusions = this.preparePathExclusions(rawPathExclusions);
+        List<PathExclusion> pathExclusions = this.preparePathExclusions(rawPathExclusions);
+        this.freeze(Snapshot::exclusions, s -> new Snapshot<>(s.engine(), s.verifier(), pathExclusions));
+    }
+
+    /**
+     * Atomically publishes a new snapshot with an additional piece of configuration frozen, unless another thread froze
+     * that configuration first
+     *
+     * @param frozenValue Function that extracts the relevant configuration from a snapshot
+     * @param updater     Function that creates the new snapshot from the current snapshot
+     */
+    private void freeze(Function<Snapshot<TRequest, TResponse>, Object> frozenValue,
+                        UnaryOperator<Snapshot<TRequest, TResponse>> updater) {
+        Snapshot<TRequest, TResponse> current;
+        do {
+            current = this.snapshot;
+            if (frozenValue.apply(current) != null) {
+                return;
+            }
+        } while (!SNAPSHOT.compareAndSet(this, current, updater.apply(current)));
     }
 }
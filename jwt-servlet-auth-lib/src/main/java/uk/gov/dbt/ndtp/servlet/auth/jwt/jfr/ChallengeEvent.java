@@ -0,0 +1,69 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+
+/**
+ * JFR event recording the sending of an authentication challenge
+ */
+@Name(JfrEvents.PREFIX + "Challenge")
+@Label("Challenge")
+@Category(JfrEvents.CATEGORY)
+@Description("Sending of an authentication challenge")
+@Enabled(false)
+@StackTrace(false)
+public final class ChallengeEvent extends Event {
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Error Code")
+    @Description("OAuth2 error code, empty if the request carried no credentials")
+    String errorCode;
+
+    @Label("Error Description")
+    String errorDescription;
+
+    /**
+     * Completes the event, committing it if it is enabled
+     *
+     * @param challenge Challenge sent
+     */
+    public void complete(Challenge challenge) {
+        if (shouldCommit()) {
+            this.statusCode = challenge.statusCode();
+            this.errorCode = challenge.errorCode();
+            this.errorDescription = challenge.errorDescription();
+            commit();
+        }
+    }
+}
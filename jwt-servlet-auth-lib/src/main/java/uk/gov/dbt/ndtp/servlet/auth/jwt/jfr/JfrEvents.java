@@ -0,0 +1,69 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+/**
+ * Constants shared by the JDK Flight Recorder (JFR) events this library emits
+ * <p>
+ * Events are only recorded when enabled in a JFR recording, e.g. {@code -XX:StartFlightRecording}, and when disabled
+ * they cost next to nothing since the JIT compiler eliminates them.  All events appear under the {@value #CATEGORY}
+ * category, and never record stack traces.
+ * </p>
+ * <p>
+ * Since some events occur upon every request their defaults are chosen to keep recordings small.  JWKS loads are always
+ * recorded, token verifications and AWS ELB key locates only when they take at least {@value #DEFAULT_THRESHOLD}, and
+ * token extraction, username extraction and challenge events are disabled unless enabled via custom recording
+ * settings, i.e. a {@code .jfc} file.
+ * </p>
+ */
+public final class JfrEvents {
+
+    /**
+     * Category under which all events are grouped
+     */
+    public static final String CATEGORY = "JWT Servlet Auth";
+
+    /**
+     * Prefix used for all event names
+     */
+    public static final String PREFIX = "uk.gov.dbt.ndtp.jwt.";
+
+    /**
+     * Default duration threshold for events that occur upon every request
+     */
+    public static final String DEFAULT_THRESHOLD = "10 ms";
+
+    /**
+     * Outcome recorded for successful operations
+     */
+    public static final String OUTCOME_SUCCESS = "SUCCESS";
+
+    /**
+     * Outcome recorded for failed operations
+     */
+    public static final String OUTCOME_FAILURE = "FAILURE";
+
+    private JfrEvents() {
+    }
+}
@@ -0,0 +1,76 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event recording the loading of a JWKS resource
+ */
+@Name(JfrEvents.PREFIX + "JwksLoad")
+@Label("JWKS Load")
+@Category(JfrEvents.CATEGORY)
+@Description("Loading of a JWKS resource")
+@Threshold("0 ms")
+@StackTrace(false)
+public final class JwksLoadEvent extends Event {
+
+    @Label("URI")
+    String uri;
+
+    @Label("Coalesced")
+    @Description("Whether the load waited on a fetch already in-flight rather than fetching itself")
+    boolean coalesced;
+
+    @Label("Not Modified")
+    @Description("Whether the server confirmed the previously loaded JWKS was still current")
+    boolean notModified;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Completes the event, committing it if it is enabled
+     *
+     * @param uri         JWKS URI, only converted to a string if the event is committed
+     * @param coalesced   Whether the load was coalesced with an in-flight fetch
+     * @param notModified Whether the server reported the JWKS as not modified
+     * @param outcome     Outcome
+     */
+    public void complete(Object uri, boolean coalesced, boolean notModified, String outcome) {
+        if (shouldCommit()) {
+            this.uri = String.valueOf(uri);
+            this.coalesced = coalesced;
+            this.notModified = notModified;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event recording the extraction of candidate tokens from a request
+ */
+@Name(JfrEvents.PREFIX + "TokenExtraction")
+@Label("Token Extraction")
+@Category(JfrEvents.CATEGORY)
+@Description("Extraction of candidate tokens from a request")
+@Enabled(false)
+@StackTrace(false)
+public final class TokenExtractionEvent extends Event {
+
+    @Label("Candidates")
+    @Description("Number of candidate tokens extracted, zero if the request carried no credentials")
+    int candidates;
+
+    /**
+     * Completes the event, committing it if it is enabled
+     *
+     * @param candidates Number of candidate tokens extracted
+     */
+    public void complete(int candidates) {
+        if (shouldCommit()) {
+            this.candidates = candidates;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.TokenPeek;
+
+/**
+ * JFR event recording the verification of a single candidate token
+ */
+@Name(JfrEvents.PREFIX + "TokenVerification")
+@Label("Token Verification")
+@Category(JfrEvents.CATEGORY)
+@Description("Verification of a single candidate token")
+@Threshold(JfrEvents.DEFAULT_THRESHOLD)
+@StackTrace(false)
+public final class TokenVerificationEvent extends Event {
+
+    @Label("Verifier")
+    String verifier;
+
+    @Label("Source")
+    @Description("Source the candidate token was extracted from")
+    String source;
+
+    @Label("Key ID")
+    @Description("Unverified kid header of the candidate token, empty if not present")
+    String kid;
+
+    @Label("Outcome")
+    @Description("SUCCESS, or the reason the token was rejected")
+    String outcome;
+
+    /**
+     * Completes the event, committing it if it is enabled
+     *
+     * @param verifier Verifier, only converted to a string if the event is committed
+     * @param source   Token source, only converted to a string if the event is committed
+     * @param rawToken Raw token, its {@code kid} header is only peeked at if the event is committed
+     * @param outcome  Outcome
+     */
+    public void complete(Object verifier, Object source, String rawToken, String outcome) {
+        if (shouldCommit()) {
+            this.verifier = String.valueOf(verifier);
+            this.source = String.valueOf(source);
+            this.kid = TokenPeek.keyId(rawToken);
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event recording the extraction of a username from a verified token
+ * <p>
+ * The username itself is deliberately not recorded so that recordings do not capture user identities.
+ * </p>
+ */
+@Name(JfrEvents.PREFIX + "UsernameExtraction")
+@Label("Username Extraction")
+@Category(JfrEvents.CATEGORY)
+@Description("Extraction of a username from a verified token")
+@Enabled(false)
+@StackTrace(false)
+public final class UsernameExtractionEvent extends Event {
+
+    @Label("Found")
+    @Description("Whether a username was found")
+    boolean found;
+
+    /**
+     * Completes the event, committing it if it is enabled
+     *
+     * @param found Whether a username was found
+     */
+    public void complete(boolean found) {
+        if (shouldCommit()) {
+            this.found = found;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.logging;
+
+/**
+ * A policy that decides whether an individual per-request authentication log line is emitted
+ * <p>
+ * Engines and filters consult the installed policy, see {@link AuthenticationLogPolicyRegistry}, before building a
+ * per-request log line so that when a line is suppressed no message formatting takes place at all.
+ * </p>
+ */
+public interface AuthenticationLogPolicy {
+
+    /**
+     * Event logged when a request is successfully authenticated
+     */
+    String AUTHENTICATED = "authenticated";
+
+    /**
+     * Event logged by filters when a request is rejected as unauthenticated
+     */
+    String REJECTED = "rejected";
+
+    /**
+     * Event logged when a request is challenged without an error code, typically because it carried no credentials
+     */
+    String UNAUTHENTICATED = "unauthenticated";
+
+    /**
+     * A policy that logs every line, this is the default
+     */
+    AuthenticationLogPolicy ALL = (event, path) -> true;
+
+    /**
+     * Decides whether a per-request log line should be emitted
+     *
+     * @param event Event being logged, either one of the constants on this interface or the OAuth2 error code of the
+     *              challenge being issued
+     * @param path  Request path, or URL, the event relates to
+     * @return True if the line should be logged, false if it should be suppressed
+     */
+    boolean shouldLog(String event, String path);
+}
@@ -0,0 +1,68 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.logging;
+
+/**
+ * A registry of the {@link AuthenticationLogPolicy} currently installed
+ * <p>
+ * Like {@link uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry} the policy is shared across the
+ * whole JVM since engines and filters are typically constructed independently of each other.  By default
+ * {@link AuthenticationLogPolicy#ALL} is installed so that every line is logged.
+ * </p>
+ */
+public final class AuthenticationLogPolicyRegistry {
+
+    private static volatile AuthenticationLogPolicy POLICY = AuthenticationLogPolicy.ALL;
+
+    private AuthenticationLogPolicyRegistry() {
+    }
+
+    /**
+     * Gets the currently installed policy
+     *
+     * @return Policy
+     */
+    public static AuthenticationLogPolicy get() {
+        return POLICY;
+    }
+
+    /**
+     * Installs a policy, replacing any previously installed policy
+     *
+     * @param policy Policy, {@code null} is treated as {@link AuthenticationLogPolicy#ALL}
+     */
+    public static void install(AuthenticationLogPolicy policy) {
+        POLICY = policy != null ? policy : AuthenticationLogPolicy.ALL;
+    }
+
+    /**
+     * Resets the registry so that every line is logged
+     * <p>
+     * Typically only needed in unit test scenarios
+     * </p>
+     */
+    public static void reset() {
+        install(AuthenticationLogPolicy.ALL);
+    }
+}
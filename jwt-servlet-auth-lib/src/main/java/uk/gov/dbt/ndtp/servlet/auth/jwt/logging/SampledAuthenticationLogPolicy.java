@@ -0,0 +1,265 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.logging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link AuthenticationLogPolicy} that samples per-request log lines and periodically logs aggregated summaries
+ * <p>
+ * Each distinct combination of event and path has its own token bucket, so a flood of one kind of failure on one path
+ * cannot crowd out the log lines for other failures or paths.  Lines beyond the permitted rate are suppressed and
+ * instead counted, and once per summary interval a single line per event and path summarising how many occurrences
+ * there were, and how many were suppressed, is logged e.g.
+ * {@code 1500 invalid_token outcome(s) for requests to /api/data in the last 10s, 1495 not logged individually}.
+ * Successful authentications are summarised at {@code INFO} and everything else at {@code WARN}.
+ * </p>
+ * <p>
+ * Summaries are emitted by whichever request thread first observes that the interval has elapsed, so no background
+ * thread is needed, but equally no summary is logged until further requests arrive.  Counts are approximate, an
+ * occurrence racing with the summary may be counted towards either interval, or occasionally not at all.  The number of
+ * tracked paths is bounded, once the limit is reached further paths are tracked collectively as {@value #OTHER_PATHS}.
+ * </p>
+ */
+public class SampledAuthenticationLogPolicy implements AuthenticationLogPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SampledAuthenticationLogPolicy.class);
+
+    private static final String SUMMARY =
+            "{} {} outcome(s) for requests to {} in the last {}s, {} not logged individually";
+
+    /**
+     * Default number of lines per second permitted for each event and path
+     */
+    public static final double DEFAULT_LINES_PER_SECOND = 1.0;
+
+    /**
+     * Default number of lines that may be logged in a burst for each event and path
+     */
+    public static final int DEFAULT_BURST = 5;
+
+    /**
+     * Default interval between summaries
+     */
+    public static final Duration DEFAULT_SUMMARY_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Default maximum number of distinct event and path combinations tracked
+     */
+    public static final int DEFAULT_MAX_TRACKED = 1_000;
+
+    /**
+     * Path under which events are tracked once the maximum number of tracked paths is reached
+     */
+    public static final String OTHER_PATHS = "(other paths)";
+
+    private final Map<Key, Tracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSummary;
+    private final LongSupplier clock;
+    private final long emissionInterval, burstTolerance, summaryInterval;
+    private final int maxTracked;
+
+    /**
+     * Creates a new policy with default settings
+     */
+    public SampledAuthenticationLogPolicy() {
+        this(DEFAULT_LINES_PER_SECOND, DEFAULT_BURST, DEFAULT_SUMMARY_INTERVAL, DEFAULT_MAX_TRACKED);
+    }
+
+    /**
+     * Creates a new policy
+     *
+     * @param linesPerSecond  Number of lines per second permitted for each event and path
+     * @param burst           Number of lines that may be logged in a burst for each event and path
+     * @param summaryInterval Interval between summaries
+     * @param maxTracked      Maximum number of distinct event and path combinations tracked
+     */
+    public SampledAuthenticationLogPolicy(double linesPerSecond, int burst, Duration summaryInterval,
+                                          int maxTracked) {
+        this(linesPerSecond, burst, summaryInterval, maxTracked, System::nanoTime);
+    }
+
+    /**
+     * Creates a new policy with a custom clock
+     *
+     * @param linesPerSecond  Number of lines per second permitted for each event and path
+     * @param burst           Number of lines that may be logged in a burst for each event and path
+     * @param summaryInterval Interval between summaries
+     * @param maxTracked      Maximum number of distinct event and path combinations tracked
+     * @param clock           Clock supplying the current time in nanoseconds
+     */
+    SampledAuthenticationLogPolicy(double linesPerSecond, int burst, Duration summaryInterval, int maxTracked,
+                                   LongSupplier clock) {
+        if (!(linesPerSecond > 0)) {
+            throw new IllegalArgumentException("Lines per second must be greater than zero");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1");
+        }
+        Objects.requireNonNull(summaryInterval, "Summary interval cannot be null");
+        if (summaryInterval.isNegative() || summaryInterval.isZero()) {
+            throw new IllegalArgumentException("Summary interval must be greater than zero");
+        }
+        if (maxTracked < 1) {
+            throw new IllegalArgumentException("Maximum tracked must be at least 1");
+        }
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+        this.emissionInterval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / linesPerSecond));
+        this.burstTolerance = this.emissionInterval * (burst - 1);
+        this.summaryInterval = summaryInterval.toNanos();
+        this.maxTracked = maxTracked;
+        this.nextSummary = new AtomicLong(clock.getAsLong() + this.summaryInterval);
+    }
+
+    @Override
+    public boolean shouldLog(String event, String path) {
+        long now = this.clock.getAsLong();
+        long next = this.nextSummary.get();
+        if (now - next >= 0 && this.nextSummary.compareAndSet(next, now + this.summaryInterval)) {
+            summarise();
+        }
+
+        Tracker tracker = tracker(new Key(event, path), now);
+        tracker.occurrences.increment();
+        if (tracker.tryAcquire(now)) {
+            return true;
+        }
+        tracker.suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Finds, or creates, the tracker for the given key
+     *
+     * @param key Key
+     * @param now Current time
+     * @return Tracker
+     */
+    private Tracker tracker(Key key, long now) {
+        Tracker tracker = this.trackers.get(key);
+        if (tracker != null) {
+            return tracker;
+        }
+        if (this.trackers.size() >= this.maxTracked) {
+            key = new Key(key.event(), OTHER_PATHS);
+        }
+        return this.trackers.computeIfAbsent(key, k -> new Tracker(now));
+    }
+
+    /**
+     * Logs a summary of the events that occurred since the last summary, only events where some lines were suppressed
+     * are summarised since all other occurrences were already logged individually
+     * <p>
+     * This is normally called automatically once each summary interval has elapsed, but may also be called directly,
+     * e.g. when an application is shutting down.
+     * </p>
+     */
+    public void summarise() {
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(this.summaryInterval);
+        for (Map.Entry<Key, Tracker> entry : this.trackers.entrySet()) {
+            Tracker tracker = entry.getValue();
+            long occurrences = tracker.occurrences.sumThenReset();
+            long suppressed = tracker.suppressed.sumThenReset();
+            if (occurrences == 0) {
+                // Nothing happened for this event and path in the last interval so stop tracking it
+                this.trackers.remove(entry.getKey(), tracker);
+            } else if (suppressed > 0) {
+                Key key = entry.getKey();
+                if (AUTHENTICATED.equals(key.event())) {
+                    LOGGER.info(SUMMARY, occurrences, key.event(), key.path(), seconds, suppressed);
+                } else {
+                    LOGGER.warn(SUMMARY, occurrences, key.event(), key.path(), seconds, suppressed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct event and path combinations currently tracked
+     *
+     * @return Number tracked
+     */
+    int tracked() {
+        return this.trackers.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{linesPerSecond=%.2f, burst=%d, summaryInterval=%s, maxTracked=%,d}",
+                             this.getClass().getSimpleName(),
+                             (double) TimeUnit.SECONDS.toNanos(1) / this.emissionInterval,
+                             this.burstTolerance / this.emissionInterval + 1, Duration.ofNanos(this.summaryInterval),
+                             this.maxTracked);
+    }
+
+    /**
+     * Key identifying an event and path
+     *
+     * @param event Event
+     * @param path  Path
+     */
+    private record Key(String event, String path) {
+    }
+
+    /**
+     * Tracks the occurrences of an event on a path, along with the token bucket limiting how many are logged
+     * <p>
+     * The token bucket is implemented as a generic cell rate algorithm, the theoretical arrival time of the next line
+     * advances by the emission interval each time a line is permitted, and a line is suppressed if doing so would take
+     * it more than the burst tolerance ahead of the current time.  This allows the bucket to be updated lock-free with
+     * a single compare and set.
+     * </p>
+     */
+    private final class Tracker {
+        private final AtomicLong theoreticalArrival;
+        private final LongAdder occurrences = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+
+        private Tracker(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        private boolean tryAcquire(long now) {
+            while (true) {
+                long current = this.theoreticalArrival.get();
+                long base = now - current > 0 ? now : current;
+                if (base - now > burstTolerance) {
+                    return false;
+                }
+                if (this.theoreticalArrival.compareAndSet(current, base + emissionInterval)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
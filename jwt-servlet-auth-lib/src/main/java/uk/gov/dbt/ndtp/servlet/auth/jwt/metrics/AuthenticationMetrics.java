@@ -0,0 +1,120 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+
+/**
+ * A listener that is notified at each stage of authentication so that authentication may be monitored
+ * <p>
+ * Listeners are called synchronously, on whichever thread performed the stage in question, so <strong>MUST</strong> be
+ * thread-safe and should return quickly, ideally without allocating or blocking.  All methods have no-op default
+ * implementations so implementations need only override the notifications they are interested in.  The listener that is
+ * notified is the one currently installed in the {@link AuthenticationMetricsRegistry}, by default {@link #NONE}.
+ * </p>
+ * <p>
+ * All durations are given in nanoseconds, as measured by {@link System#nanoTime()}.
+ * </p>
+ */
+public interface AuthenticationMetrics {
+
+    /**
+     * Cache name used when reporting accesses to the verified token cache of a
+     * {@link uk.gov.dbt.ndtp.servlet.auth.jwt.verification.CachingJwtVerifier}
+     */
+    String CACHE_VERIFIED_TOKENS = "verified-tokens";
+
+    /**
+     * Cache name used when reporting accesses to the cached keys of a
+     * {@link uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.CachedJwksKeyLocator}
+     */
+    String CACHE_JWKS_KEYS = "jwks-keys";
+
+    /**
+     * Metrics that ignore all notifications
+     */
+    AuthenticationMetrics NONE = new AuthenticationMetrics() {
+        @Override
+        public String toString() {
+            return "AuthenticationMetrics.NONE";
+        }
+    };
+
+    /**
+     * Called when a request is successfully authenticated
+     *
+     * @param durationNanos Time taken to authenticate the request
+     */
+    default void onAuthenticated(long durationNanos) {
+    }
+
+    /**
+     * Called when a request is not authenticated and an authentication challenge is sent
+     *
+     * @param challenge     Challenge sent
+     * @param durationNanos Time taken to reach the decision to challenge the request
+     */
+    default void onChallenge(Challenge challenge, long durationNanos) {
+    }
+
+    /**
+     * Called when authentication of a request fails with an unexpected error
+     *
+     * @param error         Error
+     * @param durationNanos Time taken before the error occurred
+     */
+    default void onError(Throwable error, long durationNanos) {
+    }
+
+    /**
+     * Called when a token has been verified
+     *
+     * @param failure       Reason verification failed, or {@code null} if verification succeeded
+     * @param durationNanos Time taken to verify the token
+     */
+    default void onVerification(VerificationResult.Reason failure, long durationNanos) {
+    }
+
+    /**
+     * Called when a JWKS resource has been fetched
+     * <p>
+     * Only actual fetches are reported, callers whose load was coalesced with an in-flight fetch are not.
+     * </p>
+     *
+     * @param success       Whether the fetch succeeded
+     * @param durationNanos Time taken to fetch the JWKS
+     */
+    default void onJwksFetch(boolean success, long durationNanos) {
+    }
+
+    /**
+     * Called when a cache is accessed
+     *
+     * @param cache Cache name e.g. {@link #CACHE_VERIFIED_TOKENS}
+     * @param hit   Whether the access was a hit
+     */
+    default void onCacheAccess(String cache, boolean hit) {
+    }
+}
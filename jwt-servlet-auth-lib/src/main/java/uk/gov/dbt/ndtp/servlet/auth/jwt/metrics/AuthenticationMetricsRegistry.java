@@ -0,0 +1,70 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+/**
+ * A registry of the {@link AuthenticationMetrics} currently installed
+ * <p>
+ * Authentication engines, verifiers and key locators all report to the installed metrics, which are shared across the
+ * whole JVM, since they are typically constructed independently of each other and often via automatic configuration.
+ * By default {@link AuthenticationMetrics#NONE} is installed so that nothing is recorded, when using automatic
+ * configuration setting the {@code jwt.metrics} parameter to {@code default} installs
+ * {@link DefaultAuthenticationMetrics} instead.
+ * </p>
+ */
+public final class AuthenticationMetricsRegistry {
+
+    private static volatile AuthenticationMetrics METRICS = AuthenticationMetrics.NONE;
+
+    private AuthenticationMetricsRegistry() {
+    }
+
+    /**
+     * Gets the currently installed metrics
+     *
+     * @return Metrics
+     */
+    public static AuthenticationMetrics get() {
+        return METRICS;
+    }
+
+    /**
+     * Installs metrics, replacing any previously installed metrics
+     *
+     * @param metrics Metrics, {@code null} is treated as {@link AuthenticationMetrics#NONE}
+     */
+    public static void install(AuthenticationMetrics metrics) {
+        METRICS = metrics != null ? metrics : AuthenticationMetrics.NONE;
+    }
+
+    /**
+     * Resets the registry so that nothing is recorded
+     * <p>
+     * Typically only needed in unit test scenarios
+     * </p>
+     */
+    public static void reset() {
+        install(AuthenticationMetrics.NONE);
+    }
+}
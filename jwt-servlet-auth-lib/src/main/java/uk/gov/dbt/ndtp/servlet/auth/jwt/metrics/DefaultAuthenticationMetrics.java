@@ -0,0 +1,268 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+
+/**
+ * Default {@link AuthenticationMetrics} implementation that keeps lock-free in-memory counters and latency histograms
+ * <p>
+ * Counters are {@link LongAdder}s, so concurrent updates from many request threads do not contend with each other, and
+ * latencies are recorded into {@link LatencyHistogram}s.  Values are cumulative since the metrics were created, callers
+ * wanting rates should sample them periodically.
+ * </p>
+ */
+public class DefaultAuthenticationMetrics implements AuthenticationMetrics {
+
+    /**
+     * Error code under which challenges that carry no OAuth2 error code, i.e. requests that presented no credentials at
+     * all, are counted
+     */
+    public static final String NO_ERROR_CODE = "none";
+
+    private final LongAdder authenticated = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> challenges = new ConcurrentHashMap<>();
+    private final LatencyHistogram authenticationLatency = new LatencyHistogram();
+
+    private final LongAdder verified = new LongAdder();
+    private final Map<VerificationResult.Reason, LongAdder> verificationFailures;
+    private final LatencyHistogram verificationLatency = new LatencyHistogram();
+
+    private final LongAdder jwksFetches = new LongAdder();
+    private final LongAdder jwksFetchFailures = new LongAdder();
+    private final LatencyHistogram jwksFetchLatency = new LatencyHistogram();
+
+    private final ConcurrentMap<String, CacheCounters> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new metrics
+     */
+    public DefaultAuthenticationMetrics() {
+        Map<VerificationResult.Reason, LongAdder> failures = new EnumMap<>(VerificationResult.Reason.class);
+        for (VerificationResult.Reason reason : VerificationResult.Reason.values()) {
+            failures.put(reason, new LongAdder());
+        }
+        this.verificationFailures = Collections.unmodifiableMap(failures);
+    }
+
+    @Override
+    public void onAuthenticated(long durationNanos) {
+        this.authenticated.increment();
+        this.authenticationLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onChallenge(Challenge challenge, long durationNanos) {
+        String errorCode = StringUtils.isBlank(challenge.errorCode()) ? NO_ERROR_CODE : challenge.errorCode();
+        this.challenges.computeIfAbsent(errorCode, k -> new LongAdder()).increment();
+        this.authenticationLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onError(Throwable error, long durationNanos) {
+        this.errors.increment();
+        this.authenticationLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onVerification(VerificationResult.Reason failure, long durationNanos) {
+        if (failure == null) {
+            this.verified.increment();
+        } else {
+            this.verificationFailures.get(failure).increment();
+        }
+        this.verificationLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onJwksFetch(boolean success, long durationNanos) {
+        if (success) {
+            this.jwksFetches.increment();
+        } else {
+            this.jwksFetchFailures.increment();
+        }
+        this.jwksFetchLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onCacheAccess(String cache, boolean hit) {
+        CacheCounters counters = this.caches.computeIfAbsent(cache, k -> new CacheCounters());
+        (hit ? counters.hits : counters.misses).increment();
+    }
+
+    /**
+     * Gets the number of requests successfully authenticated
+     *
+     * @return Authenticated requests
+     */
+    public long getAuthenticated() {
+        return this.authenticated.sum();
+    }
+
+    /**
+     * Gets the number of requests challenged, by OAuth2 error code
+     *
+     * @return Challenged requests by error code, challenges without an error code are counted under
+     * {@link #NO_ERROR_CODE}
+     */
+    public Map<String, Long> getChallenges() {
+        Map<String, Long> counts = new TreeMap<>();
+        this.challenges.forEach((errorCode, count) -> counts.put(errorCode, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Gets the number of requests whose authentication failed with an unexpected error
+     *
+     * @return Errored requests
+     */
+    public long getErrors() {
+        return this.errors.sum();
+    }
+
+    /**
+     * Gets the latency of authenticating requests, regardless of outcome
+     *
+     * @return Authentication latency in nanoseconds
+     */
+    public LatencyHistogram getAuthenticationLatency() {
+        return this.authenticationLatency;
+    }
+
+    /**
+     * Gets the number of tokens successfully verified
+     *
+     * @return Verified tokens
+     */
+    public long getVerified() {
+        return this.verified.sum();
+    }
+
+    /**
+     * Gets the number of tokens that failed verification for the given reason
+     *
+     * @param reason Reason
+     * @return Failed verifications
+     */
+    public long getVerificationFailures(VerificationResult.Reason reason) {
+        return this.verificationFailures.get(reason).sum();
+    }
+
+    /**
+     * Gets the latency of verifying tokens, regardless of outcome
+     *
+     * @return Verification latency in nanoseconds
+     */
+    public LatencyHistogram getVerificationLatency() {
+        return this.verificationLatency;
+    }
+
+    /**
+     * Gets the number of successful JWKS fetches
+     *
+     * @return JWKS fetches
+     */
+    public long getJwksFetches() {
+        return this.jwksFetches.sum();
+    }
+
+    /**
+     * Gets the number of failed JWKS fetches
+     *
+     * @return Failed JWKS fetches
+     */
+    public long getJwksFetchFailures() {
+        return this.jwksFetchFailures.sum();
+    }
+
+    /**
+     * Gets the latency of fetching JWKS resources, regardless of outcome
+     *
+     * @return JWKS fetch latency in nanoseconds
+     */
+    public LatencyHistogram getJwksFetchLatency() {
+        return this.jwksFetchLatency;
+    }
+
+    /**
+     * Gets the number of hits on the given cache
+     *
+     * @param cache Cache name
+     * @return Cache hits
+     */
+    public long getCacheHits(String cache) {
+        CacheCounters counters = this.caches.get(cache);
+        return counters != null ? counters.hits.sum() : 0;
+    }
+
+    /**
+     * Gets the number of misses on the given cache
+     *
+     * @param cache Cache name
+     * @return Cache misses
+     */
+    public long getCacheMisses(String cache) {
+        CacheCounters counters = this.caches.get(cache);
+        return counters != null ? counters.misses.sum() : 0;
+    }
+
+    /**
+     * Gets the hit ratio of the given cache
+     *
+     * @param cache Cache name
+     * @return Hit ratio between {@code 0} and {@code 1}, or zero if the cache has not been accessed
+     */
+    public double getCacheHitRatio(String cache) {
+        long hits = getCacheHits(cache);
+        long total = hits + getCacheMisses(cache);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DefaultAuthenticationMetrics{authenticated=%,d, challenges=%s, errors=%,d, authenticationLatency=%s, "
+                + "verified=%,d, verificationLatency=%s, jwksFetches=%,d, jwksFetchFailures=%,d}", getAuthenticated(),
+                getChallenges(), getErrors(), this.authenticationLatency, getVerified(), this.verificationLatency,
+                getJwksFetches(), getJwksFetchFailures());
+    }
+
+    /**
+     * Hit and miss counters for a cache
+     */
+    private static final class CacheCounters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
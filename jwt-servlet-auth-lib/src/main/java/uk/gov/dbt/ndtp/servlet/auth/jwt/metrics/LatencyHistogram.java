@@ -0,0 +1,163 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the style of an HDR Histogram
+ * <p>
+ * Values are recorded into buckets whose width doubles with each power of two, with each power of two being split into
+ * {@value #SUB_BUCKETS} linear sub-buckets.  This bounds the relative error of reported percentiles to roughly
+ * {@code 1/16th} of the value across the full range of non-negative {@code long} values while needing only a fixed
+ * array of counts, so recording a value is a couple of bit operations and an atomic increment.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    /**
+     * Number of linear sub-buckets each power of two is split into
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value, negative values are recorded as zero
+     *
+     * @param value Value
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts.incrementAndGet(bucketFor(v));
+        this.count.increment();
+        this.total.add(v);
+        this.max.accumulate(v);
+    }
+
+    /**
+     * Gets the number of recorded values
+     *
+     * @return Count
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Gets the maximum recorded value
+     *
+     * @return Maximum, zero if no values have been recorded
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values
+     *
+     * @return Mean, zero if no values have been recorded
+     */
+    public double getMean() {
+        long n = this.count.sum();
+        return n == 0 ? 0 : (double) this.total.sum() / n;
+    }
+
+    /**
+     * Gets the value at the given percentile
+     * <p>
+     * The returned value is the upper bound of the bucket containing the percentile, capped at the maximum recorded
+     * value.  Since values may be recorded concurrently the result is approximate while recording is ongoing.
+     * </p>
+     *
+     * @param percentile Percentile, between {@code 0} and {@code 100}
+     * @return Value at the percentile, zero if no values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Calculates the bucket for a non-negative value
+     *
+     * @param value Value
+     * @return Bucket index
+     */
+    static int bucketFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Calculates the largest value that falls into a bucket
+     *
+     * @param bucket Bucket index
+     * @return Upper bound
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram{count=%,d, mean=%.0f, p50=%,d, p99=%,d, max=%,d}", getCount(), getMean(),
+                             getValueAtPercentile(50), getValueAtPercentile(99), getMax());
+    }
+}
@@ -0,0 +1,123 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import java.security.Key;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.CachedJwksKeyLocator;
+
+/**
+ * An {@link AsyncJwtVerifier} for tokens whose keys are located via a {@link CachedJwksKeyLocator}
+ * <p>
+ * Before a token is verified its {@code kid} header is peeked at and, if that key is not already cached, the JWKS is
+ * loaded asynchronously via {@link CachedJwksKeyLocator#locateAsync(String)}.  Only once the key is available is the
+ * token verified by the underlying verifier, which must locate keys using the same locator, so the actual verification
+ * never blocks on fetching the JWKS.  Synchronous verification simply delegates to the underlying verifier.
+ * </p>
+ */
+public class AsyncJwksJwtVerifier implements AsyncJwtVerifier {
+
+    private final JwtVerifier verifier;
+    private final CachedJwksKeyLocator locator;
+
+    /**
+     * Creates a new asynchronous JWKS verifier
+     *
+     * @param verifier Underlying verifier that does the actual verification
+     * @param locator  Key locator used by the underlying verifier
+     */
+    public AsyncJwksJwtVerifier(JwtVerifier verifier, CachedJwksKeyLocator locator) {
+        this.verifier = Objects.requireNonNull(verifier, "Verifier cannot be null");
+        this.locator = Objects.requireNonNull(locator, "Key locator cannot be null");
+    }
+
+    @Override
+    public Jws<Claims> verify(String rawJwt) {
+        return this.verifier.verify(rawJwt);
+    }
+
+    @Override
+    public VerificationResult tryVerify(String rawJwt) {
+        return this.verifier.tryVerify(rawJwt);
+    }
+
+    @Override
+    public TokenPrecheck.Result precheck(String rawJwt) {
+        return this.verifier.precheck(rawJwt);
+    }
+
+    @Override
+    public CompletionStage<Jws<Claims>> verifyAsync(String rawJwt) {
+        return keyAvailable(rawJwt).thenApply(key -> this.verifier.verify(rawJwt));
+    }
+
+    @Override
+    public CompletionStage<VerificationResult> tryVerifyAsync(String rawJwt) {
+        return keyAvailable(rawJwt).handle((key, e) -> {
+            if (e == null) {
+                return this.verifier.tryVerify(rawJwt);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof JwtException jwtError) {
+                return VerificationResult.failure(jwtError);
+            }
+            throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+        });
+    }
+
+    /**
+     * Ensures the key needed to verify the token is available
+     *
+     * @param rawJwt Raw JSON Web Token
+     * @return Future key, or {@code null} if the token does not declare a key ID in which case full verification is
+     * left to report the problem
+     */
+    private CompletableFuture<Key> keyAvailable(String rawJwt) {
+        String keyId = TokenPeek.keyId(rawJwt);
+        if (keyId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.locator.locateAsync(keyId);
+    }
+
+    /**
+     * Gets the underlying verifier
+     *
+     * @return Underlying verifier
+     */
+    public JwtVerifier getVerifier() {
+        return this.verifier;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{verifier=%s}", this.getClass().getSimpleName(), this.verifier);
+    }
+}
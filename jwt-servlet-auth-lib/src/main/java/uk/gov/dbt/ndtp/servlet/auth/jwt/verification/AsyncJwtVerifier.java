@@ -0,0 +1,76 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link JwtVerifier} that is also capable of verifying JSON Web Tokens (JWT) asynchronously
+ * <p>
+ * Verification may need to perform I/O, e.g. fetching a JWKS to obtain the key a token was signed with, asynchronous
+ * verification allows this to happen without holding the calling thread.  Filters that support suspending requests
+ * use asynchronous verification automatically when configured with an asynchronous verifier, otherwise the verifier
+ * is used synchronously like any other {@link JwtVerifier}.
+ * </p>
+ */
+public interface AsyncJwtVerifier extends JwtVerifier {
+
+    /**
+     * Verifies the provided raw JSON Web Token asynchronously
+     *
+     * @param rawJwt Raw JSON Web Token
+     * @return Future verified JSON Web Token, completes exceptionally, or with {@code null}, if the token is invalid
+     */
+    CompletionStage<Jws<Claims>> verifyAsync(String rawJwt);
+
+    /**
+     * Verifies the provided raw JSON Web Token asynchronously returning a result that indicates whether verification
+     * succeeded
+     * <p>
+     * This is the asynchronous equivalent of {@link #tryVerify(String)}, verification failures are reported via the
+     * returned result, only unexpected errors cause the returned stage to complete exceptionally.  The default
+     * implementation simply wraps {@link #verifyAsync(String)}.
+     * </p>
+     *
+     * @param rawJwt Raw JSON Web Token
+     * @return Future verification result
+     */
+    default CompletionStage<VerificationResult> tryVerifyAsync(String rawJwt) {
+        return verifyAsync(rawJwt).handle((jws, e) -> {
+            if (e == null) {
+                return jws != null ? VerificationResult.success(jws) :
+                       VerificationResult.failure(VerificationResult.Reason.INVALID, "Token could not be verified");
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof JwtException jwtError) {
+                return VerificationResult.failure(jwtError);
+            }
+            throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+        });
+    }
+}
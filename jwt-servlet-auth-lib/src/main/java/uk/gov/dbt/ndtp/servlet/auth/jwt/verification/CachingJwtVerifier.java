@@ -0,0 +1,227 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+
+/**
+ * A {@link JwtVerifier} decorator that caches successful verification results so that repeated presentations of the
+ * same token, which is the normal pattern for Bearer authentication, do not repeat the full parse and signature
+ * verification on every request.
+ * <p>
+ * Cache entries are keyed on a SHA-256 hash of the raw token, rather than the token itself, so the cache never retains
+ * the actual credentials.  The cache is bounded in size and each entry expires at the token's own expiry ({@code exp}
+ * claim) less the allowed clock skew, or after the configured maximum lifetime if that is sooner.  Failed
+ * verifications are never cached, they always go to the underlying verifier.
+ * </p>
+ */
+public class CachingJwtVerifier implements JwtVerifier {
+
+    /**
+     * Default maximum lifetime of a cache entry
+     */
+    public static final Duration DEFAULT_MAX_LIFETIME = Duration.ofMinutes(5);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwtVerifier verifier;
+    private final Cache<String, Jws<Claims>> cache;
+    private final long maxSize;
+    private final Duration maxLifetime;
+    private final Duration allowedClockSkew;
+
+    /**
+     * Creates a new caching verifier
+     *
+     * @param verifier         Underlying verifier that does the actual verification
+     * @param maxSize          Maximum number of verified tokens to cache
+     * @param maxLifetime      Maximum lifetime of a cache entry, entries will be expired sooner if the token's own
+     *                         expiry is reached first
+     * @param allowedClockSkew Allowed clock skew, entries are expired this long before the token's own expiry, may be
+     *                         {@code null} if no clock skew is permitted
+     */
+    public CachingJwtVerifier(JwtVerifier verifier, long maxSize, Duration maxLifetime, Duration allowedClockSkew) {
+        this.verifier = Objects.requireNonNull(verifier, "Verifier cannot be null");
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum cache size must be greater than zero");
+        }
+        Objects.requireNonNull(maxLifetime, "Maximum lifetime cannot be null");
+        if (maxLifetime.isNegative() || maxLifetime.isZero()) {
+            throw new IllegalArgumentException("Maximum lifetime must be greater than zero");
+        }
+        this.maxSize = maxSize;
+        this.maxLifetime = maxLifetime;
+        this.allowedClockSkew = allowedClockSkew != null ? allowedClockSkew : Duration.ZERO;
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maxSize)
+                             .expireAfter(new TokenExpiry())
+                             .build();
+    }
+
+    @Override
+    public Jws<Claims> verify(String rawJwt) {
+        if (rawJwt == null) {
+            return this.verifier.verify(null);
+        }
+        String key = hash(rawJwt);
+        Jws<Claims> jws = lookup(key);
+        if (jws != null) {
+            return jws;
+        }
+
+        jws = this.verifier.verify(rawJwt);
+        if (jws != null && cacheLifetime(jws) > 0) {
+            this.cache.put(key, jws);
+        }
+        return jws;
+    }
+
+    @Override
+    public VerificationResult tryVerify(String rawJwt) {
+        if (rawJwt == null) {
+            return this.verifier.tryVerify(null);
+        }
+        String key = hash(rawJwt);
+        Jws<Claims> jws = lookup(key);
+        if (jws != null) {
+            return VerificationResult.success(jws);
+        }
+
+        VerificationResult result = this.verifier.tryVerify(rawJwt);
+        if (result instanceof VerificationResult.Success success && cacheLifetime(success.jws()) > 0) {
+            this.cache.put(key, success.jws());
+        }
+        return result;
+    }
+
+    @Override
+    public TokenPrecheck.Result precheck(String rawJwt) {
+        return this.verifier.precheck(rawJwt);
+    }
+
+    /**
+     * Looks up a previously verified token, reporting the cache access to the installed {@link AuthenticationMetrics}
+     *
+     * @param key Cache key
+     * @return Verified token, or {@code null} if not cached
+     */
+    private Jws<Claims> lookup(String key) {
+        Jws<Claims> jws = this.cache.getIfPresent(key);
+        AuthenticationMetricsRegistry.get().onCacheAccess(AuthenticationMetrics.CACHE_VERIFIED_TOKENS, jws != null);
+        return jws;
+    }
+
+    /**
+     * Calculates how long a verified token may be cached for
+     *
+     * @param jws Verified token
+     * @return Cache lifetime in nanoseconds, zero if the token should not be cached
+     */
+    private long cacheLifetime(Jws<Claims> jws) {
+        long lifetime = this.maxLifetime.toNanos();
+        Date expiry = jws.getPayload() != null ? jws.getPayload().getExpiration() : null;
+        if (expiry != null) {
+            long remaining = Duration.ofMillis(expiry.getTime() - System.currentTimeMillis())
+                                     .minus(this.allowedClockSkew)
+                                     .toNanos();
+            lifetime = Math.max(0, Math.min(lifetime, remaining));
+        }
+        return lifetime;
+    }
+
+    /**
+     * Gets the underlying verifier
+     *
+     * @return Underlying verifier
+     */
+    public JwtVerifier getVerifier() {
+        return this.verifier;
+    }
+
+    /**
+     * Gets the approximate number of verified tokens currently cached
+     *
+     * @return Estimated cache size
+     */
+    long estimatedSize() {
+        this.cache.cleanUp();
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * Computes the cache key for a raw token
+     *
+     * @param rawJwt Raw token
+     * @return Cache key
+     */
+    private static String hash(String rawJwt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ENCODER.encodeToString(digest.digest(rawJwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is a mandatory algorithm for all JVMs so this should never happen
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{verifier=%s, maxSize=%,d, maxLifetime=%s}", this.getClass().getSimpleName(),
+                             this.verifier, this.maxSize, this.maxLifetime);
+    }
+
+    /**
+     * Expiry policy that expires each cached token no later than its own expiry
+     */
+    private final class TokenExpiry implements Expiry<String, Jws<Claims>> {
+
+        @Override
+        public long expireAfterCreate(String key, Jws<Claims> jws, long currentTime) {
+            return cacheLifetime(jws);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jws<Claims> jws, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jws, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jws<Claims> jws, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
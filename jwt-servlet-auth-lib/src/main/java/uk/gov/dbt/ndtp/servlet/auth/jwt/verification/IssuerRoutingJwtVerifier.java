@@ -0,0 +1,223 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A JSON Web Token (JWT) verifier that routes each token to one of several underlying verifiers based upon the token's
+ * issuer, allowing tokens from multiple identity providers to be accepted
+ * <p>
+ * Rather than attempting verification with each possible verifier in turn, and paying the cost of a failed
+ * verification for every miss, this verifier peeks at the unverified {@code iss} claim of the token and looks up the
+ * verifier for that issuer.  Optionally, tokens whose issuer is not recognised may be routed on their {@code kid}
+ * header instead, and finally to a fallback verifier, if any.  Tokens that cannot be routed fail verification.
+ * </p>
+ * <p>
+ * Since the issuer is peeked at prior to verification a token routed by its issuer is additionally required to have
+ * that same issuer once verified, so a token can never be verified by a verifier for an issuer other than its own.
+ * Only signed JWTs (JWS) can be routed, as the claims of any other kind of token are not readable prior to
+ * verification.
+ * </p>
+ */
+public class IssuerRoutingJwtVerifier implements AsyncJwtVerifier {
+
+    private static final String UNROUTABLE = "Token issuer is not trusted";
+    private static final String ISSUER_MISMATCH = "Token issuer does not match the issuer it was routed by";
+
+    private final Map<String, JwtVerifier> issuers;
+    private final Map<String, JwtVerifier> keyIds;
+    private final JwtVerifier fallback;
+
+    /**
+     * Creates a new issuer routing verifier
+     *
+     * @param issuers Verifiers keyed by the issuer whose tokens they verify
+     */
+    public IssuerRoutingJwtVerifier(Map<String, JwtVerifier> issuers) {
+        this(issuers, null, null);
+    }
+
+    /**
+     * Creates a new issuer routing verifier
+     *
+     * @param issuers  Verifiers keyed by the issuer whose tokens they verify
+     * @param keyIds   Verifiers keyed by key ID, used for tokens whose issuer is not recognised, may be {@code null}
+     * @param fallback Verifier used for tokens that cannot otherwise be routed, may be {@code null} in which case such
+     *                 tokens fail verification
+     */
+    public IssuerRoutingJwtVerifier(Map<String, JwtVerifier> issuers, Map<String, JwtVerifier> keyIds,
+                                    JwtVerifier fallback) {
+        this.issuers = Map.copyOf(Objects.requireNonNull(issuers, "Issuers cannot be null"));
+        this.keyIds = keyIds != null ? Map.copyOf(keyIds) : Map.of();
+        this.fallback = fallback;
+        if (this.issuers.isEmpty() && this.keyIds.isEmpty() && this.fallback == null) {
+            throw new IllegalArgumentException("At least one verifier must be configured");
+        }
+    }
+
+    @Override
+    public Jws<Claims> verify(String rawJwt) {
+        return verify(route(rawJwt), rawJwt);
+    }
+
+    private static Jws<Claims> verify(Route route, String rawJwt) {
+        if (route == null) {
+            throw new JwtException(UNROUTABLE);
+        }
+        return route.check(route.verifier.verify(rawJwt));
+    }
+
+    @Override
+    public VerificationResult tryVerify(String rawJwt) {
+        return tryVerify(route(rawJwt), rawJwt);
+    }
+
+    private static VerificationResult tryVerify(Route route, String rawJwt) {
+        if (route == null) {
+            return VerificationResult.failure(VerificationResult.Reason.INVALID, UNROUTABLE);
+        }
+        return route.check(route.verifier.tryVerify(rawJwt));
+    }
+
+    @Override
+    public TokenPrecheck.Result precheck(String rawJwt) {
+        return TokenPrecheck.check(rawJwt);
+    }
+
+    @Override
+    public CompletionStage<Jws<Claims>> verifyAsync(String rawJwt) {
+        Route route = route(rawJwt);
+        if (route == null || !(route.verifier instanceof AsyncJwtVerifier async)) {
+            try {
+                return CompletableFuture.completedFuture(verify(route, rawJwt));
+            } catch (JwtException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return async.verifyAsync(rawJwt).thenApply(route::check);
+    }
+
+    @Override
+    public CompletionStage<VerificationResult> tryVerifyAsync(String rawJwt) {
+        Route route = route(rawJwt);
+        if (route == null || !(route.verifier instanceof AsyncJwtVerifier async)) {
+            return CompletableFuture.completedFuture(tryVerify(route, rawJwt));
+        }
+        return async.tryVerifyAsync(rawJwt).thenApply(route::check);
+    }
+
+    /**
+     * Selects the verifier for the given token
+     *
+     * @param rawJwt Raw JWT
+     * @return Route, or {@code null} if the token cannot be routed
+     */
+    private Route route(String rawJwt) {
+        if (!this.issuers.isEmpty()) {
+            String issuer = TokenPeek.issuer(rawJwt);
+            JwtVerifier verifier = issuer != null ? this.issuers.get(issuer) : null;
+            if (verifier != null) {
+                return new Route(verifier, issuer);
+            }
+        }
+        if (!this.keyIds.isEmpty()) {
+            String keyId = TokenPeek.keyId(rawJwt);
+            JwtVerifier verifier = keyId != null ? this.keyIds.get(keyId) : null;
+            if (verifier != null) {
+                return new Route(verifier, null);
+            }
+        }
+        return this.fallback != null ? new Route(this.fallback, null) : null;
+    }
+
+    /**
+     * Gets the verifiers keyed by issuer
+     *
+     * @return Issuer verifiers
+     */
+    public Map<String, JwtVerifier> getIssuers() {
+        return this.issuers;
+    }
+
+    /**
+     * Gets the verifiers keyed by key ID
+     *
+     * @return Key ID verifiers
+     */
+    public Map<String, JwtVerifier> getKeyIds() {
+        return this.keyIds;
+    }
+
+    /**
+     * Gets the fallback verifier
+     *
+     * @return Fallback verifier, or {@code null} if none
+     */
+    public JwtVerifier getFallback() {
+        return this.fallback;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{issuers=%s, keyIds=%s, fallback=%s}", this.getClass().getSimpleName(), this.issuers,
+                             this.keyIds, this.fallback);
+    }
+
+    /**
+     * The verifier selected for a token
+     *
+     * @param verifier Verifier
+     * @param issuer   Issuer the token was routed by, {@code null} if not routed by its issuer
+     */
+    private record Route(JwtVerifier verifier, String issuer) {
+
+        private boolean issuerMatches(Jws<Claims> jws) {
+            if (this.issuer == null) {
+                return true;
+            }
+            return jws.getPayload() != null && this.issuer.equals(jws.getPayload().getIssuer());
+        }
+
+        private Jws<Claims> check(Jws<Claims> jws) {
+            if (jws != null && !issuerMatches(jws)) {
+                throw new JwtException(ISSUER_MISMATCH);
+            }
+            return jws;
+        }
+
+        private VerificationResult check(VerificationResult result) {
+            if (result instanceof VerificationResult.Success success && !issuerMatches(success.jws())) {
+                return VerificationResult.failure(VerificationResult.Reason.INVALID, ISSUER_MISMATCH);
+            }
+            return result;
+        }
+    }
+}
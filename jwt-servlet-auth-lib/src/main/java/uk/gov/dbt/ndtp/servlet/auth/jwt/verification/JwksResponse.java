@@ -0,0 +1,179 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.security.JwkSet;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A JWKS loaded from an HTTP URI along with the HTTP caching metadata that the server supplied with it
+ * <p>
+ * The validators, i.e. {@code etag} and {@code lastModified}, allow the JWKS to be conditionally reloaded, and the
+ * {@code maxAge} conveys how long the server considers the JWKS to be fresh for as determined from the
+ * {@code Cache-Control}, {@code Age}, {@code Expires} and {@code Date} response headers.
+ * </p>
+ *
+ * @param jwks         JWKS
+ * @param etag         Value of the {@code ETag} response header, {@code null} if not supplied
+ * @param lastModified Value of the {@code Last-Modified} response header, {@code null} if not supplied
+ * @param maxAge       How long the JWKS is fresh for, {@code null} if the server supplied no freshness information
+ * @param notModified  Whether the server responded {@code 304 Not Modified}, in which case the JWKS is the previously
+ *                     loaded JWKS
+ */
+public record JwksResponse(JwkSet jwks, String etag, String lastModified, Duration maxAge, boolean notModified) {
+
+    /**
+     * The maximum freshness lifetime, per RFC 9111 any larger delta-seconds value is treated as this value
+     */
+    public static final Duration MAX_FRESHNESS = Duration.ofSeconds(2_147_483_648L);
+
+    /**
+     * Creates a new JWKS response
+     *
+     * @param jwks         JWKS
+     * @param etag         Value of the {@code ETag} response header, {@code null} if not supplied
+     * @param lastModified Value of the {@code Last-Modified} response header, {@code null} if not supplied
+     * @param maxAge       How long the JWKS is fresh for, {@code null} if the server supplied no freshness information
+     * @param notModified  Whether the server responded {@code 304 Not Modified}
+     */
+    public JwksResponse {
+        Objects.requireNonNull(jwks, "JWKS cannot be null");
+    }
+
+    /**
+     * Creates a JWKS response for a JWKS that has no HTTP caching metadata e.g. one read from a file
+     *
+     * @param jwks JWKS
+     * @return JWKS response
+     */
+    public static JwksResponse of(JwkSet jwks) {
+        return new JwksResponse(jwks, null, null, null, false);
+    }
+
+    /**
+     * Creates a JWKS response from the headers of an HTTP response
+     *
+     * @param jwks        JWKS
+     * @param headers     HTTP response headers
+     * @param previous    Previous response, used to supply any validators the server omitted from a
+     *                    {@code 304 Not Modified} response, may be {@code null}
+     * @param notModified Whether the server responded {@code 304 Not Modified}
+     * @return JWKS response
+     */
+    static JwksResponse of(JwkSet jwks, HttpHeaders headers, JwksResponse previous, boolean notModified) {
+        String etag = headers.firstValue("ETag").orElse(previous != null ? previous.etag : null);
+        String lastModified =
+                headers.firstValue("Last-Modified").orElse(previous != null ? previous.lastModified : null);
+        return new JwksResponse(jwks, etag, lastModified, freshness(headers, Instant.now()), notModified);
+    }
+
+    /**
+     * Calculates how long a response is fresh for from its headers
+     * <p>
+     * The {@code max-age} directive of the {@code Cache-Control} header takes precedence, less the value of any
+     * {@code Age} header.  The {@code no-cache} and {@code no-store} directives mean that the response is immediately
+     * stale.  In the absence of a {@code max-age} directive the {@code Expires} header is used, relative to the
+     * {@code Date} header if present and valid, with an invalid {@code Expires} header meaning that the response is immediately
+     * stale.  The freshness lifetime is never greater than {@link #MAX_FRESHNESS}.
+     * </p>
+     *
+     * @param headers HTTP response headers
+     * @param now     Current time, used if the server did not supply a {@code Date} header
+     * @return Freshness lifetime, {@code null} if the headers do not convey any freshness information
+     */
+    static Duration freshness(HttpHeaders headers, Instant now) {
+        for (String cacheControl : headers.allValues("Cache-Control")) {
+            for (String directive : StringUtils.split(cacheControl, ',')) {
+                String name = StringUtils.substringBefore(directive, "=").trim().toLowerCase(Locale.ROOT);
+                if (name.equals("no-cache") || name.equals("no-store")) {
+                    return Duration.ZERO;
+                } else if (name.equals("max-age")) {
+                    long age = parseSeconds(headers.firstValue("Age").orElse("0"));
+                    long maxAge = parseSeconds(StringUtils.strip(StringUtils.substringAfter(directive, "="), " \""));
+                    return capped(Duration.ofSeconds(Math.max(0, maxAge - age)));
+                }
+            }
+        }
+
+        Optional<String> expires = headers.firstValue("Expires");
+        if (expires.isEmpty()) {
+            return null;
+        }
+        Instant expiry = parseDate(expires.get());
+        Instant date = headers.firstValue("Date").map(JwksResponse::parseDate).orElse(now);
+        if (expiry == null || !expiry.isAfter(date)) {
+            return Duration.ZERO;
+        }
+        return capped(Duration.between(date, expiry));
+    }
+
+    /**
+     * Caps a freshness lifetime at {@link #MAX_FRESHNESS}
+     *
+     * @param lifetime Freshness lifetime
+     * @return Capped freshness lifetime
+     */
+    private static Duration capped(Duration lifetime) {
+        return lifetime.compareTo(MAX_FRESHNESS) > 0 ? MAX_FRESHNESS : lifetime;
+    }
+
+    /**
+     * Parses a delta-seconds header value, treating invalid values as zero and values too large to parse as
+     * {@link #MAX_FRESHNESS}
+     *
+     * @param value Value
+     * @return Seconds
+     */
+    private static long parseSeconds(String value) {
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed));
+        } catch (NumberFormatException e) {
+            return StringUtils.isNumeric(trimmed) ? MAX_FRESHNESS.toSeconds() : 0;
+        }
+    }
+
+    /**
+     * Parses an HTTP date header value
+     *
+     * @param value Value
+     * @return Instant, or {@code null} if not a valid HTTP date
+     */
+    private static Instant parseDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -25,6 +25,7 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
 
 /**
  * Verifies a JSON Web Token (JWT)
@@ -38,4 +39,45 @@ public interface JwtVerifier {
      * @return Verified JSON Web Token
      */
     Jws<Claims> verify(String rawJwt);
+
+    /**
+     * Verifies the provided raw JSON Web Token returning a result that indicates whether verification succeeded
+     * <p>
+     * Unlike {@link #verify(String)} verification failures are reported via the returned result rather than by
+     * throwing an exception, though unexpected errors, i.e. anything other than a {@link JwtException}, may still be
+     * thrown.  The default implementation simply wraps {@link #verify(String)}, implementations can override this to
+     * report failures they detect themselves without the cost of creating an exception.
+     * </p>
+     *
+     * @param rawJwt Raw JSON Web Token
+     * @return Verification result
+     */
+    default VerificationResult tryVerify(String rawJwt) {
+        try {
+            Jws<Claims> jws = verify(rawJwt);
+            if (jws == null) {
+                return VerificationResult.failure(VerificationResult.Reason.INVALID, "Token could not be verified");
+            }
+            return VerificationResult.success(jws);
+        } catch (JwtException e) {
+            return VerificationResult.failure(e);
+        }
+    }
+
+    /**
+     * Performs a cheap structural pre-check of the provided raw JSON Web Token prior to calling
+     * {@link #verify(String)}, allowing callers to reject obviously invalid tokens without incurring the costs of full
+     * verification
+     * <p>
+     * The default implementation performs no pre-check, implementations that only accept signed JWTs (JWS) should
+     * generally override this to return the result of {@link TokenPrecheck#check(String)}.
+     * </p>
+     *
+     * @param rawJwt Raw JSON Web Token
+     * @return Pre-check result, if anything other than {@link TokenPrecheck.Result#VALID} the token is certain to fail
+     * verification
+     */
+    default TokenPrecheck.Result precheck(String rawJwt) {
+        return TokenPrecheck.Result.VALID;
+    }
 }
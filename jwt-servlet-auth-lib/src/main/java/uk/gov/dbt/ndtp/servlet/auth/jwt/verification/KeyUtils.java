@@ -23,6 +23,8 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
 
+import io.jsonwebtoken.io.SerializationException;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.JwkSet;
 import io.jsonwebtoken.security.Jwks;
 import io.jsonwebtoken.security.Keys;
@@ -32,21 +34,31 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.Key;
 import java.security.KeyFactory;
 import java.security.PublicKey;
 import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import javax.crypto.SecretKey;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
@@ -64,6 +76,14 @@ public class KeyUtils {
      * EC Key Algorithm
      */
     public static final String EC = "EC";
+    /**
+     * Timeout for establishing a connection to a JWKS URL
+     */
+    public static final Duration JWKS_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    /**
+     * Timeout for receiving the response to a JWKS request
+     */
+    public static final Duration JWKS_REQUEST_TIMEOUT = Duration.ofSeconds(10);
 
     private KeyUtils() {
     }
@@ -226,6 +246,54 @@ public class KeyUtils {
         return jwks;
     }
 
+    /**
+     * Saves a JWKS to a file
+     * <p>
+     * The JWKS is first written to a temporary file in the same directory, which is then renamed over the target file,
+     * atomically where the filesystem supports it.  Thus readers of the file never observe a partially written JWKS.
+     * Note that the JWKS is saved exactly as given, so if it contains secret keys then so does the file.
+     * </p>
+     *
+     * @param jwks JWKS
+     * @param f    File
+     * @throws KeyLoadException Thrown if the JWKS cannot be saved successfully
+     */
+    public static void saveJwks(JwkSet jwks, File f) throws KeyLoadException {
+        Path target = f.getAbsoluteFile().toPath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                jsonSerializer().serialize(jwks, output);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | SerializationException e) {
+            throw new KeyLoadException("JWKS file '" + f.getAbsolutePath() + "' could not be written successfully", e);
+        } finally {
+            if (temp != null) {
+                FileUtils.deleteQuietly(temp.toFile());
+            }
+        }
+    }
+
+    /**
+     * Finds a JSON serializer, as provided by the {@code jjwt} runtime, with which to serialize a JWKS
+     *
+     * @return JSON Serializer
+     * @throws KeyLoadException Thrown if no JSON serializer is available
+     */
+    @SuppressWarnings("unchecked")
+    private static Serializer<Map<String, ?>> jsonSerializer() throws KeyLoadException {
+        for (Serializer<?> serializer : ServiceLoader.load(Serializer.class)) {
+            return (Serializer<Map<String, ?>>) serializer;
+        }
+        throw new KeyLoadException("No JSON serializer is available to save the JWKS");
+    }
+
     /**
      * Loads a JWKS from an HTTP URI
      *
@@ -235,6 +303,101 @@ public class KeyUtils {
      * @throws KeyLoadException Thrown if the JWKS cannot be loaded successfully
      */
     public static JwkSet loadJwks(URI jwksURI, HttpClient client) throws KeyLoadException {
+        return loadJwks(jwksURI, client, null).jwks();
+    }
+
+    /**
+     * Loads a JWKS from an HTTP URI, conditionally if a previous response is supplied
+     * <p>
+     * If the previous response carried validators, i.e. an {@code ETag} and/or {@code Last-Modified} header, then these
+     * are sent as {@code If-None-Match}/{@code If-Modified-Since} headers respectively.  If the server then responds
+     * {@code 304 Not Modified} the previously loaded JWKS is returned, without being parsed again, in a response whose
+     * {@link JwksResponse#notModified()} is {@code true}.
+     * </p>
+     *
+     * @param jwksURI  HTTP URI
+     * @param client   HTTP Client
+     * @param previous Previous response, may be {@code null} to load the JWKS unconditionally
+     * @return JWKS response
+     * @throws KeyLoadException Thrown if the JWKS cannot be loaded successfully
+     */
+    public static JwksResponse loadJwks(URI jwksURI, HttpClient client, JwksResponse previous) throws
+            KeyLoadException {
+        HttpRequest request = jwksRequest(jwksURI, client, previous);
+        try {
+            return jwksResponse(jwksURI, client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)),
+                                previous);
+        } catch (IOException e) {
+            throw new KeyLoadException(
+                    "JWKS URI " + jwksURI + " could not be read successfully");
+        } catch (InterruptedException e) {
+            throw new KeyLoadException(
+                    "Interrupted while attempting to read from JWKS URI " + jwksURI);
+        }
+    }
+
+    /**
+     * Loads a JWKS from an HTTP URI asynchronously, so that no thread is held while waiting for the HTTP response
+     * <p>
+     * If the JWKS cannot be loaded successfully then the returned future completes exceptionally with a
+     * {@link KeyLoadException}.
+     * </p>
+     *
+     * @param jwksURI HTTP URI
+     * @param client  HTTP Client
+     * @return Future JWKS
+     */
+    public static CompletableFuture<JwkSet> loadJwksAsync(URI jwksURI, HttpClient client) {
+        return loadJwksAsync(jwksURI, client, null).thenApply(JwksResponse::jwks);
+    }
+
+    /**
+     * Loads a JWKS from an HTTP URI asynchronously, conditionally if a previous response is supplied, see
+     * {@link #loadJwks(URI, HttpClient, JwksResponse)}
+     * <p>
+     * If the JWKS cannot be loaded successfully then the returned future completes exceptionally with a
+     * {@link KeyLoadException}.
+     * </p>
+     *
+     * @param jwksURI  HTTP URI
+     * @param client   HTTP Client
+     * @param previous Previous response, may be {@code null} to load the JWKS unconditionally
+     * @return Future JWKS response
+     */
+    public static CompletableFuture<JwksResponse> loadJwksAsync(URI jwksURI, HttpClient client,
+                                                                JwksResponse previous) {
+        HttpRequest request;
+        try {
+            request = jwksRequest(jwksURI, client, previous);
+        } catch (KeyLoadException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                     .handle((response, e) -> {
+                         if (e != null) {
+                             throw new CompletionException(
+                                     new KeyLoadException("JWKS URI " + jwksURI + " could not be read successfully"));
+                         }
+                         try {
+                             return jwksResponse(jwksURI, response, previous);
+                         } catch (KeyLoadException ex) {
+                             throw new CompletionException(ex);
+                         }
+                     });
+    }
+
+    /**
+     * Prepares the HTTP request used to load a JWKS
+     *
+     * @param jwksURI  HTTP URI
+     * @param client   HTTP Client
+     * @param previous Previous response whose validators are sent so that the request is conditional, may be
+     *                 {@code null}
+     * @return HTTP Request
+     * @throws KeyLoadException Thrown if the URI or client is not valid for loading a JWKS
+     */
+    private static HttpRequest jwksRequest(URI jwksURI, HttpClient client, JwksResponse previous) throws
+            KeyLoadException {
         if (jwksURI == null) {
             throw new KeyLoadException("JWKS URI was not valid");
         }
@@ -244,19 +407,38 @@ public class KeyUtils {
         if (!StringUtils.equalsAny(jwksURI.getScheme(), "http", "https")) {
             throw new KeyLoadException("JWKS URI must use http/https scheme");
         }
-        HttpRequest request = HttpRequest.newBuilder(jwksURI).GET().build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(jwksURI).GET().timeout(JWKS_REQUEST_TIMEOUT);
+        if (previous != null && previous.etag() != null) {
+            builder.header("If-None-Match", previous.etag());
+        }
+        if (previous != null && previous.lastModified() != null) {
+            builder.header("If-Modified-Since", previous.lastModified());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Converts the HTTP response to a JWKS request into a JWKS response
+     *
+     * @param jwksURI  HTTP URI
+     * @param response HTTP Response
+     * @param previous Previous response, may be {@code null}
+     * @return JWKS response
+     * @throws KeyLoadException Thrown if the response does not contain a valid JWKS
+     */
+    private static JwksResponse jwksResponse(URI jwksURI, HttpResponse<String> response, JwksResponse previous) throws
+            KeyLoadException {
+        if (response.statusCode() == 304) {
+            if (previous == null) {
+                throw new KeyLoadException("JWKS URI " + jwksURI + " returned Not Modified to an unconditional request");
+            }
+            return JwksResponse.of(previous.jwks(), response.headers(), previous, true);
+        }
         try {
-            HttpResponse<InputStream> response =
-                    client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-            return Jwks.setParser().build().parse(response.body());
+            JwkSet jwks = Jwks.setParser().build().parse(response.body());
+            return JwksResponse.of(jwks, response.headers(), null, false);
         } catch (SecurityException e) {
             throw new KeyLoadException("JWKS URI " + jwksURI + " returned an invalid key set");
-        } catch (IOException e) {
-            throw new KeyLoadException(
-                    "JWKS URI " + jwksURI + " could not be read successfully");
-        } catch (InterruptedException e) {
-            throw new KeyLoadException(
-                    "Interrupted while attempting to read from JWKS URI " + jwksURI);
         }
     }
 
@@ -0,0 +1,168 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtParserBuilder;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Objects;
+import java.util.function.Supplier;
+import javax.crypto.SecretKey;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.CachedJwksKeyLocator;
+
+/**
+ * A JSON Web Token (JWT) verifier that verifies tokens against keys obtained from a JWKS, keeping a prebuilt parser per
+ * key ID
+ * <p>
+ * A parser built using a {@link io.jsonwebtoken.Locator} has to dispatch through that locator for every token it
+ * parses.  This verifier instead peeks at the {@code kid} in the token header and, if that key is already cached by
+ * the {@link CachedJwksKeyLocator}, verifies the token with a parser built specifically for that key.  Parsers are
+ * immutable and thread-safe so are built once per key and reused, being rebuilt only if the key for a given ID
+ * changes.
+ * </p>
+ * <p>
+ * Tokens with no {@code kid}, or with a {@code kid} whose key is not currently cached, are verified with a parser that
+ * uses the locator, which loads the JWKS as necessary, so verification outcomes are identical to those of a
+ * {@link SignedJwtVerifier} using the same locator.
+ * </p>
+ */
+public class PooledParserJwtVerifier implements JwtVerifier {
+
+    /**
+     * The default maximum number of parsers that are pooled
+     */
+    public static final long DEFAULT_MAX_PARSERS = 1_000;
+
+    private final CachedJwksKeyLocator locator;
+    private final Supplier<JwtParserBuilder> parserTemplate;
+    private final JwtParser locatorParser;
+    private final Cache<String, KeyedParser> parsers;
+    private final String debugString;
+
+    /**
+     * Creates a new verifier
+     *
+     * @param locator        JWKS key locator
+     * @param parserTemplate Supplier of parser builders with any desired common configuration, e.g. clock skew,
+     *                       applied.  A new builder <strong>MUST</strong> be returned for each call.
+     */
+    public PooledParserJwtVerifier(CachedJwksKeyLocator locator, Supplier<JwtParserBuilder> parserTemplate) {
+        this(locator, parserTemplate, DEFAULT_MAX_PARSERS);
+    }
+
+    /**
+     * Creates a new verifier
+     *
+     * @param locator        JWKS key locator
+     * @param parserTemplate Supplier of parser builders with any desired common configuration, e.g. clock skew,
+     *                       applied.  A new builder <strong>MUST</strong> be returned for each call.
+     * @param maxParsers     Maximum number of parsers to pool
+     */
+    public PooledParserJwtVerifier(CachedJwksKeyLocator locator, Supplier<JwtParserBuilder> parserTemplate,
+                                   long maxParsers) {
+        this.locator = Objects.requireNonNull(locator, "Locator cannot be null");
+        this.parserTemplate = Objects.requireNonNull(parserTemplate, "Parser template cannot be null");
+        if (maxParsers <= 0) {
+            throw new IllegalArgumentException("Maximum parsers must be greater than zero");
+        }
+        this.locatorParser = newParserBuilder().keyLocator(locator).build();
+        this.parsers = Caffeine.newBuilder().maximumSize(maxParsers).build();
+        this.debugString = String.format("%s{%s, maxParsers=%,d}", this.getClass().getSimpleName(),
+                                         SignedJwtVerifier.debugStringForLocator(locator), maxParsers);
+    }
+
+    private JwtParserBuilder newParserBuilder() {
+        return Objects.requireNonNull(this.parserTemplate.get(), "Parser template supplied a null builder");
+    }
+
+    @Override
+    public Jws<Claims> verify(String rawJwt) {
+        return SignedJwtVerifier.verify(selectParser(rawJwt), rawJwt);
+    }
+
+    @Override
+    public TokenPrecheck.Result precheck(String rawJwt) {
+        return TokenPrecheck.check(rawJwt);
+    }
+
+    /**
+     * Selects the parser to use for the given token
+     *
+     * @param rawJwt Raw JWT
+     * @return Parser
+     */
+    private JwtParser selectParser(String rawJwt) {
+        String keyId = TokenPeek.keyId(rawJwt);
+        Key key = this.locator.getCachedKey(keyId);
+        if (key == null) {
+            return this.locatorParser;
+        }
+
+        KeyedParser pooled = this.parsers.getIfPresent(keyId);
+        if (pooled != null && pooled.key == key) {
+            return pooled.parser;
+        }
+
+        JwtParserBuilder builder = newParserBuilder();
+        if (key instanceof SecretKey secretKey) {
+            builder.verifyWith(secretKey);
+        } else if (key instanceof PublicKey publicKey) {
+            builder.verifyWith(publicKey);
+        } else {
+            return this.locatorParser;
+        }
+        KeyedParser created = new KeyedParser(key, builder.build());
+        this.parsers.put(keyId, created);
+        return created.parser;
+    }
+
+    /**
+     * Gets the approximate number of pooled parsers
+     *
+     * @return Pooled parsers
+     */
+    long pooledParsers() {
+        this.parsers.cleanUp();
+        return this.parsers.estimatedSize();
+    }
+
+    @Override
+    public String toString() {
+        return this.debugString;
+    }
+
+    /**
+     * A parser that verifies signatures with a specific key
+     *
+     * @param key    Key
+     * @param parser Parser
+     */
+    private record KeyedParser(Key key, JwtParser parser) {
+    }
+}
@@ -25,6 +25,7 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Locator;
@@ -33,6 +34,7 @@ import java.security.Key;
 import java.security.PublicKey;
 import java.util.Objects;
 import javax.crypto.SecretKey;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
 
 /**
  * A JSON Web Token (JWT) verifier that verifies that the JWT is cryptographically signed and thus has not been tampered
@@ -124,7 +126,32 @@ public class SignedJwtVerifier implements JwtVerifier {
 
     @Override
     public Jws<Claims> verify(String rawJwt) {
-        return this.parser.parseSignedClaims(rawJwt);
+        return verify(this.parser, rawJwt);
+    }
+
+    /**
+     * Verifies a raw JWT with the given parser, reporting the outcome and duration of verification to the installed
+     * {@link uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics}
+     *
+     * @param parser Parser
+     * @param rawJwt Raw JWT
+     * @return Verified JWT
+     */
+    static Jws<Claims> verify(JwtParser parser, String rawJwt) {
+        long start = System.nanoTime();
+        try {
+            Jws<Claims> jws = parser.parseSignedClaims(rawJwt);
+            AuthenticationMetricsRegistry.get().onVerification(null, System.nanoTime() - start);
+            return jws;
+        } catch (JwtException e) {
+            AuthenticationMetricsRegistry.get().onVerification(VerificationResult.reason(e), System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public TokenPrecheck.Result precheck(String rawJwt) {
+        return TokenPrecheck.check(rawJwt);
     }
 
     @Override
@@ -0,0 +1,154 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Cheaply peeks at values in the protected header, or payload, of a raw JWT <strong>without</strong> verifying it
+ * <p>
+ * Values obtained this way <strong>MUST NOT</strong> be trusted, they are only suitable for selecting how a token
+ * should subsequently be verified.  Any malformed input simply results in {@code null} being returned, leaving the full
+ * verification to produce an appropriate error.
+ * </p>
+ */
+public final class TokenPeek {
+
+    /**
+     * Maximum length of an encoded header that will be peeked at, anything longer is left to full verification
+     */
+    static final int MAX_HEADER_LENGTH = 8192;
+    /**
+     * Maximum length of an encoded payload that will be peeked at, anything longer is left to full verification
+     */
+    static final int MAX_PAYLOAD_LENGTH = TokenPrecheck.MAX_TOKEN_LENGTH;
+
+    /**
+     * Duplicate detection is enabled so that an ambiguous header can never be interpreted differently here than by the
+     * full verification
+     */
+    private static final JsonFactory JSON_FACTORY =
+            JsonFactory.builder().enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION).build();
+
+    private TokenPeek() {
+    }
+
+    /**
+     * Peeks at the {@code kid} header of a raw JWT
+     *
+     * @param rawJwt Raw JWT
+     * @return Key ID, or {@code null} if not present or the header is malformed
+     */
+    public static String keyId(String rawJwt) {
+        return headerValue(rawJwt, "kid");
+    }
+
+    /**
+     * Peeks at the {@code iss} claim of a raw JWT
+     *
+     * @param rawJwt Raw JWT
+     * @return Issuer, or {@code null} if not present or the payload is malformed
+     */
+    static String issuer(String rawJwt) {
+        return payloadValue(rawJwt, "iss");
+    }
+
+    /**
+     * Peeks at a top level string value in the header of a raw JWT
+     *
+     * @param rawJwt Raw JWT
+     * @param field  Header field name
+     * @return Header value, or {@code null} if not present, not a string, or the header is malformed
+     */
+    static String headerValue(String rawJwt, String field) {
+        if (rawJwt == null) {
+            return null;
+        }
+        int end = rawJwt.indexOf('.');
+        if (end <= 0 || end > MAX_HEADER_LENGTH) {
+            return null;
+        }
+        return value(rawJwt, 0, end, field);
+    }
+
+    /**
+     * Peeks at a top level string value in the payload of a raw JWS i.e. a claim
+     *
+     * @param rawJwt Raw JWT
+     * @param field  Claim name
+     * @return Claim value, or {@code null} if not present, not a string, or the payload is malformed
+     */
+    static String payloadValue(String rawJwt, String field) {
+        if (rawJwt == null) {
+            return null;
+        }
+        int start = rawJwt.indexOf('.') + 1;
+        if (start <= 1) {
+            return null;
+        }
+        int end = rawJwt.indexOf('.', start);
+        if (end <= start || end - start > MAX_PAYLOAD_LENGTH) {
+            return null;
+        }
+        return value(rawJwt, start, end, field);
+    }
+
+    /**
+     * Peeks at a top level string value in a Base64URL encoded JSON object within a raw JWT
+     *
+     * @param rawJwt Raw JWT
+     * @param start  Start of the encoded object
+     * @param end    End of the encoded object
+     * @param field  Field name
+     * @return Value, or {@code null} if not present, not a string, or the object is malformed
+     */
+    private static String value(String rawJwt, int start, int end, String field) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(rawJwt.substring(start, end));
+            try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                // Always read the whole object so that duplicate fields are detected
+                String found = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (field.equals(name) && value == JsonToken.VALUE_STRING) {
+                        found = parser.getText();
+                    }
+                    parser.skipChildren();
+                }
+                return found;
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+}
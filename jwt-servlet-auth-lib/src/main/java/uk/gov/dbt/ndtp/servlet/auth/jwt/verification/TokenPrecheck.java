@@ -0,0 +1,233 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A cheap structural pre-check of raw tokens that allows obviously invalid tokens to be rejected before they are fully
+ * parsed
+ * <p>
+ * The pre-check only examines the raw characters of the token, and decodes the header on the fly, so it does not
+ * allocate any memory or throw any exceptions.  It <strong>MUST NOT</strong> be considered a substitute for full
+ * verification, a token passing the pre-check may still be invalid, but any token that fails the pre-check is certain
+ * to be rejected by a verifier that only accepts signed JWTs (JWS).
+ * </p>
+ */
+public final class TokenPrecheck {
+
+    /**
+     * The maximum length of a raw token that is accepted
+     */
+    public static final int MAX_TOKEN_LENGTH = 64 * 1024;
+
+    /**
+     * Possible results of a pre-check
+     */
+    public enum Result {
+        /**
+         * The token is structurally plausible and should be fully verified
+         */
+        VALID,
+        /**
+         * The token exceeds {@link #MAX_TOKEN_LENGTH}
+         */
+        TOO_LONG,
+        /**
+         * The token is not a structurally valid compact JWT
+         */
+        MALFORMED,
+        /**
+         * The token is an encrypted JWT (JWE)
+         */
+        ENCRYPTED,
+        /**
+         * The token is an unsecured JWT i.e. it declares {@code "alg":"none"}
+         */
+        UNSECURED
+    }
+
+    /**
+     * Lookup table mapping ASCII characters to their Base64URL values, or {@code -1} if not a Base64URL character
+     */
+    private static final byte[] BASE64URL = new byte[128];
+
+    /**
+     * The sequence of header bytes, ignoring insignificant whitespace, that identifies an unsecured JWT
+     */
+    private static final byte[] ALG_NONE = "\"alg\":\"none\"".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Failure function for matching {@link #ALG_NONE} via the Knuth-Morris-Pratt algorithm
+     */
+    private static final int[] ALG_NONE_FAILURE = new int[ALG_NONE.length];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+
+        int k = 0;
+        for (int i = 1; i < ALG_NONE.length; i++) {
+            while (k > 0 && ALG_NONE[i] != ALG_NONE[k]) {
+                k = ALG_NONE_FAILURE[k - 1];
+            }
+            if (ALG_NONE[i] == ALG_NONE[k]) {
+                k++;
+            }
+            ALG_NONE_FAILURE[i] = k;
+        }
+    }
+
+    private TokenPrecheck() {
+    }
+
+    /**
+     * Pre-checks a raw token
+     *
+     * @param rawJwt Raw token
+     * @return Pre-check result
+     */
+    public static Result check(String rawJwt) {
+        if (rawJwt == null) {
+            return Result.MALFORMED;
+        }
+        int length = rawJwt.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            return Result.TOO_LONG;
+        }
+
+        // Must consist solely of Base64URL characters separated into 3 (JWS) or 5 (JWE) segments, padding is tolerated
+        // since the underlying JWT library tolerates it
+        int separators = 0;
+        int headerEnd = -1;
+        for (int i = 0; i < length; i++) {
+            char c = rawJwt.charAt(i);
+            if (c == '.') {
+                if (separators == 0) {
+                    headerEnd = i;
+                }
+                separators++;
+            } else if (c != '=' && (c >= 128 || BASE64URL[c] < 0)) {
+                return Result.MALFORMED;
+            }
+        }
+        if (headerEnd <= 0 || (separators != 2 && separators != 4)) {
+            return Result.MALFORMED;
+        }
+        if (separators == 4) {
+            return Result.ENCRYPTED;
+        }
+
+        return checkHeader(rawJwt, headerEnd);
+    }
+
+    /**
+     * Checks the header of a token by decoding it on the fly
+     *
+     * @param rawJwt    Raw token
+     * @param headerEnd End of the encoded header
+     * @return Pre-check result
+     */
+    private static Result checkHeader(String rawJwt, int headerEnd) {
+        int bits = 0;
+        int bitCount = 0;
+        boolean started = false;
+        boolean inString = false;
+        boolean escaped = false;
+        int depth = 0;
+        int matched = 0;
+
+        for (int i = 0; i < headerEnd; i++) {
+            char c = rawJwt.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            bits = (bits << 6) | BASE64URL[c];
+            bitCount += 6;
+            if (bitCount < 8) {
+                continue;
+            }
+            bitCount -= 8;
+            int b = (bits >> bitCount) & 0xFF;
+
+            // Header must be a JSON object
+            if (!started) {
+                if (isWhitespace(b)) {
+                    continue;
+                }
+                if (b != '{') {
+                    return Result.MALFORMED;
+                }
+                started = true;
+                depth = 1;
+                continue;
+            }
+
+            // Track JSON structure so that only top level header fields are considered
+            boolean significant = true;
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+                matched = 0;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                matched = 0;
+            } else if (isWhitespace(b)) {
+                significant = false;
+            }
+            if (depth != 1 || !significant) {
+                continue;
+            }
+
+            while (matched > 0 && ALG_NONE[matched] != b) {
+                matched = ALG_NONE_FAILURE[matched - 1];
+            }
+            if (ALG_NONE[matched] == b) {
+                matched++;
+            }
+            if (matched == ALG_NONE.length) {
+                return Result.UNSECURED;
+            }
+        }
+
+        return started ? Result.VALID : Result.MALFORMED;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,185 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.KeyException;
+import io.jsonwebtoken.security.SignatureException;
+import java.util.Objects;
+
+/**
+ * The result of verifying a JSON Web Token (JWT), either a {@link Success} or a {@link Failure}
+ * <p>
+ * This allows verification failures to be communicated without callers needing to catch, and classify, exceptions.
+ * </p>
+ */
+public sealed interface VerificationResult permits VerificationResult.Success, VerificationResult.Failure {
+
+    /**
+     * Reasons why verification may fail
+     */
+    enum Reason {
+        /**
+         * The key needed to verify the token was invalid, too weak, or could not be found
+         */
+        KEY,
+        /**
+         * The token failed signature verification
+         */
+        SIGNATURE,
+        /**
+         * The token was malformed
+         */
+        MALFORMED,
+        /**
+         * The token uses a JWT feature that is not supported
+         */
+        UNSUPPORTED,
+        /**
+         * The token has expired
+         */
+        EXPIRED,
+        /**
+         * The token is not yet valid
+         */
+        PREMATURE,
+        /**
+         * The token was invalid for some other reason e.g. it failed a claims requirement
+         */
+        INVALID
+    }
+
+    /**
+     * Gets whether verification succeeded
+     *
+     * @return True if successful, false otherwise
+     */
+    boolean isSuccess();
+
+    /**
+     * Creates a successful result
+     *
+     * @param jws Verified token
+     * @return Successful result
+     */
+    static VerificationResult success(Jws<Claims> jws) {
+        return new Success(jws);
+    }
+
+    /**
+     * Creates a failed result
+     *
+     * @param reason  Reason for failure
+     * @param message Failure message
+     * @return Failed result
+     */
+    static VerificationResult failure(Reason reason, String message) {
+        return new Failure(reason, message);
+    }
+
+    /**
+     * Creates a failed result from a verification error
+     *
+     * @param e Verification error
+     * @return Failed result
+     */
+    static VerificationResult failure(JwtException e) {
+        return new Failure(reason(e), e.getMessage());
+    }
+
+    /**
+     * Classifies a verification error
+     *
+     * @param e Verification error
+     * @return Reason for failure
+     */
+    static Reason reason(JwtException e) {
+        if (e instanceof KeyException) {
+            return Reason.KEY;
+        } else if (e instanceof SignatureException) {
+            return Reason.SIGNATURE;
+        } else if (e instanceof MalformedJwtException) {
+            return Reason.MALFORMED;
+        } else if (e instanceof UnsupportedJwtException) {
+            return Reason.UNSUPPORTED;
+        } else if (e instanceof ExpiredJwtException) {
+            return Reason.EXPIRED;
+        } else if (e instanceof PrematureJwtException) {
+            return Reason.PREMATURE;
+        }
+        return Reason.INVALID;
+    }
+
+    /**
+     * A successful verification result
+     *
+     * @param jws Verified token
+     */
+    record Success(Jws<Claims> jws) implements VerificationResult {
+
+        /**
+         * Creates a new successful result
+         *
+         * @param jws Verified token
+         */
+        public Success {
+            Objects.requireNonNull(jws, "Verified token cannot be null");
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+    }
+
+    /**
+     * A failed verification result
+     *
+     * @param reason  Reason for failure
+     * @param message Failure message, may be {@code null}
+     */
+    record Failure(Reason reason, String message) implements VerificationResult {
+
+        /**
+         * Creates a new failed result
+         *
+         * @param reason  Reason for failure
+         * @param message Failure message, may be {@code null}
+         */
+        public Failure {
+            Objects.requireNonNull(reason, "Reason cannot be null");
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return false;
+        }
+    }
+}
@@ -26,21 +26,131 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.security.InvalidKeyException;
 import io.jsonwebtoken.security.Jwk;
 import io.jsonwebtoken.security.JwkSet;
+import java.io.File;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.security.Key;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwksResponse;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
 
 /**
  * A variant of {@link UrlJwksKeyLocator} that adds a caching layer so that the underlying JWKS file/URL is only loaded
- * upon encountering a key that is not currently cached
+ * upon encountering a key that is not currently cached, or when the cached keys have expired
+ * <p>
+ * The most recently loaded key set is held as an immutable snapshot that is atomically replaced whenever the JWKS is
+ * reloaded, so locating a cached key never blocks.  If a reload fails then the last successfully loaded key set
+ * continues to be used, i.e. stale keys are served while the JWKS is unavailable, though keys that were never loaded
+ * cannot be located until a reload succeeds.  After a failed reload the stale keys are retained for a short retry
+ * interval before another reload is attempted, so requests do not each block on an unavailable JWKS endpoint.
+ * </p>
+ * <p>
+ * Optionally the locator may operate in refresh-ahead mode.  In this mode, once the JWKS has been loaded for the first
+ * time, it is reloaded in the background every {@code cacheKeysFor} so that requests never wait on JWKS fetches for
+ * known keys, and cached keys never expire while the JWKS is unavailable.  Background refreshes are scheduled on a
+ * shared daemon thread, but the JWKS is fetched asynchronously, so a slow JWKS endpoint does not delay the refreshes of
+ * other locators.  Call {@link #close()} to stop background refreshes for a locator that is no longer needed.
+ * </p>
+ * <p>
+ * To prevent tokens bearing garbage {@code kid} values being used to amplify traffic to the JWKS endpoint, a reload
+ * triggered by an unknown key is only permitted if the keys were last loaded at least {@code minRefetchInterval} ago.
+ * Key IDs that a reload confirmed are not present in the JWKS are also remembered for that interval, and rejected
+ * without further reloads.
+ * </p>
+ * <p>
+ * When the JWKS is loaded over HTTP the server's caching headers are honoured.  If the server supplies freshness
+ * information, via the {@code Cache-Control} or {@code Expires} headers, then that determines how long the keys are
+ * cached for, or in refresh-ahead mode how soon they are refreshed, in place of {@code cacheKeysFor}, though never
+ * less than the {@code minRefetchInterval} (or {@link #MIN_CACHE_LIFETIME} if greater), and never more than
+ * {@code cacheKeysFor} so that keys the server has removed are not trusted indefinitely.  Reloads are made conditional
+ * upon the {@code ETag} and/or {@code Last-Modified} validators of the previous response, and a {@code 304 Not Modified}
+ * response keeps the current keys without parsing the JWKS again.
+ * </p>
+ * <p>
+ * Optionally a snapshot file may be configured, in which case each newly loaded JWKS is saved to that file, atomically
+ * via a temporary file and rename, on the shared background thread.  When the locator is created any existing snapshot
+ * file is loaded so that keys are immediately available without contacting the JWKS endpoint, and the JWKS is then
+ * revalidated in the background.  This allows authentication to proceed immediately upon startup, even if the JWKS
+ * endpoint is unavailable.
+ * </p>
  */
-public class CachedJwksKeyLocator extends UrlJwksKeyLocator {
+public class CachedJwksKeyLocator extends UrlJwksKeyLocator implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedJwksKeyLocator.class);
+
+    /**
+     * How long to wait before retrying a failed background refresh, if the configured cache duration is shorter then
+     * that is used instead
+     */
+    static final Duration REFRESH_RETRY_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * The default minimum interval between reloads triggered by unknown key IDs
+     */
+    public static final Duration DEFAULT_MIN_REFETCH_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * The minimum time keys are cached for when the server supplies freshness information, this prevents servers that
+     * mark the JWKS as immediately stale causing a reload upon every request
+     */
+    public static final Duration MIN_CACHE_LIFETIME = Duration.ofSeconds(1);
+
+    /**
+     * The maximum number of unknown key IDs that are remembered
+     */
+    static final long MAX_UNKNOWN_KEYS = 10_000;
 
-    private final Cache<String, Jwk<?>> cache;
     private final Duration cacheKeysFor;
+    private final boolean refreshAhead;
+    private final Duration minRefetchInterval;
+    private final Cache<String, Boolean> unknownKeys;
+    private final File snapshotFile;
+    private volatile Snapshot snapshot;
+    private volatile ScheduledFuture<?> scheduledRefresh;
+    private volatile boolean closed = false;
+
+    /**
+     * Gets the shared executor used for scheduling background refreshes and saving snapshots
+     *
+     * @return Refresh executor
+     */
+    private static ScheduledExecutorService refreshExecutor() {
+        return RefreshExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Holder for the shared refresh executor so that it is only created once a locator first needs it
+     */
+    private static final class RefreshExecutorHolder {
+        private static final ScheduledExecutorService EXECUTOR = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
 
     /**
      * Creates a new JWKS key locator with caching of keys enabled
@@ -60,15 +170,119 @@ public class CachedJwksKeyLocator extends UrlJwksKeyLocator {
      * @param cacheKeysFor How long keys should be cached for
      */
     public CachedJwksKeyLocator(URI jwksURI, HttpClient client, Duration cacheKeysFor) {
+        this(jwksURI, client, cacheKeysFor, false);
+    }
+
+    /**
+     * Creates a new JWKS key locator with caching of keys enabled
+     *
+     * @param jwksURI      JWKS URI
+     * @param client       HTTP Client
+     * @param cacheKeysFor How long keys should be cached for, or in refresh-ahead mode how frequently they are
+     *                     refreshed
+     * @param refreshAhead Whether to refresh keys in the background rather than when they expire
+     */
+    public CachedJwksKeyLocator(URI jwksURI, HttpClient client, Duration cacheKeysFor, boolean refreshAhead) {
+        this(jwksURI, client, cacheKeysFor, refreshAhead, DEFAULT_MIN_REFETCH_INTERVAL);
+    }
+
+    /**
+     * Creates a new JWKS key locator with caching of keys enabled
+     *
+     * @param jwksURI            JWKS URI
+     * @param client             HTTP Client
+     * @param cacheKeysFor       How long keys should be cached for, or in refresh-ahead mode how frequently they are
+     *                           refreshed
+     * @param refreshAhead       Whether to refresh keys in the background rather than when they expire
+     * @param minRefetchInterval Minimum interval between reloads triggered by encountering an unknown key ID, a zero
+     *                           duration permits a reload upon every unknown key ID
+     */
+    public CachedJwksKeyLocator(URI jwksURI, HttpClient client, Duration cacheKeysFor, boolean refreshAhead,
+                                Duration minRefetchInterval) {
+        this(jwksURI, client, cacheKeysFor, refreshAhead, minRefetchInterval, null);
+    }
+
+    /**
+     * Creates a new JWKS key locator with caching of keys enabled
+     *
+     * @param jwksURI            JWKS URI
+     * @param client             HTTP Client
+     * @param cacheKeysFor       How long keys should be cached for, or in refresh-ahead mode how frequently they are
+     *                           refreshed
+     * @param refreshAhead       Whether to refresh keys in the background rather than when they expire
+     * @param minRefetchInterval Minimum interval between reloads triggered by encountering an unknown key ID, a zero
+     *                           duration permits a reload upon every unknown key ID
+     * @param snapshotFile       File to which loaded keys are saved, and from which they are initially loaded if it
+     *                           exists, may be {@code null} if no snapshot is desired
+     */
+    public CachedJwksKeyLocator(URI jwksURI, HttpClient client, Duration cacheKeysFor, boolean refreshAhead,
+                                Duration minRefetchInterval, File snapshotFile) {
         super(jwksURI, client);
-        this.cacheKeysFor = cacheKeysFor;
-        // Generally speaking there are relatively few keys are used in a JWKS, so we set a relatively compact cache
-        // size to minimise memory footprint
-        this.cache = Caffeine.newBuilder()
-                             .initialCapacity(10)
-                             .maximumSize(25)
-                             .expireAfterAccess(cacheKeysFor)
-                             .build();
+        this.cacheKeysFor = Objects.requireNonNull(cacheKeysFor, "Cache duration cannot be null");
+        if (cacheKeysFor.isNegative() || (refreshAhead && cacheKeysFor.isZero())) {
+            throw new IllegalArgumentException(
+                    refreshAhead ? "Cache duration must be greater than zero" : "Cache duration cannot be negative");
+        }
+        this.refreshAhead = refreshAhead;
+        this.minRefetchInterval =
+                Objects.requireNonNull(minRefetchInterval, "Minimum refetch interval cannot be null");
+        if (minRefetchInterval.isNegative()) {
+            throw new IllegalArgumentException("Minimum refetch interval cannot be negative");
+        }
+        this.unknownKeys = minRefetchInterval.isZero() ? null : Caffeine.newBuilder()
+                                                                        .maximumSize(MAX_UNKNOWN_KEYS)
+                                                                        .expireAfterWrite(minRefetchInterval)
+                                                                        .build();
+        this.snapshotFile = snapshotFile;
+        if (snapshotFile != null && snapshotFile.exists()) {
+            restoreSnapshot();
+        }
+    }
+
+    /**
+     * Restores the keys from the snapshot file, and then revalidates them in the background
+     * <p>
+     * Restored keys are treated as if loaded longer than {@code minRefetchInterval} ago, so that an unknown key ID
+     * encountered before revalidation completes may still trigger a reload.
+     * </p>
+     */
+    private void restoreSnapshot() {
+        try {
+            JwkSet jwks = KeyUtils.loadJwks(this.snapshotFile);
+            long loadedAt = System.nanoTime() - this.minRefetchInterval.toNanos();
+            this.snapshot = new Snapshot(JwksResponse.of(jwks), Snapshot.toKeys(jwks), loadedAt,
+                                         this.cacheKeysFor.plus(this.minRefetchInterval));
+            LOGGER.info("Restored {} keys for JWKS {} from snapshot file {}, revalidating in the background",
+                        this.snapshot.keys.size(), this.jwksURI, this.snapshotFile.getAbsolutePath());
+            refreshExecutor().execute(this::backgroundRefresh);
+        } catch (KeyLoadException | RuntimeException e) {
+            LOGGER.warn("Failed to restore JWKS {} from snapshot file {}: {}", this.jwksURI,
+                        this.snapshotFile.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Saves a newly loaded key set to the snapshot file, on the shared background thread, if one is configured
+     *
+     * @param previous Previous snapshot, may be {@code null}
+     * @param response Newly loaded response
+     */
+    private void saveSnapshot(Snapshot previous, JwksResponse response) {
+        if (this.snapshotFile == null || response.notModified()) {
+            return;
+        }
+        if (previous != null && previous.response.jwks().equals(response.jwks())) {
+            // Unchanged since it was last saved, or restored
+            return;
+        }
+        refreshExecutor().execute(() -> {
+            try {
+                KeyUtils.saveJwks(response.jwks(), this.snapshotFile);
+            } catch (KeyLoadException e) {
+                LOGGER.warn("Failed to save JWKS {} to snapshot file {}: {}", this.jwksURI,
+                            this.snapshotFile.getAbsolutePath(), e.getMessage());
+            }
+        });
     }
 
     @Override
@@ -76,23 +290,402 @@ public class CachedJwksKeyLocator extends UrlJwksKeyLocator {
         String keyId = this.ensureValidKeyId(header);
 
         // Use the previously cached key if present
-        Jwk<?> jwk = this.cache.getIfPresent(keyId);
-        if (jwk != null) {
-            return jwk.toKey();
+        Snapshot current = this.snapshot;
+        Key key = fromSnapshot(current, keyId);
+        AuthenticationMetricsRegistry.get().onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, key != null);
+        if (key != null) {
+            return key;
+        }
+
+        // Otherwise reload the JWKS and lookup the key again
+        return keyFrom(reload(current, keyId), keyId);
+    }
+
+    /**
+     * Locates a key asynchronously, if the key is not currently cached then the JWKS is reloaded without holding the
+     * calling thread, see {@link UrlJwksKeyLocator#loadJwksAsync(JwksResponse)}
+     * <p>
+     * This is subject to all the same caching, stale key, and unknown key behaviours as synchronously locating a key.
+     * </p>
+     *
+     * @param keyId Key ID
+     * @return Future key, completes exceptionally with an {@link InvalidKeyException} if the key cannot be located
+     */
+    public CompletableFuture<Key> locateAsync(String keyId) {
+        Snapshot current = this.snapshot;
+        try {
+            if (StringUtils.isBlank(keyId)) {
+                throw new InvalidKeyException("JWS fails to declare a valid kid header");
+            }
+            Key key = fromSnapshot(current, keyId);
+            AuthenticationMetricsRegistry.get().onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, key != null);
+            if (key != null) {
+                return CompletableFuture.completedFuture(key);
+            }
+        } catch (InvalidKeyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return this.loadJwksAsync(validators(current)).handle((response, e) -> {
+            Snapshot loaded = e != null ? recover(current, keyId, asInvalidKey(e)) : install(response);
+            return keyFrom(loaded, keyId);
+        });
+    }
+
+    /**
+     * Gets a key from the given snapshot, if it is usable
+     *
+     * @param current Current snapshot, may be {@code null}
+     * @param keyId   Key ID
+     * @return Key, or {@code null} if the JWKS needs reloading in order to locate the key
+     * @throws InvalidKeyException Thrown if the key is not present, and it is not permitted to reload the JWKS
+     */
+    private Key fromSnapshot(Snapshot current, String keyId) {
+        if (current == null) {
+            return null;
+        }
+        Key key = current.keys.get(keyId);
+        if (key != null && (this.refreshAhead || !current.isExpired())) {
+            return key;
+        }
+
+        // Expired keys are reloaded regardless, otherwise reject recently confirmed unknown keys, and unknown keys
+        // encountered too soon after the last reload, without reloading the JWKS.  Note that rejecting a key here must
+        // not remember it as unknown, otherwise continued requests for a newly rotated key would keep extending its
+        // negative cache entry and the JWKS would never be reloaded to find it
+        if (key == null && !isReloadRequired(current) && (isKnownUnknown(keyId) || isTooSoonToRefetch(current))) {
+            throw keyNotPresent(keyId);
+        }
+        return null;
+    }
+
+    /**
+     * Gets a key from a freshly loaded snapshot
+     *
+     * @param loaded Loaded snapshot
+     * @param keyId  Key ID
+     * @return Key
+     * @throws InvalidKeyException Thrown if the key is not present
+     */
+    private Key keyFrom(Snapshot loaded, String keyId) {
+        Key key = loaded.keys.get(keyId);
+        if (key == null) {
+            rememberUnknown(keyId);
+            throw keyNotPresent(keyId);
+        }
+        return key;
+    }
+
+    /**
+     * Gets a key from the currently cached keys without ever loading the JWKS
+     * <p>
+     * This allows callers to cheaply determine whether a key is already available, if this returns {@code null} then
+     * callers should fall back to {@link #locate(io.jsonwebtoken.Header)} which loads the JWKS as necessary.
+     * </p>
+     *
+     * @param keyId Key ID
+     * @return Cached key, or {@code null} if no such key is currently cached, or the cached keys have expired
+     */
+    public Key getCachedKey(String keyId) {
+        Snapshot current = this.snapshot;
+        if (current == null || keyId == null || (!this.refreshAhead && current.isExpired())) {
+            return null;
+        }
+        return current.keys.get(keyId);
+    }
+
+    /**
+     * Gets whether a key ID was recently confirmed as not being present in the JWKS
+     *
+     * @param keyId Key ID
+     * @return True if a known unknown key, false otherwise
+     */
+    private boolean isKnownUnknown(String keyId) {
+        return this.unknownKeys != null && this.unknownKeys.getIfPresent(keyId) != null;
+    }
+
+    /**
+     * Gets whether the given snapshot must be reloaded before its keys are used
+     * <p>
+     * Expired snapshots may always be reloaded, even for an unknown key, as they would be reloaded anyway for a known
+     * key.
+     * </p>
+     *
+     * @param current Current snapshot
+     * @return True if a reload is required, false otherwise
+     */
+    private boolean isReloadRequired(Snapshot current) {
+        return !this.refreshAhead && current.isExpired();
+    }
+
+    /**
+     * Gets whether it is too soon after the given snapshot was loaded to reload the JWKS due to an unknown key
+     *
+     * @param current Current snapshot
+     * @return True if too soon to reload, false otherwise
+     */
+    private boolean isTooSoonToRefetch(Snapshot current) {
+        return System.nanoTime() - current.loadedAt < this.minRefetchInterval.toNanos();
+    }
+
+    /**
+     * Remembers that a freshly loaded JWKS confirmed a key ID is not present
+     * <p>
+     * An existing entry for the key ID is deliberately left as is, rather than refreshed, so that it always expires
+     * {@code minRefetchInterval} after the key ID was first confirmed unknown and the JWKS may then be reloaded.
+     * </p>
+     *
+     * @param keyId Key ID
+     */
+    private void rememberUnknown(String keyId) {
+        if (this.unknownKeys != null) {
+            this.unknownKeys.asMap().putIfAbsent(keyId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Reloads the JWKS replacing the current snapshot of the keys
+     * <p>
+     * If the reload fails, and the previous snapshot contains the desired key, then the previous snapshot is returned
+     * so that stale keys continue to be served while the JWKS is unavailable.  Otherwise the failure is propagated.
+     * </p>
+     * <p>
+     * Concurrent reloads share a single fetch of the JWKS, see {@link UrlJwksKeyLocator#loadJwks(JwksResponse)}, and
+     * only the first caller to receive a given response replaces the current snapshot.
+     * </p>
+     *
+     * @param previous Previous snapshot, may be {@code null}
+     * @param keyId    Key ID that triggered the reload
+     * @return Snapshot to use
+     * @throws InvalidKeyException Thrown if the JWKS cannot be loaded and no usable previous snapshot exists
+     */
+    private Snapshot reload(Snapshot previous, String keyId) {
+        // Another caller may have completed a reload since the previous snapshot was observed
+        Snapshot latest = this.snapshot;
+        if (latest != previous && latest.keys.containsKey(keyId)) {
+            return latest;
+        }
+
+        try {
+            return install(this.loadJwks(validators(previous)));
+        } catch (InvalidKeyException e) {
+            return recover(previous, keyId, e);
+        }
+    }
+
+    /**
+     * Gets the response whose validators should be used to conditionally reload the JWKS
+     *
+     * @param current Current snapshot, may be {@code null}
+     * @return Previous response, or {@code null} if the JWKS should be loaded unconditionally
+     */
+    private static JwksResponse validators(Snapshot current) {
+        return current != null ? current.response : null;
+    }
+
+    /**
+     * Installs a freshly loaded response as the current snapshot
+     * <p>
+     * Only the first caller to receive a given response replaces the current snapshot, later callers receive the
+     * already installed snapshot.  If the response is for the same key set as the current snapshot, i.e. the server
+     * responded {@code 304 Not Modified}, then the already converted keys are reused.
+     * </p>
+     *
+     * @param response Loaded response
+     * @return Snapshot to use
+     */
+    private synchronized Snapshot install(JwksResponse response) {
+        Snapshot latest = this.snapshot;
+        if (latest != null && latest.response == response) {
+            // Another caller already installed the snapshot for this response
+            return latest;
+        }
+        Duration lifetime = cacheLifetime(response);
+        Snapshot loaded = new Snapshot(response, lifetime, latest);
+        this.snapshot = loaded;
+        saveSnapshot(latest, response);
+        if (this.unknownKeys != null) {
+            this.unknownKeys.invalidateAll(loaded.keys.keySet());
+        }
+        scheduleRefresh(lifetime);
+        return loaded;
+    }
+
+    /**
+     * Determines how long the keys from a response are cached for
+     * <p>
+     * A server supplied freshness lifetime is bounded below by the {@code minRefetchInterval}, or
+     * {@link #MIN_CACHE_LIFETIME} if greater, and above by {@code cacheKeysFor}, or that same minimum if greater.
+     * </p>
+     *
+     * @param response Loaded response
+     * @return Cache lifetime
+     */
+    private Duration cacheLifetime(JwksResponse response) {
+        if (response.maxAge() == null) {
+            return this.cacheKeysFor;
         }
+        Duration minimum =
+                this.minRefetchInterval.compareTo(MIN_CACHE_LIFETIME) > 0 ? this.minRefetchInterval : MIN_CACHE_LIFETIME;
+        Duration maximum = this.cacheKeysFor.compareTo(minimum) > 0 ? this.cacheKeysFor : minimum;
+        if (response.maxAge().compareTo(maximum) > 0) {
+            return maximum;
+        }
+        return response.maxAge().compareTo(minimum) > 0 ? response.maxAge() : minimum;
+    }
 
-        // Otherwise load the JWKS and cache the contained keys
-        JwkSet jwks = this.loadJwks();
-        jwks.getKeys().forEach(k -> this.cache.put(k.getId(), k));
+    /**
+     * Recovers from a failure to reload the JWKS by continuing to use the previous snapshot, if it is usable
+     * <p>
+     * The previous keys are re-installed with their expiry extended by the retry interval, so that while the JWKS is
+     * unavailable only one reload is attempted per retry interval rather than every request blocking on a reload.  The
+     * failed attempt also counts as a load for the purposes of the {@code minRefetchInterval}.
+     * </p>
+     *
+     * @param previous Previous snapshot, may be {@code null}
+     * @param keyId    Key ID that triggered the reload, may be {@code null} for background refreshes
+     * @param e        Reload failure
+     * @return Snapshot to use
+     * @throws InvalidKeyException Thrown if no usable previous snapshot exists
+     */
+    private Snapshot recover(Snapshot previous, String keyId, InvalidKeyException e) {
+        if (previous != null && (keyId == null || previous.keys.containsKey(keyId))) {
+            LOGGER.warn("Failed to reload JWKS from {}, continuing to use previously loaded keys: {}", this.jwksURI,
+                        e.getMessage());
+            Duration retry = REFRESH_RETRY_INTERVAL.compareTo(this.cacheKeysFor) < 0 ? REFRESH_RETRY_INTERVAL :
+                             this.cacheKeysFor;
+            return retain(previous, retry);
+        }
+        throw e;
+    }
 
-        // Then lookup the key again
-        jwk = this.cache.getIfPresent(keyId);
-        ensureKeyPresent(header, jwk);
-        return jwk.toKey();
+    /**
+     * Re-installs the previous snapshot with a new expiry after a failed reload
+     * <p>
+     * If another caller has installed a newer snapshot in the meantime then that is used instead.
+     * </p>
+     *
+     * @param previous Previous snapshot
+     * @param retry    How long until the JWKS should next be reloaded
+     * @return Snapshot to use
+     */
+    private synchronized Snapshot retain(Snapshot previous, Duration retry) {
+        Snapshot latest = this.snapshot;
+        if (latest != previous && latest != null) {
+            return latest;
+        }
+        Snapshot retained = new Snapshot(previous.response, previous.keys, System.nanoTime(), retry);
+        this.snapshot = retained;
+        scheduleRefresh(retry);
+        return retained;
+    }
+
+    /**
+     * Schedules a background refresh, if operating in refresh-ahead mode, replacing any previously scheduled refresh
+     *
+     * @param delay Delay until the refresh
+     */
+    private synchronized void scheduleRefresh(Duration delay) {
+        if (!this.refreshAhead || this.closed) {
+            return;
+        }
+        if (this.scheduledRefresh != null) {
+            this.scheduledRefresh.cancel(false);
+        }
+        this.scheduledRefresh =
+                refreshExecutor().schedule(this::backgroundRefresh, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Performs a background refresh of the JWKS
+     * <p>
+     * The JWKS is loaded asynchronously, see {@link UrlJwksKeyLocator#loadJwksAsync(JwksResponse)}, so that the shared
+     * refresh thread is never held while a JWKS is fetched.
+     * </p>
+     */
+    private void backgroundRefresh() {
+        Snapshot current = this.snapshot;
+        this.loadJwksAsync(validators(current)).whenComplete((response, e) -> {
+            try {
+                if (e != null) {
+                    recover(current, null, asInvalidKey(e));
+                } else {
+                    install(response);
+                }
+            } catch (RuntimeException ex) {
+                // Only reachable if the JWKS has never been loaded successfully, in which case there's nothing to
+                // refresh and the next request will trigger a load anyway
+                LOGGER.warn("Failed to refresh JWKS from {} in the background: {}", this.jwksURI, ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Gets whether this locator is operating in refresh-ahead mode
+     *
+     * @return True if refreshing keys in the background, false otherwise
+     */
+    public boolean isRefreshAhead() {
+        return this.refreshAhead;
+    }
+
+    /**
+     * Stops any further background refreshes of the keys, the locator remains usable with keys being reloaded on demand
+     * when they expire
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        if (this.scheduledRefresh != null) {
+            this.scheduledRefresh.cancel(false);
+            this.scheduledRefresh = null;
+        }
     }
 
     @Override
     public String toString() {
-        return "CachedJwksKeyLocator{jwksUrl=" + this.jwksURI.toString() + ", cacheKeysFor=" + this.cacheKeysFor.toString() + "}";
+        return "CachedJwksKeyLocator{jwksUrl=" + this.jwksURI.toString() + ", cacheKeysFor=" + this.cacheKeysFor.toString()
+               + ", refreshAhead=" + this.refreshAhead + ", minRefetchInterval=" + this.minRefetchInterval + "}";
+    }
+
+    /**
+     * An immutable snapshot of the keys loaded from a JWKS
+     * <p>
+     * Keys are converted into {@link Key} instances once when the snapshot is created, so that locating a key is a
+     * single map lookup.
+     * </p>
+     */
+    private static final class Snapshot {
+        private final JwksResponse response;
+        private final Map<String, Key> keys;
+        private final long loadedAt;
+        private final long expiresAt;
+
+        private Snapshot(JwksResponse response, Duration lifetime, Snapshot previous) {
+            this(response,
+                 previous != null && previous.response.jwks() == response.jwks() ? previous.keys :
+                 toKeys(response.jwks()), System.nanoTime(), lifetime);
+        }
+
+        private Snapshot(JwksResponse response, Map<String, Key> keys, long loadedAt, Duration lifetime) {
+            this.response = response;
+            this.keys = keys;
+            this.loadedAt = loadedAt;
+            this.expiresAt = loadedAt + lifetime.toNanos();
+        }
+
+        private static Map<String, Key> toKeys(JwkSet jwks) {
+            Map<String, Key> byId = new HashMap<>();
+            for (Jwk<?> jwk : jwks.getKeys()) {
+                if (StringUtils.isNotBlank(jwk.getId()) && !byId.containsKey(jwk.getId())) {
+                    byId.put(jwk.getId(), jwk.toKey());
+                }
+            }
+            return Map.copyOf(byId);
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - this.expiresAt >= 0;
+        }
     }
 }
@@ -0,0 +1,50 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks;
+
+import io.jsonwebtoken.security.InvalidKeyException;
+
+/**
+ * Thrown when a token references a key that is not present in the JWKS
+ * <p>
+ * Since tokens bearing garbage key IDs are a common form of attack traffic this exception does not capture a stack
+ * trace, the message identifying the key ID and JWKS is sufficient to diagnose the failure.
+ * </p>
+ */
+final class KeyNotPresentException extends InvalidKeyException {
+
+    /**
+     * Creates a new exception
+     *
+     * @param message Message
+     */
+    KeyNotPresentException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
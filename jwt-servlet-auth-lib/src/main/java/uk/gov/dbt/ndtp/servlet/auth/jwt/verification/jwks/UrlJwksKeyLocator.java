@@ -34,8 +34,15 @@ import java.net.http.HttpClient;
 import java.nio.file.Paths;
 import java.security.Key;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.lang3.StringUtils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.JfrEvents;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.jfr.JwksLoadEvent;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwksResponse;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
 
 
@@ -51,6 +58,11 @@ import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
  * {@link CachedJwksKeyLocator} for a more intelligent implementation that includes caching of the retrieved keys and
  * only reloads the JWKS periodically.
  * </p>
+ * <p>
+ * Concurrent loads by a locator are coalesced, so only a single fetch is ever in-flight per locator and all concurrent
+ * callers share its result.  Loads are never coalesced across locators, even for the same JWKS URI, since locators may
+ * differ in how they fetch the JWKS e.g. via their HTTP Client.
+ * </p>
  *
  * @since 0.8.0
  */
@@ -64,6 +76,10 @@ public class UrlJwksKeyLocator extends LocatorAdapter<Key> {
     protected static final String[] SUPPORTED_SCHEMES = { "http", "https", "file" };
 
     private final HttpClient client;
+    /**
+     * The JWKS load that is currently in-flight, if any, used to coalesce concurrent loads
+     */
+    private final AtomicReference<CompletableFuture<JwksResponse>> inFlight = new AtomicReference<>();
     /**
      * The configured JWKS URI
      */
@@ -76,7 +92,7 @@ public class UrlJwksKeyLocator extends LocatorAdapter<Key> {
      */
     protected static synchronized HttpClient createDefaultClient() {
         if (DEFAULT_CLIENT == null) {
-            DEFAULT_CLIENT = HttpClient.newBuilder().build();
+            DEFAULT_CLIENT = HttpClient.newBuilder().connectTimeout(KeyUtils.JWKS_CONNECT_TIMEOUT).build();
         }
         return DEFAULT_CLIENT;
     }
@@ -134,31 +150,268 @@ public class UrlJwksKeyLocator extends LocatorAdapter<Key> {
      */
     protected void ensureKeyPresent(JwsHeader header, Jwk<?> jwk) {
         if (jwk == null) {
-            throw new InvalidKeyException(
-                    "Key ID '" + header.getKeyId() + "' not present in JWKS at URI " + this.jwksURI.toString());
+            throw keyNotPresent(header);
         }
     }
 
+    /**
+     * Creates the error thrown when the key identified by the JWS header is not present in the JWKS
+     *
+     * @param header JWS Header
+     * @return Key not present error
+     */
+    protected InvalidKeyException keyNotPresent(JwsHeader header) {
+        return keyNotPresent(header.getKeyId());
+    }
+
+    /**
+     * Creates the error thrown when the key with the given ID is not present in the JWKS
+     *
+     * @param keyId Key ID
+     * @return Key not present error
+     */
+    protected InvalidKeyException keyNotPresent(String keyId) {
+        return new KeyNotPresentException("Key ID '" + keyId + "' not present in JWKS at URI " + this.jwksURI.toString());
+    }
+
     /**
      * Loads the JWKS resource
+     * <p>
+     * If a load by this locator is already in-flight then this waits for, and returns, the result of that load rather
+     * than issuing another fetch.
+     * </p>
      *
      * @return JWKS resource
+     * @throws InvalidKeyException Thrown if the JWKS cannot be loaded
      */
     protected JwkSet loadJwks() {
-        JwkSet jwks;
+        return loadJwks(null).jwks();
+    }
+
+    /**
+     * Loads the JWKS resource, conditionally if a previous response is supplied
+     * <p>
+     * If a load by this locator is already in-flight then this waits for, and returns, the result of that load rather
+     * than issuing another fetch.  Since the in-flight load was made by this locator, for the same JWKS URI, its result
+     * is equally valid for all callers regardless of whether it was conditional.
+     * </p>
+     *
+     * @param previous Previous response whose validators are used to make the load conditional, may be {@code null}
+     * @return JWKS response
+     * @throws InvalidKeyException Thrown if the JWKS cannot be loaded
+     * @see KeyUtils#loadJwks(URI, HttpClient, JwksResponse)
+     */
+    protected JwksResponse loadJwks(JwksResponse previous) {
+        JwksLoadEvent event = new JwksLoadEvent();
+        event.begin();
+        CompletableFuture<JwksResponse> load = new CompletableFuture<>();
+        CompletableFuture<JwksResponse> inFlight = startLoad(load);
+        if (inFlight != null) {
+            try {
+                JwksResponse response = awaitLoad(inFlight);
+                event.complete(this.jwksURI, true, response.notModified(), JfrEvents.OUTCOME_SUCCESS);
+                return response;
+            } catch (RuntimeException e) {
+                event.complete(this.jwksURI, true, false, JfrEvents.OUTCOME_FAILURE);
+                throw e;
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            JwksResponse response = fetchJwks(previous);
+            AuthenticationMetricsRegistry.get().onJwksFetch(true, System.nanoTime() - start);
+            event.complete(this.jwksURI, false, response.notModified(), JfrEvents.OUTCOME_SUCCESS);
+            load.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            AuthenticationMetricsRegistry.get().onJwksFetch(false, System.nanoTime() - start);
+            event.complete(this.jwksURI, false, false, JfrEvents.OUTCOME_FAILURE);
+            load.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            // Ensure callers waiting on this load are never left waiting forever
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.compareAndSet(load, null);
+        }
+    }
+
+    /**
+     * Registers a load as the in-flight load, unless another load is already in-flight
+     *
+     * @param load Load
+     * @return The already in-flight load, or {@code null} if the given load is now the in-flight load
+     */
+    private CompletableFuture<JwksResponse> startLoad(CompletableFuture<JwksResponse> load) {
+        while (true) {
+            if (this.inFlight.compareAndSet(null, load)) {
+                return null;
+            }
+            CompletableFuture<JwksResponse> existing = this.inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+        }
+    }
+
+    /**
+     * Waits for an in-flight JWKS load to complete
+     *
+     * @param inFlight In-flight load
+     * @return JWKS resource
+     * @throws InvalidKeyException Thrown if the in-flight load failed
+     */
+    private JwksResponse awaitLoad(CompletableFuture<JwksResponse> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            throw asInvalidKey(e);
+        }
+    }
+
+    /**
+     * Loads the JWKS resource asynchronously, so that the calling thread is not held while the JWKS is fetched
+     * <p>
+     * Loads are coalesced with any other in-flight load by this locator, whether synchronous or asynchronous, see
+     * {@link #loadJwks(JwksResponse)}.
+     * </p>
+     *
+     * @param previous Previous response whose validators are used to make the load conditional, may be {@code null}
+     * @return Future JWKS response, completes exceptionally with an {@link InvalidKeyException} if the JWKS cannot be
+     * loaded
+     */
+    protected CompletableFuture<JwksResponse> loadJwksAsync(JwksResponse previous) {
+        JwksLoadEvent event = new JwksLoadEvent();
+        event.begin();
+        CompletableFuture<JwksResponse> load = new CompletableFuture<>();
+        CompletableFuture<JwksResponse> inFlight = startLoad(load);
+        if (inFlight != null) {
+            return inFlight.whenComplete((response, e) -> completeEvent(event, true, response, e))
+                           .handle(UrlJwksKeyLocator::loaded);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<JwksResponse> fetch;
+        try {
+            fetch = fetchJwksAsync(previous);
+        } catch (Throwable e) {
+            // Ensure callers waiting on this load are never left waiting forever
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        fetch.whenComplete((response, e) -> {
+            AuthenticationMetricsRegistry.get().onJwksFetch(e == null, System.nanoTime() - start);
+            completeEvent(event, false, response, e);
+            this.inFlight.compareAndSet(load, null);
+            if (e != null) {
+                load.completeExceptionally(asInvalidKey(e));
+            } else {
+                load.complete(response);
+            }
+        });
+        return load.copy();
+    }
+
+    /**
+     * Completes the diagnostic event for an asynchronous JWKS load
+     *
+     * @param event     Event
+     * @param coalesced Whether the load was coalesced with an in-flight fetch
+     * @param response  JWKS response, {@code null} if the load failed
+     * @param e         Load failure, {@code null} if the load succeeded
+     */
+    private void completeEvent(JwksLoadEvent event, boolean coalesced, JwksResponse response, Throwable e) {
+        event.complete(this.jwksURI, coalesced, response != null && response.notModified(),
+                       e == null ? JfrEvents.OUTCOME_SUCCESS : JfrEvents.OUTCOME_FAILURE);
+    }
+
+    /**
+     * Unwraps the outcome of a JWKS load ensuring that failures are reported as {@link InvalidKeyException}s
+     *
+     * @param response JWKS response
+     * @param e        Load failure, {@code null} if the load succeeded
+     * @return JWKS response
+     */
+    private static JwksResponse loaded(JwksResponse response, Throwable e) {
+        if (e != null) {
+            throw asInvalidKey(e);
+        }
+        return response;
+    }
+
+    /**
+     * Converts a JWKS load failure into an {@link InvalidKeyException}
+     *
+     * @param e Load failure
+     * @return Invalid key error
+     */
+    static InvalidKeyException asInvalidKey(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof InvalidKeyException invalid) {
+            return invalid;
+        } else if (cause instanceof KeyLoadException) {
+            return new InvalidKeyException(cause.getMessage(), cause.getCause());
+        }
+        return new InvalidKeyException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Fetches the JWKS resource asynchronously, this always fetches the resource and is not subject to coalescing,
+     * generally {@link #loadJwksAsync(JwksResponse)} should be used instead
+     * <p>
+     * Only HTTP resources are fetched asynchronously, file resources are read directly since they are local.
+     * </p>
+     *
+     * @param previous Previous response whose validators are used to make the fetch conditional, may be {@code null}
+     * @return Future JWKS response
+     */
+    protected CompletableFuture<JwksResponse> fetchJwksAsync(JwksResponse previous) {
+        if (StringUtils.equals(this.jwksURI.getScheme(), "file")) {
+            try {
+                return CompletableFuture.completedFuture(fetchJwks(previous));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return KeyUtils.loadJwksAsync(this.jwksURI, this.client, previous);
+    }
+
+    /**
+     * Fetches the JWKS resource, this always fetches the resource and is not subject to coalescing, generally
+     * {@link #loadJwks()} should be used instead
+     *
+     * @return JWKS resource
+     * @throws InvalidKeyException Thrown if the JWKS cannot be loaded
+     */
+    protected JwkSet fetchJwks() {
+        return fetchJwks(null).jwks();
+    }
+
+    /**
+     * Fetches the JWKS resource, conditionally if a previous response is supplied, this always fetches the resource and
+     * is not subject to coalescing, generally {@link #loadJwks(JwksResponse)} should be used instead
+     * <p>
+     * File resources are always read in full since they carry no HTTP caching metadata.
+     * </p>
+     *
+     * @param previous Previous response whose validators are used to make the fetch conditional, may be {@code null}
+     * @return JWKS response
+     * @throws InvalidKeyException Thrown if the JWKS cannot be loaded
+     */
+    protected JwksResponse fetchJwks(JwksResponse previous) {
         try {
             if (StringUtils.equals(this.jwksURI.getScheme(), "file")) {
                 // Read in File
                 File f = Paths.get(this.jwksURI).toFile();
-                jwks = KeyUtils.loadJwks(f);
+                return JwksResponse.of(KeyUtils.loadJwks(f));
             } else {
                 // Read in URL
-                jwks = KeyUtils.loadJwks(this.jwksURI, this.client);
+                return KeyUtils.loadJwks(this.jwksURI, this.client, previous);
             }
         } catch (KeyLoadException e) {
             throw new InvalidKeyException(e.getMessage(), e.getCause());
         }
-        return jwks;
     }
 
     /**
@@ -187,11 +440,12 @@ public class UrlJwksKeyLocator extends LocatorAdapter<Key> {
         // This is a bit hacky, would be nice if there was a simpler way to just call get() on the JwkSet and get the
         // associated key back directly.  But this isn't happening per https://github.com/jwtk/jjwt/issues/919 so have
         // to live with this
-        return jwks.getKeys()
-                   .stream()
-                   .filter(k -> StringUtils.equals(k.getId(), keyId))
-                   .findFirst()
-                   .orElse(null);
+        for (Jwk<?> jwk : jwks.getKeys()) {
+            if (StringUtils.equals(jwk.getId(), keyId)) {
+                return jwk;
+            }
+        }
+        return null;
     }
 
     @Override
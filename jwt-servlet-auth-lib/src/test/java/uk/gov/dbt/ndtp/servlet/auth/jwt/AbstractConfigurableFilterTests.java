@@ -30,8 +30,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.security.KeyPair;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.SecretKey;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -39,6 +44,8 @@ import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.ConfigurationParameters;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.RuntimeConfigurationAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeAsyncTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.TestKeyUtils;
 
@@ -308,4 +315,91 @@ public abstract class AbstractConfigurableFilterTests<TRequest, TResponse, TFilt
         Assert.assertEquals(this.getAuthenticatedUser(filter, request), "test");
     }
 
+    @Test
+    public void givenObserver_whenFilteringRequests_thenObserverIsNotifiedOfEachOutcome() {
+        // Given
+        TFilter filter =
+                createFilter(createEngine(), new FakeTokenVerifier(), PathExclusion.parsePathPatterns("/healthz"));
+        List<TRequest> results = new ArrayList<>();
+        filter.addObserver((request, authenticatedRequest) -> results.add(authenticatedRequest));
+
+        // When
+        invokeFilter(filter, createMockRequest("/healthz", Collections.emptyMap()), createMockResponse());
+        invokeFilter(filter, createMockRequest("/other", Collections.emptyMap()), createMockResponse());
+        invokeFilter(filter, createMockRequest("/other", Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo")),
+                     createMockResponse());
+
+        // Then
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertNull(results.get(0));
+        Assert.assertNull(results.get(1));
+        Assert.assertNotNull(results.get(2));
+        Assert.assertEquals(getAuthenticatedUser(results.get(2)), "foo");
+    }
+
+    @Test
+    public void givenRemovedObserver_whenFilteringRequests_thenObserverIsNotNotified() {
+        // Given
+        TFilter filter = createFilter(createEngine(), new FakeTokenVerifier(), null);
+        List<TRequest> results = new ArrayList<>();
+        AuthenticationObserver<TRequest> observer = (request, authenticatedRequest) -> results.add(authenticatedRequest);
+        filter.addObserver(observer);
+
+        // When
+        boolean removed = filter.removeObserver(observer);
+        invokeFilter(filter, createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo")),
+                     createMockResponse());
+
+        // Then
+        Assert.assertTrue(removed);
+        Assert.assertFalse(filter.removeObserver(observer));
+        Assert.assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void givenFailingObserver_whenFilteringRequest_thenRequestIsStillAuthenticated() {
+        // Given
+        TFilter filter = createFilter(createEngine(), new FakeTokenVerifier(), null);
+        List<TRequest> results = new ArrayList<>();
+        filter.addObserver((request, authenticatedRequest) -> {
+            throw new IllegalStateException("Observer failure");
+        });
+        filter.addObserver((request, authenticatedRequest) -> results.add(authenticatedRequest));
+        TRequest request = createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo"));
+        TResponse response = createMockResponse();
+
+        // When
+        invokeFilter(filter, request, response);
+
+        // Then
+        verifyNoChallenge(request, response);
+        Assert.assertEquals(results.size(), 1);
+        Assert.assertEquals(getAuthenticatedUser(results.get(0)), "foo");
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullObserver_whenAdding_thenNPE() {
+        // Given
+        TFilter filter = createUnconfiguredFilter();
+
+        // When and Then
+        filter.addObserver(null);
+    }
+
+    @Test
+    public void givenAsyncVerifier_whenFilteringRequest_thenAuthenticatedOnceVerificationCompletes() {
+        // Given
+        CompletableFuture<Void> gate =
+                CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        TFilter filter = createFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate), null);
+        TRequest request = createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo"));
+        TResponse response = createMockResponse();
+
+        // When
+        invokeFilter(filter, request, response);
+
+        // Then
+        verifyNoChallenge(request, response);
+        Assert.assertEquals(getAuthenticatedUser(filter, request), "foo");
+    }
 }
@@ -23,12 +23,17 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Header;
 import io.jsonwebtoken.IncorrectClaimException;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.MissingClaimException;
 import io.jsonwebtoken.PrematureJwtException;
@@ -44,16 +49,24 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
 import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.AlternateClaimTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.AsyncJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeAsyncTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.InvalidTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.MultipleClaimsTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.NestedClaimsTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.RolesTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SubjectlessTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.WrongTypeTokenVerifier;
 
@@ -121,7 +134,7 @@ public abstract class AbstractHeaderBasedEngineTests<TRequest, TResponse> extend
     @Test
     public void engine_invalid_token_02() throws IOException {
         verifyChallenge("Bearer test", new FakeTokenVerifier(-1, ChronoUnit.MINUTES), 401, "error=\"invalid_token\"",
-                        "Token expired");
+                        "Token expired JWT expired");
     }
 
     @Test
@@ -211,6 +224,43 @@ public abstract class AbstractHeaderBasedEngineTests<TRequest, TResponse> extend
             500);
     }
 
+    @Test
+    public void engine_invalid_token_15() throws IOException {
+        JwtVerifier verifier = rawJwt -> null;
+        verifyChallenge("Bearer test", verifier, 401, "error=\"invalid_token\"", "could not be verified");
+    }
+
+    @Test
+    public void engine_precheck_malformed_01() throws IOException {
+        JwtVerifier verifier = spy(new SignedJwtVerifier(Jwts.SIG.HS256.key().build()));
+        verifyChallenge("Bearer test", verifier, 401, "error=\"invalid_token\"", "malformed");
+        verify(verifier, never()).verify(any());
+    }
+
+    @Test
+    public void engine_precheck_malformed_02() throws IOException {
+        JwtVerifier verifier = spy(new SignedJwtVerifier(Jwts.SIG.HS256.key().build()));
+        verifyChallenge("Bearer not/a+token.at=all.really", verifier, 401, "error=\"invalid_token\"", "malformed");
+        verify(verifier, never()).verify(any());
+    }
+
+    @Test
+    public void engine_precheck_encrypted_01() throws IOException {
+        JwtVerifier verifier = spy(new SignedJwtVerifier(Jwts.SIG.HS256.key().build()));
+        verifyChallenge("Bearer eyJhbGciOiJkaXIifQ..aXY.Y2lwaGVy.dGFn", verifier, 400, "error=\"invalid_request\"",
+                        "unsupported", "encrypted");
+        verify(verifier, never()).verify(any());
+    }
+
+    @Test
+    public void engine_precheck_unsecured_01() throws IOException {
+        JwtVerifier verifier = spy(new SignedJwtVerifier(Jwts.SIG.HS256.key().build()));
+        String unsecured = Jwts.builder().subject("test").compact();
+        verifyChallenge("Bearer " + unsecured, verifier, 400, "error=\"invalid_request\"", "unsupported",
+                        "unsecured");
+        verify(verifier, never()).verify(any());
+    }
+
     @Test
     public void engine_custom_realm_01() throws IOException {
         JwtAuthenticationEngine<TRequest, TResponse> engine =
@@ -226,6 +276,21 @@ public abstract class AbstractHeaderBasedEngineTests<TRequest, TResponse> extend
         verifyChallenge("Bearer test", engine, new InvalidTokenVerifier(), 401, "realm=\"Secret Squirrels Only\"");
     }
 
+    @Test
+    public void givenConfiguredRealm_whenCheckingForFixedRealm_thenOnlyTrueWhenRealmNotBlank() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> withRealm =
+                createEngine(JwtHttpConstants.HEADER_AUTHORIZATION, JwtHttpConstants.AUTH_SCHEME_BEARER, "test-realm",
+                             null);
+        JwtAuthenticationEngine<TRequest, TResponse> blankRealm =
+                createEngine(JwtHttpConstants.HEADER_AUTHORIZATION, JwtHttpConstants.AUTH_SCHEME_BEARER, " ", null);
+
+        // When and Then
+        Assert.assertTrue(withRealm.hasFixedRealm());
+        Assert.assertFalse(blankRealm.hasFixedRealm());
+        Assert.assertFalse(createEngine().hasFixedRealm());
+    }
+
     @Test
     public void engine_authenticated_01() {
         verifyAuthenticated("Bearer test", new FakeTokenVerifier(), "test");
@@ -454,6 +519,307 @@ public abstract class AbstractHeaderBasedEngineTests<TRequest, TResponse> extend
                             new MultipleClaimsTokenVerifier("username"), "test");
     }
 
+    @Test
+    public void givenDottedUsernameClaim_whenAuthenticating_thenNestedClaimIsUsed() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createMultiClaimEngine("profile.upper");
+
+        // When and Then
+        verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test", engine,
+                            new NestedClaimsTokenVerifier(), "TEST");
+    }
+
+    @Test
+    public void givenJsonPointerUsernameClaim_whenAuthenticating_thenNestedArrayElementIsUsed() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createMultiClaimEngine("/profile/emails/0");
+
+        // When and Then
+        verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test", engine,
+                            new NestedClaimsTokenVerifier(), "test@example.org");
+    }
+
+    @Test
+    public void givenDottedClaimNameThatExistsAtTopLevel_whenAuthenticating_thenTopLevelClaimIsPreferred() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine =
+                createMultiClaimEngine("profile.flat", "https://example.org/user");
+
+        // When and Then
+        verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer TeSt", engine,
+                            new NestedClaimsTokenVerifier(), "test");
+    }
+
+    @Test
+    public void givenNestedClaimsThatAreBlankOrWrongType_whenAuthenticating_thenNextClaimIsUsed() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine =
+                createMultiClaimEngine("profile.blank", "profile.number", "profile.missing", "profile.username");
+
+        // When and Then
+        verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test", engine,
+                            new NestedClaimsTokenVerifier(), "test");
+    }
+
+    /**
+     * Creates an engine for testing
+     *
+     * @param authHeaders    Header sources
+     * @param realm          Realm for challenges
+     * @param usernameClaims Username claim(s)
+     * @param roleClaims     Role claim(s)
+     * @return Engine
+     */
+    protected abstract JwtAuthenticationEngine<TRequest, TResponse> createEngine(List<HeaderSource> authHeaders,
+                                                                                 String realm,
+                                                                                 List<String> usernameClaims,
+                                                                                 List<String> roleClaims);
+
+    /**
+     * Checks whether the authenticated request reports the user as being in the given role
+     *
+     * @param authenticatedRequest Authenticated request
+     * @param role                 Role
+     * @return True if in role, false otherwise
+     */
+    protected abstract boolean isUserInRole(TRequest authenticatedRequest, String role);
+
+    /**
+     * Creates a mock request to a specific path
+     *
+     * @param method  HTTP method
+     * @param path    Request path
+     * @param headers Headers
+     * @return Mock request
+     */
+    protected abstract TRequest createMockRequest(String method, String path, Map<String, String> headers);
+
+    private TRequest authenticateWithRules(String rules, String method, String path, TResponse response) {
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles", "groups");
+        engine.setAuthorizationRules(AuthorizationRules.parse(rules));
+        TRequest request =
+                createMockRequest(method, path, Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone"));
+        return engine.authenticate(request, response, new RolesTokenVerifier());
+    }
+
+    @Test
+    public void givenSatisfiedRoleRule_whenAuthenticating_thenAuthenticated() {
+        // Given
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest request = authenticateWithRules("/admin/** role=admin", "GET", "/admin/users", response);
+
+        // Then
+        Assert.assertNotNull(request);
+        Assert.assertEquals(getAuthenticatedUser(request), "someone");
+    }
+
+    @Test
+    public void givenUnsatisfiedRoleRule_whenAuthenticating_thenForbidden() throws IOException {
+        // Given
+        TResponse response = createMockResponse();
+        TRequest request =
+                createMockRequest("GET", "/audit/log", Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone"));
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles", "groups");
+        engine.setAuthorizationRules(AuthorizationRules.parse("/audit/** role=auditor"));
+
+        // When
+        TRequest authenticated = engine.authenticate(request, response, new RolesTokenVerifier());
+
+        // Then
+        Assert.assertNull(authenticated);
+        verifyChallenge(request, response, 403, "error=\"insufficient_scope\"");
+    }
+
+    @DataProvider(name = "pathVariants")
+    public Object[][] pathVariants() {
+        return new Object[][] {
+                { "GET", "/admin" },
+                { "GET", "/admin/" },
+                { "GET", "/admin;x=1" },
+                { "GET", "//admin" },
+                { "GET", "/admin//" },
+                { "GET", "/;x=1/admin" },
+                { "DELETE", "/reports/1" },
+                { "DELETE", "/reports//1" },
+                { "DELETE", "/reports/1/" },
+                { "DELETE", "/reports;x=1/1;y=2" },
+                { "GET", "/public/../admin" },
+                { "GET", "/admin/./" },
+                { "GET", "/%2e%2e/admin" },
+                { "GET", "/reports/.%2E/admin" }
+        };
+    }
+
+    @Test(dataProvider = "pathVariants")
+    public void givenRules_whenAuthenticatingWithPathVariant_thenForbidden(String method, String path) throws
+            IOException {
+        // Given
+        TResponse response = createMockResponse();
+        TRequest request =
+                createMockRequest(method, path, Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone"));
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles");
+        engine.setAuthorizationRules(AuthorizationRules.parse("/admin role=auditor; DELETE /reports/* role=auditor"));
+
+        // When
+        TRequest authenticated = engine.authenticate(request, response, new RolesTokenVerifier());
+
+        // Then
+        Assert.assertNull(authenticated);
+        verifyChallenge(request, response, 403, "error=\"insufficient_scope\"");
+    }
+
+    @Test
+    public void givenRuleForAnotherPath_whenAuthenticating_thenAuthenticated() {
+        // Given
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest request = authenticateWithRules("/audit/** role=auditor", "GET", "/reports/1", response);
+
+        // Then
+        Assert.assertNotNull(request);
+    }
+
+    @Test
+    public void givenMethodQualifiedRule_whenAuthenticatingWithOtherMethod_thenAuthenticated() {
+        // Given
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest request = authenticateWithRules("DELETE /reports/* role=auditor", "GET", "/reports/1", response);
+
+        // Then
+        Assert.assertNotNull(request);
+    }
+
+    @Test
+    public void givenMethodQualifiedRule_whenAuthenticatingWithThatMethod_thenForbidden() throws IOException {
+        // Given
+        TResponse response = createMockResponse();
+        TRequest request = createMockRequest("DELETE", "/reports/1",
+                                             Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone"));
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles");
+        engine.setAuthorizationRules(AuthorizationRules.parse("DELETE /reports/* role=auditor"));
+
+        // When
+        TRequest authenticated = engine.authenticate(request, response, new RolesTokenVerifier());
+
+        // Then
+        Assert.assertNull(authenticated);
+        verifyChallenge(request, response, 403, "error=\"insufficient_scope\"");
+    }
+
+    @Test
+    public void givenSatisfiedClaimAndRoleRules_whenAuthenticating_thenAuthenticated() {
+        // Given
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest request = authenticateWithRules("/** claim:realm_access.roles=realm-admin; /docs/** role=editors",
+                                                 "PUT", "/docs/1", response);
+
+        // Then
+        Assert.assertNotNull(request);
+    }
+
+    @Test
+    public void givenAuthorizationRules_whenAuthenticatingAsynchronously_thenForbidden() throws IOException {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createEngine();
+        engine.setAuthorizationRules(AuthorizationRules.parse("/** claim:iss=other"));
+        AsyncJwtVerifier verifier =
+                new FakeAsyncTokenVerifier(new FakeTokenVerifier(), CompletableFuture.completedFuture(null));
+        TRequest request =
+                createMockRequest("GET", "/test", Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test"));
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest authenticated = engine.authenticateAsync(request, response, verifier).toCompletableFuture().join();
+
+        // Then
+        Assert.assertNull(authenticated);
+        verifyChallenge(request, response, 403, "error=\"insufficient_scope\"");
+    }
+
+    private JwtAuthenticationEngine<TRequest, TResponse> createRoleEngine(String... roleClaims) {
+        return createEngine((List<HeaderSource>) JwtHttpConstants.DEFAULT_HEADER_SOURCES, null, null,
+                            Arrays.asList(roleClaims));
+    }
+
+    @Test
+    public void givenNoRoleClaims_whenAuthenticating_thenUserHasNoRoles() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine();
+
+        // When
+        TRequest request = verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone", engine,
+                                               new RolesTokenVerifier(), "someone");
+
+        // Then
+        Assert.assertFalse(isUserInRole(request, "admin"));
+        Assert.assertFalse(isUserInRole(request, "editors"));
+    }
+
+    @Test
+    public void givenArrayRoleClaim_whenAuthenticating_thenUserHasThoseRoles() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles");
+
+        // When
+        TRequest request = verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone", engine,
+                                               new RolesTokenVerifier(), "someone");
+
+        // Then
+        Assert.assertTrue(isUserInRole(request, "admin"));
+        Assert.assertTrue(isUserInRole(request, "user"));
+        Assert.assertFalse(isUserInRole(request, "ADMIN"));
+        Assert.assertFalse(isUserInRole(request, "editors"));
+        Assert.assertFalse(isUserInRole(request, null));
+    }
+
+    @Test
+    public void givenMultipleRoleClaims_whenAuthenticating_thenUserHasUnionOfRoles() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles", "groups", "realm_access.roles");
+
+        // When
+        TRequest request = verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone", engine,
+                                               new RolesTokenVerifier(), "someone");
+
+        // Then
+        for (String role : List.of("admin", "user", "editors", "realm-admin")) {
+            Assert.assertTrue(isUserInRole(request, role), "Expected role " + role);
+        }
+        Assert.assertFalse(isUserInRole(request, "1"));
+        Assert.assertFalse(isUserInRole(request, ""));
+        Assert.assertFalse(isUserInRole(request, " "));
+    }
+
+    @Test
+    public void givenMissingOrWrongTypeRoleClaims_whenAuthenticating_thenAuthenticatedWithNoRoles() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("scope", "missing", "/groups/0");
+
+        // When
+        TRequest request = verifyAuthenticated(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone", engine,
+                                               new RolesTokenVerifier(), "someone");
+
+        // Then
+        Assert.assertFalse(isUserInRole(request, "42"));
+        Assert.assertFalse(isUserInRole(request, "editors"));
+    }
+
+    @Test
+    public void givenRoleClaims_whenCreatingAnEngine_thenToStringReflectsRoleClaims() {
+        // Given and When
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createRoleEngine("roles", "realm_access.roles");
+
+        // Then
+        Assert.assertTrue(StringUtils.contains(engine.toString(), "roleClaims=[roles, realm_access.roles]"));
+    }
+
     public JwtAuthenticationEngine<TRequest, TResponse> createMultiClaimEngine(String... usernameClaims) {
         return createEngine((List<HeaderSource>) JwtHttpConstants.DEFAULT_HEADER_SOURCES, null,
                              Arrays.asList(usernameClaims));
@@ -555,4 +921,102 @@ public abstract class AbstractHeaderBasedEngineTests<TRequest, TResponse> extend
         Object jws = verifyRequestAttribute(request, JwtServletConstants.REQUEST_ATTRIBUTE_VERIFIED_JWT);
         Assert.assertTrue(jws instanceof Jws<?>);
     }
+
+    @Test
+    public void givenAsyncVerifier_whenAuthenticatingAsync_thenAuthenticatedOnceVerificationCompletes() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createEngine();
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        AsyncJwtVerifier verifier = new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate);
+        TRequest request = createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test"));
+        TResponse response = createMockResponse();
+
+        // When
+        CompletableFuture<TRequest> authentication =
+                engine.authenticateAsync(request, response, verifier).toCompletableFuture();
+        Assert.assertFalse(authentication.isDone());
+        gate.complete(null);
+
+        // Then
+        TRequest authenticatedRequest = authentication.join();
+        Assert.assertNotNull(authenticatedRequest);
+        Assert.assertEquals(getAuthenticatedUser(authenticatedRequest), "test");
+    }
+
+    @Test
+    public void givenAsyncVerifierRejectingToken_whenAuthenticatingAsync_thenChallenged() throws IOException {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createEngine();
+        AsyncJwtVerifier verifier =
+                new FakeAsyncTokenVerifier(new InvalidTokenVerifier(), CompletableFuture.completedFuture(null));
+        TRequest request = createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test"));
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest authenticatedRequest = engine.authenticateAsync(request, response, verifier).toCompletableFuture().join();
+
+        // Then
+        Assert.assertNull(authenticatedRequest);
+        verifyChallenge(request, response, 401, "error=\"invalid_token\"", "Not a valid token");
+    }
+
+    @Test
+    public void givenNoHeaders_whenAuthenticatingAsync_thenChallenged() throws IOException {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createEngine();
+        TRequest request = createMockRequest(Collections.emptyMap());
+        TResponse response = createMockResponse();
+
+        // When
+        CompletableFuture<TRequest> authentication =
+                engine.authenticateAsync(request, response, new FakeAsyncTokenVerifier()).toCompletableFuture();
+
+        // Then
+        Assert.assertTrue(authentication.isDone());
+        Assert.assertNull(authentication.join());
+        verifyChallenge(request, response, 401);
+    }
+
+    @Test
+    public void givenMultipleHeadersOfWhichSomeAreBlank_whenAuthenticatingAsync_thenRequestAttributesIncludeCorrectRawJwt() {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createMultiHeaderSourceEngine();
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer ");
+        headers.put(CUSTOM_AUTH_HEADER, "Bearer bar");
+        TRequest request = createMockRequest(headers);
+        TResponse response = createMockResponse();
+
+        // When
+        TRequest authenticatedRequest = engine.authenticateAsync(request, response, new FakeAsyncTokenVerifier())
+                                              .toCompletableFuture()
+                                              .join();
+
+        // Then
+        Assert.assertNotNull(authenticatedRequest);
+        Assert.assertEquals(getAuthenticatedUser(authenticatedRequest), "bar");
+        verifyRequestAttribute(authenticatedRequest, JwtServletConstants.REQUEST_ATTRIBUTE_RAW_JWT, "bar");
+    }
+
+    @Test
+    public void givenAsyncVerifierFailingUnexpectedly_whenAuthenticatingAsync_thenServerError() throws IOException {
+        // Given
+        JwtAuthenticationEngine<TRequest, TResponse> engine = createEngine();
+        AsyncJwtVerifier verifier = new FakeAsyncTokenVerifier(new FakeTokenVerifier(), CompletableFuture.failedFuture(
+                new RuntimeException("Unexpected error")));
+        TRequest request = createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer test"));
+        TResponse response = createMockResponse();
+
+        // When
+        CompletableFuture<TRequest> authentication =
+                engine.authenticateAsync(request, response, verifier).toCompletableFuture();
+
+        // Then
+        if (this.throwsOnUnexpectedErrors()) {
+            Assert.assertThrows(CompletionException.class, authentication::join);
+        } else {
+            Assert.assertNull(authentication.join());
+            verifyStatusCode(request, response, 500);
+        }
+    }
 }
@@ -0,0 +1,64 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+/**
+ * An {@link AuthenticationObserver} that records the most recent authentication result, allowing filter tests to check
+ * which user a request was authenticated as
+ *
+ * @param <TRequest> Request type
+ */
+public final class ResultRecorder<TRequest> implements AuthenticationObserver<TRequest> {
+
+    private volatile TRequest last;
+
+    /**
+     * Creates a recorder and registers it as an observer of the given filter
+     *
+     * @param filter      Filter
+     * @param <TRequest>  Request type
+     * @param <TResponse> Response type
+     * @return Result recorder
+     */
+    public static <TRequest, TResponse> ResultRecorder<TRequest> observe(
+            AbstractConfigurableJwtAuthFilter<TRequest, TResponse> filter) {
+        ResultRecorder<TRequest> recorder = new ResultRecorder<>();
+        filter.addObserver(recorder);
+        return recorder;
+    }
+
+    @Override
+    public void onAuthenticationResult(TRequest request, TRequest authenticatedRequest) {
+        this.last = authenticatedRequest;
+    }
+
+    /**
+     * Gets the most recently recorded result
+     *
+     * @return Authenticated request, or {@code null} if the most recent authentication failed or nothing was recorded
+     */
+    public TRequest last() {
+        return this.last;
+    }
+}
@@ -0,0 +1,249 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestAuthorizationRules {
+
+    private static final AuthorizationRules RULES = AuthorizationRules.parse(
+            "/admin/** role=admin; DELETE /reports/* role=auditor|admin; /docs/*.md claim:groups=editors; "
+            + "/api/**/internal claim:realm_access.roles=internal claim:tenant=a|b");
+
+    private static final Map<String, Object> CLAIMS =
+            Map.of("groups", List.of("editors", "readers"), "realm_access", Map.of("roles", List.of("internal")),
+                   "tenant", "b");
+
+    @DataProvider(name = "requests")
+    private Object[][] requests() {
+        return new Object[][] {
+                { "GET", "/admin", Set.of("admin"), null },
+                { "GET", "/admin", Set.of("user"), "/admin/** role=admin" },
+                { "GET", "/admin/users/1", Set.of("user"), "/admin/** role=admin" },
+                { "GET", "/administrator", Set.of("user"), null },
+                { "GET", "/reports/1", Set.of("user"), null },
+                { "delete", "/reports/1", Set.of("user"), "DELETE /reports/* role=auditor|admin" },
+                { "DELETE", "/reports/1", Set.of("auditor"), null },
+                { null, "/reports/1", Set.of("user"), "DELETE /reports/* role=auditor|admin" },
+                { null, "/reports/1", Set.of("admin"), null },
+                { "GET", "/docs/readme.md", Set.of(), null },
+                { "GET", "/docs/readme.txt", Set.of(), null },
+                { "GET", "/api/internal", Set.of(), null },
+                { "GET", "/api/v1/v2/internal", Set.of(), null },
+                { "GET", "/other", Set.of(), null },
+                { "GET", "/admin/", Set.of("user"), "/admin/** role=admin" },
+                { "GET", "//admin;x=1", Set.of("user"), "/admin/** role=admin" },
+                { "DELETE", "/reports//1/", Set.of("user"), "DELETE /reports/* role=auditor|admin" },
+                { "DELETE", "/reports/1;x=1", Set.of("user"), "DELETE /reports/* role=auditor|admin" },
+                { "GET", "/other/../admin", Set.of("user"), AuthorizationRules.NON_CANONICAL_PATH.toString() },
+                { "GET", "/other/./", Set.of("user"), AuthorizationRules.NON_CANONICAL_PATH.toString() },
+                { "GET", "other", Set.of(), AuthorizationRules.NON_CANONICAL_PATH.toString() },
+                { "GET", "", Set.of(), AuthorizationRules.NON_CANONICAL_PATH.toString() },
+                { "GET", null, Set.of(), AuthorizationRules.NON_CANONICAL_PATH.toString() }
+        };
+    }
+
+    @Test(dataProvider = "requests")
+    public void givenCompiledRules_whenAuthorizing_thenExpectedRuleIsUnsatisfied(String method, String path,
+                                                                                 Set<String> roles,
+                                                                                 String expected) {
+        // Given and When
+        AuthorizationRule unsatisfied = RULES.findUnsatisfied(method, path, CLAIMS, () -> roles);
+
+        // Then
+        Assert.assertEquals(unsatisfied != null ? unsatisfied.toString() : null, expected);
+    }
+
+    @Test
+    public void givenUnsatisfiedClaimRequirement_whenAuthorizing_thenUnsatisfied() {
+        // Given
+        Map<String, Object> claims = Map.of("groups", "readers", "tenant", "c");
+
+        // When and Then
+        Assert.assertNotNull(RULES.findUnsatisfied("GET", "/docs/readme.md", claims, Set::of));
+        Assert.assertNotNull(RULES.findUnsatisfied("GET", "/api/internal", claims, Set::of));
+        Assert.assertNotNull(RULES.findUnsatisfied("GET", "/api/internal", Map.of(), Set::of));
+    }
+
+    @Test
+    public void givenMultipleRoleRules_whenAuthorizing_thenRolesResolvedOnce() {
+        // Given
+        AuthorizationRules rules = AuthorizationRules.parse("/** role=user; /api/** role=user|admin; /api/* role=user");
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<Set<String>> roles = () -> {
+            calls.incrementAndGet();
+            return Set.of("user");
+        };
+
+        // When
+        AuthorizationRule unsatisfied = rules.findUnsatisfied("GET", "/api/items", Map.of(), roles);
+
+        // Then
+        Assert.assertNull(unsatisfied);
+        Assert.assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void givenNoApplicableRoleRule_whenAuthorizing_thenRolesNotResolved() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        AuthorizationRule unsatisfied = RULES.findUnsatisfied("GET", "/docs/readme.md", CLAIMS, () -> {
+            calls.incrementAndGet();
+            return Set.of();
+        });
+
+        // Then
+        Assert.assertNull(unsatisfied);
+        Assert.assertEquals(calls.get(), 0);
+    }
+
+    @Test
+    public void givenNullRolesSupplier_whenAuthorizing_thenTreatedAsNoRoles() {
+        // Given and When
+        AuthorizationRule unsatisfied = RULES.findUnsatisfied("GET", "/admin", CLAIMS, null);
+
+        // Then
+        Assert.assertNotNull(unsatisfied);
+    }
+
+    @DataProvider(name = "canonical")
+    private Object[][] canonical() {
+        return new Object[][] {
+                { "/", "/" },
+                { "//", "/" },
+                { "/admin", "/admin" },
+                { "/admin/", "/admin" },
+                { "//admin//users//", "/admin/users" },
+                { "/admin;jsessionid=1/users;x=1", "/admin/users" },
+                { "/;x=1/admin", "/admin" },
+                { "/a.b/..c/.d", "/a.b/..c/.d" },
+                { "/%2e%2ex", "/%2e%2ex" },
+                { "/.", null },
+                { "/..", null },
+                { "/a/./b", null },
+                { "/a/../b", null },
+                { "/a/%2e/b", null },
+                { "/a/%2E%2e/b", null },
+                { "/a/.%2e;x=1/b", null },
+                { "admin", null },
+                { "", null },
+                { null, null }
+        };
+    }
+
+    @Test(dataProvider = "canonical")
+    public void givenPath_whenCanonicalising_thenExpectedPath(String path, String expected) {
+        // Given and When
+        String canonical = AuthorizationRules.canonicalise(path);
+
+        // Then
+        Assert.assertEquals(canonical, expected);
+    }
+
+    @Test
+    public void givenNonCanonicalRulePattern_whenAuthorizing_thenMatchesCanonicalPaths() {
+        // Given
+        AuthorizationRules rules = AuthorizationRules.parse("/admin//users/ role=admin; / role=user");
+
+        // When and Then
+        Assert.assertEquals(rules.getRules().get(0).getPathPattern(), "/admin/users");
+        Assert.assertNotNull(rules.findUnsatisfied("GET", "/admin/users", Map.of(), Set::of));
+        Assert.assertNotNull(rules.findUnsatisfied("GET", "/admin/users/", Map.of(), Set::of));
+        Assert.assertNotNull(rules.findUnsatisfied("GET", "/", Map.of(), Set::of));
+        Assert.assertNotNull(rules.findUnsatisfied("GET", "//;x=1", Map.of(), Set::of));
+        Assert.assertNull(rules.findUnsatisfied("GET", "/admin", Map.of(), () -> Set.of("user")));
+    }
+
+    @DataProvider(name = "empty")
+    private Object[][] empty() {
+        return new Object[][] { { null }, { "" }, { "   " }, { ";;" } };
+    }
+
+    @Test(dataProvider = "empty")
+    public void givenNoRules_whenParsing_thenNone(String rawRules) {
+        // Given and When
+        AuthorizationRules rules = AuthorizationRules.parse(rawRules);
+
+        // Then
+        Assert.assertSame(rules, AuthorizationRules.NONE);
+        Assert.assertTrue(rules.isEmpty());
+        Assert.assertNull(rules.findUnsatisfied("GET", "/admin", Map.of(), Set::of));
+    }
+
+    @Test
+    public void givenRules_whenParsing_thenRulesAvailable() {
+        // Given and When
+        List<AuthorizationRule> rules = RULES.getRules();
+
+        // Then
+        Assert.assertFalse(RULES.isEmpty());
+        Assert.assertEquals(rules.size(), 4);
+        Assert.assertNull(rules.get(0).getMethod());
+        Assert.assertEquals(rules.get(0).getPathPattern(), "/admin/**");
+        Assert.assertEquals(rules.get(0).getRoles(), Set.of("admin"));
+        Assert.assertEquals(rules.get(1).getMethod(), "DELETE");
+        Assert.assertEquals(rules.get(1).getRoles(), Set.of("auditor", "admin"));
+        Assert.assertTrue(rules.get(2).getRoles().isEmpty());
+        Assert.assertTrue(RULES.toString().contains("; DELETE /reports/* role=auditor|admin;"));
+    }
+
+    @DataProvider(name = "invalid")
+    private Object[][] invalid() {
+        return new Object[][] {
+                { "admin/** role=admin" },
+                { "/admin/(.*) role=admin" },
+                { "/admin/**" },
+                { "GET /admin/**" },
+                { "/admin/** group=admin" },
+                { "/admin/** role=" },
+                { "/admin/** role=|" },
+                { "/admin/** role=a role=b" },
+                { "/admin/** claim:=a" },
+                { "/admin/** claim:groups" },
+                { "/admin/** claim:groups=" },
+                { "G3T /admin/** role=admin" },
+                { "/admin/../reports role=admin" },
+                { "/admin/./ role=admin" },
+                { "/admin;x=1 role=admin" }
+        };
+    }
+
+    @Test(dataProvider = "invalid", expectedExceptions = IllegalArgumentException.class)
+    public void givenInvalidRule_whenParsing_thenIllegalArgument(String rawRule) {
+        // Given and When
+        AuthorizationRules.parse(rawRule);
+
+        // Then
+        Assert.fail("Expected rule to be rejected");
+    }
+}
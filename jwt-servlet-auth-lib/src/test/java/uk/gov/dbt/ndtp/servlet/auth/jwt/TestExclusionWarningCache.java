@@ -162,6 +162,60 @@ public class TestExclusionWarningCache {
         verifyAtLeastOneWarningPerPath(paths);
     }
 
+    @Test
+    public void givenNonExcludedPath_whenCheckingForExclusionMultipleTimes_thenNeverExcluded() {
+        // Given
+        List<PathExclusion> exclusions = PathExclusion.parsePathPatterns("/healthz,/status/*");
+
+        // When and Then
+        for (int i = 0; i < 100; i++) {
+            Assert.assertFalse(this.filter.isExcludedPath("/api/data", exclusions));
+        }
+        verifyWarnings(0);
+    }
+
+    @Test
+    public void givenLongPaths_whenCheckingForExclusionMultipleTimes_thenDecisionsAreConsistent() {
+        // Given
+        List<PathExclusion> exclusions = PathExclusion.parsePathPatterns("/status/*");
+        String longSegment = "a".repeat(FilterForTest.MAX_MEMOISED_PATH_LENGTH);
+
+        // When and Then
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(this.filter.isExcludedPath("/status/" + longSegment, exclusions));
+            Assert.assertFalse(this.filter.isExcludedPath("/other/" + longSegment, exclusions));
+        }
+        verifyWarnings(1);
+    }
+
+    @Test
+    public void givenMethodQualifiedExclusion_whenCheckingForExclusion_thenDecisionsAreMemoisedPerMethod() {
+        // Given
+        List<PathExclusion> exclusions = PathExclusion.parsePathPatterns("GET /healthz");
+
+        // When and Then
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(this.filter.isExcludedPath("GET", "/healthz", exclusions));
+            Assert.assertFalse(this.filter.isExcludedPath("POST", "/healthz", exclusions));
+            Assert.assertFalse(this.filter.isExcludedPath("/healthz", exclusions));
+        }
+        verifyWarnings(1);
+    }
+
+    @Test
+    public void givenChangedExclusions_whenCheckingForExclusion_thenPreviousDecisionsAreDiscarded() {
+        // Given
+        List<PathExclusion> first = PathExclusion.parsePathPatterns("/healthz");
+        List<PathExclusion> second = PathExclusion.parsePathPatterns("/status/*");
+        Assert.assertTrue(this.filter.isExcludedPath("/healthz", first));
+        Assert.assertFalse(this.filter.isExcludedPath("/status/live", first));
+
+        // When and Then
+        Assert.assertFalse(this.filter.isExcludedPath("/healthz", second));
+        Assert.assertTrue(this.filter.isExcludedPath("/status/live", second));
+        verifyWarnings(2);
+    }
+
     private static final class FilterForTest extends AbstractJwtAuthFilter {
 
         public void resetCache() {
@@ -0,0 +1,84 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import java.util.Set;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeRequest;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeResponse;
+
+public class TestJwtAuthenticationEngine {
+
+    @SuppressWarnings("unchecked")
+    private static JwtAuthenticationEngine<FakeRequest, FakeResponse> createEngine() {
+        return mock(JwtAuthenticationEngine.class, CALLS_REAL_METHODS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEngineWithoutRoleSupport_whenPreparingRequestWithRoles_thenRolesIgnored() {
+        // Given
+        JwtAuthenticationEngine<FakeRequest, FakeResponse> engine = createEngine();
+        FakeRequest request = new FakeRequest();
+        Jws<Claims> jws = mock(Jws.class);
+
+        // When
+        engine.prepareRequest(request, jws, "user", Set.of("admin"));
+
+        // Then
+        verify(engine).prepareRequest(request, jws, "user");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEngineWithoutRoleSupport_whenExtractingRoles_thenEmpty() {
+        // Given
+        JwtAuthenticationEngine<FakeRequest, FakeResponse> engine = createEngine();
+
+        // When
+        Set<String> roles = engine.extractRoles(mock(Jws.class));
+
+        // Then
+        Assert.assertTrue(roles.isEmpty());
+    }
+
+    @Test
+    public void givenEngineWithoutMethodSupport_whenGettingRequestMethod_thenNull() {
+        // Given
+        JwtAuthenticationEngine<FakeRequest, FakeResponse> engine = createEngine();
+
+        // When
+        String method = engine.getRequestMethod(new FakeRequest());
+
+        // Then
+        Assert.assertNull(method);
+    }
+}
@@ -23,6 +23,7 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt;
 
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -72,4 +73,77 @@ public class TestJwtHttpConstants {
         // Then
         Assert.assertNotEquals(sanitised, value);
     }
+
+    @DataProvider(name = "unicode")
+    public Object[][] unicodeValues() {
+        return new Object[][] {
+                { "Café au lait" },
+                { "日本語のテキスト" },
+                { "emoji \uD83D\uDE00 removed" },
+                { "lone \uD83D surrogate" },
+                { "\uD835\uDC00 mathematical letter" },
+                { "full\uFF0Dwidth and ½ fractions" },
+                { "\"quoted\" value" },
+                { "" }
+        };
+    }
+
+    @Test(dataProvider = "unicode")
+    public void givenUnicodeValue_whenSanitising_thenSameAsRegularExpressions(String value) {
+        // Given and When
+        String param = JwtHttpConstants.sanitiseHeaderParameterValue(value);
+        String header = JwtHttpConstants.sanitiseHeader(value);
+
+        // Then
+        Assert.assertEquals(param, JwtHttpConstants.INVALID_PARAM_CHARACTERS.matcher(value).replaceAll(""));
+        Assert.assertEquals(header, JwtHttpConstants.INVALID_HEADER_CHARACTERS.matcher(value).replaceAll(""));
+    }
+
+    @Test
+    public void givenRandomValues_whenSanitising_thenSameAsRegularExpressions() {
+        // Given
+        Random random = new Random(12345);
+
+        for (int i = 0; i < 10_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                // Mostly ASCII with some Latin-1, BMP and supplementary characters, including unpaired surrogates
+                int range = random.nextInt(10);
+                if (range < 6) {
+                    builder.append((char) random.nextInt(128));
+                } else if (range < 8) {
+                    builder.append((char) random.nextInt(0x10000));
+                } else {
+                    builder.appendCodePoint(0x10000 + random.nextInt(0x10000));
+                }
+            }
+            String value = builder.toString();
+
+            // When
+            String param = JwtHttpConstants.sanitiseHeaderParameterValue(value);
+            String header = JwtHttpConstants.sanitiseHeader(value);
+
+            // Then
+            Assert.assertEquals(param, JwtHttpConstants.INVALID_PARAM_CHARACTERS.matcher(value).replaceAll(""));
+            Assert.assertEquals(header, JwtHttpConstants.INVALID_HEADER_CHARACTERS.matcher(value).replaceAll(""));
+        }
+    }
+
+    @Test
+    public void givenValidValue_whenSanitising_thenSameInstanceReturned() {
+        // Given
+        String value = "A human readable string";
+
+        // When and Then
+        Assert.assertSame(JwtHttpConstants.sanitiseHeaderParameterValue(value), value);
+        Assert.assertSame(JwtHttpConstants.sanitiseHeader(value), value);
+    }
+
+    @Test
+    public void givenNull_whenSanitising_thenNull() {
+        // Given, When and Then
+        Assert.assertNull(JwtHttpConstants.sanitiseHeaderParameterValue(null));
+        Assert.assertNull(JwtHttpConstants.sanitiseHeader(null));
+    }
 }
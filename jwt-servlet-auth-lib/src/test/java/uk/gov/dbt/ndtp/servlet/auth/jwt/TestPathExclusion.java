@@ -167,4 +167,110 @@ public class TestPathExclusion {
         // Then
         Assert.assertTrue(excluded);
     }
+
+    @Test
+    public void givenSingleSegmentWildcard_whenTestingForExclusion_thenOnlySingleSegmentIsMatched() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("/status/*");
+
+        // When and Then
+        Assert.assertTrue(exclusion.matches("/status/health"));
+        Assert.assertFalse(exclusion.matches("/status/components/1"));
+        Assert.assertFalse(exclusion.matches("/status"));
+    }
+
+    @Test
+    public void givenMultiSegmentWildcard_whenTestingForExclusion_thenAnyNumberOfSegmentsIsMatched() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("/static/**");
+
+        // When and Then
+        Assert.assertTrue(exclusion.isWildcard());
+        Assert.assertTrue(exclusion.matches("/static"));
+        Assert.assertTrue(exclusion.matches("/static/"));
+        Assert.assertTrue(exclusion.matches("/static/app.js"));
+        Assert.assertTrue(exclusion.matches("/static/css/fonts/a.woff"));
+        Assert.assertFalse(exclusion.matches("/statics/app.js"));
+        Assert.assertFalse(exclusion.matches("/api/static/app.js"));
+    }
+
+    @Test
+    public void givenInnerMultiSegmentWildcard_whenTestingForExclusion_thenMiddleSegmentsAreMatched() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("/api/**/healthz");
+
+        // When and Then
+        Assert.assertTrue(exclusion.matches("/api/healthz"));
+        Assert.assertTrue(exclusion.matches("/api/v1/healthz"));
+        Assert.assertTrue(exclusion.matches("/api/v1/datasets/healthz"));
+        Assert.assertFalse(exclusion.matches("/api/v1/healthz/details"));
+        Assert.assertFalse(exclusion.matches("/other/v1/healthz"));
+    }
+
+    @Test
+    public void givenPartialSegmentWildcard_whenTestingForExclusion_thenSegmentIsGlobMatched() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("/assets/*.js");
+
+        // When and Then
+        Assert.assertTrue(exclusion.matches("/assets/app.js"));
+        Assert.assertTrue(exclusion.matches("/assets/.js"));
+        Assert.assertFalse(exclusion.matches("/assets/app.css"));
+        Assert.assertFalse(exclusion.matches("/assets/js/app.js"));
+    }
+
+    @Test
+    public void givenMethodQualifiedExclusion_whenTestingForExclusion_thenOnlyThatMethodIsMatched() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("get /healthz");
+
+        // When and Then
+        Assert.assertEquals(exclusion.getPattern(), "get /healthz");
+        Assert.assertEquals(exclusion.getMethod(), "GET");
+        Assert.assertFalse(exclusion.isWildcard());
+        Assert.assertTrue(exclusion.matches("GET", "/healthz"));
+        Assert.assertTrue(exclusion.matches("get", "/healthz"));
+        Assert.assertFalse(exclusion.matches("POST", "/healthz"));
+        Assert.assertFalse(exclusion.matches(null, "/healthz"));
+        Assert.assertFalse(exclusion.matches("/healthz"));
+    }
+
+    @Test
+    public void givenMethodQualifiedWildcardExclusion_whenTestingForExclusion_thenOnlyThatMethodIsMatched() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("HEAD /status/**");
+
+        // When and Then
+        Assert.assertTrue(exclusion.isWildcard());
+        Assert.assertTrue(exclusion.matches("HEAD", "/status/health"));
+        Assert.assertFalse(exclusion.matches("GET", "/status/health"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*excludes all paths")
+    public void givenMethodQualifiedExcludeAllPattern_whenCreating_thenIllegalArgumentError() {
+        // Given, When and Then
+        new PathExclusion("GET /**");
+    }
+
+    @Test
+    public void givenLegacyRegexExclusion_whenTestingForExclusion_thenWildcardIsGreedy() {
+        // Given
+        PathExclusion exclusion = new PathExclusion("/\\$/status/*");
+
+        // When and Then
+        Assert.assertTrue(exclusion.matches("/$/status/components/1"));
+        Assert.assertFalse(exclusion.matches("/$/other"));
+    }
+
+    @Test
+    public void givenExclusionsWithMethods_whenParsing_thenMethodsArePreserved() {
+        // Given and When
+        List<PathExclusion> exclusions = PathExclusion.parsePathPatterns("GET /healthz,/static/**");
+
+        // Then
+        Assert.assertEquals(exclusions.size(), 2);
+        Assert.assertEquals(exclusions.get(0).getMethod(), "GET");
+        Assert.assertNull(exclusions.get(1).getMethod());
+        Assert.assertEquals(exclusions.get(1).toString(), "/static/**");
+    }
 }
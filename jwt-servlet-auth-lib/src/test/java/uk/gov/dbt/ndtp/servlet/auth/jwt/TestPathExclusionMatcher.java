@@ -0,0 +1,120 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt;
+
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestPathExclusionMatcher {
+
+    private static final List<PathExclusion> EXCLUSIONS = PathExclusion.parsePathPatterns(
+            "/healthz,/status/*,/static/**,/api/**/ping,/assets/*.css,GET /metrics,POST /metrics/push,"
+            + "/\\$/ping*,/$/raw,*insecure");
+
+    @DataProvider(name = "requests")
+    private Object[][] requests() {
+        return new Object[][] {
+                { "GET", "/healthz", true },
+                { null, "/healthz", true },
+                { "GET", "/healthz/", false },
+                { "GET", "/status/", true },
+                { "GET", "/status/live", true },
+                { "GET", "/status/live/details", false },
+                { "GET", "/static", true },
+                { "GET", "/static/js/app.js", true },
+                { "GET", "/api/ping", true },
+                { "GET", "/api/v1/v2/ping", true },
+                { "GET", "/api/v1/pong", false },
+                { "GET", "/assets/site.css", true },
+                { "GET", "/assets/site.js", false },
+                { "GET", "/metrics", true },
+                { "POST", "/metrics", false },
+                { null, "/metrics", false },
+                { "POST", "/metrics/push", true },
+                { "GET", "/metrics/push", false },
+                { "GET", "/$/ping", true },
+                { "GET", "/$/ping/all", true },
+                { "GET", "/$/raw", true },
+                { "GET", "/status/insecure", true },
+                { "GET", "/a/b/c/insecure", true },
+                { "GET", "/other", false },
+                { "GET", "", false },
+                { "GET", null, false }
+        };
+    }
+
+    @Test(dataProvider = "requests")
+    public void givenCompiledExclusions_whenMatching_thenResultIsSameAsIndividualExclusions(String method, String path,
+                                                                                            boolean expected) {
+        // Given
+        PathExclusionMatcher matcher = PathExclusionMatcher.compile(EXCLUSIONS);
+
+        // When
+        boolean excluded = matcher.matches(method, path);
+
+        // Then
+        Assert.assertEquals(excluded, expected);
+        Assert.assertEquals(EXCLUSIONS.stream().anyMatch(e -> e.matches(method, path)), expected);
+    }
+
+    @Test
+    public void givenCompiledExclusions_whenCheckingSource_thenOnlySameListIsRecognised() {
+        // Given
+        PathExclusionMatcher matcher = PathExclusionMatcher.compile(EXCLUSIONS);
+
+        // When and Then
+        Assert.assertTrue(matcher.isCompiledFrom(EXCLUSIONS));
+        Assert.assertFalse(matcher.isCompiledFrom(List.copyOf(EXCLUSIONS)));
+    }
+
+    @DataProvider(name = "globs")
+    private Object[][] globs() {
+        return new Object[][] {
+                { "*", "", true },
+                { "*", "anything", true },
+                { "a*", "abc", true },
+                { "*c", "abc", true },
+                { "a*c", "abbbc", true },
+                { "a*b*c", "aXbYbZc", true },
+                { "a**", "a", true },
+                { "a*c", "abd", false },
+                { "abc", "ab", false },
+                { "ab", "abc", false }
+        };
+    }
+
+    @Test(dataProvider = "globs")
+    public void givenSegmentGlob_whenMatching_thenExpectedResult(String glob, String segment, boolean expected) {
+        // Given
+        String path = "/" + segment + "/";
+
+        // When
+        boolean matched = PathExclusionMatcher.globMatches(glob, path, 1, path.length() - 1);
+
+        // Then
+        Assert.assertEquals(matched, expected);
+    }
+}
@@ -0,0 +1,126 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.challenges;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.OAuth2Constants;
+
+public class TestChallengeRenderer {
+
+    @Test
+    public void givenRealmAndError_whenRendering_thenAllParametersIncluded() {
+        // Given and When
+        String header = ChallengeRenderer.render("/test", OAuth2Constants.ERROR_INVALID_TOKEN, "Token expired");
+
+        // Then
+        Assert.assertEquals(header,
+                            "Bearer realm=\"/test\", error=\"invalid_token\", error_description=\"Token expired\"");
+    }
+
+    @Test
+    public void givenRealmOnly_whenRendering_thenOnlyRealmIncluded() {
+        // Given and When
+        String header = ChallengeRenderer.render("/test", "", "");
+
+        // Then
+        Assert.assertEquals(header, "Bearer realm=\"/test\"");
+    }
+
+    @Test
+    public void givenNoRealm_whenRendering_thenErrorIsFirstParameter() {
+        // Given and When
+        String header = ChallengeRenderer.render(null, OAuth2Constants.ERROR_INVALID_REQUEST, null);
+
+        // Then
+        Assert.assertEquals(header, "Bearer error=\"invalid_request\"");
+    }
+
+    @Test
+    public void givenMaliciousValues_whenRendering_thenSanitised() {
+        // Given and When
+        String header = ChallengeRenderer.render("/test\"\r\nSet-Cookie: a=b", OAuth2Constants.ERROR_INVALID_TOKEN,
+                                                 "Bad \"token\"\r\n");
+
+        // Then
+        Assert.assertEquals(header, "Bearer realm=\"/testSet-Cookie a=b\", error=\"invalid_token\", "
+                                    + "error_description=\"Bad token\"");
+    }
+
+    @Test
+    public void givenCacheableChallenge_whenRenderingRepeatedly_thenCachedValueReturned() {
+        // Given
+        ChallengeRenderer renderer = new ChallengeRenderer();
+        Challenge challenge = new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Token expired");
+
+        // When
+        String first = renderer.render("/test", challenge, true);
+        String second = renderer.render("/test", challenge, true);
+        String otherRealm = renderer.render("/other", challenge, true);
+
+        // Then
+        Assert.assertSame(second, first);
+        Assert.assertNotEquals(otherRealm, first);
+        Assert.assertEquals(first, ChallengeRenderer.render("/test", challenge.errorCode(),
+                                                            challenge.errorDescription()));
+        Assert.assertEquals(renderer.estimatedSize(), 2);
+    }
+
+    @Test
+    public void givenNonCacheableChallenge_whenRendering_thenNotCached() {
+        // Given
+        ChallengeRenderer renderer = new ChallengeRenderer();
+        Challenge challenge = new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "JWT error: something unusual");
+
+        // When
+        String first = renderer.render("/test", challenge, false);
+        String second = renderer.render("/test", challenge, false);
+
+        // Then
+        Assert.assertEquals(second, first);
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(renderer.estimatedSize(), 0);
+    }
+
+    @Test
+    public void givenManyRealms_whenRendering_thenCacheIsBounded() {
+        // Given
+        ChallengeRenderer renderer = new ChallengeRenderer(10);
+        Challenge challenge = new Challenge(401, "", "");
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            renderer.render("/test/" + i, challenge, true);
+        }
+
+        // Then
+        Assert.assertTrue(renderer.estimatedSize() <= 10);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroCacheSize_whenCreatingRenderer_thenError() {
+        // Given, When and Then
+        new ChallengeRenderer(0);
+    }
+}
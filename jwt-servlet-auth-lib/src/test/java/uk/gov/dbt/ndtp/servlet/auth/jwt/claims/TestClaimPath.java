@@ -0,0 +1,191 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.claims;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestClaimPath {
+
+    private static final Map<String, Object> CLAIMS =
+            Map.of("sub", "subject",
+                   "email", "user@example.org",
+                   "realm_access", Map.of("roles", List.of("admin", "user"),
+                                          "profile", Map.of("username", "nested")),
+                   "realm_access.roles", "flat",
+                   "https://example.org/user", "namespaced",
+                   "a/b", Map.of("c~d", "escaped"),
+                   "number", 123);
+
+    @DataProvider(name = "blank")
+    public Object[][] blankExpressions() {
+        return new Object[][] { { null }, { "" }, { "   " } };
+    }
+
+    @Test(dataProvider = "blank", expectedExceptions = IllegalArgumentException.class)
+    public void givenBlankExpression_whenParsing_thenRejected(String expression) {
+        // Given, When and Then
+        ClaimPath.parse(expression);
+    }
+
+    @DataProvider(name = "resolvable")
+    public Object[][] resolvable() {
+        return new Object[][] {
+                { "email", "user@example.org" },
+                { "realm_access.profile.username", "nested" },
+                { "realm_access.roles.1", "user" },
+                { "realm_access.roles", "flat" },
+                { "https://example.org/user", "namespaced" },
+                { "/email", "user@example.org" },
+                { "/realm_access/profile/username", "nested" },
+                { "/realm_access/roles/0", "admin" },
+                { "/realm_access.roles", "flat" },
+                { "/a~1b/c~0d", "escaped" },
+                { "number", 123 },
+                };
+    }
+
+    @Test(dataProvider = "resolvable")
+    public void givenClaimPath_whenResolving_thenExpectedValueReturned(String expression, Object expected) {
+        // Given
+        ClaimPath path = ClaimPath.parse(expression);
+
+        // When
+        Object value = path.resolve(CLAIMS);
+
+        // Then
+        Assert.assertEquals(value, expected);
+        Assert.assertEquals(path.getExpression(), expression);
+        Assert.assertEquals(path.toString(), expression);
+    }
+
+    @DataProvider(name = "unresolvable")
+    public Object[][] unresolvable() {
+        return new Object[][] {
+                { "missing" },
+                { "realm_access.missing" },
+                { "realm_access.roles.2" },
+                { "realm_access.roles.-1" },
+                { "realm_access.roles.first" },
+                { "realm_access.roles.99999999999" },
+                { "email.domain" },
+                { "number.0" },
+                { "/realm_access/roles/5" },
+                { "/realm_access/" },
+                { "/" },
+                };
+    }
+
+    @Test(dataProvider = "unresolvable")
+    public void givenClaimPathToMissingValue_whenResolving_thenNull(String expression) {
+        // Given
+        ClaimPath path = ClaimPath.parse(expression);
+
+        // When and Then
+        Assert.assertNull(path.resolve(CLAIMS));
+        Assert.assertNull(path.resolveString(CLAIMS));
+    }
+
+    @Test
+    public void givenClaimPathToNonStringValue_whenResolvingString_thenNull() {
+        // Given
+        ClaimPath numeric = ClaimPath.parse("number");
+        ClaimPath list = ClaimPath.parse("/realm_access/roles");
+
+        // When and Then
+        Assert.assertNull(numeric.resolveString(CLAIMS));
+        Assert.assertNull(list.resolveString(CLAIMS));
+        Assert.assertEquals(list.resolve(CLAIMS), List.of("admin", "user"));
+    }
+
+    @DataProvider(name = "multiValued")
+    public Object[][] multiValued() {
+        return new Object[][] {
+                { "realm_access.roles", List.of("flat") },
+                { "/realm_access/roles", List.of("admin", "user") },
+                { "email", List.of("user@example.org") },
+                { "number", List.of() },
+                { "realm_access.profile", List.of() },
+                { "missing", List.of() },
+                { "/mixed", List.of("a", "b") },
+                };
+    }
+
+    @Test(dataProvider = "multiValued")
+    public void givenClaimPath_whenResolvingStrings_thenExpectedValuesReturned(String expression,
+                                                                               List<String> expected) {
+        // Given
+        ClaimPath path = ClaimPath.parse(expression);
+        Map<String, Object> claims = new HashMap<>(CLAIMS);
+        claims.put("mixed", Arrays.asList("a", 1, null, "b"));
+
+        // When
+        List<String> values = path.resolveStrings(claims);
+
+        // Then
+        Assert.assertEquals(values, expected);
+    }
+
+    @Test
+    public void givenNullClaims_whenResolving_thenNull() {
+        // Given
+        ClaimPath path = ClaimPath.parse("email");
+
+        // When and Then
+        Assert.assertNull(path.resolve(null));
+        Assert.assertNull(path.resolveString(null));
+    }
+
+    @Test
+    public void givenExpressionsWithBlanks_whenParsingAll_thenBlanksIgnored() {
+        // Given
+        List<String> expressions = Arrays.asList("email", null, "", "  ", "/realm_access/roles");
+
+        // When
+        List<ClaimPath> paths = ClaimPath.parseAll(expressions);
+
+        // Then
+        Assert.assertEquals(paths, List.of(ClaimPath.parse("email"), ClaimPath.parse("/realm_access/roles")));
+        Assert.assertEquals(ClaimPath.parseAll(null), List.of());
+    }
+
+    @Test
+    public void givenSameExpression_whenComparing_thenEqual() {
+        // Given
+        ClaimPath a = ClaimPath.parse("realm_access.roles");
+        ClaimPath b = ClaimPath.parse("realm_access.roles");
+        ClaimPath c = ClaimPath.parse("/realm_access/roles");
+
+        // When and Then
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertNotEquals(a, c);
+        Assert.assertNotEquals(a, "realm_access.roles");
+    }
+}
@@ -32,6 +32,12 @@ import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicy;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.AuthenticationLogPolicyRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.logging.SampledAuthenticationLogPolicy;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.DefaultAuthenticationMetrics;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
 
 public class TestAutomatedConfiguration extends FactoryAbstract {
@@ -70,6 +76,50 @@ public class TestAutomatedConfiguration extends FactoryAbstract {
         Assert.assertNotNull(config.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE));
     }
 
+    @Test
+    public void givenRoleClaimsConfig_whenAutomaticallyConfiguring_thenEngineUsesRoleClaims() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_HEADER_NAMES, "Authorization",
+                       ConfigurationParameters.PARAM_ROLE_CLAIMS, "roles,realm_access.roles"));
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Object engine = config.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE);
+        Assert.assertNotNull(engine);
+        Assert.assertTrue(engine.toString().contains("roleClaims=[roles, realm_access.roles]"), engine.toString());
+    }
+
+    @Test
+    public void givenAuthorizationRulesConfig_whenAutomaticallyConfiguring_thenEngineUsesRules() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_HEADER_NAMES, "Authorization",
+                       ConfigurationParameters.PARAM_AUTHORIZATION_RULES,
+                       "/admin/** role=admin; DELETE /reports/* claim:groups=auditors"));
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Object engine = config.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE);
+        Assert.assertTrue(engine instanceof JwtAuthenticationEngine<?, ?>);
+        Assert.assertEquals(((JwtAuthenticationEngine<?, ?>) engine).getAuthorizationRules().getRules().size(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenInvalidAuthorizationRulesConfig_whenAutomaticallyConfiguring_thenIllegalArgument() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_HEADER_NAMES, "Authorization",
+                       ConfigurationParameters.PARAM_AUTHORIZATION_RULES, "/admin/**"));
+
+        // When and Then
+        AutomatedConfiguration.configure(config);
+    }
+
     @Test
     public void givenPreExistingConfig_whenAutomaticallyConfiguring_thenReconfigurationIsSkipped() {
         // Given
@@ -116,4 +166,135 @@ public class TestAutomatedConfiguration extends FactoryAbstract {
         Assert.assertNotEquals(config.getAttribute(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS), exclusions);
         Assert.assertNotEquals(config.getAttribute(JwtServletConstants.ATTRIBUTE_JWT_ENGINE), engine);
     }
+
+    @Test
+    public void givenSampledLoggingMode_whenAutomaticallyConfiguring_thenSampledPolicyIsInstalled() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_LOGGING_MODE, ConfigurationParameters.LOGGING_MODE_SAMPLED,
+                       ConfigurationParameters.PARAM_LOGGING_LINES_PER_SECOND, "10",
+                       ConfigurationParameters.PARAM_LOGGING_BURST, "20",
+                       ConfigurationParameters.PARAM_LOGGING_SUMMARY_SECONDS, "30"));
+
+        try {
+            // When
+            AutomatedConfiguration.configure(config);
+
+            // Then
+            AuthenticationLogPolicy policy = AuthenticationLogPolicyRegistry.get();
+            Assert.assertTrue(policy instanceof SampledAuthenticationLogPolicy);
+            Assert.assertTrue(policy.toString().contains("linesPerSecond=10.00"), policy.toString());
+            Assert.assertTrue(policy.toString().contains("burst=20"), policy.toString());
+            Assert.assertTrue(policy.toString().contains("summaryInterval=PT30S"), policy.toString());
+        } finally {
+            AuthenticationLogPolicyRegistry.reset();
+        }
+    }
+
+    @Test
+    public void givenInvalidSampledLoggingSettings_whenAutomaticallyConfiguring_thenDefaultsAreUsed() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_LOGGING_MODE, "SAMPLED",
+                       ConfigurationParameters.PARAM_LOGGING_LINES_PER_SECOND, "-1",
+                       ConfigurationParameters.PARAM_LOGGING_BURST, "many"));
+
+        try {
+            // When
+            AutomatedConfiguration.configure(config);
+
+            // Then
+            AuthenticationLogPolicy policy = AuthenticationLogPolicyRegistry.get();
+            Assert.assertEquals(policy.toString(), new SampledAuthenticationLogPolicy().toString());
+        } finally {
+            AuthenticationLogPolicyRegistry.reset();
+        }
+    }
+
+    @Test
+    public void givenAllLoggingMode_whenAutomaticallyConfiguring_thenEveryLineIsLogged() {
+        // Given
+        AuthenticationLogPolicyRegistry.install(new SampledAuthenticationLogPolicy());
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_LOGGING_MODE, ConfigurationParameters.LOGGING_MODE_ALL));
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Assert.assertSame(AuthenticationLogPolicyRegistry.get(), AuthenticationLogPolicy.ALL);
+    }
+
+    @Test
+    public void givenUnrecognisedLoggingMode_whenAutomaticallyConfiguring_thenPolicyIsUnchanged() {
+        // Given
+        MapRuntimeConfigAdaptor config =
+                new MapRuntimeConfigAdaptor(Map.of(ConfigurationParameters.PARAM_LOGGING_MODE, "verbose"));
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Assert.assertSame(AuthenticationLogPolicyRegistry.get(), AuthenticationLogPolicy.ALL);
+    }
+
+    @Test
+    public void givenNoMetricsMode_whenAutomaticallyConfiguring_thenNothingIsRecorded() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(Map.of());
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Assert.assertSame(AuthenticationMetricsRegistry.get(), AuthenticationMetrics.NONE);
+    }
+
+    @Test
+    public void givenDefaultMetricsMode_whenAutomaticallyConfiguringRepeatedly_thenDefaultMetricsInstalledOnce() {
+        // Given
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_METRICS, ConfigurationParameters.METRICS_DEFAULT,
+                       ConfigurationParameters.PARAM_ALLOW_MULTIPLE_CONFIGS, "true"));
+
+        try {
+            // When
+            AutomatedConfiguration.configure(config);
+            AuthenticationMetrics first = AuthenticationMetricsRegistry.get();
+            AutomatedConfiguration.configure(config);
+
+            // Then
+            Assert.assertTrue(first instanceof DefaultAuthenticationMetrics);
+            Assert.assertSame(AuthenticationMetricsRegistry.get(), first);
+        } finally {
+            AuthenticationMetricsRegistry.reset();
+        }
+    }
+
+    @Test
+    public void givenNoneMetricsMode_whenAutomaticallyConfiguring_thenNothingIsRecorded() {
+        // Given
+        AuthenticationMetricsRegistry.install(new DefaultAuthenticationMetrics());
+        MapRuntimeConfigAdaptor config = new MapRuntimeConfigAdaptor(
+                Map.of(ConfigurationParameters.PARAM_METRICS, ConfigurationParameters.METRICS_NONE));
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Assert.assertSame(AuthenticationMetricsRegistry.get(), AuthenticationMetrics.NONE);
+    }
+
+    @Test
+    public void givenUnrecognisedMetricsMode_whenAutomaticallyConfiguring_thenMetricsAreUnchanged() {
+        // Given
+        MapRuntimeConfigAdaptor config =
+                new MapRuntimeConfigAdaptor(Map.of(ConfigurationParameters.PARAM_METRICS, "micrometer"));
+
+        // When
+        AutomatedConfiguration.configure(config);
+
+        // Then
+        Assert.assertSame(AuthenticationMetricsRegistry.get(), AuthenticationMetrics.NONE);
+    }
 }
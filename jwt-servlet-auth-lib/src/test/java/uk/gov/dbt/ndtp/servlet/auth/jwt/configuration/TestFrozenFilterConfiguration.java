@@ -23,12 +23,21 @@
 
 package uk.gov.dbt.ndtp.servlet.auth.jwt.configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeEngine;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeTokenVerifier;
@@ -111,4 +120,125 @@ public class TestFrozenFilterConfiguration {
         config.warnIfModificationAttempted("test", x -> other, config.getEngine());
 
     }
+
+    @Test
+    public void givenEmptyFilterConfiguration_whenTakingSnapshot_thenSnapshotIsIncomplete() {
+        // Given
+        FrozenFilterConfiguration<?, ?> config = new FrozenFilterConfiguration<>();
+
+        // When
+        FrozenFilterConfiguration.Snapshot<?, ?> snapshot = config.snapshot();
+
+        // Then
+        Assert.assertNull(snapshot.engine());
+        Assert.assertNull(snapshot.verifier());
+        Assert.assertNull(snapshot.exclusions());
+        Assert.assertFalse(snapshot.isComplete());
+    }
+
+    @Test
+    public void givenFullyFrozenConfiguration_whenTakingSnapshot_thenSnapshotIsComplete() {
+        // Given
+        FrozenFilterConfiguration config = new FrozenFilterConfiguration();
+        FakeEngine engine = new FakeEngine();
+        JwtVerifier verifier = new FakeTokenVerifier();
+        config.tryFreezeEngineConfiguration(engine, null);
+        config.tryFreezeVerifierConfiguration(verifier);
+        FrozenFilterConfiguration.Snapshot<?, ?> partial = config.snapshot();
+        config.tryFreezeExclusionsConfiguration(null);
+
+        // When
+        FrozenFilterConfiguration.Snapshot<?, ?> snapshot = config.snapshot();
+
+        // Then
+        Assert.assertFalse(partial.isComplete());
+        Assert.assertNull(partial.exclusions());
+        Assert.assertTrue(snapshot.isComplete());
+        Assert.assertSame(snapshot.engine(), engine);
+        Assert.assertSame(snapshot.verifier(), verifier);
+        Assert.assertEquals(snapshot.exclusions(), Collections.emptyList());
+    }
+
+    @Test
+    public void givenConcurrentFreezes_whenFreezingVerifier_thenAllThreadsObserveSameVerifier() throws Exception {
+        // Given
+        FrozenFilterConfiguration config = new FrozenFilterConfiguration();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<JwtVerifier>> results = new ArrayList<>();
+
+        try {
+            // When
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    config.tryFreezeVerifierConfiguration(new FakeTokenVerifier());
+                    config.tryFreezeExclusionsConfiguration(PathExclusion.parsePathPatterns("/status/*"));
+                    return config.getVerifier();
+                }));
+            }
+            start.countDown();
+
+            // Then
+            JwtVerifier expected = config.getVerifier();
+            for (Future<JwtVerifier> result : results) {
+                JwtVerifier actual = result.get(5, TimeUnit.SECONDS);
+                expected = expected != null ? expected : actual;
+                Assert.assertSame(actual, expected);
+            }
+            Assert.assertSame(config.getVerifier(), expected);
+            Assert.assertNotNull(config.getExclusions());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenLongModificationCheckInterval_whenCheckingRepeatedly_thenRuntimeConfigurationIsLookedUpOnce() {
+        // Given
+        FrozenFilterConfiguration config = new FrozenFilterConfiguration(Duration.ofMinutes(5));
+        FakeEngine engine = new FakeEngine();
+        config.tryFreezeEngineConfiguration(engine, null);
+        config.tryFreezeVerifierConfiguration(new FakeTokenVerifier());
+        config.tryFreezeExclusionsConfiguration(null);
+        AtomicInteger lookups = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            config.checkForModifications(x -> {
+                lookups.incrementAndGet();
+                return JwtServletConstants.ATTRIBUTE_JWT_ENGINE.equals(x) ? new FakeEngine() : null;
+            });
+        }
+
+        // Then
+        Assert.assertEquals(lookups.get(), 3);
+        Assert.assertSame(config.getEngine(), engine);
+    }
+
+    @Test
+    public void givenZeroModificationCheckInterval_whenCheckingRepeatedly_thenRuntimeConfigurationIsAlwaysLookedUp() {
+        // Given
+        FrozenFilterConfiguration config = new FrozenFilterConfiguration(Duration.ZERO);
+        config.tryFreezeEngineConfiguration(new FakeEngine(), null);
+        AtomicInteger lookups = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            config.checkForModifications(x -> {
+                lookups.incrementAndGet();
+                return null;
+            });
+        }
+
+        // Then
+        Assert.assertEquals(lookups.get(), 10);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*cannot be negative")
+    public void givenNegativeModificationCheckInterval_whenCreatingConfiguration_thenIllegalArgument() {
+        // Given, When and Then
+        new FrozenFilterConfiguration<>(Duration.ofSeconds(-1));
+    }
 }
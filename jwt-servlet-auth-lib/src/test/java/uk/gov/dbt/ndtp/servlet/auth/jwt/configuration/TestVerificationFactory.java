@@ -35,18 +35,26 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.security.KeyPair;
 import java.security.PublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
 import org.testng.SkipException;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.AsyncJwksJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.CachingJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.IssuerRoutingJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.PooledParserJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.TestKeyUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
 
 public class TestVerificationFactory extends FactoryAbstract {
 
@@ -222,6 +230,46 @@ public class TestVerificationFactory extends FactoryAbstract {
         Assert.assertNotNull(configured.get());
     }
 
+    @Test(dataProvider = "secretKeyAlgorithms")
+    public void givenSecretKeyPlusVerificationCacheConfiguration_whenConfiguringVerifier_thenCachingVerifierIsConfigured(
+            MacAlgorithm algorithm) throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        byte[] data = algorithm.key().build().getEncoded();
+        File secretKey = TestKeyUtils.saveKeyToFile(data);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_SECRET_KEY, secretKey.getAbsolutePath(),
+                                            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SIZE, "100",
+                                            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SECONDS, "30");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertTrue(configured.get() instanceof CachingJwtVerifier);
+        Assert.assertTrue(StringUtils.contains(configured.get().toString(), "verificationMethod=SecretKey"));
+        Assert.assertTrue(StringUtils.contains(configured.get().toString(), "maxLifetime=PT30S"));
+    }
+
+    @Test(dataProvider = "secretKeyAlgorithms")
+    public void givenSecretKeyPlusZeroVerificationCacheSize_whenConfiguringVerifier_thenNoCachingVerifierIsConfigured(
+            MacAlgorithm algorithm) throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        byte[] data = algorithm.key().build().getEncoded();
+        File secretKey = TestKeyUtils.saveKeyToFile(data);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_SECRET_KEY, secretKey.getAbsolutePath(),
+                                            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SIZE, "0");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNotNull(configured.get());
+        Assert.assertFalse(configured.get() instanceof CachingJwtVerifier);
+    }
+
     public static <TRequest extends PublicKey> File saveJwks(PublicJwk<TRequest> jwks) throws IOException {
         File file = Files.createTempFile("jwks", ".json").toFile();
         try (FileOutputStream output = new FileOutputStream(file)) {
@@ -248,6 +296,150 @@ public class TestVerificationFactory extends FactoryAbstract {
         Assert.assertTrue(StringUtils.contains(configured.get().toString(), "jwksUrl=" + jwksFile.toURI()));
     }
 
+    @Test
+    public void givenJwksConfigurationWithRefreshAhead_whenConfiguringVerifier_thenRefreshingVerifierIsConfigured() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_CACHE_KEYS_FOR, "15",
+                                            ConfigurationParameters.PARAM_JWKS_REFRESH_AHEAD, "true");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNotNull(configured.get());
+        Assert.assertTrue(StringUtils.contains(configured.get().toString(), "cacheKeysFor=PT15M"));
+        Assert.assertTrue(StringUtils.contains(configured.get().toString(), "refreshAhead=true"));
+    }
+
+    @Test
+    public void givenJwksConfigurationWithMinRefetchInterval_whenConfiguringVerifier_thenIntervalIsConfigured() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_MIN_REFETCH_SECONDS, "30");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNotNull(configured.get());
+        Assert.assertTrue(StringUtils.contains(configured.get().toString(), "minRefetchInterval=PT30S"));
+    }
+
+    @Test
+    public void givenJwksConfigurationWithParserPool_whenConfiguringVerifier_thenPooledVerifierIsConfigured() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_PARSER_POOL, "true",
+                                            ConfigurationParameters.PARAM_ALLOWED_CLOCK_SKEW, "30",
+                                            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SIZE, "100");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertTrue(configured.get() instanceof CachingJwtVerifier);
+        JwtVerifier pooled = ((CachingJwtVerifier) configured.get()).getVerifier();
+        Assert.assertTrue(pooled instanceof PooledParserJwtVerifier);
+        Assert.assertTrue(StringUtils.contains(pooled.toString(), "verificationMethod=Locator"));
+    }
+
+    @Test
+    public void givenJwksConfigurationWithAsync_whenConfiguringVerifier_thenAsyncVerifierIsConfigured() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_ASYNC, "true",
+                                            ConfigurationParameters.PARAM_VERIFICATION_CACHE_SIZE, "100");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertTrue(configured.get() instanceof AsyncJwksJwtVerifier);
+        Assert.assertTrue(((AsyncJwksJwtVerifier) configured.get()).getVerifier() instanceof CachingJwtVerifier);
+    }
+
+    @Test
+    public void givenJwksConfigurationWithAsyncAndParserPool_whenConfiguringVerifier_thenAsyncVerifierIsConfigured()
+            throws IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_ASYNC, "true",
+                                            ConfigurationParameters.PARAM_JWKS_PARSER_POOL, "true");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertTrue(configured.get() instanceof AsyncJwksJwtVerifier);
+        Assert.assertTrue(((AsyncJwksJwtVerifier) configured.get()).getVerifier() instanceof PooledParserJwtVerifier);
+    }
+
+    @Test
+    public void givenJwksConfigurationWithSnapshotFile_whenConfiguringVerifier_thenVerifierIsConfigured() throws
+            IOException, KeyLoadException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        File snapshotFile = Files.createTempFile("jwks-snapshot", ".json").toFile();
+        KeyUtils.saveJwks(Jwks.set().add(jwk).build(), snapshotFile);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_SNAPSHOT_FILE,
+                                            snapshotFile.getAbsolutePath());
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNotNull(configured.get());
+        Assert.assertTrue(KeyUtils.loadJwks(snapshotFile).getKeys().contains(jwk));
+    }
+
+    @Test
+    public void givenJwksConfigurationWithNegativeMinRefetchInterval_whenConfiguringVerifier_thenDefaultIsUsed() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_URL, jwksFile.toURI().toString(),
+                                            ConfigurationParameters.PARAM_JWKS_MIN_REFETCH_SECONDS, "-5");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNotNull(configured.get());
+        Assert.assertTrue(StringUtils.contains(configured.get().toString(), "minRefetchInterval=PT10S"));
+    }
+
     @Test
     public void givenJwksConfigurationUsingPlainFilename_whenConfiguringVerifier_thenVerifierIsConfigured() throws
             IOException {
@@ -299,4 +491,114 @@ public class TestVerificationFactory extends FactoryAbstract {
         // Then
         Assert.assertNull(configured.get());
     }
+
+    private static File saveJwkSet(RsaPublicJwk jwk) throws IOException {
+        return TestKeyUtils.saveJwks(Jwks.set().add(jwk).build());
+    }
+
+    private static String signedToken(KeyPair keyPair, RsaPublicJwk jwk, String issuer) {
+        return Jwts.builder()
+                   .header()
+                   .keyId(jwk.getId())
+                   .and()
+                   .issuer(issuer)
+                   .subject("test")
+                   .signWith(keyPair.getPrivate())
+                   .compact();
+    }
+
+    @Test
+    public void givenJwksIssuersConfiguration_whenVerifyingTokens_thenRoutedByIssuer() throws IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        KeyPair keysA = Jwts.SIG.RS256.keyPair().build();
+        KeyPair keysB = Jwts.SIG.RS256.keyPair().build();
+        KeyPair keysC = Jwts.SIG.RS256.keyPair().build();
+        RsaPublicJwk jwkA = Jwks.builder().key((RSAPublicKey) keysA.getPublic()).idFromThumbprint().build();
+        RsaPublicJwk jwkB = Jwks.builder().key((RSAPublicKey) keysB.getPublic()).idFromThumbprint().build();
+        RsaPublicJwk jwkC = Jwks.builder().key((RSAPublicKey) keysC.getPublic()).idFromThumbprint().build();
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_ISSUERS,
+                                            "https://a.example.org=" + saveJwkSet(jwkA).toURI()
+                                            + ", https://b.example.org=" + saveJwkSet(jwkB).toURI(),
+                                            ConfigurationParameters.PARAM_JWKS_URL, saveJwkSet(jwkC).toURI().toString());
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertTrue(configured.get() instanceof IssuerRoutingJwtVerifier);
+        IssuerRoutingJwtVerifier verifier = (IssuerRoutingJwtVerifier) configured.get();
+        Assert.assertEquals(verifier.getIssuers().keySet(), Set.of("https://a.example.org", "https://b.example.org"));
+        Assert.assertNotNull(verifier.getFallback());
+        Assert.assertTrue(verifier.tryVerify(signedToken(keysA, jwkA, "https://a.example.org")).isSuccess());
+        Assert.assertTrue(verifier.tryVerify(signedToken(keysB, jwkB, "https://b.example.org")).isSuccess());
+        Assert.assertTrue(verifier.tryVerify(signedToken(keysC, jwkC, "https://c.example.org")).isSuccess());
+        VerificationResult wrongKeys = verifier.tryVerify(signedToken(keysA, jwkA, "https://b.example.org"));
+        Assert.assertFalse(wrongKeys.isSuccess());
+    }
+
+    @Test
+    public void givenJwksIssuersConfigurationWithAsync_whenConfiguringVerifier_thenAsyncVerifiersAreRouted() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        RsaPublicJwk jwk = Jwks.builder().key(key).idFromThumbprint().build();
+        File jwksFile = saveJwks(jwk);
+        Map<String, String> config =
+                Map.of(ConfigurationParameters.PARAM_JWKS_ISSUERS, "https://a.example.org=" + jwksFile.toURI(),
+                       ConfigurationParameters.PARAM_JWKS_ASYNC, "true");
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertTrue(configured.get() instanceof IssuerRoutingJwtVerifier);
+        IssuerRoutingJwtVerifier verifier = (IssuerRoutingJwtVerifier) configured.get();
+        Assert.assertTrue(verifier.getIssuers().get("https://a.example.org") instanceof AsyncJwksJwtVerifier);
+        Assert.assertNull(verifier.getFallback());
+    }
+
+    @DataProvider(name = "badJwksIssuers")
+    private Object[][] badJwksIssuers() {
+        return new Object[][] {
+                { "," },
+                { "https://a.example.org" },
+                { "=jwks.json" },
+                { "https://a.example.org=" },
+                { "https://a.example.org=not a valid URL" },
+                { "https://a.example.org=no-such-file.json" }
+        };
+    }
+
+    @Test(dataProvider = "badJwksIssuers")
+    public void givenBadJwksIssuersConfiguration_whenConfiguringVerifier_thenNothingIsConfigured(String issuers) {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_ISSUERS, issuers);
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNull(configured.get());
+    }
+
+    @Test
+    public void givenDuplicateJwksIssuersConfiguration_whenConfiguringVerifier_thenNothingIsConfigured() throws
+            IOException {
+        // Given
+        AtomicReference<JwtVerifier> configured = new AtomicReference<>();
+        RSAPublicKey key = (RSAPublicKey) Jwts.SIG.RS256.keyPair().build().getPublic();
+        File jwksFile = saveJwks(Jwks.builder().key(key).idFromThumbprint().build());
+        Map<String, String> config = Map.of(ConfigurationParameters.PARAM_JWKS_ISSUERS,
+                                            "https://a.example.org=" + jwksFile.toURI() + ",https://a.example.org="
+                                            + jwksFile.toURI());
+
+        // When
+        VerificationFactory.configure(supplierForMap(config), configured::set);
+
+        // Then
+        Assert.assertNull(configured.get());
+    }
 }
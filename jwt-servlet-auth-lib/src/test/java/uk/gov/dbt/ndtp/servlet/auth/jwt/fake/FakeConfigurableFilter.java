@@ -24,6 +24,7 @@
 package uk.gov.dbt.ndtp.servlet.auth.jwt.fake;
 
 import java.util.List;
+import java.util.function.Consumer;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractConfigurableJwtAuthFilter;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
@@ -74,6 +75,21 @@ public class FakeConfigurableFilter extends AbstractConfigurableJwtAuthFilter<Fa
         return fakeRequest.requestUrl;
     }
 
+    @Override
+    protected String getMethod(FakeRequest fakeRequest) {
+        return fakeRequest.method;
+    }
+
+    @Override
+    protected boolean isSuspendable(FakeRequest fakeRequest) {
+        return fakeRequest.asyncSupported;
+    }
+
+    @Override
+    protected Consumer<FakeRequest> suspend(FakeRequest fakeRequest, FakeResponse fakeResponse) {
+        return fakeRequest.resumed::complete;
+    }
+
     @Override
     protected JwtAuthenticationEngine<FakeRequest, FakeResponse> getDefaultEngine() {
         return new FakeEngine();
@@ -27,7 +27,7 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.HeaderBasedJwtAuthenticationEngine;
@@ -50,6 +50,10 @@ public class FakeEngine extends HeaderBasedJwtAuthenticationEngine<FakeRequest,
         super(headers, realm, usernameClaims);
     }
 
+    public FakeEngine(List<HeaderSource> headers, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        super(headers, realm, usernameClaims, roleClaims);
+    }
+
     @Override
     protected boolean hasRequiredParameters(
         FakeRequest fakeRequest) {
@@ -78,7 +82,14 @@ public class FakeEngine extends HeaderBasedJwtAuthenticationEngine<FakeRequest,
     @Override
     protected FakeRequest prepareRequest(
         FakeRequest fakeRequest, Jws<Claims> jws, String username) {
+        return prepareRequest(fakeRequest, jws, username, extractRoles(jws));
+    }
+
+    @Override
+    protected FakeRequest prepareRequest(
+        FakeRequest fakeRequest, Jws<Claims> jws, String username, Set<String> roles) {
         fakeRequest.username = username;
+        fakeRequest.roles = roles;
         return fakeRequest;
     }
 
@@ -86,11 +97,9 @@ public class FakeEngine extends HeaderBasedJwtAuthenticationEngine<FakeRequest,
     protected void sendChallenge(
         FakeRequest fakeRequest, FakeResponse fakeResponse, Challenge challenge) {
         fakeResponse.status = challenge.statusCode();
-        String realm = this.selectRealm(this.getRequestUrl(fakeRequest));
-        Map<String, String> challengeParams =
-                buildChallengeParameters(challenge.errorCode(), challenge.errorDescription());
         fakeResponse.headers.put(JwtHttpConstants.HEADER_WWW_AUTHENTICATE,
-                                 Collections.singletonList(buildAuthorizationHeader(realm, challengeParams)));
+                                 Collections.singletonList(buildChallengeHeader(this.getRequestUrl(fakeRequest),
+                                                                                challenge)));
     }
 
     @Override
@@ -103,6 +112,11 @@ public class FakeEngine extends HeaderBasedJwtAuthenticationEngine<FakeRequest,
         return fakeRequest.requestUrl;
     }
 
+    @Override
+    protected String getRequestMethod(FakeRequest fakeRequest) {
+        return fakeRequest.method;
+    }
+
     @Override
     protected void setRequestAttribute(FakeRequest fakeRequest, String attribute, Object value) {
         fakeRequest.setAttribute(attribute, value);
@@ -36,6 +36,14 @@ public class FakeEngineProvider extends AbstractHeaderBasedEngineProvider {
         return (JwtAuthenticationEngine<TRequest, TResponse>) new FakeEngine(headerSources, realm, usernameClaims);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <TRequest, TResponse> JwtAuthenticationEngine<TRequest, TResponse> createEngine(
+            List<HeaderSource> headerSources, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return (JwtAuthenticationEngine<TRequest, TResponse>) new FakeEngine(headerSources, realm, usernameClaims,
+                                                                             roleClaims);
+    }
+
     @Override
     public int priority() {
         // As this provider is only for tests if running integration tests set its priority to the lowest possible
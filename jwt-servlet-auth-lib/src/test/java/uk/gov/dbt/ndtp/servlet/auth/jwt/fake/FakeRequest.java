@@ -28,6 +28,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class FakeRequest {
 
@@ -36,8 +38,16 @@ public class FakeRequest {
 
     public String username = null;
 
+    public Set<String> roles = Set.of();
+
     public String requestUrl = null;
 
+    public String method = null;
+
+    public boolean asyncSupported = false;
+
+    public final CompletableFuture<FakeRequest> resumed = new CompletableFuture<>();
+
     public FakeRequest() {
     }
 
@@ -24,9 +24,17 @@
 package uk.gov.dbt.ndtp.servlet.auth.jwt.fake;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.testng.Assert;
+import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractConfigurableFilterTests;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.FilterConfigAdaptorWrapper;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
@@ -35,6 +43,9 @@ import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.MapRuntimeConfigAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.RuntimeConfigurationAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeAsyncTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.InvalidTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 
 public class TestFakeConfigurableFilter
@@ -139,4 +150,173 @@ public class TestFakeConfigurableFilter
         Assert.assertNotNull(value);
         return value;
     }
+
+    @Test
+    public void givenMethodQualifiedExclusion_whenFilteringRequests_thenOnlyThatMethodIsExcluded() throws IOException {
+        // Given
+        FakeConfigurableFilter filter = createFilter(createEngine(), new FakeTokenVerifier(),
+                                                     PathExclusion.parsePathPatterns("GET /healthz"));
+        FakeRequest get = createMockRequest("/healthz", Collections.emptyMap());
+        get.method = "GET";
+        FakeRequest post = createMockRequest("/healthz", Collections.emptyMap());
+        post.method = "POST";
+        FakeResponse getResponse = createMockResponse();
+        FakeResponse postResponse = createMockResponse();
+
+        // When
+        invokeFilter(filter, get, getResponse);
+        invokeFilter(filter, post, postResponse);
+
+        // Then
+        verifyNoChallenge(get, getResponse);
+        verifyChallenge(post, postResponse, 401, "Bearer");
+    }
+
+    private static FakeRequest suspendableRequest() {
+        FakeRequest request = new FakeRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo"));
+        request.asyncSupported = true;
+        return request;
+    }
+
+    @Test
+    public void givenAsyncVerifierAndSuspendableRequest_whenVerificationPending_thenRequestResumedOnceAuthenticated() {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        FakeConfigurableFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate), null);
+        FakeRequest request = suspendableRequest();
+        FakeResponse response = createMockResponse();
+        List<FakeRequest> results = new ArrayList<>();
+        filter.addObserver((req, authenticatedRequest) -> results.add(authenticatedRequest));
+        AtomicBoolean continued = new AtomicBoolean(false);
+
+        // When
+        filter.doFilter(request, response, (req, resp) -> continued.set(true));
+        Assert.assertFalse(request.resumed.isDone());
+        gate.complete(null);
+
+        // Then
+        Assert.assertFalse(continued.get());
+        FakeRequest resumed = request.resumed.join();
+        Assert.assertNotNull(resumed);
+        Assert.assertEquals(resumed.username, "foo");
+        Assert.assertEquals(results, List.of(resumed));
+    }
+
+    @Test
+    public void givenAsyncVerifierAndSuspendableRequest_whenTokenRejected_thenRequestResumedUnauthenticated() throws
+            IOException {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        FakeConfigurableFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new InvalidTokenVerifier(), gate), null);
+        FakeRequest request = suspendableRequest();
+        FakeResponse response = createMockResponse();
+
+        // When
+        filter.doFilter(request, response, (req, resp) -> {});
+        gate.complete(null);
+
+        // Then
+        Assert.assertTrue(request.resumed.isDone());
+        Assert.assertNull(request.resumed.join());
+        verifyChallenge(request, response, 401, "Not a valid token");
+    }
+
+    @Test
+    public void givenAsyncVerifierAndSuspendableRequest_whenVerificationAlreadyComplete_thenRequestNotSuspended() {
+        // Given
+        FakeConfigurableFilter filter = createFilter(createEngine(), new FakeAsyncTokenVerifier(), null);
+        FakeRequest request = suspendableRequest();
+        AtomicBoolean continued = new AtomicBoolean(false);
+
+        // When
+        filter.doFilter(request, createMockResponse(), (req, resp) -> continued.set(true));
+
+        // Then
+        Assert.assertTrue(continued.get());
+        Assert.assertFalse(request.resumed.isDone());
+        Assert.assertEquals(request.username, "foo");
+    }
+
+    @Test
+    public void givenFilterUnableToSuspend_whenVerificationPending_thenWaitsForVerification() {
+        // Given
+        CompletableFuture<Void> gate =
+                CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        FakeConfigurableFilter filter =
+                new FakeConfigurableFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate),
+                                           null) {
+                    @Override
+                    protected Consumer<FakeRequest> suspend(FakeRequest fakeRequest, FakeResponse fakeResponse) {
+                        return null;
+                    }
+                };
+        FakeRequest request = suspendableRequest();
+        AtomicBoolean continued = new AtomicBoolean(false);
+
+        // When
+        filter.doFilter(request, createMockResponse(), (req, resp) -> continued.set(true));
+
+        // Then
+        Assert.assertTrue(continued.get());
+        Assert.assertEquals(request.username, "foo");
+    }
+
+    @Test
+    public void givenVerificationCompletingWhileSuspending_whenFiltering_thenResponseWrittenOnlyAfterSuspended() throws
+            IOException {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        FakeResponse response = createMockResponse();
+        AtomicInteger statusWhenSuspended = new AtomicInteger();
+        FakeConfigurableFilter filter =
+                new FakeConfigurableFilter(createEngine(), new FakeAsyncTokenVerifier(new InvalidTokenVerifier(), gate),
+                                           null) {
+                    @Override
+                    protected Consumer<FakeRequest> suspend(FakeRequest fakeRequest, FakeResponse fakeResponse) {
+                        // Simulate verification completing on another thread while the request is being suspended
+                        gate.complete(null);
+                        statusWhenSuspended.set(fakeResponse.status);
+                        return super.suspend(fakeRequest, fakeResponse);
+                    }
+                };
+        FakeRequest request = suspendableRequest();
+
+        // When
+        filter.doFilter(request, response, (req, resp) -> {});
+
+        // Then
+        Assert.assertEquals(statusWhenSuspended.get(), -1);
+        Assert.assertTrue(request.resumed.isDone());
+        Assert.assertNull(request.resumed.join());
+        verifyChallenge(request, response, 401, "Not a valid token");
+    }
+
+    @Test
+    public void givenFailingResume_whenVerificationCompletes_thenFailureIsNotPropagated() {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        FakeConfigurableFilter filter =
+                new FakeConfigurableFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate),
+                                           null) {
+                    @Override
+                    protected Consumer<FakeRequest> suspend(FakeRequest fakeRequest, FakeResponse fakeResponse) {
+                        return authenticatedRequest -> {
+                            throw new IllegalStateException("Request already timed out");
+                        };
+                    }
+                };
+        FakeRequest request = suspendableRequest();
+        List<FakeRequest> results = new ArrayList<>();
+        filter.addObserver((req, authenticatedRequest) -> results.add(authenticatedRequest));
+        filter.doFilter(request, createMockResponse(), (req, resp) -> {});
+
+        // When
+        gate.complete(null);
+
+        // Then
+        Assert.assertEquals(results.size(), 1);
+        Assert.assertEquals(results.get(0).username, "foo");
+    }
 }
@@ -25,16 +25,22 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.fake;
 
 import static org.mockito.Mockito.mock;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractHeaderBasedEngineTests;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.AuthorizationRules;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.RolesTokenVerifier;
 
 public class TestFakeEngine extends AbstractHeaderBasedEngineTests<FakeRequest, FakeResponse> {
     @Override
@@ -42,6 +48,13 @@ public class TestFakeEngine extends AbstractHeaderBasedEngineTests<FakeRequest,
         return new FakeRequest(headers);
     }
 
+    @Override
+    protected FakeRequest createMockRequest(String method, String path, Map<String, String> headers) {
+        FakeRequest request = new FakeRequest(headers, path);
+        request.method = method;
+        return request;
+    }
+
     @Override
     protected FakeResponse createMockResponse() {
         return new FakeResponse();
@@ -66,6 +79,14 @@ public class TestFakeEngine extends AbstractHeaderBasedEngineTests<FakeRequest,
         return new FakeEngine(authHeaders, realm, usernameClaims);
     }
 
+    @Override
+    protected JwtAuthenticationEngine<FakeRequest, FakeResponse> createEngine(List<HeaderSource> authHeaders,
+                                                                              String realm,
+                                                                              List<String> usernameClaims,
+                                                                              List<String> roleClaims) {
+        return new FakeEngine(authHeaders, realm, usernameClaims, roleClaims);
+    }
+
     @Override
     protected void verifyStatusCode(FakeRequest fakeRequest, FakeResponse fakeResponse, int expectedStatus) {
         Assert.assertEquals(fakeResponse.status, expectedStatus);
@@ -83,6 +104,11 @@ public class TestFakeEngine extends AbstractHeaderBasedEngineTests<FakeRequest,
         return authenticatedRequest.username;
     }
 
+    @Override
+    protected boolean isUserInRole(FakeRequest authenticatedRequest, String role) {
+        return role != null && authenticatedRequest.roles.contains(role);
+    }
+
     @Override
     protected Object verifyRequestAttribute(
         FakeRequest fakeRequest, String attribute) {
@@ -127,4 +153,47 @@ public class TestFakeEngine extends AbstractHeaderBasedEngineTests<FakeRequest,
 
         verifyStatusCode(request, response, 400);
     }
+
+    @Test
+    public void givenAuthorizationRules_whenAuthenticating_thenRolesResolvedOnce() {
+        // Given
+        AtomicInteger resolved = new AtomicInteger();
+        FakeEngine engine = new FakeEngine(List.copyOf(JwtHttpConstants.DEFAULT_HEADER_SOURCES), null, null,
+                                           List.of("roles")) {
+            @Override
+            protected Set<String> extractRoles(Jws<Claims> jws) {
+                resolved.incrementAndGet();
+                return super.extractRoles(jws);
+            }
+        };
+        engine.setAuthorizationRules(AuthorizationRules.parse("/admin/** role=admin"));
+        FakeRequest request = createMockRequest("GET", "/admin/users",
+                                                Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone"));
+
+        // When
+        FakeRequest authenticated = engine.authenticate(request, createMockResponse(), new RolesTokenVerifier());
+
+        // Then
+        Assert.assertNotNull(authenticated);
+        Assert.assertTrue(authenticated.roles.contains("admin"));
+        Assert.assertEquals(resolved.get(), 1);
+    }
+
+    @Test
+    public void givenMethodQualifiedRule_whenAuthenticatingWithUnknownMethod_thenForbidden() {
+        // Given
+        FakeEngine engine = new FakeEngine(List.copyOf(JwtHttpConstants.DEFAULT_HEADER_SOURCES), null, null,
+                                           List.of("roles"));
+        engine.setAuthorizationRules(AuthorizationRules.parse("DELETE /reports/* role=auditor"));
+        FakeRequest request = createMockRequest(null, "/reports/1",
+                                                Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer someone"));
+        FakeResponse response = createMockResponse();
+
+        // When
+        FakeRequest authenticated = engine.authenticate(request, response, new RolesTokenVerifier());
+
+        // Then
+        Assert.assertNull(authenticated);
+        Assert.assertEquals(response.status, 403);
+    }
 }
@@ -0,0 +1,242 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.jfr;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.SecretKey;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.OAuth2Constants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeRequest;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeResponse;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.TestKeyUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.UrlJwksKeyLocator;
+
+public class TestJfrEvents {
+
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+    private Recording recording;
+
+    @BeforeMethod
+    public void setup() {
+        this.recording = new Recording();
+        this.recording.enable(TokenExtractionEvent.class);
+        this.recording.enable(TokenVerificationEvent.class).withoutThreshold();
+        this.recording.enable(UsernameExtractionEvent.class);
+        this.recording.enable(ChallengeEvent.class);
+        this.recording.enable(JwksLoadEvent.class);
+        this.recording.start();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        this.recording.close();
+    }
+
+    private List<RecordedEvent> stop() throws IOException {
+        this.recording.stop();
+        Path dump = Files.createTempFile("jwt-auth", ".jfr");
+        try {
+            this.recording.dump(dump);
+            return RecordingFile.readAllEvents(dump)
+                                .stream()
+                                .filter(e -> e.getEventType().getName().startsWith(JfrEvents.PREFIX))
+                                .toList();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(JfrEvents.PREFIX + name)).toList();
+    }
+
+    private static FakeResponse authenticate(SignedJwtVerifier verifier, String authorization) {
+        FakeRequest request = authorization != null ?
+                              new FakeRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, authorization)) :
+                              new FakeRequest();
+        FakeResponse response = new FakeResponse();
+        new FakeEngine().authenticate(request, response, verifier);
+        return response;
+    }
+
+    @Test
+    public void givenValidToken_whenAuthenticating_thenPhaseEventsAreRecorded() throws IOException {
+        // Given
+        SignedJwtVerifier verifier = new SignedJwtVerifier(this.key);
+        String token = Jwts.builder().header().keyId("test-key").and().subject("test").signWith(this.key).compact();
+
+        // When
+        authenticate(verifier, JwtHttpConstants.AUTH_SCHEME_BEARER + " " + token);
+        List<RecordedEvent> events = stop();
+
+        // Then
+        List<RecordedEvent> extractions = eventsNamed(events, "TokenExtraction");
+        Assert.assertEquals(extractions.size(), 1);
+        Assert.assertEquals(extractions.get(0).getInt("candidates"), 1);
+        List<RecordedEvent> verifications = eventsNamed(events, "TokenVerification");
+        Assert.assertEquals(verifications.size(), 1);
+        Assert.assertEquals(verifications.get(0).getString("outcome"), JfrEvents.OUTCOME_SUCCESS);
+        Assert.assertEquals(verifications.get(0).getString("verifier"), verifier.toString());
+        Assert.assertNotNull(verifications.get(0).getString("source"));
+        Assert.assertEquals(verifications.get(0).getString("kid"), "test-key");
+        List<RecordedEvent> usernames = eventsNamed(events, "UsernameExtraction");
+        Assert.assertEquals(usernames.size(), 1);
+        Assert.assertTrue(usernames.get(0).getBoolean("found"));
+        Assert.assertTrue(eventsNamed(events, "Challenge").isEmpty());
+    }
+
+    @Test
+    public void givenInvalidToken_whenAuthenticating_thenFailureAndChallengeAreRecorded() throws IOException {
+        // Given
+        SignedJwtVerifier verifier = new SignedJwtVerifier(this.key);
+        String token = Jwts.builder().subject("test").signWith(Jwts.SIG.HS256.key().build()).compact();
+
+        // When
+        FakeResponse response = authenticate(verifier, JwtHttpConstants.AUTH_SCHEME_BEARER + " " + token);
+        List<RecordedEvent> events = stop();
+
+        // Then
+        List<RecordedEvent> verifications = eventsNamed(events, "TokenVerification");
+        Assert.assertEquals(verifications.size(), 1);
+        Assert.assertEquals(verifications.get(0).getString("outcome"), VerificationResult.Reason.SIGNATURE.name());
+        Assert.assertNull(verifications.get(0).getString("kid"));
+        Assert.assertTrue(eventsNamed(events, "UsernameExtraction").isEmpty());
+        List<RecordedEvent> challenges = eventsNamed(events, "Challenge");
+        Assert.assertEquals(challenges.size(), 1);
+        Assert.assertEquals(challenges.get(0).getInt("statusCode"), response.status);
+        Assert.assertEquals(challenges.get(0).getString("errorCode"), OAuth2Constants.ERROR_INVALID_TOKEN);
+    }
+
+    @Test
+    public void givenNoAuthorizationHeader_whenAuthenticating_thenExtractionRecordsNoCandidates() throws IOException {
+        // Given
+        SignedJwtVerifier verifier = new SignedJwtVerifier(this.key);
+
+        // When
+        authenticate(verifier, null);
+        List<RecordedEvent> events = stop();
+
+        // Then
+        List<RecordedEvent> extractions = eventsNamed(events, "TokenExtraction");
+        Assert.assertEquals(extractions.size(), 1);
+        Assert.assertEquals(extractions.get(0).getInt("candidates"), 0);
+        Assert.assertTrue(eventsNamed(events, "TokenVerification").isEmpty());
+        List<RecordedEvent> challenges = eventsNamed(events, "Challenge");
+        Assert.assertEquals(challenges.size(), 1);
+        Assert.assertEquals(challenges.get(0).getInt("statusCode"), 401);
+    }
+
+    @Test
+    public void givenJwksFile_whenLocatingKey_thenJwksLoadIsRecorded() throws IOException {
+        // Given
+        JwkSet jwks = TestKeyUtils.buildComplexJwks();
+        URI jwksUri = TestKeyUtils.saveJwks(jwks).toURI();
+        UrlJwksKeyLocator locator = new UrlJwksKeyLocator(jwksUri);
+        JwsHeader header = mock(JwsHeader.class);
+        Jwk<?> jwk = jwks.getKeys().iterator().next();
+        when(header.getKeyId()).thenReturn(jwk.getId());
+
+        // When
+        Assert.assertNotNull(locator.locate(header));
+        List<RecordedEvent> events = stop();
+
+        // Then
+        List<RecordedEvent> loads = eventsNamed(events, "JwksLoad");
+        Assert.assertEquals(loads.size(), 1);
+        Assert.assertEquals(loads.get(0).getString("uri"), jwksUri.toString());
+        Assert.assertEquals(loads.get(0).getString("outcome"), JfrEvents.OUTCOME_SUCCESS);
+        Assert.assertFalse(loads.get(0).getBoolean("coalesced"));
+        Assert.assertFalse(loads.get(0).getBoolean("notModified"));
+    }
+
+    @Test
+    public void givenMissingJwksFile_whenLocatingKey_thenFailedJwksLoadIsRecorded() throws IOException {
+        // Given
+        UrlJwksKeyLocator locator = new UrlJwksKeyLocator(URI.create("file:///no-such-file.json"));
+        JwsHeader header = mock(JwsHeader.class);
+        when(header.getKeyId()).thenReturn("test");
+
+        // When
+        Assert.assertThrows(RuntimeException.class, () -> locator.locate(header));
+        List<RecordedEvent> events = stop();
+
+        // Then
+        List<RecordedEvent> loads = eventsNamed(events, "JwksLoad");
+        Assert.assertFalse(loads.isEmpty());
+        Assert.assertEquals(loads.get(0).getString("outcome"), JfrEvents.OUTCOME_FAILURE);
+    }
+
+    @DataProvider(name = "events")
+    public Object[][] events() {
+        return new Object[][] {
+                { TokenExtractionEvent.class, false, null },
+                { TokenVerificationEvent.class, true, JfrEvents.DEFAULT_THRESHOLD },
+                { UsernameExtractionEvent.class, false, null },
+                { ChallengeEvent.class, false, null },
+                { JwksLoadEvent.class, true, "0 ms" }
+        };
+    }
+
+    @Test(dataProvider = "events")
+    public void givenEvent_whenInspectingDefaultSettings_thenNoStackTraceAndExpectedDefaults(
+            Class<? extends Event> eventClass, boolean enabled, String threshold) {
+        // Given and When
+        StackTrace stackTrace = eventClass.getAnnotation(StackTrace.class);
+        Enabled enabledByDefault = eventClass.getAnnotation(Enabled.class);
+        Threshold thresholdByDefault = eventClass.getAnnotation(Threshold.class);
+
+        // Then
+        Assert.assertNotNull(stackTrace);
+        Assert.assertFalse(stackTrace.value());
+        Assert.assertEquals(enabledByDefault == null || enabledByDefault.value(), enabled);
+        Assert.assertEquals(thresholdByDefault != null ? thresholdByDefault.value() : null, threshold);
+    }
+}
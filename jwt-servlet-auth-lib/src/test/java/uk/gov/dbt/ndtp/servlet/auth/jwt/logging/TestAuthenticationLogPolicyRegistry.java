@@ -0,0 +1,139 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.logging;
+
+import com.github.valfirst.slf4jtest.LoggingEvent;
+import com.github.valfirst.slf4jtest.TestLogger;
+import com.github.valfirst.slf4jtest.TestLoggerFactory;
+import io.jsonwebtoken.Jwts;
+import java.time.Duration;
+import java.util.Map;
+import javax.crypto.SecretKey;
+import org.slf4j.event.Level;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeRequest;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeResponse;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
+
+public class TestAuthenticationLogPolicyRegistry {
+
+    private final TestLogger logger = TestLoggerFactory.getTestLogger(JwtAuthenticationEngine.class);
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+
+    @BeforeMethod
+    public void setup() {
+        this.logger.clearAll();
+        AuthenticationLogPolicyRegistry.reset();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        this.logger.clearAll();
+        AuthenticationLogPolicyRegistry.reset();
+    }
+
+    private void authenticate(String token, int times) {
+        SignedJwtVerifier verifier = new SignedJwtVerifier(this.key);
+        FakeEngine engine = new FakeEngine();
+        for (int i = 0; i < times; i++) {
+            FakeRequest request = new FakeRequest(
+                    Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, JwtHttpConstants.AUTH_SCHEME_BEARER + " " + token));
+            engine.authenticate(request, new FakeResponse(), verifier);
+        }
+    }
+
+    private long countLogged(Level level, String message) {
+        return this.logger.getAllLoggingEvents()
+                          .stream()
+                          .filter(e -> e.getLevel() == level)
+                          .map(LoggingEvent::getFormattedMessage)
+                          .filter(m -> m.contains(message))
+                          .count();
+    }
+
+    @Test
+    public void givenNoInstalledPolicy_whenGettingPolicy_thenAll() {
+        // Given, When and Then
+        Assert.assertSame(AuthenticationLogPolicyRegistry.get(), AuthenticationLogPolicy.ALL);
+        Assert.assertTrue(AuthenticationLogPolicy.ALL.shouldLog(AuthenticationLogPolicy.AUTHENTICATED, "/test"));
+    }
+
+    @Test
+    public void givenNullPolicy_whenInstalling_thenAll() {
+        // Given
+        AuthenticationLogPolicyRegistry.install(new SampledAuthenticationLogPolicy());
+
+        // When
+        AuthenticationLogPolicyRegistry.install(null);
+
+        // Then
+        Assert.assertSame(AuthenticationLogPolicyRegistry.get(), AuthenticationLogPolicy.ALL);
+    }
+
+    @Test
+    public void givenDefaultPolicy_whenAuthenticatingRepeatedly_thenEveryRequestIsLogged() {
+        // Given
+        String token = Jwts.builder().subject("test").signWith(this.key).compact();
+
+        // When
+        authenticate(token, 20);
+
+        // Then
+        Assert.assertEquals(countLogged(Level.INFO, "successfully authenticated"), 20);
+    }
+
+    @Test
+    public void givenSampledPolicy_whenAuthenticatingRepeatedly_thenOnlyBurstIsLogged() {
+        // Given
+        AuthenticationLogPolicyRegistry.install(
+                new SampledAuthenticationLogPolicy(0.001, 3, Duration.ofMinutes(5), 100));
+        String token = Jwts.builder().subject("test").signWith(this.key).compact();
+
+        // When
+        authenticate(token, 20);
+
+        // Then
+        Assert.assertEquals(countLogged(Level.INFO, "successfully authenticated"), 3);
+    }
+
+    @Test
+    public void givenSampledPolicy_whenRejectingRepeatedly_thenOnlyBurstIsLogged() {
+        // Given
+        AuthenticationLogPolicyRegistry.install(
+                new SampledAuthenticationLogPolicy(0.001, 2, Duration.ofMinutes(5), 100));
+        String token = Jwts.builder().subject("test").signWith(Jwts.SIG.HS256.key().build()).compact();
+
+        // When
+        authenticate(token, 20);
+
+        // Then
+        Assert.assertEquals(countLogged(Level.WARN, "not authenticated"), 2);
+    }
+}
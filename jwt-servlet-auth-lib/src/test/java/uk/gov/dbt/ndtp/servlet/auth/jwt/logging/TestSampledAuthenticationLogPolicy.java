@@ -0,0 +1,234 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.logging;
+
+import com.github.valfirst.slf4jtest.LoggingEvent;
+import com.github.valfirst.slf4jtest.TestLogger;
+import com.github.valfirst.slf4jtest.TestLoggerFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.event.Level;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestSampledAuthenticationLogPolicy {
+
+    private static final String INVALID_TOKEN = "invalid_token";
+
+    private final TestLogger logger = TestLoggerFactory.getTestLogger(SampledAuthenticationLogPolicy.class);
+    private final AtomicLong clock = new AtomicLong();
+
+    @BeforeMethod
+    public void setup() {
+        this.logger.clearAll();
+        this.clock.set(TimeUnit.SECONDS.toNanos(1_000));
+    }
+
+    @AfterMethod
+    public void teardown() {
+        this.logger.clearAll();
+    }
+
+    private SampledAuthenticationLogPolicy createPolicy(double linesPerSecond, int burst, int maxTracked) {
+        return new SampledAuthenticationLogPolicy(linesPerSecond, burst, Duration.ofSeconds(10), maxTracked,
+                                                  this.clock::get);
+    }
+
+    private void advance(Duration duration) {
+        this.clock.addAndGet(duration.toNanos());
+    }
+
+    private static int countLogged(SampledAuthenticationLogPolicy policy, String event, String path, int attempts) {
+        int logged = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (policy.shouldLog(event, path)) {
+                logged++;
+            }
+        }
+        return logged;
+    }
+
+    private List<LoggingEvent> summaries() {
+        return this.logger.getAllLoggingEvents();
+    }
+
+    @Test
+    public void givenBurst_whenLoggingRepeatedly_thenOnlyBurstIsLogged() {
+        // Given
+        SampledAuthenticationLogPolicy policy = createPolicy(1, 5, 100);
+
+        // When
+        int logged = countLogged(policy, INVALID_TOKEN, "/test", 100);
+
+        // Then
+        Assert.assertEquals(logged, 5);
+    }
+
+    @Test
+    public void givenExhaustedBucket_whenTimePasses_thenBucketRefills() {
+        // Given
+        SampledAuthenticationLogPolicy policy = createPolicy(2, 1, 100);
+        Assert.assertEquals(countLogged(policy, INVALID_TOKEN, "/test", 10), 1);
+
+        // When
+        advance(Duration.ofMillis(250));
+        int early = countLogged(policy, INVALID_TOKEN, "/test", 10);
+        advance(Duration.ofMillis(250));
+        int refilled = countLogged(policy, INVALID_TOKEN, "/test", 10);
+        advance(Duration.ofSeconds(5));
+        int afterIdle = countLogged(policy, INVALID_TOKEN, "/test", 10);
+
+        // Then
+        Assert.assertEquals(early, 0);
+        Assert.assertEquals(refilled, 1);
+        Assert.assertEquals(afterIdle, 1);
+    }
+
+    @Test
+    public void givenDifferentEventsAndPaths_whenLogging_thenBucketsAreIndependent() {
+        // Given
+        SampledAuthenticationLogPolicy policy = createPolicy(1, 2, 100);
+
+        // When
+        int first = countLogged(policy, INVALID_TOKEN, "/a", 10);
+        int otherPath = countLogged(policy, INVALID_TOKEN, "/b", 10);
+        int otherEvent = countLogged(policy, AuthenticationLogPolicy.AUTHENTICATED, "/a", 10);
+
+        // Then
+        Assert.assertEquals(first, 2);
+        Assert.assertEquals(otherPath, 2);
+        Assert.assertEquals(otherEvent, 2);
+        Assert.assertEquals(policy.tracked(), 3);
+    }
+
+    @Test
+    public void givenSuppressedLines_whenSummaryIntervalElapses_thenSummaryIsLogged() {
+        // Given
+        SampledAuthenticationLogPolicy policy = createPolicy(1, 5, 100);
+        countLogged(policy, INVALID_TOKEN, "/test", 100);
+        countLogged(policy, AuthenticationLogPolicy.AUTHENTICATED, "/test", 100);
+        countLogged(policy, AuthenticationLogPolicy.REJECTED, "/quiet", 1);
+        Assert.assertTrue(summaries().isEmpty());
+
+        // When
+        advance(Duration.ofSeconds(10));
+        policy.shouldLog(INVALID_TOKEN, "/test");
+
+        // Then
+        List<LoggingEvent> summaries = summaries();
+        Assert.assertEquals(summaries.size(), 2);
+        LoggingEvent warning = summaries.stream().filter(e -> e.getLevel() == Level.WARN).findFirst().orElseThrow();
+        Assert.assertEquals(warning.getFormattedMessage(),
+                            "100 invalid_token outcome(s) for requests to /test in the last 10s, "
+                            + "95 not logged individually");
+        LoggingEvent info = summaries.stream().filter(e -> e.getLevel() == Level.INFO).findFirst().orElseThrow();
+        Assert.assertTrue(info.getFormattedMessage().startsWith("100 authenticated outcome(s)"));
+    }
+
+    @Test
+    public void givenIdleTrackers_whenSummarising_thenTrackersAreRemoved() {
+        // Given
+        SampledAuthenticationLogPolicy policy = createPolicy(1, 5, 100);
+        countLogged(policy, INVALID_TOKEN, "/test", 100);
+        policy.summarise();
+        Assert.assertEquals(policy.tracked(), 1);
+        this.logger.clearAll();
+
+        // When
+        policy.summarise();
+
+        // Then
+        Assert.assertEquals(policy.tracked(), 0);
+        Assert.assertTrue(summaries().isEmpty());
+    }
+
+    @Test
+    public void givenMaxTrackedReached_whenLoggingNewPaths_thenTrackedAsOtherPaths() {
+        // Given
+        SampledAuthenticationLogPolicy policy = createPolicy(1, 1, 2);
+        countLogged(policy, INVALID_TOKEN, "/a", 1);
+        countLogged(policy, INVALID_TOKEN, "/b", 1);
+
+        // When
+        int logged = 0;
+        for (int i = 0; i < 10; i++) {
+            logged += countLogged(policy, INVALID_TOKEN, "/other/" + i, 1);
+        }
+        policy.summarise();
+
+        // Then
+        Assert.assertEquals(logged, 1);
+        Assert.assertEquals(policy.tracked(), 3);
+        Assert.assertEquals(summaries().size(), 1);
+        Assert.assertTrue(summaries().get(0).getFormattedMessage().contains(SampledAuthenticationLogPolicy.OTHER_PATHS));
+    }
+
+    @Test
+    public void givenDefaultPolicy_whenInspecting_thenToStringContainsSettings() {
+        // Given
+        SampledAuthenticationLogPolicy policy = new SampledAuthenticationLogPolicy();
+
+        // When
+        String value = policy.toString();
+
+        // Then
+        Assert.assertTrue(value.contains("linesPerSecond=1.00"), value);
+        Assert.assertTrue(value.contains("burst=5"), value);
+        Assert.assertTrue(value.contains("summaryInterval=PT10S"), value);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroRate_whenCreatingPolicy_thenError() {
+        // Given, When and Then
+        new SampledAuthenticationLogPolicy(0, 5, Duration.ofSeconds(10), 100);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroBurst_whenCreatingPolicy_thenError() {
+        // Given, When and Then
+        new SampledAuthenticationLogPolicy(1, 0, Duration.ofSeconds(10), 100);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroSummaryInterval_whenCreatingPolicy_thenError() {
+        // Given, When and Then
+        new SampledAuthenticationLogPolicy(1, 5, Duration.ZERO, 100);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullSummaryInterval_whenCreatingPolicy_thenError() {
+        // Given, When and Then
+        new SampledAuthenticationLogPolicy(1, 5, null, 100);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroMaxTracked_whenCreatingPolicy_thenError() {
+        // Given, When and Then
+        new SampledAuthenticationLogPolicy(1, 5, Duration.ofSeconds(10), 0);
+    }
+}
@@ -0,0 +1,184 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.jsonwebtoken.Jwts;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import javax.crypto.SecretKey;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.OAuth2Constants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeRequest;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.fake.FakeResponse;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.CachingJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+
+public class TestAuthenticationMetricsRegistry {
+
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+    private DefaultAuthenticationMetrics metrics;
+
+    @BeforeMethod
+    public void setup() {
+        this.metrics = new DefaultAuthenticationMetrics();
+        AuthenticationMetricsRegistry.install(this.metrics);
+    }
+
+    @AfterMethod
+    public void teardown() {
+        AuthenticationMetricsRegistry.reset();
+    }
+
+    private String createToken(String subject, Instant expiry) {
+        return Jwts.builder().subject(subject).expiration(Date.from(expiry)).signWith(this.key).compact();
+    }
+
+    private FakeResponse authenticate(JwtVerifier verifier, String authorization) {
+        FakeRequest request = authorization != null ?
+                              new FakeRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, authorization)) :
+                              new FakeRequest();
+        FakeResponse response = new FakeResponse();
+        new FakeEngine().authenticate(request, response, verifier);
+        return response;
+    }
+
+    @Test
+    public void givenNoInstalledMetrics_whenGettingMetrics_thenNone() {
+        // Given
+        AuthenticationMetricsRegistry.reset();
+
+        // When and Then
+        Assert.assertSame(AuthenticationMetricsRegistry.get(), AuthenticationMetrics.NONE);
+        Assert.assertEquals(AuthenticationMetrics.NONE.toString(), "AuthenticationMetrics.NONE");
+    }
+
+    @Test
+    public void givenNullMetrics_whenInstalling_thenNone() {
+        // Given, When
+        AuthenticationMetricsRegistry.install(null);
+
+        // Then
+        Assert.assertSame(AuthenticationMetricsRegistry.get(), AuthenticationMetrics.NONE);
+    }
+
+    @Test
+    public void givenInstalledMetrics_whenGettingMetrics_thenInstalledReturned() {
+        // Given, When and Then
+        Assert.assertSame(AuthenticationMetricsRegistry.get(), this.metrics);
+    }
+
+    @Test
+    public void givenValidToken_whenAuthenticating_thenSuccessAndVerificationRecorded() {
+        // Given
+        JwtVerifier verifier = new SignedJwtVerifier(this.key);
+        String jwt = createToken("test", Instant.now().plusSeconds(60));
+
+        // When
+        authenticate(verifier, "Bearer " + jwt);
+
+        // Then
+        Assert.assertEquals(this.metrics.getAuthenticated(), 1);
+        Assert.assertEquals(this.metrics.getVerified(), 1);
+        Assert.assertEquals(this.metrics.getAuthenticationLatency().getCount(), 1);
+        Assert.assertEquals(this.metrics.getVerificationLatency().getCount(), 1);
+        Assert.assertTrue(this.metrics.getChallenges().isEmpty());
+    }
+
+    @Test
+    public void givenExpiredToken_whenAuthenticating_thenChallengeAndFailureReasonRecorded() {
+        // Given
+        JwtVerifier verifier = new SignedJwtVerifier(this.key);
+        String jwt = createToken("test", Instant.now().minusSeconds(60));
+
+        // When
+        FakeResponse response = authenticate(verifier, "Bearer " + jwt);
+
+        // Then
+        Assert.assertEquals(response.status, 401);
+        Assert.assertEquals(this.metrics.getAuthenticated(), 0);
+        Assert.assertEquals(this.metrics.getChallenges(), Map.of(OAuth2Constants.ERROR_INVALID_TOKEN, 1L));
+        Assert.assertEquals(this.metrics.getVerificationFailures(VerificationResult.Reason.EXPIRED), 1);
+    }
+
+    @Test
+    public void givenNoCredentials_whenAuthenticating_thenChallengeRecordedWithoutVerification() {
+        // Given
+        JwtVerifier verifier = new SignedJwtVerifier(this.key);
+
+        // When
+        authenticate(verifier, null);
+        authenticate(verifier, "Bearer not.a.jwt");
+
+        // Then
+        Assert.assertEquals(this.metrics.getChallenges(), Map.of(DefaultAuthenticationMetrics.NO_ERROR_CODE, 1L,
+                                                                 OAuth2Constants.ERROR_INVALID_TOKEN, 1L));
+        Assert.assertEquals(this.metrics.getVerificationLatency().getCount(), 0);
+    }
+
+    @Test
+    public void givenVerifierError_whenAuthenticating_thenErrorRecorded() {
+        // Given
+        JwtVerifier verifier = mock(JwtVerifier.class);
+        when(verifier.tryVerify("broken")).thenThrow(new IllegalStateException("Broken"));
+        when(verifier.precheck("broken")).thenReturn(null);
+
+        // When
+        FakeResponse response = authenticate(verifier, "Bearer broken");
+
+        // Then
+        Assert.assertEquals(response.status, 500);
+        Assert.assertEquals(this.metrics.getErrors(), 1);
+    }
+
+    @Test
+    public void givenCachingVerifier_whenAuthenticatingRepeatedly_thenCacheAccessesRecorded() {
+        // Given
+        JwtVerifier verifier =
+                new CachingJwtVerifier(new SignedJwtVerifier(this.key), 10, Duration.ofMinutes(1), null);
+        String jwt = createToken("test", Instant.now().plusSeconds(60));
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            authenticate(verifier, "Bearer " + jwt);
+        }
+
+        // Then
+        Assert.assertEquals(this.metrics.getAuthenticated(), 4);
+        Assert.assertEquals(this.metrics.getVerified(), 1);
+        Assert.assertEquals(this.metrics.getCacheHits(AuthenticationMetrics.CACHE_VERIFIED_TOKENS), 3);
+        Assert.assertEquals(this.metrics.getCacheMisses(AuthenticationMetrics.CACHE_VERIFIED_TOKENS), 1);
+    }
+}
@@ -0,0 +1,155 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.OAuth2Constants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+
+public class TestDefaultAuthenticationMetrics {
+
+    @Test
+    public void givenNewMetrics_whenQuerying_thenAllZero() {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+
+        // When and Then
+        Assert.assertEquals(metrics.getAuthenticated(), 0);
+        Assert.assertEquals(metrics.getErrors(), 0);
+        Assert.assertTrue(metrics.getChallenges().isEmpty());
+        Assert.assertEquals(metrics.getVerified(), 0);
+        for (VerificationResult.Reason reason : VerificationResult.Reason.values()) {
+            Assert.assertEquals(metrics.getVerificationFailures(reason), 0);
+        }
+        Assert.assertEquals(metrics.getJwksFetches(), 0);
+        Assert.assertEquals(metrics.getJwksFetchFailures(), 0);
+        Assert.assertEquals(metrics.getCacheHits("unknown"), 0);
+        Assert.assertEquals(metrics.getCacheMisses("unknown"), 0);
+        Assert.assertEquals(metrics.getCacheHitRatio("unknown"), 0.0);
+    }
+
+    @Test
+    public void givenAuthenticationOutcomes_whenRecorded_thenCountedByOutcome() {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+
+        // When
+        metrics.onAuthenticated(100);
+        metrics.onAuthenticated(200);
+        metrics.onChallenge(new Challenge(401, "", ""), 10);
+        metrics.onChallenge(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Expired"), 20);
+        metrics.onChallenge(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Bad signature"), 30);
+        metrics.onError(new RuntimeException(), 40);
+
+        // Then
+        Assert.assertEquals(metrics.getAuthenticated(), 2);
+        Assert.assertEquals(metrics.getErrors(), 1);
+        Assert.assertEquals(metrics.getChallenges(), Map.of(DefaultAuthenticationMetrics.NO_ERROR_CODE, 1L,
+                                                            OAuth2Constants.ERROR_INVALID_TOKEN, 2L));
+        Assert.assertEquals(metrics.getAuthenticationLatency().getCount(), 6);
+        Assert.assertEquals(metrics.getAuthenticationLatency().getMax(), 200);
+    }
+
+    @Test
+    public void givenVerificationOutcomes_whenRecorded_thenCountedByReason() {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+
+        // When
+        metrics.onVerification(null, 1_000);
+        metrics.onVerification(VerificationResult.Reason.EXPIRED, 500);
+        metrics.onVerification(VerificationResult.Reason.EXPIRED, 500);
+        metrics.onVerification(VerificationResult.Reason.SIGNATURE, 700);
+
+        // Then
+        Assert.assertEquals(metrics.getVerified(), 1);
+        Assert.assertEquals(metrics.getVerificationFailures(VerificationResult.Reason.EXPIRED), 2);
+        Assert.assertEquals(metrics.getVerificationFailures(VerificationResult.Reason.SIGNATURE), 1);
+        Assert.assertEquals(metrics.getVerificationFailures(VerificationResult.Reason.KEY), 0);
+        Assert.assertEquals(metrics.getVerificationLatency().getCount(), 4);
+    }
+
+    @Test
+    public void givenJwksFetchesAndCacheAccesses_whenRecorded_thenCounted() {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+
+        // When
+        metrics.onJwksFetch(true, 5_000_000);
+        metrics.onJwksFetch(false, 1_000_000);
+        metrics.onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, false);
+        for (int i = 0; i < 3; i++) {
+            metrics.onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, true);
+        }
+
+        // Then
+        Assert.assertEquals(metrics.getJwksFetches(), 1);
+        Assert.assertEquals(metrics.getJwksFetchFailures(), 1);
+        Assert.assertEquals(metrics.getJwksFetchLatency().getMax(), 5_000_000);
+        Assert.assertEquals(metrics.getCacheHits(AuthenticationMetrics.CACHE_JWKS_KEYS), 3);
+        Assert.assertEquals(metrics.getCacheMisses(AuthenticationMetrics.CACHE_JWKS_KEYS), 1);
+        Assert.assertEquals(metrics.getCacheHitRatio(AuthenticationMetrics.CACHE_JWKS_KEYS), 0.75);
+        Assert.assertEquals(metrics.getCacheHitRatio(AuthenticationMetrics.CACHE_VERIFIED_TOKENS), 0.0);
+        Assert.assertTrue(metrics.toString().contains("jwksFetches=1"));
+    }
+
+    @Test
+    public void givenConcurrentRecording_whenQuerying_thenNoUpdatesLost() throws Exception {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        metrics.onAuthenticated(i);
+                        metrics.onChallenge(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, ""), i);
+                        metrics.onCacheAccess(AuthenticationMetrics.CACHE_VERIFIED_TOKENS, i % 2 == 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Then
+            Assert.assertEquals(metrics.getAuthenticated(), 80_000);
+            Assert.assertEquals(metrics.getChallenges().get(OAuth2Constants.ERROR_INVALID_TOKEN), 80_000L);
+            Assert.assertEquals(metrics.getAuthenticationLatency().getCount(), 160_000);
+            Assert.assertEquals(metrics.getCacheHitRatio(AuthenticationMetrics.CACHE_VERIFIED_TOKENS), 0.5);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
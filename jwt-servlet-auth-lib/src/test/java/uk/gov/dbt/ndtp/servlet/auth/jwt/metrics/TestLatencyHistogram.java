@@ -0,0 +1,127 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestLatencyHistogram {
+
+    @Test
+    public void givenAllBuckets_whenCalculatingBounds_thenBucketsAreContiguous() {
+        // Given
+        int buckets = (Long.SIZE - 4) * LatencyHistogram.SUB_BUCKETS;
+
+        // When and Then
+        Assert.assertEquals(LatencyHistogram.bucketFor(0), 0);
+        for (int i = 0; i < buckets - 1; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            Assert.assertEquals(LatencyHistogram.bucketFor(upper), i);
+            Assert.assertEquals(LatencyHistogram.bucketFor(upper + 1), i + 1);
+        }
+        Assert.assertEquals(LatencyHistogram.bucketFor(Long.MAX_VALUE), buckets - 1);
+        Assert.assertEquals(LatencyHistogram.upperBound(buckets - 1), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void givenEmptyHistogram_whenQuerying_thenZeroes() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When and Then
+        Assert.assertEquals(histogram.getCount(), 0);
+        Assert.assertEquals(histogram.getMax(), 0);
+        Assert.assertEquals(histogram.getMean(), 0.0);
+        Assert.assertEquals(histogram.getValueAtPercentile(99), 0);
+    }
+
+    @Test
+    public void givenUniformValues_whenQueryingPercentiles_thenWithinRelativeError() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        // Then
+        Assert.assertEquals(histogram.getCount(), 100_000);
+        Assert.assertEquals(histogram.getMax(), 100_000_000);
+        Assert.assertEquals(histogram.getMean(), 50_000_500.0, 0.001);
+        for (double percentile : new double[] { 1, 50, 90, 99, 99.9 }) {
+            double expected = percentile * 1_000_000;
+            long actual = histogram.getValueAtPercentile(percentile);
+            Assert.assertTrue(actual >= expected, percentile + " percentile " + actual + " below " + expected);
+            Assert.assertTrue(actual <= expected * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS),
+                              percentile + " percentile " + actual + " too far above " + expected);
+        }
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 100_000_000);
+    }
+
+    @Test
+    public void givenNegativeValue_whenRecording_thenRecordedAsZero() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(-5);
+
+        // Then
+        Assert.assertEquals(histogram.getCount(), 1);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 0);
+    }
+
+    @Test
+    public void givenHugeValue_whenRecording_thenRecorded() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(Long.MAX_VALUE);
+
+        // Then
+        Assert.assertEquals(histogram.getValueAtPercentile(50), Long.MAX_VALUE);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenInvalidPercentile_whenQuerying_thenError() {
+        // Given, When and Then
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+
+    @Test
+    public void givenValues_whenToString_thenSummaryIncluded() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+
+        // When
+        String summary = histogram.toString();
+
+        // Then
+        Assert.assertTrue(summary.contains("count=1"));
+        Assert.assertTrue(summary.contains("max=10"));
+    }
+}
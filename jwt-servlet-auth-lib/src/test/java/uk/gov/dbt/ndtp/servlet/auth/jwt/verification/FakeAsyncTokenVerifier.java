@@ -0,0 +1,66 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A fake asynchronous token verifier for testing purposes
+ * <p>
+ * Verification is delegated to another verifier once the provided gate completes, allowing tests to control when
+ * asynchronous verification completes.
+ * </p>
+ */
+public class FakeAsyncTokenVerifier implements AsyncJwtVerifier {
+
+    private final JwtVerifier verifier;
+    private final CompletableFuture<?> gate;
+
+    public FakeAsyncTokenVerifier() {
+        this(new FakeTokenVerifier(), CompletableFuture.completedFuture(null));
+    }
+
+    public FakeAsyncTokenVerifier(JwtVerifier verifier, CompletableFuture<?> gate) {
+        this.verifier = verifier;
+        this.gate = gate;
+    }
+
+    @Override
+    public Jws<Claims> verify(String rawJwt) {
+        return this.verifier.verify(rawJwt);
+    }
+
+    @Override
+    public TokenPrecheck.Result precheck(String rawJwt) {
+        return this.verifier.precheck(rawJwt);
+    }
+
+    @Override
+    public CompletionStage<Jws<Claims>> verifyAsync(String rawJwt) {
+        return this.gate.thenApply(x -> this.verifier.verify(rawJwt));
+    }
+}
@@ -0,0 +1,205 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKey;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.CachedJwksKeyLocator;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.ControllableJwksServer;
+
+public class TestAsyncJwksJwtVerifier {
+
+    private static final Random RANDOM = new Random();
+    private static final AtomicInteger TEST_PORT = new AtomicInteger(52000 + RANDOM.nextInt(50));
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    private SecretKey secret;
+    private Jwk<SecretKey> key;
+    private ControllableJwksServer server;
+    private CachedJwksKeyLocator locator;
+    private AsyncJwksJwtVerifier verifier;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.secret = Jwts.SIG.HS256.key().build();
+        this.key = Jwks.builder().key(this.secret).idFromThumbprint().build();
+        this.server = new ControllableJwksServer(TEST_PORT.getAndIncrement(), Jwks.set().add(this.key).build());
+        this.server.start();
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofMinutes(5));
+        this.verifier = new AsyncJwksJwtVerifier(
+                new SignedJwtVerifier(Jwts.parser().keyLocator(this.locator).build(),
+                                      SignedJwtVerifier.debugStringForLocator(this.locator)), this.locator);
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        this.locator.close();
+        this.server.stop();
+    }
+
+    private String createToken(String keyId) {
+        return Jwts.builder().header().keyId(keyId).and().subject("test").signWith(this.secret).compact();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class, expectedExceptionsMessageRegExp = "Verifier cannot be null")
+    public void givenNullVerifier_whenCreating_thenNPE() {
+        new AsyncJwksJwtVerifier(null, this.locator);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class, expectedExceptionsMessageRegExp = "Key locator cannot be null")
+    public void givenNullLocator_whenCreating_thenNPE() {
+        new AsyncJwksJwtVerifier(new FakeTokenVerifier(), null);
+    }
+
+    @Test
+    public void givenUncachedKey_whenVerifyingAsync_thenKeyLoadedAndTokenVerified() {
+        // Given
+        this.server.setDelay(250);
+        String token = createToken(this.key.getId());
+
+        // When
+        CompletableFuture<Jws<Claims>> verified = this.verifier.verifyAsync(token).toCompletableFuture();
+
+        // Then
+        Assert.assertFalse(verified.isDone());
+        Assert.assertEquals(verified.join().getPayload().getSubject(), "test");
+        Assert.assertNotNull(this.locator.getCachedKey(this.key.getId()));
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenCachedKey_whenTryVerifyingAsync_thenCompletesImmediately() {
+        // Given
+        String token = createToken(this.key.getId());
+        this.verifier.verify(token);
+
+        // When
+        CompletableFuture<VerificationResult> result = this.verifier.tryVerifyAsync(token).toCompletableFuture();
+
+        // Then
+        Assert.assertTrue(result.isDone());
+        Assert.assertTrue(result.join().isSuccess());
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenUnknownKey_whenTryVerifyingAsync_thenKeyFailure() {
+        // Given
+        String token = createToken("no-such-key");
+
+        // When
+        VerificationResult result = this.verifier.tryVerifyAsync(token).toCompletableFuture().join();
+
+        // Then
+        Assert.assertTrue(result instanceof VerificationResult.Failure);
+        VerificationResult.Failure failure = (VerificationResult.Failure) result;
+        Assert.assertEquals(failure.reason(), VerificationResult.Reason.KEY);
+        Assert.assertTrue(StringUtils.contains(failure.message(), "no-such-key"));
+    }
+
+    @Test
+    public void givenUnknownKey_whenVerifyingAsync_thenFailsWithInvalidKey() {
+        // Given
+        String token = createToken("no-such-key");
+
+        // When
+        CompletableFuture<Jws<Claims>> verified = this.verifier.verifyAsync(token).toCompletableFuture();
+
+        // Then
+        CompletionException e = Assert.expectThrows(CompletionException.class, verified::join);
+        Assert.assertTrue(e.getCause() instanceof InvalidKeyException);
+    }
+
+    @Test
+    public void givenTokenWithoutKeyId_whenTryVerifyingAsync_thenVerificationReportsFailure() {
+        // Given
+        String token = Jwts.builder().subject("test").signWith(this.secret).compact();
+
+        // When
+        CompletableFuture<VerificationResult> result = this.verifier.tryVerifyAsync(token).toCompletableFuture();
+
+        // Then
+        Assert.assertTrue(result.isDone());
+        Assert.assertFalse(result.join().isSuccess());
+        Assert.assertEquals(this.server.getRequestCount(), 0);
+    }
+
+    @Test
+    public void givenUnexpectedLocatorFailure_whenTryVerifyingAsync_thenCompletesExceptionally() {
+        // Given
+        CachedJwksKeyLocator failing =
+                new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofMinutes(5)) {
+                    @Override
+                    public CompletableFuture<Key> locateAsync(String keyId) {
+                        return CompletableFuture.failedFuture(new IllegalStateException("Unexpected"));
+                    }
+                };
+        AsyncJwksJwtVerifier verifier = new AsyncJwksJwtVerifier(new FakeTokenVerifier(), failing);
+
+        // When
+        CompletableFuture<VerificationResult> result =
+                verifier.tryVerifyAsync(createToken(this.key.getId())).toCompletableFuture();
+
+        // Then
+        CompletionException e = Assert.expectThrows(CompletionException.class, result::join);
+        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void givenAsyncVerifier_whenVerifyingSynchronously_thenDelegatesToUnderlyingVerifier() {
+        // Given
+        String token = createToken(this.key.getId());
+
+        // When
+        Jws<Claims> jws = this.verifier.verify(token);
+        VerificationResult result = this.verifier.tryVerify(token);
+        TokenPrecheck.Result precheck = this.verifier.precheck(token);
+
+        // Then
+        Assert.assertEquals(jws.getPayload().getSubject(), "test");
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(precheck, TokenPrecheck.Result.VALID);
+        Assert.assertTrue(this.verifier.getVerifier() instanceof SignedJwtVerifier);
+        Assert.assertTrue(StringUtils.startsWith(this.verifier.toString(), "AsyncJwksJwtVerifier{verifier="));
+    }
+}
@@ -0,0 +1,91 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestAsyncJwtVerifier {
+
+    private static AsyncJwtVerifier completingWith(CompletableFuture<Void> gate, JwtVerifier verifier) {
+        return new FakeAsyncTokenVerifier(verifier, gate);
+    }
+
+    @Test
+    public void givenSuccessfulVerification_whenTryVerifyingAsync_thenSuccess() {
+        // Given
+        AsyncJwtVerifier verifier = new FakeAsyncTokenVerifier();
+
+        // When
+        VerificationResult result = verifier.tryVerifyAsync("test").toCompletableFuture().join();
+
+        // Then
+        Assert.assertTrue(result.isSuccess());
+    }
+
+    @Test
+    public void givenNullVerification_whenTryVerifyingAsync_thenInvalid() {
+        // Given
+        AsyncJwtVerifier verifier = completingWith(CompletableFuture.completedFuture(null), rawJwt -> null);
+
+        // When
+        VerificationResult result = verifier.tryVerifyAsync("test").toCompletableFuture().join();
+
+        // Then
+        Assert.assertEquals(result, VerificationResult.failure(VerificationResult.Reason.INVALID,
+                                                               "Token could not be verified"));
+    }
+
+    @Test
+    public void givenVerificationError_whenTryVerifyingAsync_thenFailure() {
+        // Given
+        AsyncJwtVerifier verifier = completingWith(CompletableFuture.completedFuture(null),
+                                                   new InvalidTokenVerifier(
+                                                           token -> new ExpiredJwtException(null, null, "Expired")));
+
+        // When
+        VerificationResult result = verifier.tryVerifyAsync("test").toCompletableFuture().join();
+
+        // Then
+        Assert.assertEquals(result, VerificationResult.failure(VerificationResult.Reason.EXPIRED, "Expired"));
+    }
+
+    @Test
+    public void givenUnexpectedError_whenTryVerifyingAsync_thenCompletesExceptionally() {
+        // Given
+        AsyncJwtVerifier verifier =
+                completingWith(CompletableFuture.failedFuture(new IllegalStateException("Unexpected")),
+                               new FakeTokenVerifier());
+
+        // When
+        CompletableFuture<VerificationResult> result = verifier.tryVerifyAsync("test").toCompletableFuture();
+
+        // Then
+        CompletionException e = Assert.expectThrows(CompletionException.class, result::join);
+        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+}
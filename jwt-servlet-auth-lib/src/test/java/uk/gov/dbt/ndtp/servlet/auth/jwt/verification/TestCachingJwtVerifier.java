@@ -0,0 +1,176 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import javax.crypto.SecretKey;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCachingJwtVerifier {
+
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+
+    private JwtVerifier spyVerifier() {
+        return spy(new SignedJwtVerifier(this.key));
+    }
+
+    private String createToken(Instant expiry) {
+        return Jwts.builder()
+                   .subject("test")
+                   .expiration(expiry != null ? Date.from(expiry) : null)
+                   .signWith(this.key)
+                   .compact();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullVerifier_whenCreatingCachingVerifier_thenNullPointerException() {
+        new CachingJwtVerifier(null, 10, Duration.ofMinutes(1), null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroSize_whenCreatingCachingVerifier_thenIllegalArgumentException() {
+        new CachingJwtVerifier(spyVerifier(), 0, Duration.ofMinutes(1), null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullLifetime_whenCreatingCachingVerifier_thenNullPointerException() {
+        new CachingJwtVerifier(spyVerifier(), 10, null, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenNegativeLifetime_whenCreatingCachingVerifier_thenIllegalArgumentException() {
+        new CachingJwtVerifier(spyVerifier(), 10, Duration.ofMinutes(-1), null);
+    }
+
+    @Test
+    public void givenValidToken_whenVerifyingRepeatedly_thenUnderlyingVerifierCalledOnce() {
+        // Given
+        JwtVerifier underlying = spyVerifier();
+        CachingJwtVerifier verifier = new CachingJwtVerifier(underlying, 10, Duration.ofMinutes(1), null);
+        String jwt = createToken(Instant.now().plus(5, ChronoUnit.MINUTES));
+
+        // When
+        Jws<Claims> first = verifier.verify(jwt);
+        Jws<Claims> second = verifier.verify(jwt);
+
+        // Then
+        Assert.assertNotNull(first);
+        Assert.assertSame(second, first);
+        verify(underlying, times(1)).verify(any());
+        Assert.assertEquals(verifier.estimatedSize(), 1);
+    }
+
+    @Test
+    public void givenValidTokenWithoutExpiry_whenVerifyingRepeatedly_thenCachedForMaximumLifetime() {
+        // Given
+        JwtVerifier underlying = spyVerifier();
+        CachingJwtVerifier verifier = new CachingJwtVerifier(underlying, 10, Duration.ofMinutes(1), null);
+        String jwt = createToken(null);
+
+        // When
+        verifier.verify(jwt);
+        verifier.verify(jwt);
+
+        // Then
+        verify(underlying, times(1)).verify(any());
+    }
+
+    @Test
+    public void givenTokenExpiringWithinClockSkew_whenVerifyingRepeatedly_thenNotCached() {
+        // Given
+        JwtVerifier underlying = spyVerifier();
+        CachingJwtVerifier verifier =
+                new CachingJwtVerifier(underlying, 10, Duration.ofMinutes(1), Duration.ofSeconds(30));
+        String jwt = createToken(Instant.now().plus(10, ChronoUnit.SECONDS));
+
+        // When
+        verifier.verify(jwt);
+        verifier.verify(jwt);
+
+        // Then
+        verify(underlying, times(2)).verify(any());
+        Assert.assertEquals(verifier.estimatedSize(), 0);
+    }
+
+    @Test
+    public void givenTokenThatExpiresWhileCached_whenVerifyingAgain_thenReverifiedAndRejected() throws
+            InterruptedException {
+        // Given
+        JwtVerifier underlying = spyVerifier();
+        CachingJwtVerifier verifier = new CachingJwtVerifier(underlying, 10, Duration.ofMinutes(1), null);
+        String jwt = createToken(Instant.now().plus(1500, ChronoUnit.MILLIS));
+        verifier.verify(jwt);
+
+        // When
+        Thread.sleep(2000);
+
+        // Then
+        Assert.assertThrows(ExpiredJwtException.class, () -> verifier.verify(jwt));
+        verify(underlying, times(2)).verify(any());
+    }
+
+    @Test
+    public void givenInvalidToken_whenVerifyingRepeatedly_thenFailureNotCached() {
+        // Given
+        JwtVerifier underlying = spyVerifier();
+        CachingJwtVerifier verifier = new CachingJwtVerifier(underlying, 10, Duration.ofMinutes(1), null);
+        String jwt = Jwts.builder().subject("test").signWith(Jwts.SIG.HS256.key().build()).compact();
+
+        // When and Then
+        Assert.assertThrows(SignatureException.class, () -> verifier.verify(jwt));
+        Assert.assertThrows(SignatureException.class, () -> verifier.verify(jwt));
+        verify(underlying, times(2)).verify(any());
+        Assert.assertEquals(verifier.estimatedSize(), 0);
+    }
+
+    @Test
+    public void givenCachingVerifier_whenConvertingToString_thenUnderlyingVerifierIncluded() {
+        // Given
+        JwtVerifier underlying = new SignedJwtVerifier(this.key);
+        CachingJwtVerifier verifier = new CachingJwtVerifier(underlying, 10, Duration.ofMinutes(1), null);
+
+        // When
+        String debug = verifier.toString();
+
+        // Then
+        Assert.assertSame(verifier.getVerifier(), underlying);
+        Assert.assertTrue(StringUtils.contains(debug, SignedJwtVerifier.SECRET_KEY_DEBUG_STRING));
+        Assert.assertTrue(StringUtils.contains(debug, "maxSize=10"));
+    }
+}
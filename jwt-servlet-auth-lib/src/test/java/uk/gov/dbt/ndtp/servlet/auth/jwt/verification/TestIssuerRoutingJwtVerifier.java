@@ -0,0 +1,305 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import javax.crypto.SecretKey;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestIssuerRoutingJwtVerifier {
+
+    private static final String ISSUER_A = "https://a.example.org";
+    private static final String ISSUER_B = "https://b.example.org";
+
+    private final SecretKey keyA = Jwts.SIG.HS256.key().build();
+    private final SecretKey keyB = Jwts.SIG.HS256.key().build();
+    private final SecretKey keyC = Jwts.SIG.HS256.key().build();
+
+    private static String createToken(SecretKey key, String keyId, String issuer) {
+        return Jwts.builder().header().keyId(keyId).and().issuer(issuer).subject("test").signWith(key).compact();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullIssuers_whenCreatingVerifier_thenNullPointerException() {
+        new IssuerRoutingJwtVerifier(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenNoVerifiers_whenCreatingVerifier_thenIllegalArgumentException() {
+        new IssuerRoutingJwtVerifier(Map.of(), Map.of(), null);
+    }
+
+    @Test
+    public void givenIssuers_whenVerifyingTokens_thenRoutedToIssuerVerifier() {
+        // Given
+        JwtVerifier verifierA = spy(new SignedJwtVerifier(this.keyA));
+        JwtVerifier verifierB = spy(new SignedJwtVerifier(this.keyB));
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, verifierA, ISSUER_B, verifierB));
+
+        // When
+        Jws<Claims> jws = verifier.verify(createToken(this.keyB, null, ISSUER_B));
+
+        // Then
+        Assert.assertEquals(jws.getPayload().getIssuer(), ISSUER_B);
+        verify(verifierB).verify(any());
+        verify(verifierA, never()).verify(any());
+        verify(verifierA, never()).tryVerify(any());
+    }
+
+    @Test
+    public void givenIssuers_whenTryVerifyingTokens_thenRoutedToIssuerVerifier() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(
+                Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA), ISSUER_B, new SignedJwtVerifier(this.keyB)));
+
+        // When
+        VerificationResult a = verifier.tryVerify(createToken(this.keyA, null, ISSUER_A));
+        VerificationResult b = verifier.tryVerify(createToken(this.keyB, null, ISSUER_B));
+        VerificationResult wrongKey = verifier.tryVerify(createToken(this.keyA, null, ISSUER_B));
+
+        // Then
+        Assert.assertTrue(a.isSuccess());
+        Assert.assertTrue(b.isSuccess());
+        Assert.assertFalse(wrongKey.isSuccess());
+        Assert.assertEquals(((VerificationResult.Failure) wrongKey).reason(), VerificationResult.Reason.SIGNATURE);
+    }
+
+    @Test
+    public void givenUnknownIssuer_whenTryVerifying_thenFailure() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)));
+
+        // When
+        VerificationResult result = verifier.tryVerify(createToken(this.keyA, null, ISSUER_B));
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(((VerificationResult.Failure) result).reason(), VerificationResult.Reason.INVALID);
+    }
+
+    @Test(expectedExceptions = JwtException.class, expectedExceptionsMessageRegExp = ".*not trusted")
+    public void givenNoIssuer_whenVerifying_thenJwtException() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)));
+
+        // When and Then
+        verifier.verify(createToken(this.keyA, null, null));
+    }
+
+    @Test
+    public void givenUnknownIssuerAndKnownKeyId_whenVerifying_thenRoutedByKeyId() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)),
+                                                            Map.of("c", new SignedJwtVerifier(this.keyC)), null);
+
+        // When
+        VerificationResult result = verifier.tryVerify(createToken(this.keyC, "c", null));
+        VerificationResult unknown = verifier.tryVerify(createToken(this.keyC, "d", null));
+
+        // Then
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertFalse(unknown.isSuccess());
+    }
+
+    @Test
+    public void givenKnownIssuerAndKeyId_whenVerifying_thenIssuerTakesPrecedence() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)),
+                                                            Map.of("c", new SignedJwtVerifier(this.keyC)), null);
+
+        // When
+        VerificationResult result = verifier.tryVerify(createToken(this.keyC, "c", ISSUER_A));
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void givenFallback_whenVerifyingUnknownIssuer_thenRoutedToFallback() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)), null,
+                                                            new SignedJwtVerifier(this.keyC));
+
+        // When
+        Jws<Claims> jws = verifier.verify(createToken(this.keyC, null, ISSUER_B));
+
+        // Then
+        Assert.assertEquals(jws.getPayload().getIssuer(), ISSUER_B);
+    }
+
+    @Test
+    public void givenVerifierReturningDifferentIssuer_whenVerifying_thenFailure() {
+        // Given
+        String other = createToken(this.keyA, null, ISSUER_B);
+        SignedJwtVerifier signed = new SignedJwtVerifier(this.keyA);
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, rawJwt -> signed.verify(other)));
+        String token = createToken(this.keyA, null, ISSUER_A);
+
+        // When
+        VerificationResult result = verifier.tryVerify(token);
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(((VerificationResult.Failure) result).reason(), VerificationResult.Reason.INVALID);
+        Assert.assertThrows(JwtException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    public void givenMalformedToken_whenPrechecking_thenRejected() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)));
+
+        // When and Then
+        Assert.assertEquals(verifier.precheck("foo"), TokenPrecheck.Result.MALFORMED);
+        Assert.assertEquals(verifier.precheck(createToken(this.keyA, null, ISSUER_A)), TokenPrecheck.Result.VALID);
+    }
+
+    @Test
+    public void givenAsyncRoute_whenTryVerifyingAsync_thenCompletesOnceRouteCompletes() {
+        // Given
+        CompletableFuture<Object> gate = new CompletableFuture<>();
+        AsyncJwtVerifier verifier = new IssuerRoutingJwtVerifier(
+                Map.of(ISSUER_A, new FakeAsyncTokenVerifier(new SignedJwtVerifier(this.keyA), gate), ISSUER_B,
+                       new SignedJwtVerifier(this.keyB)));
+
+        // When
+        CompletableFuture<VerificationResult> a =
+                verifier.tryVerifyAsync(createToken(this.keyA, null, ISSUER_A)).toCompletableFuture();
+        CompletableFuture<VerificationResult> b =
+                verifier.tryVerifyAsync(createToken(this.keyB, null, ISSUER_B)).toCompletableFuture();
+
+        // Then
+        Assert.assertTrue(b.isDone());
+        Assert.assertTrue(b.join().isSuccess());
+        Assert.assertFalse(a.isDone());
+        gate.complete(null);
+        Assert.assertTrue(a.join().isSuccess());
+    }
+
+    @Test
+    public void givenAsyncRoute_whenVerifyingAsync_thenVerified() {
+        // Given
+        AsyncJwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new FakeAsyncTokenVerifier(
+                new SignedJwtVerifier(this.keyA), CompletableFuture.completedFuture(null))));
+
+        // When
+        Jws<Claims> jws = verifier.verifyAsync(createToken(this.keyA, null, ISSUER_A)).toCompletableFuture().join();
+
+        // Then
+        Assert.assertEquals(jws.getPayload().getIssuer(), ISSUER_A);
+    }
+
+    @Test
+    public void givenUnknownIssuer_whenVerifyingAsync_thenCompletesExceptionally() {
+        // Given
+        AsyncJwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)));
+
+        // When
+        CompletionStage<Jws<Claims>> future = verifier.verifyAsync(createToken(this.keyA, null, ISSUER_B));
+        VerificationResult result =
+                verifier.tryVerifyAsync(createToken(this.keyA, null, ISSUER_B)).toCompletableFuture().join();
+
+        // Then
+        CompletionException e =
+                Assert.expectThrows(CompletionException.class, () -> future.toCompletableFuture().join());
+        Assert.assertTrue(e.getCause() instanceof JwtException);
+        Assert.assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void givenSynchronousRoute_whenVerifyingAsync_thenVerifiedImmediately() {
+        // Given
+        AsyncJwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)));
+
+        // When
+        CompletableFuture<Jws<Claims>> future =
+                verifier.verifyAsync(createToken(this.keyA, null, ISSUER_A)).toCompletableFuture();
+
+        // Then
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(future.join().getPayload().getIssuer(), ISSUER_A);
+    }
+
+    @Test
+    public void givenAsyncRouteReturningDifferentIssuer_whenVerifyingAsync_thenFailure() {
+        // Given
+        String other = createToken(this.keyA, null, ISSUER_B);
+        SignedJwtVerifier signed = new SignedJwtVerifier(this.keyA);
+        AsyncJwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new FakeAsyncTokenVerifier(
+                rawJwt -> signed.verify(other), CompletableFuture.completedFuture(null))));
+        String token = createToken(this.keyA, null, ISSUER_A);
+
+        // When
+        VerificationResult result = verifier.tryVerifyAsync(token).toCompletableFuture().join();
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+        CompletionException e = Assert.expectThrows(CompletionException.class,
+                                                    () -> verifier.verifyAsync(token).toCompletableFuture().join());
+        Assert.assertTrue(e.getCause() instanceof JwtException);
+    }
+
+    @Test
+    public void givenAllRoutes_whenGettingRoutes_thenAvailable() {
+        // Given
+        JwtVerifier a = new SignedJwtVerifier(this.keyA);
+        JwtVerifier c = new SignedJwtVerifier(this.keyC);
+        JwtVerifier fallback = new SignedJwtVerifier(this.keyB);
+
+        // When
+        IssuerRoutingJwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, a), Map.of("c", c), fallback);
+
+        // Then
+        Assert.assertEquals(verifier.getIssuers(), Map.of(ISSUER_A, a));
+        Assert.assertEquals(verifier.getKeyIds(), Map.of("c", c));
+        Assert.assertSame(verifier.getFallback(), fallback);
+        Assert.assertTrue(new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, a)).getKeyIds().isEmpty());
+    }
+
+    @Test
+    public void givenVerifier_whenToString_thenIssuersIncluded() {
+        // Given
+        JwtVerifier verifier = new IssuerRoutingJwtVerifier(Map.of(ISSUER_A, new SignedJwtVerifier(this.keyA)));
+
+        // When
+        String debug = verifier.toString();
+
+        // Then
+        Assert.assertTrue(debug.contains(ISSUER_A), debug);
+        Assert.assertTrue(debug.contains("verificationMethod=SecretKey"), debug);
+    }
+}
@@ -0,0 +1,263 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestJwksResponse {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    private static final JwkSet JWKS =
+            Jwks.set().add(Jwks.builder().key(Jwts.SIG.HS256.key().build()).idFromThumbprint().build()).build();
+
+    private static HttpHeaders headers(String... nameValuePairs) {
+        Map<String, List<String>> headers = new HashMap<>();
+        for (int i = 0; i < nameValuePairs.length; i += 2) {
+            headers.put(nameValuePairs[i], List.of(nameValuePairs[i + 1]));
+        }
+        return HttpHeaders.of(headers, (name, value) -> true);
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class, expectedExceptionsMessageRegExp = "JWKS cannot be null")
+    public void givenNullJwks_whenCreatingResponse_thenNPE() {
+        // Given, When and Then
+        JwksResponse.of(null);
+    }
+
+    @Test
+    public void givenJwks_whenCreatingResponseWithoutMetadata_thenNoValidatorsOrFreshness() {
+        // Given and When
+        JwksResponse response = JwksResponse.of(JWKS);
+
+        // Then
+        Assert.assertSame(response.jwks(), JWKS);
+        Assert.assertNull(response.etag());
+        Assert.assertNull(response.lastModified());
+        Assert.assertNull(response.maxAge());
+        Assert.assertFalse(response.notModified());
+    }
+
+    @Test
+    public void givenNoCachingHeaders_whenCalculatingFreshness_thenNull() {
+        // Given
+        HttpHeaders headers = headers("Content-Type", "application/json");
+
+        // When and Then
+        Assert.assertNull(JwksResponse.freshness(headers, NOW));
+    }
+
+    @Test
+    public void givenMaxAge_whenCalculatingFreshness_thenMaxAgeUsed() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "public, max-age=600");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void givenHugeMaxAge_whenCalculatingFreshness_thenCappedAtMaxFreshness() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "max-age=9999999999999");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), JwksResponse.MAX_FRESHNESS);
+    }
+
+    @Test
+    public void givenMaxAgeTooLargeToParse_whenCalculatingFreshness_thenCappedAtMaxFreshness() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "max-age=99999999999999999999999");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), JwksResponse.MAX_FRESHNESS);
+    }
+
+    @Test
+    public void givenFarFutureExpires_whenCalculatingFreshness_thenCappedAtMaxFreshness() {
+        // Given
+        HttpHeaders headers = headers("Expires", httpDate(Instant.parse("9999-12-31T23:59:59Z")));
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), JwksResponse.MAX_FRESHNESS);
+    }
+
+    @Test
+    public void givenQuotedMaxAge_whenCalculatingFreshness_thenMaxAgeUsed() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "MAX-AGE=\"600\"");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void givenMaxAgeAndAge_whenCalculatingFreshness_thenAgeDeducted() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "max-age=600", "Age", "100");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofSeconds(500));
+    }
+
+    @Test
+    public void givenAgeExceedingMaxAge_whenCalculatingFreshness_thenZero() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "max-age=600", "Age", "900");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ZERO);
+    }
+
+    @Test
+    public void givenInvalidMaxAge_whenCalculatingFreshness_thenZero() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "max-age=forever");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ZERO);
+    }
+
+    @Test
+    public void givenNoCache_whenCalculatingFreshness_thenZero() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "no-cache, max-age=600");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ZERO);
+    }
+
+    @Test
+    public void givenNoStore_whenCalculatingFreshness_thenZero() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "no-store");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ZERO);
+    }
+
+    @Test
+    public void givenMaxAgeAndExpires_whenCalculatingFreshness_thenMaxAgeTakesPrecedence() {
+        // Given
+        HttpHeaders headers = headers("Cache-Control", "max-age=60", "Expires", httpDate(NOW.plusSeconds(3600)));
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void givenExpiresAndDate_whenCalculatingFreshness_thenRelativeToDate() {
+        // Given
+        Instant date = NOW.minusSeconds(3600);
+        HttpHeaders headers = headers("Cache-Control", "public", "Expires", httpDate(date.plusSeconds(300)), "Date",
+                                      httpDate(date));
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void givenExpiresWithoutDate_whenCalculatingFreshness_thenRelativeToNow() {
+        // Given
+        HttpHeaders headers = headers("Expires", httpDate(NOW.plusSeconds(300)));
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void givenPastExpires_whenCalculatingFreshness_thenZero() {
+        // Given
+        HttpHeaders headers = headers("Expires", httpDate(NOW.minusSeconds(300)));
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ZERO);
+    }
+
+    @Test
+    public void givenInvalidExpires_whenCalculatingFreshness_thenZero() {
+        // Given
+        HttpHeaders headers = headers("Expires", "0");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ZERO);
+    }
+
+    @Test
+    public void givenInvalidDate_whenCalculatingFreshness_thenRelativeToNow() {
+        // Given
+        HttpHeaders headers = headers("Expires", httpDate(NOW.plusSeconds(300)), "Date", "yesterday");
+
+        // When and Then
+        Assert.assertEquals(JwksResponse.freshness(headers, NOW), Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void givenNotModifiedWithoutValidators_whenCreatingResponse_thenPreviousValidatorsRetained() {
+        // Given
+        JwksResponse previous = new JwksResponse(JWKS, "\"v1\"", httpDate(NOW), Duration.ofMinutes(1), false);
+
+        // When
+        JwksResponse response = JwksResponse.of(JWKS, headers("Cache-Control", "max-age=120"), previous, true);
+
+        // Then
+        Assert.assertEquals(response.etag(), "\"v1\"");
+        Assert.assertEquals(response.lastModified(), httpDate(NOW));
+        Assert.assertEquals(response.maxAge(), Duration.ofMinutes(2));
+        Assert.assertTrue(response.notModified());
+    }
+
+    @Test
+    public void givenNotModifiedWithValidators_whenCreatingResponse_thenNewValidatorsUsed() {
+        // Given
+        JwksResponse previous = new JwksResponse(JWKS, "\"v1\"", httpDate(NOW), null, false);
+
+        // When
+        JwksResponse response =
+                JwksResponse.of(JWKS, headers("ETag", "\"v2\"", "Last-Modified", httpDate(NOW.plusSeconds(1))),
+                                previous, true);
+
+        // Then
+        Assert.assertEquals(response.etag(), "\"v2\"");
+        Assert.assertEquals(response.lastModified(), httpDate(NOW.plusSeconds(1)));
+        Assert.assertNull(response.maxAge());
+    }
+}
@@ -34,20 +34,28 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.crypto.SecretKey;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BrokenInputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.ControllableJwksServer;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.JwksServer;
 
 public class TestKeyUtils {
@@ -275,6 +283,46 @@ public class TestKeyUtils {
                    .build();
     }
 
+    @Test
+    public void givenComplexJwks_whenSavingToFile_thenSameKeysAreLoaded() throws IOException, KeyLoadException {
+        // Given
+        JwkSet jwks = buildComplexJwks();
+        File jwksFile = Files.createTempFile("jwks", ".json").toFile();
+
+        // When
+        KeyUtils.saveJwks(jwks, jwksFile);
+
+        // Then
+        Assert.assertTrue(KeyUtils.loadJwks(jwksFile).equals(jwks));
+        File[] leftovers = jwksFile.getParentFile().listFiles((dir, name) -> name.startsWith(jwksFile.getName()) &&
+                                                                              name.endsWith(".tmp"));
+        Assert.assertNotNull(leftovers);
+        Assert.assertEquals(leftovers.length, 0);
+    }
+
+    @Test
+    public void givenExistingJwksFile_whenSavingToFile_thenFileIsReplaced() throws IOException, KeyLoadException {
+        // Given
+        File jwksFile = saveJwks(buildComplexJwks());
+        JwkSet jwks =
+                Jwks.set().add(Jwks.builder().key(Jwts.SIG.HS256.key().build()).idFromThumbprint().build()).build();
+
+        // When
+        KeyUtils.saveJwks(jwks, jwksFile);
+
+        // Then
+        Assert.assertTrue(KeyUtils.loadJwks(jwksFile).equals(jwks));
+    }
+
+    @Test(expectedExceptions = KeyLoadException.class, expectedExceptionsMessageRegExp = ".*could not be written.*")
+    public void givenNonExistentDirectory_whenSavingToFile_thenErrorIsThrown() throws KeyLoadException {
+        // Given
+        File jwksFile = new File("no-such-directory/jwks.json");
+
+        // When and Then
+        KeyUtils.saveJwks(buildComplexJwks(), jwksFile);
+    }
+
     @Test(expectedExceptions = KeyLoadException.class)
     public void givenEmptyJwksFile_whenLoadingFromFile_thenErrorIsThrown() throws IOException, KeyLoadException {
         // Given
@@ -387,4 +435,170 @@ public class TestKeyUtils {
         // When and Then
         KeyUtils.loadJwks(jwksURI, HTTP_CLIENT);
     }
+
+    @Test
+    public void givenJwksUrl_whenLoadingFromUrlAsynchronously_thenSameKeysAreReturned() throws Exception {
+        // Given
+        JwkSet jwks = buildComplexJwks();
+        int port = JWKS_TEST_PORT.getAndIncrement();
+        JwksServer server = new JwksServer(port, jwks);
+
+        // When
+        try {
+            server.start();
+            JwkSet loaded = KeyUtils.loadJwksAsync(URI.create(server.getUrl()), HTTP_CLIENT).join();
+
+            // Then
+            Assert.assertTrue(loaded.equals(jwks));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void givenBadJwksUrl_whenLoadingFromUrlAsynchronously_thenFailsWithKeyLoadException() throws Exception {
+        // Given
+        int port = JWKS_TEST_PORT.getAndIncrement();
+        JwksServer server = new JwksServer(port, null);
+
+        try {
+            server.start();
+
+            // When
+            CompletableFuture<JwkSet> loaded = KeyUtils.loadJwksAsync(URI.create(server.getUrl()), HTTP_CLIENT);
+
+            // Then
+            verifyLoadFailure(loaded, "invalid key set");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void givenUnreachableJwksUrl_whenLoadingFromUrlAsynchronously_thenFailsWithKeyLoadException() {
+        // Given
+        URI jwksURI = URI.create("http://localhost:" + JWKS_TEST_PORT.get() + "/jwks.json");
+
+        // When
+        CompletableFuture<JwkSet> loaded = KeyUtils.loadJwksAsync(jwksURI, HTTP_CLIENT);
+
+        // Then
+        verifyLoadFailure(loaded, "could not be read");
+    }
+
+    @Test
+    public void givenUnsupportedSchemaJwksUrl_whenLoadingFromUrlAsynchronously_thenFailsWithKeyLoadException() {
+        // Given
+        URI jwksURI = URI.create("ftp://example.org/files/jwks.json");
+
+        // When
+        CompletableFuture<JwkSet> loaded = KeyUtils.loadJwksAsync(jwksURI, HTTP_CLIENT);
+
+        // Then
+        verifyLoadFailure(loaded, "http/https");
+    }
+
+    @Test
+    public void givenJwksUrlWithCachingHeaders_whenLoadingFromUrl_thenCachingMetadataIsReturned() throws Exception {
+        // Given
+        JwkSet jwks = buildComplexJwks();
+        ControllableJwksServer server = new ControllableJwksServer(JWKS_TEST_PORT.getAndIncrement(), jwks);
+        server.setCacheControl("max-age=600");
+        server.setETag("\"v1\"");
+
+        // When
+        try {
+            server.start();
+            JwksResponse response = KeyUtils.loadJwks(URI.create(server.getUrl()), HTTP_CLIENT, null);
+
+            // Then
+            Assert.assertTrue(response.jwks().equals(jwks));
+            Assert.assertEquals(response.etag(), "\"v1\"");
+            Assert.assertEquals(response.maxAge(), Duration.ofMinutes(10));
+            Assert.assertFalse(response.notModified());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void givenUnchangedJwks_whenLoadingConditionally_thenPreviousKeysAreReturnedWithoutParsing() throws
+            Exception {
+        // Given
+        ControllableJwksServer server = new ControllableJwksServer(JWKS_TEST_PORT.getAndIncrement(), buildComplexJwks());
+        server.setETag("\"v1\"");
+
+        try {
+            server.start();
+            URI jwksURI = URI.create(server.getUrl());
+            JwksResponse previous = KeyUtils.loadJwks(jwksURI, HTTP_CLIENT, null);
+
+            // When
+            JwksResponse response = KeyUtils.loadJwks(jwksURI, HTTP_CLIENT, previous);
+            JwksResponse asyncResponse = KeyUtils.loadJwksAsync(jwksURI, HTTP_CLIENT, previous).join();
+
+            // Then
+            Assert.assertTrue(response.notModified());
+            Assert.assertSame(response.jwks(), previous.jwks());
+            Assert.assertTrue(asyncResponse.notModified());
+            Assert.assertSame(asyncResponse.jwks(), previous.jwks());
+            Assert.assertEquals(server.getNotModifiedCount(), 2);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void givenChangedJwks_whenLoadingConditionally_thenNewKeysAreReturned() throws Exception {
+        // Given
+        ControllableJwksServer server = new ControllableJwksServer(JWKS_TEST_PORT.getAndIncrement(), buildComplexJwks());
+        server.setETag("\"v1\"");
+
+        try {
+            server.start();
+            URI jwksURI = URI.create(server.getUrl());
+            JwksResponse previous = KeyUtils.loadJwks(jwksURI, HTTP_CLIENT, null);
+            JwkSet updated =
+                    Jwks.set().add(Jwks.builder().key(Jwts.SIG.HS256.key().build()).idFromThumbprint().build()).build();
+            server.setJwks(updated);
+            server.setETag("\"v2\"");
+
+            // When
+            JwksResponse response = KeyUtils.loadJwks(jwksURI, HTTP_CLIENT, previous);
+
+            // Then
+            Assert.assertFalse(response.notModified());
+            Assert.assertTrue(response.jwks().equals(updated));
+            Assert.assertEquals(response.etag(), "\"v2\"");
+            Assert.assertEquals(server.getNotModifiedCount(), 0);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenNotModifiedResponseToUnconditionalRequest_whenLoadingFromUrl_thenErrorIsThrown() throws
+            Exception {
+        // Given
+        HttpResponse<String> response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.statusCode()).thenReturn(304);
+        Mockito.when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        HttpClient client = Mockito.mock(HttpClient.class);
+        Mockito.doReturn(response).when(client).send(Mockito.any(), Mockito.any());
+        Mockito.doReturn(CompletableFuture.completedFuture(response)).when(client).sendAsync(Mockito.any(), Mockito.any());
+        URI jwksURI = URI.create("https://example.org/jwks.json");
+
+        // When and Then
+        KeyLoadException e =
+                Assert.expectThrows(KeyLoadException.class, () -> KeyUtils.loadJwks(jwksURI, client, null));
+        Assert.assertTrue(StringUtils.contains(e.getMessage(), "Not Modified"), e.getMessage());
+        verifyLoadFailure(KeyUtils.loadJwksAsync(jwksURI, client, null), "Not Modified");
+    }
+
+    private static void verifyLoadFailure(CompletableFuture<?> loaded, String expectedMessage) {
+        CompletionException e = Assert.expectThrows(CompletionException.class, loaded::join);
+        Assert.assertTrue(e.getCause() instanceof KeyLoadException);
+        Assert.assertTrue(StringUtils.contains(e.getCause().getMessage(), expectedMessage), e.getCause().getMessage());
+    }
 }
@@ -0,0 +1,262 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SecretJwk;
+import io.jsonwebtoken.security.SignatureException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKey;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.CachedJwksKeyLocator;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks.ControllableJwksServer;
+
+public class TestPooledParserJwtVerifier {
+
+    private static final Random RANDOM = new Random();
+    private static final AtomicInteger TEST_PORT = new AtomicInteger(51100 + RANDOM.nextInt(50));
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    private KeyPair keyPair;
+    private PublicJwk<?> jwk;
+    private ControllableJwksServer server;
+    private CachedJwksKeyLocator locator;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.keyPair = Jwts.SIG.RS256.keyPair().build();
+        this.jwk = Jwks.builder().key(this.keyPair.getPublic()).idFromThumbprint().build();
+        this.server = new ControllableJwksServer(TEST_PORT.getAndIncrement(), Jwks.set().add(this.jwk).build());
+        this.server.start();
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofMinutes(5),
+                                                false, Duration.ZERO);
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        this.locator.close();
+        this.server.stop();
+    }
+
+    private PooledParserJwtVerifier createVerifier() {
+        return new PooledParserJwtVerifier(this.locator, Jwts::parser);
+    }
+
+    private static String createToken(KeyPair keyPair, String keyId, Instant expiry) {
+        return Jwts.builder()
+                   .header()
+                   .keyId(keyId)
+                   .and()
+                   .subject("test")
+                   .expiration(Date.from(expiry))
+                   .signWith(keyPair.getPrivate())
+                   .compact();
+    }
+
+    private String createToken() {
+        return createToken(this.keyPair, this.jwk.getId(), Instant.now().plus(5, ChronoUnit.MINUTES));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullLocator_whenCreatingVerifier_thenNullPointerException() {
+        new PooledParserJwtVerifier(null, Jwts::parser);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullTemplate_whenCreatingVerifier_thenNullPointerException() {
+        new PooledParserJwtVerifier(this.locator, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroMaxParsers_whenCreatingVerifier_thenIllegalArgumentException() {
+        new PooledParserJwtVerifier(this.locator, Jwts::parser, 0);
+    }
+
+    @Test
+    public void givenValidToken_whenVerifyingRepeatedly_thenVerifiedWithPooledParser() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+        String token = createToken();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            Jws<Claims> jws = verifier.verify(token);
+
+            // Then
+            Assert.assertEquals(jws.getPayload().getSubject(), "test");
+        }
+        Assert.assertEquals(verifier.pooledParsers(), 1L);
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test(expectedExceptions = SignatureException.class)
+    public void givenTokenSignedWithWrongKey_whenVerifyingWithPooledParser_thenSignatureException() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+        verifier.verify(createToken());
+        KeyPair other = Jwts.SIG.RS256.keyPair().build();
+        String forged = createToken(other, this.jwk.getId(), Instant.now().plus(5, ChronoUnit.MINUTES));
+
+        // When and Then
+        verifier.verify(forged);
+    }
+
+    @Test(expectedExceptions = ExpiredJwtException.class)
+    public void givenExpiredToken_whenVerifyingWithPooledParser_thenExpiredException() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+        verifier.verify(createToken());
+        String expired = createToken(this.keyPair, this.jwk.getId(), Instant.now().minus(5, ChronoUnit.MINUTES));
+
+        // When and Then
+        verifier.verify(expired);
+    }
+
+    @Test
+    public void givenTemplateWithClockSkew_whenVerifyingRecentlyExpiredToken_thenSkewApplied() {
+        // Given
+        PooledParserJwtVerifier verifier =
+                new PooledParserJwtVerifier(this.locator, () -> Jwts.parser().clockSkewSeconds(600));
+        verifier.verify(createToken());
+        String expired = createToken(this.keyPair, this.jwk.getId(), Instant.now().minus(5, ChronoUnit.MINUTES));
+
+        // When
+        Jws<Claims> jws = verifier.verify(expired);
+
+        // Then
+        Assert.assertNotNull(jws);
+    }
+
+    @Test(expectedExceptions = InvalidKeyException.class)
+    public void givenUnknownKeyId_whenVerifying_thenLocatorFallbackRejectsToken() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+        String token = createToken(this.keyPair, "no-such-key", Instant.now().plus(5, ChronoUnit.MINUTES));
+
+        // When and Then
+        try {
+            verifier.verify(token);
+        } finally {
+            Assert.assertEquals(verifier.pooledParsers(), 0L);
+        }
+    }
+
+    @Test(expectedExceptions = JwtException.class)
+    public void givenNoKeyId_whenVerifying_thenLocatorFallbackRejectsToken() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+        String token = Jwts.builder().subject("test").signWith(this.keyPair.getPrivate()).compact();
+
+        // When and Then
+        verifier.verify(token);
+    }
+
+    @Test(expectedExceptions = MalformedJwtException.class)
+    public void givenMalformedToken_whenVerifying_thenMalformedException() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+
+        // When and Then
+        verifier.verify("foo.bar.baz");
+    }
+
+    @Test
+    public void givenRotatedKeyWithSameId_whenVerifying_thenParserRebuilt() throws InterruptedException {
+        // Given
+        CachedJwksKeyLocator expiring =
+                new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofMillis(100), false,
+                                         Duration.ZERO);
+        PooledParserJwtVerifier verifier = new PooledParserJwtVerifier(expiring, Jwts::parser);
+        verifier.verify(createToken());
+        KeyPair rotated = Jwts.SIG.RS256.keyPair().build();
+        this.server.setJwks(Jwks.set()
+                                .add(Jwks.builder().key(rotated.getPublic()).id(this.jwk.getId()).build())
+                                .build());
+        Thread.sleep(250);
+
+        // When
+        Jws<Claims> jws =
+                verifier.verify(createToken(rotated, this.jwk.getId(), Instant.now().plus(5, ChronoUnit.MINUTES)));
+        Jws<Claims> again =
+                verifier.verify(createToken(rotated, this.jwk.getId(), Instant.now().plus(5, ChronoUnit.MINUTES)));
+
+        // Then
+        Assert.assertNotNull(jws);
+        Assert.assertNotNull(again);
+        Assert.assertEquals(verifier.pooledParsers(), 1L);
+    }
+
+    @Test
+    public void givenSecretKeyJwks_whenVerifyingRepeatedly_thenVerifiedWithPooledParser() {
+        // Given
+        SecretKey secret = Jwts.SIG.HS256.key().build();
+        SecretJwk secretJwk = Jwks.builder().key(secret).idFromThumbprint().build();
+        this.server.setJwks(Jwks.set().add(secretJwk).build());
+        PooledParserJwtVerifier verifier = createVerifier();
+        String token = Jwts.builder().header().keyId(secretJwk.getId()).and().subject("test").signWith(secret).compact();
+
+        // When
+        verifier.verify(token);
+        Jws<Claims> jws = verifier.verify(token);
+
+        // Then
+        Assert.assertEquals(jws.getPayload().getSubject(), "test");
+        Assert.assertEquals(verifier.pooledParsers(), 1L);
+    }
+
+    @Test
+    public void givenVerifier_whenConvertingToString_thenLocatorIncluded() {
+        // Given
+        PooledParserJwtVerifier verifier = createVerifier();
+
+        // When
+        String debug = verifier.toString();
+
+        // Then
+        Assert.assertTrue(StringUtils.startsWith(debug, "PooledParserJwtVerifier{"));
+        Assert.assertTrue(StringUtils.contains(debug, "verificationMethod=Locator"));
+        Assert.assertTrue(StringUtils.contains(debug, "maxParsers=1,000"));
+    }
+}
@@ -0,0 +1,126 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Jwts;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import javax.crypto.SecretKey;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestTokenPeek {
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void givenSignedToken_whenPeekingKeyId_thenKeyIdReturned() {
+        // Given
+        SecretKey key = Jwts.SIG.HS256.key().build();
+        String token = Jwts.builder().header().keyId("test-key").and().subject("test").signWith(key).compact();
+
+        // When
+        String keyId = TokenPeek.keyId(token);
+
+        // Then
+        Assert.assertEquals(keyId, "test-key");
+    }
+
+    @Test
+    public void givenHeaderWithNestedValues_whenPeekingKeyId_thenKeyIdReturned() {
+        // Given
+        String token = encode("{\"alg\":\"HS256\",\"crit\":[\"exp\"],\"jwk\":{\"kid\":\"nested\"},\"kid\":\"outer\"}")
+                       + ".e30.sig";
+
+        // When
+        String keyId = TokenPeek.keyId(token);
+
+        // Then
+        Assert.assertEquals(keyId, "outer");
+    }
+
+    @DataProvider(name = "unpeekable")
+    public Object[][] unpeekable() {
+        return new Object[][] {
+                { null },
+                { "" },
+                { "foo" },
+                { ".e30.sig" },
+                { "!!!.e30.sig" },
+                { encode("not json") + ".e30.sig" },
+                { encode("[\"kid\"]") + ".e30.sig" },
+                { encode("{\"alg\":\"HS256\"}") + ".e30.sig" },
+                { encode("{\"kid\":12345}") + ".e30.sig" },
+                { encode("{\"kid\":\"a\",\"kid\":\"b\"}") + ".e30.sig" },
+                { encode("{\"kid\":\"" + StringUtils.repeat('a', TokenPeek.MAX_HEADER_LENGTH) + "\"}") + ".e30.sig" }
+        };
+    }
+
+    @Test(dataProvider = "unpeekable")
+    public void givenUnpeekableToken_whenPeekingKeyId_thenNull(String token) {
+        // Given, When and Then
+        Assert.assertNull(TokenPeek.keyId(token));
+    }
+
+    @Test
+    public void givenSignedToken_whenPeekingIssuer_thenIssuerReturned() {
+        // Given
+        SecretKey key = Jwts.SIG.HS256.key().build();
+        String token = Jwts.builder().issuer("https://idp.example.org").subject("test").signWith(key).compact();
+
+        // When
+        String issuer = TokenPeek.issuer(token);
+
+        // Then
+        Assert.assertEquals(issuer, "https://idp.example.org");
+    }
+
+    @DataProvider(name = "unpeekableIssuer")
+    public Object[][] unpeekableIssuer() {
+        String header = encode("{\"alg\":\"HS256\"}");
+        return new Object[][] {
+                { null },
+                { "" },
+                { "foo" },
+                { header + "." },
+                { header + "..sig" },
+                { ".e30.sig" },
+                { header + ".e30.sig" },
+                { header + "." + encode("{\"iss\":[\"a\"]}") + ".sig" },
+                { header + "." + encode("{\"iss\":\"a\",\"iss\":\"b\"}") + ".sig" },
+                { header + "." + encode("{\"nested\":{\"iss\":\"a\"}}") + ".sig" },
+                { header + "." + StringUtils.repeat('a', TokenPeek.MAX_PAYLOAD_LENGTH + 1) + ".sig" }
+        };
+    }
+
+    @Test(dataProvider = "unpeekableIssuer")
+    public void givenUnpeekableToken_whenPeekingIssuer_thenNull(String token) {
+        // Given, When and Then
+        Assert.assertNull(TokenPeek.issuer(token));
+    }
+}
@@ -0,0 +1,123 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import io.jsonwebtoken.Jwts;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import javax.crypto.SecretKey;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestTokenPrecheck {
+
+    private static final SecretKey KEY = Jwts.SIG.HS256.key().build();
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String token(String header) {
+        return encode(header) + "." + encode("{\"sub\":\"test\"}") + ".c2lnbmF0dXJl";
+    }
+
+    @DataProvider(name = "tokens")
+    public Object[][] tokens() {
+        return new Object[][] {
+                // Valid
+                { Jwts.builder().subject("test").signWith(KEY).compact(), TokenPrecheck.Result.VALID },
+                { Jwts.builder().header().keyId("key").and().subject("test").signWith(KEY).compact(),
+                  TokenPrecheck.Result.VALID },
+                { token("{\"alg\":\"HS256\"}"), TokenPrecheck.Result.VALID },
+                { token(" \n{\"alg\" : \"HS256\"}"), TokenPrecheck.Result.VALID },
+                { token("{\"alg\":\"HS256\",\"jwk\":{\"alg\":\"none\"}}"), TokenPrecheck.Result.VALID },
+                { token("{\"alg\":\"HS256\",\"x\":[\"alg\",\"none\"]}"), TokenPrecheck.Result.VALID },
+                { token("{\"alg\":\"HS256\",\"x\":\"\\\"alg\\\":\\\"none\\\"\"}"), TokenPrecheck.Result.VALID },
+                { token("{\"alg\":\"nonexistent\"}"), TokenPrecheck.Result.VALID },
+                { encode("{\"alg\":\"HS256\",\"kid\":\"ab\"}") + "==.e30.c2ln", TokenPrecheck.Result.VALID },
+                // Too long
+                { StringUtils.repeat('a', TokenPrecheck.MAX_TOKEN_LENGTH + 1), TokenPrecheck.Result.TOO_LONG },
+                // Malformed
+                { null, TokenPrecheck.Result.MALFORMED },
+                { "", TokenPrecheck.Result.MALFORMED },
+                { "test", TokenPrecheck.Result.MALFORMED },
+                { "a.b", TokenPrecheck.Result.MALFORMED },
+                { "a.b.c.d", TokenPrecheck.Result.MALFORMED },
+                { "a.b.c.d.e.f", TokenPrecheck.Result.MALFORMED },
+                { ".e30.c2ln", TokenPrecheck.Result.MALFORMED },
+                { "e30.e30.c2l+", TokenPrecheck.Result.MALFORMED },
+                { "e30 .e30.c2ln", TokenPrecheck.Result.MALFORMED },
+                { "e30.e30.c2lné", TokenPrecheck.Result.MALFORMED },
+                { token("[\"alg\",\"none\"]"), TokenPrecheck.Result.MALFORMED },
+                { token("   "), TokenPrecheck.Result.MALFORMED },
+                { "==.e30.c2ln", TokenPrecheck.Result.MALFORMED },
+                // Encrypted
+                { "eyJhbGciOiJkaXIifQ..aXY.Y2lwaGVy.dGFn", TokenPrecheck.Result.ENCRYPTED },
+                // Unsecured
+                { Jwts.builder().subject("test").compact(), TokenPrecheck.Result.UNSECURED },
+                { token("{\"alg\":\"none\"}"), TokenPrecheck.Result.UNSECURED },
+                { token("{ \"typ\" : \"JWT\" , \"alg\" :\t\"none\" }"), TokenPrecheck.Result.UNSECURED },
+                { token("{\"alg\":\"alg\":\"none\"}"), TokenPrecheck.Result.UNSECURED },
+        };
+    }
+
+    @Test(dataProvider = "tokens")
+    public void givenToken_whenPrechecking_thenExpectedResult(String token, TokenPrecheck.Result expected) {
+        // Given, When and Then
+        Assert.assertEquals(TokenPrecheck.check(token), expected);
+    }
+
+    @Test
+    public void givenSignedVerifier_whenPrechecking_thenTokenPrecheckUsed() {
+        // Given
+        JwtVerifier verifier = new SignedJwtVerifier(KEY);
+
+        // When and Then
+        Assert.assertEquals(verifier.precheck("test"), TokenPrecheck.Result.MALFORMED);
+        Assert.assertEquals(verifier.precheck(Jwts.builder().subject("test").signWith(KEY).compact()),
+                            TokenPrecheck.Result.VALID);
+    }
+
+    @Test
+    public void givenCachingVerifier_whenPrechecking_thenDelegatesToUnderlyingVerifier() {
+        // Given
+        JwtVerifier verifier =
+                new CachingJwtVerifier(new SignedJwtVerifier(KEY), 10, Duration.ofMinutes(1), null);
+
+        // When and Then
+        Assert.assertEquals(verifier.precheck("test"), TokenPrecheck.Result.MALFORMED);
+    }
+
+    @Test
+    public void givenCustomVerifier_whenPrechecking_thenNoPrecheckByDefault() {
+        // Given
+        JwtVerifier verifier = new FakeTokenVerifier();
+
+        // When and Then
+        Assert.assertEquals(verifier.precheck("test"), TokenPrecheck.Result.VALID);
+    }
+}
@@ -0,0 +1,178 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification;
+
+import static org.mockito.Mockito.mock;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.IncorrectClaimException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.security.WeakKeyException;
+import java.time.Duration;
+import java.util.Date;
+import javax.crypto.SecretKey;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestVerificationResult {
+
+    private static final SecretKey KEY = Jwts.SIG.HS256.key().build();
+
+    @DataProvider(name = "errors")
+    public Object[][] errors() {
+        return new Object[][] {
+                { new WeakKeyException("weak"), VerificationResult.Reason.KEY },
+                { new SignatureException("tampered"), VerificationResult.Reason.SIGNATURE },
+                { new MalformedJwtException("not base64"), VerificationResult.Reason.MALFORMED },
+                { new UnsupportedJwtException("unsupported"), VerificationResult.Reason.UNSUPPORTED },
+                { new ExpiredJwtException(mock(Header.class), mock(Claims.class), "expired"),
+                  VerificationResult.Reason.EXPIRED },
+                { new PrematureJwtException(mock(Header.class), mock(Claims.class), "premature"),
+                  VerificationResult.Reason.PREMATURE },
+                { new IncorrectClaimException(mock(Header.class), mock(Claims.class), "iss", "a", "wrong issuer"),
+                  VerificationResult.Reason.INVALID },
+                { new JwtException("other"), VerificationResult.Reason.INVALID }
+        };
+    }
+
+    @Test(dataProvider = "errors")
+    public void givenError_whenCreatingFailure_thenClassifiedCorrectly(JwtException error,
+                                                                       VerificationResult.Reason expected) {
+        // Given and When
+        VerificationResult result = VerificationResult.failure(error);
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+        VerificationResult.Failure failure = (VerificationResult.Failure) result;
+        Assert.assertEquals(failure.reason(), expected);
+        Assert.assertEquals(failure.message(), error.getMessage());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullToken_whenCreatingSuccess_thenNullPointerException() {
+        VerificationResult.success(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullReason_whenCreatingFailure_thenNullPointerException() {
+        VerificationResult.failure(null, "message");
+    }
+
+    @Test
+    public void givenValidToken_whenTryVerifying_thenSuccess() {
+        // Given
+        JwtVerifier verifier = new SignedJwtVerifier(KEY);
+        String jwt = Jwts.builder().subject("test").signWith(KEY).compact();
+
+        // When
+        VerificationResult result = verifier.tryVerify(jwt);
+
+        // Then
+        Assert.assertTrue(result.isSuccess());
+        Jws<Claims> jws = ((VerificationResult.Success) result).jws();
+        Assert.assertEquals(jws.getPayload().getSubject(), "test");
+    }
+
+    @Test
+    public void givenTamperedToken_whenTryVerifying_thenSignatureFailure() {
+        // Given
+        JwtVerifier verifier = new SignedJwtVerifier(KEY);
+        String jwt = Jwts.builder().subject("test").signWith(Jwts.SIG.HS256.key().build()).compact();
+
+        // When
+        VerificationResult result = verifier.tryVerify(jwt);
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(((VerificationResult.Failure) result).reason(), VerificationResult.Reason.SIGNATURE);
+    }
+
+    @Test
+    public void givenVerifierReturningNull_whenTryVerifying_thenInvalidFailure() {
+        // Given
+        JwtVerifier verifier = rawJwt -> null;
+
+        // When
+        VerificationResult result = verifier.tryVerify("test");
+
+        // Then
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(((VerificationResult.Failure) result).reason(), VerificationResult.Reason.INVALID);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void givenVerifierThrowingUnexpectedError_whenTryVerifying_thenErrorPropagated() {
+        // Given
+        JwtVerifier verifier = new InvalidTokenVerifier(token -> new IllegalStateException("unexpected"));
+
+        // When and Then
+        verifier.tryVerify("test");
+    }
+
+    @Test
+    public void givenCachingVerifier_whenTryVerifyingRepeatedly_thenCachedResultReturned() {
+        // Given
+        CachingJwtVerifier verifier = new CachingJwtVerifier(new SignedJwtVerifier(KEY), 10, Duration.ofMinutes(1),
+                                                             null);
+        String jwt = Jwts.builder().subject("test").signWith(KEY).compact();
+
+        // When
+        VerificationResult first = verifier.tryVerify(jwt);
+        VerificationResult second = verifier.tryVerify(jwt);
+
+        // Then
+        Assert.assertTrue(first.isSuccess());
+        Assert.assertTrue(second.isSuccess());
+        Assert.assertSame(((VerificationResult.Success) second).jws(), ((VerificationResult.Success) first).jws());
+        Assert.assertEquals(verifier.estimatedSize(), 1);
+    }
+
+    @Test
+    public void givenCachingVerifier_whenTryVerifyingInvalidTokens_thenFailuresNotCached() {
+        // Given
+        CachingJwtVerifier verifier = new CachingJwtVerifier(new SignedJwtVerifier(KEY), 10, Duration.ofMinutes(1),
+                                                             null);
+
+        // When
+        VerificationResult tampered =
+                verifier.tryVerify(Jwts.builder().subject("test").signWith(Jwts.SIG.HS256.key().build()).compact());
+        VerificationResult expired = verifier.tryVerify(
+                Jwts.builder().subject("test").expiration(new Date(System.currentTimeMillis() - 60_000)).signWith(KEY)
+                    .compact());
+
+        // Then
+        Assert.assertFalse(tampered.isSuccess());
+        Assert.assertEquals(((VerificationResult.Failure) expired).reason(), VerificationResult.Reason.EXPIRED);
+        Assert.assertEquals(verifier.estimatedSize(), 0);
+    }
+}
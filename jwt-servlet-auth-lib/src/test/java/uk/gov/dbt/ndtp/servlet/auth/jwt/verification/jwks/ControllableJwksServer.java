@@ -0,0 +1,174 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks;
+
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
+import io.jsonwebtoken.security.JwkSet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.jetty.ee9.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee9.servlet.ServletHandler;
+import org.eclipse.jetty.ee9.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+
+/**
+ * A JWKS server whose behaviour can be changed while it is running, and which counts the requests it receives
+ */
+public class ControllableJwksServer extends JwksServer {
+
+    private final AtomicReference<JwkSet> current;
+    private final AtomicInteger requests = new AtomicInteger(0);
+    private final AtomicInteger notModified = new AtomicInteger(0);
+    private volatile boolean available = true;
+    private volatile long delay = 0;
+    private volatile String cacheControl = null;
+    private volatile String etag = null;
+
+    public ControllableJwksServer(int port, JwkSet jwks) {
+        super(port, jwks);
+        this.current = new AtomicReference<>(jwks);
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (this.server == null) {
+            this.server = new Server(this.port);
+
+            ServletContextHandler handler = new ServletContextHandler();
+            handler.setContextPath("/");
+            this.server.setHandler(handler);
+
+            ServletHandler servletHandler = new ServletHandler();
+            ServletHolder holder = new ServletHolder();
+            holder.setServlet(new ControllableServlet());
+            servletHandler.addServletWithMapping(holder, "/jwks.json");
+            handler.setHandler(servletHandler);
+
+            this.server.start();
+        }
+    }
+
+    /**
+     * Changes the JWKS that is served
+     *
+     * @param jwks JWKS
+     */
+    public void setJwks(JwkSet jwks) {
+        this.current.set(jwks);
+    }
+
+    /**
+     * Changes whether the server is available, when unavailable it responds with a {@code 503 Service Unavailable}
+     *
+     * @param available Whether the server is available
+     */
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    /**
+     * Sets a delay that is applied to all responses
+     *
+     * @param millis Delay in milliseconds
+     */
+    public void setDelay(long millis) {
+        this.delay = millis;
+    }
+
+    /**
+     * Sets the {@code Cache-Control} header that is sent with the JWKS
+     *
+     * @param cacheControl Cache control header, {@code null} to send no header
+     */
+    public void setCacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Sets the {@code ETag} header that is sent with the JWKS, when set requests bearing a matching
+     * {@code If-None-Match} header receive a {@code 304 Not Modified} response
+     *
+     * @param etag ETag, {@code null} to send no header
+     */
+    public void setETag(String etag) {
+        this.etag = etag;
+    }
+
+    /**
+     * Gets how many {@code 304 Not Modified} responses the server has sent
+     *
+     * @return Not modified count
+     */
+    public int getNotModifiedCount() {
+        return this.notModified.get();
+    }
+
+    /**
+     * Gets how many requests the server has received
+     *
+     * @return Request count
+     */
+    public int getRequestCount() {
+        return this.requests.get();
+    }
+
+    private final class ControllableServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            requests.incrementAndGet();
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            resp.setContentType("application/json");
+            if (!available) {
+                resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                resp.getOutputStream().println("{}");
+                return;
+            }
+            if (cacheControl != null) {
+                resp.setHeader("Cache-Control", cacheControl);
+            }
+            if (etag != null) {
+                resp.setHeader("ETag", etag);
+                if (etag.equals(req.getHeader("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+            resp.setStatus(HttpServletResponse.SC_OK);
+            new JacksonSerializer<>().serialize(current.get(), resp.getOutputStream());
+        }
+    }
+}
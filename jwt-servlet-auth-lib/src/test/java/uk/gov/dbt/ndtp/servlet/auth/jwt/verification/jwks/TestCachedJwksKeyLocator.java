@@ -0,0 +1,922 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.verification.jwks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.security.Key;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.errors.KeyLoadException;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetricsRegistry;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.DefaultAuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
+
+public class TestCachedJwksKeyLocator {
+
+    private static final Random RANDOM = new Random();
+    private static final AtomicInteger TEST_PORT = new AtomicInteger(51000 + RANDOM.nextInt(50));
+
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    private Jwk<?> key;
+    private ControllableJwksServer server;
+    private CachedJwksKeyLocator locator;
+
+    private static Jwk<?> createKey() {
+        return Jwks.builder().key(Jwts.SIG.HS256.key().build()).idFromThumbprint().build();
+    }
+
+    private static JwsHeader header(String keyId) {
+        JwsHeader header = mock(JwsHeader.class);
+        when(header.getKeyId()).thenReturn(keyId);
+        return header;
+    }
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.key = createKey();
+        this.server = new ControllableJwksServer(TEST_PORT.getAndIncrement(), Jwks.set().add(this.key).build());
+        this.server.start();
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        if (this.locator != null) {
+            this.locator.close();
+            this.locator = null;
+        }
+        this.server.stop();
+    }
+
+    private CachedJwksKeyLocator createLocator(Duration cacheKeysFor, boolean refreshAhead) {
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, cacheKeysFor,
+                                                refreshAhead);
+        return this.locator;
+    }
+
+    private CachedJwksKeyLocator createLocator(Duration cacheKeysFor, Duration minRefetchInterval) {
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, cacheKeysFor, false,
+                                                minRefetchInterval);
+        return this.locator;
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullCacheDuration_whenCreatingLocator_thenNullPointerException() {
+        createLocator(null, false);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*cannot be negative")
+    public void givenNegativeCacheDuration_whenCreatingLocator_thenIllegalArgumentException() {
+        createLocator(Duration.ofMinutes(-1), false);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*greater than zero")
+    public void givenZeroCacheDurationAndRefreshAhead_whenCreatingLocator_thenIllegalArgumentException() {
+        createLocator(Duration.ZERO, true);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullMinRefetchInterval_whenCreatingLocator_thenNullPointerException() {
+        createLocator(Duration.ofMinutes(5), null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Minimum refetch.*cannot be negative")
+    public void givenNegativeMinRefetchInterval_whenCreatingLocator_thenIllegalArgumentException() {
+        createLocator(Duration.ofMinutes(5), Duration.ofSeconds(-1));
+    }
+
+    @Test
+    public void givenCachedLocator_whenLocatingRepeatedly_thenJwksLoadedOnce() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+        }
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+        Assert.assertFalse(locator.isRefreshAhead());
+    }
+
+    @Test
+    public void givenCachedLocator_whenLocatingRepeatedly_thenSameKeyInstanceReturned() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        Key first = locator.locate(header(this.key.getId()));
+
+        // When
+        Key second = locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertSame(second, first);
+    }
+
+    @Test
+    public void givenInstalledMetrics_whenLocatingRepeatedly_thenFetchAndCacheAccessesRecorded() {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+        AuthenticationMetricsRegistry.install(metrics);
+        try {
+            CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+
+            // When
+            for (int i = 0; i < 5; i++) {
+                locator.locate(header(this.key.getId()));
+            }
+
+            // Then
+            Assert.assertEquals(metrics.getJwksFetches(), 1);
+            Assert.assertEquals(metrics.getJwksFetchLatency().getCount(), 1);
+            Assert.assertEquals(metrics.getCacheMisses(AuthenticationMetrics.CACHE_JWKS_KEYS), 1);
+            Assert.assertEquals(metrics.getCacheHits(AuthenticationMetrics.CACHE_JWKS_KEYS), 4);
+        } finally {
+            AuthenticationMetricsRegistry.reset();
+        }
+    }
+
+    @Test
+    public void givenInstalledMetricsAndUnavailableServer_whenLocatingAsync_thenFailedFetchRecorded() throws Exception {
+        // Given
+        DefaultAuthenticationMetrics metrics = new DefaultAuthenticationMetrics();
+        AuthenticationMetricsRegistry.install(metrics);
+        try {
+            CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+            this.server.stop();
+
+            // When
+            CompletableFuture<Key> future = locator.locateAsync(this.key.getId());
+
+            // Then
+            Assert.expectThrows(CompletionException.class, future::join);
+            Assert.assertEquals(metrics.getJwksFetchFailures(), 1);
+            Assert.assertEquals(metrics.getCacheMisses(AuthenticationMetrics.CACHE_JWKS_KEYS), 1);
+        } finally {
+            AuthenticationMetricsRegistry.reset();
+        }
+    }
+
+    @Test
+    public void givenKeysNotYetLoaded_whenGettingCachedKey_thenNullAndJwksNotLoaded() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+
+        // When
+        Key cached = locator.getCachedKey(this.key.getId());
+
+        // Then
+        Assert.assertNull(cached);
+        Assert.assertEquals(this.server.getRequestCount(), 0);
+    }
+
+    @Test
+    public void givenLoadedKeys_whenGettingCachedKey_thenKeyReturned() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        Key located = locator.locate(header(this.key.getId()));
+
+        // When and Then
+        Assert.assertSame(locator.getCachedKey(this.key.getId()), located);
+        Assert.assertNull(locator.getCachedKey(null));
+        Assert.assertNull(locator.getCachedKey("no-such-key"));
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenExpiredKeys_whenGettingCachedKey_thenNull() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ZERO, false);
+        locator.locate(header(this.key.getId()));
+
+        // When
+        Key cached = locator.getCachedKey(this.key.getId());
+
+        // Then
+        Assert.assertNull(cached);
+    }
+
+    @Test
+    public void givenRefreshAheadLocator_whenGettingCachedKey_thenKeyReturned() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), true);
+        locator.locate(header(this.key.getId()));
+
+        // When
+        Key cached = locator.getCachedKey(this.key.getId());
+
+        // Then
+        Assert.assertEquals(cached, this.key.toKey());
+    }
+
+    @Test
+    public void givenExpiredKeys_whenLocating_thenJwksReloaded() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ZERO, false);
+
+        // When
+        locator.locate(header(this.key.getId()));
+        locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenExpiredKeysAndUnavailableJwks_whenLocating_thenStaleKeyReturned() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ZERO, false);
+        locator.locate(header(this.key.getId()));
+        this.server.setAvailable(false);
+
+        // When
+        Key located = locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(located, this.key.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenExpiredKeysAndUnavailableJwks_whenLocatingRepeatedly_thenReloadRetriedOnlyAfterRetryInterval() throws
+            InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMillis(250), false);
+        locator.locate(header(this.key.getId()));
+        Thread.sleep(500);
+        this.server.setAvailable(false);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+        }
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+        Assert.assertNotNull(locator.getCachedKey(this.key.getId()));
+
+        // And
+        Thread.sleep(500);
+        Assert.assertNull(locator.getCachedKey(this.key.getId()));
+        Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 3);
+    }
+
+    @Test(expectedExceptions = InvalidKeyException.class)
+    public void givenUnknownKeyAndUnavailableJwks_whenLocating_thenErrorIsThrown() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        locator.locate(header(this.key.getId()));
+        this.server.setAvailable(false);
+
+        // When and Then
+        locator.locate(header("no-such-key"));
+    }
+
+    @Test
+    public void givenUnknownKey_whenLocatingAfterKeyRotation_thenNewKeyFound() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), Duration.ZERO);
+        locator.locate(header(this.key.getId()));
+        Jwk<?> rotated = createKey();
+        this.server.setJwks(Jwks.set().add(rotated).build());
+
+        // When
+        Key located = locator.locate(header(rotated.getId()));
+
+        // Then
+        Assert.assertEquals(located, rotated.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenConcurrentLookups_whenKeysNotYetLoaded_thenJwksLoadedOnce() throws Exception {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        this.server.setDelay(500);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Key>> lookups = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    return locator.locate(header(this.key.getId()));
+                }));
+            }
+
+            // When
+            start.countDown();
+
+            // Then
+            for (Future<Key> lookup : lookups) {
+                Assert.assertEquals(lookup.get(), this.key.toKey());
+            }
+            Assert.assertEquals(this.server.getRequestCount(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenGarbageKeyIds_whenLocating_thenJwksNotReloaded() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        locator.locate(header(this.key.getId()));
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            try {
+                locator.locate(header("garbage-" + i));
+                Assert.fail("Garbage key ID should not be located");
+            } catch (InvalidKeyException e) {
+                // Expected, and cheap to create as no stack trace is captured
+                Assert.assertEquals(e.getStackTrace().length, 0);
+            }
+        }
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenUnknownKey_whenLocatingRepeatedlyAfterMinRefetchInterval_thenJwksReloadedOnce() throws
+            InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), Duration.ofMillis(250));
+        locator.locate(header(this.key.getId()));
+        Thread.sleep(500);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            Assert.assertThrows(InvalidKeyException.class, () -> locator.locate(header("no-such-key")));
+        }
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenUnknownKey_whenLocatingAfterKeyRotationAndMinRefetchInterval_thenNewKeyFound() throws
+            InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), Duration.ofMillis(250));
+        locator.locate(header(this.key.getId()));
+        Jwk<?> rotated = createKey();
+        this.server.setJwks(Jwks.set().add(rotated).build());
+        Assert.assertThrows(InvalidKeyException.class, () -> locator.locate(header(rotated.getId())));
+
+        // When
+        Thread.sleep(500);
+        Key located = locator.locate(header(rotated.getId()));
+
+        // Then
+        Assert.assertEquals(located, rotated.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenUnknownKeyRequestedContinuously_whenKeyPublishedLater_thenJwksReloadedAfterMinRefetchInterval()
+            throws InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), Duration.ofMillis(250));
+        Jwk<?> rotated = createKey();
+        locator.locate(header(this.key.getId()));
+        Thread.sleep(300);
+        Assert.assertThrows(InvalidKeyException.class, () -> locator.locate(header(rotated.getId())));
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+        this.server.setJwks(Jwks.set().add(this.key).add(rotated).build());
+
+        // When
+        Key located = null;
+        for (int i = 0; i < 30 && located == null; i++) {
+            try {
+                located = locator.locate(header(rotated.getId()));
+            } catch (InvalidKeyException e) {
+                Thread.sleep(100);
+            }
+        }
+
+        // Then
+        Assert.assertEquals(located, rotated.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 3);
+    }
+
+    @Test
+    public void givenRefreshAhead_whenCacheDurationElapses_thenKeysRefreshedInBackground() throws
+            InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMillis(250), true);
+        locator.locate(header(this.key.getId()));
+        Jwk<?> rotated = createKey();
+        this.server.setJwks(Jwks.set().add(this.key).add(rotated).build());
+
+        // When
+        Thread.sleep(1000);
+        int requestsBefore = this.server.getRequestCount();
+        Key located = locator.locate(header(rotated.getId()));
+
+        // Then
+        Assert.assertTrue(requestsBefore > 1, "Expected background refreshes to have happened");
+        Assert.assertEquals(located, rotated.toKey());
+        Assert.assertTrue(locator.isRefreshAhead());
+    }
+
+    @Test
+    public void givenRefreshAheadLocatorWithSlowJwks_whenCacheDurationElapses_thenOtherLocatorsStillRefreshed() throws
+            Exception {
+        // Given
+        ControllableJwksServer slowServer =
+                new ControllableJwksServer(TEST_PORT.getAndIncrement(), Jwks.set().add(this.key).build());
+        slowServer.start();
+        try (CachedJwksKeyLocator slow = new CachedJwksKeyLocator(URI.create(slowServer.getUrl()), this.client,
+                                                                  Duration.ofMillis(100), true)) {
+            slow.locate(header(this.key.getId()));
+            slowServer.setDelay(5000);
+            CachedJwksKeyLocator locator = createLocator(Duration.ofMillis(250), true);
+            locator.locate(header(this.key.getId()));
+
+            // When
+            Thread.sleep(1000);
+
+            // Then
+            Assert.assertTrue(this.server.getRequestCount() > 2,
+                              "Expected background refreshes despite another locator's slow JWKS");
+        } finally {
+            slowServer.stop();
+        }
+    }
+
+    @Test
+    public void givenRefreshAheadAndUnavailableJwks_whenCacheDurationElapses_thenPreviousKeysServed() throws
+            InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMillis(250), true);
+        locator.locate(header(this.key.getId()));
+        this.server.setAvailable(false);
+
+        // When
+        Thread.sleep(1000);
+        Key located = locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(located, this.key.toKey());
+    }
+
+    @Test
+    public void givenRefreshAheadLocator_whenClosed_thenNoFurtherBackgroundRefreshes() throws InterruptedException {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMillis(250), true);
+        locator.locate(header(this.key.getId()));
+
+        // When
+        locator.close();
+        int requests = this.server.getRequestCount();
+        Thread.sleep(750);
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), requests);
+    }
+
+    @Test
+    public void givenRefreshAheadLocator_whenConvertingToString_thenRefreshAheadIncluded() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), true);
+
+        // When
+        String debug = locator.toString();
+
+        // Then
+        Assert.assertTrue(StringUtils.contains(debug, "refreshAhead=true"));
+        Assert.assertTrue(StringUtils.contains(debug, "minRefetchInterval=PT10S"));
+    }
+
+    private static InvalidKeyException verifyLocateFailure(CompletableFuture<Key> located) {
+        CompletionException e = Assert.expectThrows(CompletionException.class, located::join);
+        Assert.assertTrue(e.getCause() instanceof InvalidKeyException);
+        return (InvalidKeyException) e.getCause();
+    }
+
+    @Test
+    public void givenKeysNotYetLoaded_whenLocatingAsync_thenKeyLoadedAndCached() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        this.server.setDelay(250);
+
+        // When
+        CompletableFuture<Key> located = locator.locateAsync(this.key.getId());
+
+        // Then
+        Assert.assertFalse(located.isDone());
+        Assert.assertEquals(located.join(), this.key.toKey());
+        Assert.assertEquals(locator.getCachedKey(this.key.getId()), this.key.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenLoadedKeys_whenLocatingAsync_thenCompletesImmediately() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        locator.locate(header(this.key.getId()));
+
+        // When
+        CompletableFuture<Key> located = locator.locateAsync(this.key.getId());
+
+        // Then
+        Assert.assertTrue(located.isDone());
+        Assert.assertEquals(located.join(), this.key.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenExpiredKeysAndUnavailableJwks_whenLocatingAsync_thenStaleKeyReturned() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ZERO, false);
+        locator.locate(header(this.key.getId()));
+        this.server.setAvailable(false);
+
+        // When
+        Key located = locator.locateAsync(this.key.getId()).join();
+
+        // Then
+        Assert.assertEquals(located, this.key.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenUnknownKeyAndUnavailableJwks_whenLocatingAsync_thenFailsWithInvalidKey() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), Duration.ZERO);
+        locator.locate(header(this.key.getId()));
+        this.server.setAvailable(false);
+
+        // When
+        CompletableFuture<Key> located = locator.locateAsync("no-such-key");
+
+        // Then
+        verifyLocateFailure(located);
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenUnknownKey_whenLocatingAsyncAfterKeyRotation_thenNewKeyFound() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), Duration.ZERO);
+        locator.locate(header(this.key.getId()));
+        Jwk<?> rotated = createKey();
+        this.server.setJwks(Jwks.set().add(rotated).build());
+
+        // When
+        Key located = locator.locateAsync(rotated.getId()).join();
+
+        // Then
+        Assert.assertEquals(located, rotated.toKey());
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenUnknownKey_whenLocatingAsync_thenFailsWithKeyNotPresent() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+
+        // When
+        InvalidKeyException e = verifyLocateFailure(locator.locateAsync("no-such-key"));
+
+        // Then
+        Assert.assertTrue(e instanceof KeyNotPresentException);
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenGarbageKeyIds_whenLocatingAsync_thenJwksNotReloaded() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        locator.locate(header(this.key.getId()));
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            CompletableFuture<Key> located = locator.locateAsync("garbage-" + i);
+            Assert.assertTrue(located.isDone());
+            verifyLocateFailure(located);
+        }
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenBlankKeyId_whenLocatingAsync_thenFailsWithInvalidKey() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+
+        // When
+        InvalidKeyException e = verifyLocateFailure(locator.locateAsync(" "));
+
+        // Then
+        Assert.assertTrue(StringUtils.contains(e.getMessage(), "kid"));
+        Assert.assertEquals(this.server.getRequestCount(), 0);
+    }
+
+    @Test
+    public void givenConcurrentSyncAndAsyncLookups_whenKeysNotYetLoaded_thenJwksLoadedOnce() throws Exception {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofMinutes(5), false);
+        this.server.setDelay(500);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // When
+            CompletableFuture<Key> async = locator.locateAsync(this.key.getId());
+            Future<Key> sync = executor.submit(() -> locator.locate(header(this.key.getId())));
+
+            // Then
+            Assert.assertEquals(async.join(), this.key.toKey());
+            Assert.assertEquals(sync.get(), this.key.toKey());
+            Assert.assertEquals(this.server.getRequestCount(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenServerMaxAge_whenKeysExpire_thenReloadedSoonerThanConfigured() throws Exception {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofHours(1), Duration.ZERO);
+        this.server.setCacheControl("max-age=1");
+        locator.locate(header(this.key.getId()));
+
+        // When
+        Thread.sleep(1100);
+        locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenHugeServerMaxAge_whenKeysExpire_thenCachedNoLongerThanConfigured() throws Exception {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofSeconds(1), Duration.ZERO);
+        this.server.setCacheControl("max-age=9999999999999");
+        Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+
+        // When
+        Thread.sleep(1100);
+        locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void givenRefreshAheadAndHugeServerMaxAge_whenLocating_thenKeysLocated() {
+        // Given
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofHours(1),
+                                                true, Duration.ZERO);
+        this.server.setCacheControl("max-age=9999999999999");
+
+        // When
+        Key located = this.locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(located, this.key.toKey());
+        Assert.assertSame(this.locator.getCachedKey(this.key.getId()), located);
+    }
+
+    @Test
+    public void givenServerMarksJwksStale_whenLocatingRepeatedly_thenMinimumCacheLifetimeApplied() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ofHours(1), Duration.ZERO);
+        this.server.setCacheControl("no-cache");
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+        }
+
+        // Then
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenUnchangedJwks_whenKeysExpire_thenReloadedConditionallyAndSameKeyInstanceReturned() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ZERO, Duration.ZERO);
+        this.server.setETag("\"v1\"");
+        Key first = locator.locate(header(this.key.getId()));
+
+        // When
+        Key second = locator.locate(header(this.key.getId()));
+        Key third = locator.locateAsync(this.key.getId()).join();
+
+        // Then
+        Assert.assertSame(second, first);
+        Assert.assertSame(third, first);
+        Assert.assertEquals(this.server.getRequestCount(), 3);
+        Assert.assertEquals(this.server.getNotModifiedCount(), 2);
+    }
+
+    @Test
+    public void givenChangedJwks_whenKeysExpire_thenNewKeysLoaded() {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(Duration.ZERO, Duration.ZERO);
+        this.server.setETag("\"v1\"");
+        locator.locate(header(this.key.getId()));
+        Jwk<?> rotated = createKey();
+        this.server.setJwks(Jwks.set().add(rotated).build());
+        this.server.setETag("\"v2\"");
+
+        // When
+        Key located = locator.locate(header(rotated.getId()));
+
+        // Then
+        Assert.assertEquals(located, rotated.toKey());
+        Assert.assertEquals(this.server.getNotModifiedCount(), 0);
+    }
+
+    @Test
+    public void givenRefreshAheadAndServerMaxAge_whenWaiting_thenRefreshedAtServerMaxAge() throws Exception {
+        // Given
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofHours(1),
+                                                true, Duration.ZERO);
+        this.server.setCacheControl("max-age=1");
+        this.server.setETag("\"v1\"");
+        Key first = this.locator.locate(header(this.key.getId()));
+
+        // When
+        Thread.sleep(1500);
+
+        // Then
+        Assert.assertTrue(this.server.getNotModifiedCount() >= 1);
+        Assert.assertSame(this.locator.getCachedKey(this.key.getId()), first);
+    }
+
+    private CachedJwksKeyLocator createLocator(File snapshotFile) {
+        this.locator = new CachedJwksKeyLocator(URI.create(this.server.getUrl()), this.client, Duration.ofMinutes(5),
+                                                false, CachedJwksKeyLocator.DEFAULT_MIN_REFETCH_INTERVAL, snapshotFile);
+        return this.locator;
+    }
+
+    private static File snapshotFile() throws IOException {
+        File snapshotFile = Files.createTempFile("jwks-snapshot", ".json").toFile();
+        Assert.assertTrue(snapshotFile.delete());
+        snapshotFile.deleteOnExit();
+        return snapshotFile;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Condition not met within timeout");
+            Thread.sleep(25);
+        }
+    }
+
+    private static boolean snapshotContains(File snapshotFile, Jwk<?> key) {
+        try {
+            return snapshotFile.exists() && KeyUtils.loadJwks(snapshotFile).getKeys().contains(key);
+        } catch (KeyLoadException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void givenSnapshotFile_whenJwksLoaded_thenSnapshotSaved() throws Exception {
+        // Given
+        File snapshotFile = snapshotFile();
+        CachedJwksKeyLocator locator = createLocator(snapshotFile);
+
+        // When
+        locator.locate(header(this.key.getId()));
+
+        // Then
+        waitFor(() -> snapshotContains(snapshotFile, this.key));
+    }
+
+    @Test
+    public void givenExistingSnapshotAndUnavailableJwks_whenCreatingLocator_thenKeysLocatedFromSnapshot() throws
+            Exception {
+        // Given
+        File snapshotFile = snapshotFile();
+        KeyUtils.saveJwks(Jwks.set().add(this.key).build(), snapshotFile);
+        this.server.setAvailable(false);
+
+        // When
+        CachedJwksKeyLocator locator = createLocator(snapshotFile);
+
+        // Then
+        Assert.assertEquals(locator.getCachedKey(this.key.getId()), this.key.toKey());
+        Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+        waitFor(() -> this.server.getRequestCount() >= 1);
+        Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+    }
+
+    @Test
+    public void givenOutdatedSnapshot_whenCreatingLocator_thenRevalidatedInBackground() throws Exception {
+        // Given
+        File snapshotFile = snapshotFile();
+        Jwk<?> outdated = createKey();
+        KeyUtils.saveJwks(Jwks.set().add(outdated).build(), snapshotFile);
+
+        // When
+        CachedJwksKeyLocator locator = createLocator(snapshotFile);
+
+        // Then
+        waitFor(() -> locator.getCachedKey(this.key.getId()) != null);
+        Assert.assertNull(locator.getCachedKey(outdated.getId()));
+        waitFor(() -> snapshotContains(snapshotFile, this.key));
+        Assert.assertEquals(this.server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void givenOutdatedSnapshot_whenLocatingUnknownKeyBeforeRevalidation_thenJwksReloaded() throws Exception {
+        // Given
+        File snapshotFile = snapshotFile();
+        KeyUtils.saveJwks(Jwks.set().add(createKey()).build(), snapshotFile);
+        this.server.setDelay(250);
+
+        // When
+        CachedJwksKeyLocator locator = createLocator(snapshotFile);
+        Key located = locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(located, this.key.toKey());
+    }
+
+    @Test
+    public void givenCorruptSnapshot_whenCreatingLocator_thenSnapshotIgnored() throws Exception {
+        // Given
+        File snapshotFile = snapshotFile();
+        Files.writeString(snapshotFile.toPath(), "not a JWKS");
+
+        // When
+        CachedJwksKeyLocator locator = createLocator(snapshotFile);
+
+        // Then
+        Assert.assertNull(locator.getCachedKey(this.key.getId()));
+        Assert.assertEquals(locator.locate(header(this.key.getId())), this.key.toKey());
+        waitFor(() -> snapshotContains(snapshotFile, this.key));
+    }
+
+    @Test
+    public void givenUnwritableSnapshotFile_whenJwksLoaded_thenKeysStillLocated() throws Exception {
+        // Given
+        CachedJwksKeyLocator locator = createLocator(new File("no-such-directory/jwks.json"));
+
+        // When
+        Key located = locator.locate(header(this.key.getId()));
+
+        // Then
+        Assert.assertEquals(located, this.key.toKey());
+    }
+}
@@ -36,6 +36,11 @@ import java.net.http.HttpClient;
 import java.security.Key;
 import java.time.Duration;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
@@ -44,6 +49,8 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwksResponse;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.KeyUtils;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.SignedJwtVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.TestKeyUtils;
 
@@ -217,6 +224,35 @@ public class TestUrlJwksKeyLocator {
         }
     }
 
+    @Test(dataProvider = "keyIds")
+    public void givenValidKeyIdAndCachingLocator_whenLocatingAsyncViaFile_thenKeyIsReturned(String keyId) {
+        // Given
+        ensureJwksFileUri();
+        CachedJwksKeyLocator locator = new CachedJwksKeyLocator(this.jwksFile, Duration.ofMinutes(5));
+
+        // When
+        CompletableFuture<Key> key = locator.locateAsync(keyId);
+
+        // Then
+        Assert.assertTrue(key.isDone());
+        Assert.assertNotNull(key.join());
+    }
+
+    @Test
+    public void givenMissingJwksFile_whenLocatingAsync_thenFailsWithInvalidKey() {
+        // Given
+        ensureJwksFileUri();
+        CachedJwksKeyLocator locator =
+                new CachedJwksKeyLocator(URI.create(this.jwksFile.toString() + ".missing"), Duration.ofMinutes(5));
+
+        // When
+        CompletableFuture<Key> key = locator.locateAsync("test");
+
+        // Then
+        CompletionException e = Assert.expectThrows(CompletionException.class, key::join);
+        Assert.assertTrue(e.getCause() instanceof InvalidKeyException);
+    }
+
     @Test(expectedExceptions = InvalidKeyException.class)
     public void givenInvalidKeyId_whenLocatingViaFile_thenErrorIsThrown() {
         // Given
@@ -262,6 +298,73 @@ public class TestUrlJwksKeyLocator {
         locator.locate(header);
     }
 
+    @Test
+    public void givenDefaultClient_whenInspectingConnectTimeout_thenTimeoutConfigured() {
+        // Given
+        HttpClient client = UrlJwksKeyLocator.createDefaultClient();
+
+        // When and Then
+        Assert.assertEquals(client.connectTimeout().orElse(null), KeyUtils.JWKS_CONNECT_TIMEOUT);
+    }
+
+    @Test
+    public void givenLocatorsForSameUrl_whenLoadingConcurrently_thenLoadsNotCoalescedAcrossLocators() throws Exception {
+        // Given
+        ControllableJwksServer slowServer = new ControllableJwksServer(TEST_PORT.getAndIncrement(), this.jwks);
+        slowServer.setDelay(250);
+        try {
+            slowServer.start();
+            URI jwksUri = URI.create(slowServer.getUrl());
+            UrlJwksKeyLocator first = new UrlJwksKeyLocator(jwksUri, this.client);
+            UrlJwksKeyLocator second = new UrlJwksKeyLocator(jwksUri, HttpClient.newBuilder().build());
+
+            // When
+            CompletableFuture<JwkSet> firstLoad = CompletableFuture.supplyAsync(first::loadJwks);
+            CompletableFuture<JwkSet> secondLoad = CompletableFuture.supplyAsync(second::loadJwks);
+
+            // Then
+            Assert.assertTrue(firstLoad.get(5, TimeUnit.SECONDS).equals(this.jwks));
+            Assert.assertTrue(secondLoad.get(5, TimeUnit.SECONDS).equals(this.jwks));
+            Assert.assertEquals(slowServer.getRequestCount(), 2);
+        } finally {
+            slowServer.stop();
+        }
+    }
+
+    @Test
+    public void givenInFlightLoadFailsWithError_whenAwaitingLoad_thenWaiterCompletes() throws Exception {
+        // Given
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UrlJwksKeyLocator locator = new UrlJwksKeyLocator(URI.create(this.server.getUrl()), this.client) {
+            @Override
+            protected JwksResponse fetchJwks(JwksResponse previous) {
+                fetching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new AssertionError("Unexpected failure");
+            }
+        };
+        CompletableFuture<JwkSet> leader = CompletableFuture.supplyAsync(locator::loadJwks);
+        Assert.assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        CompletableFuture<JwkSet> waiter = CompletableFuture.supplyAsync(locator::loadJwks);
+        Thread.sleep(100);
+
+        // When
+        release.countDown();
+
+        // Then
+        ExecutionException leaderError =
+                Assert.expectThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(leaderError.getCause() instanceof AssertionError);
+        ExecutionException waiterError =
+                Assert.expectThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(waiterError.getCause() instanceof InvalidKeyException);
+    }
+
     @Test
     public void givenValidJwksUrl_whenCreatingSignedVerifier_thenUrlIsPresentInToString() {
         // Given
@@ -0,0 +1,163 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.micrometer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+
+/**
+ * An {@link AuthenticationMetrics} implementation that reports to a Micrometer {@link MeterRegistry}
+ * <p>
+ * The following meters are reported:
+ * </p>
+ * <ul>
+ *     <li>{@value #METER_REQUESTS} - Timer of authenticated requests, tagged with {@code outcome} of either
+ *     {@code authenticated}, {@code challenged} or {@code error}, challenged requests are additionally tagged with
+ *     their OAuth2 {@code error} code</li>
+ *     <li>{@value #METER_VERIFICATIONS} - Timer of token verifications, tagged with {@code outcome} of either
+ *     {@code success} or the lower case {@link VerificationResult.Reason} for the failure</li>
+ *     <li>{@value #METER_JWKS_FETCHES} - Timer of JWKS fetches, tagged with {@code outcome} of either {@code success}
+ *     or {@code failure}</li>
+ *     <li>{@value #METER_CACHE_ACCESSES} - Counter of cache accesses, tagged with the {@code cache} name and a
+ *     {@code result} of either {@code hit} or {@code miss}</li>
+ * </ul>
+ * <p>
+ * Meters are resolved once and then reused so reporting does not incur a registry lookup per notification.  Whether
+ * percentile histograms are published is left to the configuration of the registry.
+ * </p>
+ */
+public class MicrometerAuthenticationMetrics implements AuthenticationMetrics {
+
+    /**
+     * Name of the timer of authenticated requests
+     */
+    public static final String METER_REQUESTS = "jwt.auth.requests";
+    /**
+     * Name of the timer of token verifications
+     */
+    public static final String METER_VERIFICATIONS = "jwt.auth.verifications";
+    /**
+     * Name of the timer of JWKS fetches
+     */
+    public static final String METER_JWKS_FETCHES = "jwt.auth.jwks.fetches";
+    /**
+     * Name of the counter of cache accesses
+     */
+    public static final String METER_CACHE_ACCESSES = "jwt.auth.cache.accesses";
+
+    /**
+     * Value of the {@code error} tag for challenges that carry no OAuth2 error code
+     */
+    public static final String NO_ERROR_CODE = "none";
+
+    private static final String TAG_OUTCOME = "outcome";
+    private static final String TAG_ERROR = "error";
+    private static final String TAG_CACHE = "cache";
+    private static final String TAG_RESULT = "result";
+
+    private final MeterRegistry registry;
+    private final Timer authenticated;
+    private final Timer errors;
+    private final ConcurrentMap<String, Timer> challenges = new ConcurrentHashMap<>();
+    private final Timer verified;
+    private final Map<VerificationResult.Reason, Timer> verificationFailures =
+            new EnumMap<>(VerificationResult.Reason.class);
+    private final Timer jwksFetches;
+    private final Timer jwksFetchFailures;
+    private final ConcurrentMap<String, Counter> cacheHits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> cacheMisses = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new metrics that report to the given registry
+     *
+     * @param registry Meter registry
+     */
+    public MicrometerAuthenticationMetrics(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry, "Meter registry cannot be null");
+        this.authenticated = this.registry.timer(METER_REQUESTS, TAG_OUTCOME, "authenticated");
+        this.errors = this.registry.timer(METER_REQUESTS, TAG_OUTCOME, "error");
+        this.verified = this.registry.timer(METER_VERIFICATIONS, TAG_OUTCOME, "success");
+        for (VerificationResult.Reason reason : VerificationResult.Reason.values()) {
+            this.verificationFailures.put(reason, this.registry.timer(METER_VERIFICATIONS, TAG_OUTCOME,
+                                                                      reason.name().toLowerCase(Locale.ROOT)));
+        }
+        this.jwksFetches = this.registry.timer(METER_JWKS_FETCHES, TAG_OUTCOME, "success");
+        this.jwksFetchFailures = this.registry.timer(METER_JWKS_FETCHES, TAG_OUTCOME, "failure");
+    }
+
+    @Override
+    public void onAuthenticated(long durationNanos) {
+        this.authenticated.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onChallenge(Challenge challenge, long durationNanos) {
+        String errorCode = StringUtils.isBlank(challenge.errorCode()) ? NO_ERROR_CODE : challenge.errorCode();
+        this.challenges.computeIfAbsent(errorCode,
+                                        e -> this.registry.timer(METER_REQUESTS, TAG_OUTCOME, "challenged", TAG_ERROR,
+                                                                 e))
+                       .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onError(Throwable error, long durationNanos) {
+        this.errors.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onVerification(VerificationResult.Reason failure, long durationNanos) {
+        Timer timer = failure == null ? this.verified : this.verificationFailures.get(failure);
+        timer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onJwksFetch(boolean success, long durationNanos) {
+        (success ? this.jwksFetches : this.jwksFetchFailures).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onCacheAccess(String cache, boolean hit) {
+        ConcurrentMap<String, Counter> counters = hit ? this.cacheHits : this.cacheMisses;
+        counters.computeIfAbsent(cache, c -> this.registry.counter(METER_CACHE_ACCESSES, TAG_CACHE, c, TAG_RESULT,
+                                                                   hit ? "hit" : "miss"))
+                .increment();
+    }
+
+    @Override
+    public String toString() {
+        return "MicrometerAuthenticationMetrics{registry=" + this.registry.getClass().getSimpleName() + "}";
+    }
+}
@@ -0,0 +1,129 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+
+package uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.micrometer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.OAuth2Constants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.challenges.Challenge;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.metrics.AuthenticationMetrics;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.VerificationResult;
+
+public class TestMicrometerAuthenticationMetrics {
+
+    private MeterRegistry registry;
+    private MicrometerAuthenticationMetrics metrics;
+
+    @BeforeMethod
+    public void setup() {
+        this.registry = new SimpleMeterRegistry();
+        this.metrics = new MicrometerAuthenticationMetrics(this.registry);
+    }
+
+    private Timer timer(String name, String... tags) {
+        Timer timer = this.registry.find(name).tags(tags).timer();
+        Assert.assertNotNull(timer, "No timer " + name + " with tags " + String.join(",", tags));
+        return timer;
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullRegistry_whenCreatingMetrics_thenError() {
+        // Given, When and Then
+        new MicrometerAuthenticationMetrics(null);
+    }
+
+    @Test
+    public void givenAuthenticationOutcomes_whenReported_thenRequestTimersUpdated() {
+        // Given, When
+        this.metrics.onAuthenticated(TimeUnit.MILLISECONDS.toNanos(2));
+        this.metrics.onChallenge(new Challenge(401, "", ""), 100);
+        this.metrics.onChallenge(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Expired"), 100);
+        this.metrics.onChallenge(new Challenge(401, OAuth2Constants.ERROR_INVALID_TOKEN, "Bad signature"), 100);
+        this.metrics.onError(new IllegalStateException(), 100);
+
+        // Then
+        Timer authenticated = timer(MicrometerAuthenticationMetrics.METER_REQUESTS, "outcome", "authenticated");
+        Assert.assertEquals(authenticated.count(), 1);
+        Assert.assertEquals(authenticated.totalTime(TimeUnit.MILLISECONDS), 2.0);
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_REQUESTS, "outcome", "challenged", "error",
+                                  MicrometerAuthenticationMetrics.NO_ERROR_CODE).count(), 1);
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_REQUESTS, "outcome", "challenged", "error",
+                                  OAuth2Constants.ERROR_INVALID_TOKEN).count(), 2);
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_REQUESTS, "outcome", "error").count(), 1);
+    }
+
+    @Test
+    public void givenVerificationOutcomes_whenReported_thenVerificationTimersUpdated() {
+        // Given, When
+        this.metrics.onVerification(null, 100);
+        this.metrics.onVerification(VerificationResult.Reason.EXPIRED, 100);
+
+        // Then
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_VERIFICATIONS, "outcome", "success").count(), 1);
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_VERIFICATIONS, "outcome", "expired").count(), 1);
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_VERIFICATIONS, "outcome", "signature").count(),
+                            0);
+    }
+
+    @Test
+    public void givenJwksFetches_whenReported_thenFetchTimersUpdated() {
+        // Given, When
+        this.metrics.onJwksFetch(true, 100);
+        this.metrics.onJwksFetch(true, 100);
+        this.metrics.onJwksFetch(false, 100);
+
+        // Then
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_JWKS_FETCHES, "outcome", "success").count(), 2);
+        Assert.assertEquals(timer(MicrometerAuthenticationMetrics.METER_JWKS_FETCHES, "outcome", "failure").count(), 1);
+    }
+
+    @Test
+    public void givenCacheAccesses_whenReported_thenCacheCountersUpdated() {
+        // Given, When
+        this.metrics.onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, true);
+        this.metrics.onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, true);
+        this.metrics.onCacheAccess(AuthenticationMetrics.CACHE_JWKS_KEYS, false);
+
+        // Then
+        Assert.assertEquals(this.registry.get(MicrometerAuthenticationMetrics.METER_CACHE_ACCESSES)
+                                         .tags("cache", AuthenticationMetrics.CACHE_JWKS_KEYS, "result", "hit")
+                                         .counter()
+                                         .count(), 2.0);
+        Assert.assertEquals(this.registry.get(MicrometerAuthenticationMetrics.METER_CACHE_ACCESSES)
+                                         .tags("cache", AuthenticationMetrics.CACHE_JWKS_KEYS, "result", "miss")
+                                         .counter()
+                                         .count(), 1.0);
+    }
+
+    @Test
+    public void givenMetrics_whenToString_thenRegistryIncluded() {
+        // Given, When and Then
+        Assert.assertTrue(this.metrics.toString().contains("SimpleMeterRegistry"));
+    }
+}
@@ -26,6 +26,7 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import java.security.Principal;
+import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 
@@ -36,6 +37,7 @@ public class AuthenticatedHttpServletRequest extends HttpServletRequestWrapper {
 
     private final Jws<Claims> jws;
     private final String username;
+    private final Set<String> roles;
 
     /**
      * Creates a new authenticated request
@@ -44,9 +46,22 @@ public class AuthenticatedHttpServletRequest extends HttpServletRequestWrapper {
      * @param username Username extracted from the JWT
      */
     public AuthenticatedHttpServletRequest(HttpServletRequest request, Jws<Claims> jws, String username) {
+        this(request, jws, username, Set.of());
+    }
+
+    /**
+     * Creates a new authenticated request
+     * @param request Original request
+     * @param jws Verified JWT
+     * @param username Username extracted from the JWT
+     * @param roles Roles extracted from the JWT
+     */
+    public AuthenticatedHttpServletRequest(HttpServletRequest request, Jws<Claims> jws, String username,
+                                           Set<String> roles) {
         super(request);
         this.username = username;
         this.jws = jws;
+        this.roles = roles != null ? Set.copyOf(roles) : Set.of();
     }
 
     @Override
@@ -59,6 +74,19 @@ public class AuthenticatedHttpServletRequest extends HttpServletRequestWrapper {
         return () -> username;
     }
 
+    @Override
+    public boolean isUserInRole(String role) {
+        return role != null && this.roles.contains(role);
+    }
+
+    /**
+     * Gets the roles extracted from the verified JSON Web Token (JWT) for the request
+     * @return Roles
+     */
+    public Set<String> getRoles() {
+        return this.roles;
+    }
+
     /**
      * Gets the verified JSON Web Token (JWT) for the request
      * @return Verified JWT
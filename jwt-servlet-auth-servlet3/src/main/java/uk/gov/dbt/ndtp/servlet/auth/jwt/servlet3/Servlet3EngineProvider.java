@@ -39,4 +39,13 @@ public class Servlet3EngineProvider extends AbstractHeaderBasedEngineProvider {
         return (JwtAuthenticationEngine<TRequest, TResponse>) new Servlet3JwtAuthenticationEngine(headerSources, realm,
                                                                                                   usernameClaims);
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <TRequest, TResponse> JwtAuthenticationEngine<TRequest, TResponse> createEngine(
+            List<HeaderSource> headerSources, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return (JwtAuthenticationEngine<TRequest, TResponse>) new Servlet3JwtAuthenticationEngine(headerSources, realm,
+                                                                                                  usernameClaims,
+                                                                                                  roleClaims);
+    }
 }
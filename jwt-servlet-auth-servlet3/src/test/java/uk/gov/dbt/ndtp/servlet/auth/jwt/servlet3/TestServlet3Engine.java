@@ -52,6 +52,17 @@ public class TestServlet3Engine extends AbstractHeaderBasedEngineTests<HttpServl
         return mockRequest(null, headers);
     }
 
+    @Override
+    protected HttpServletRequest createMockRequest(String method, String path, Map<String, String> headers) {
+        // Stub the paths directly, rather than via a URI, so that paths the container might normalise are preserved
+        HttpServletRequest request = mockRequest(null, headers);
+        when(request.getRequestURI()).thenReturn(path);
+        when(request.getServletPath()).thenReturn("");
+        when(request.getPathInfo()).thenReturn(path);
+        when(request.getMethod()).thenReturn(method);
+        return request;
+    }
+
     public static HttpServletRequest mockRequest(URI requestUri, Map<String, String> headers) {
         HttpServletRequest request = mock(HttpServletRequest.class);
         headers.forEach((key, value) -> {
@@ -96,6 +107,12 @@ public class TestServlet3Engine extends AbstractHeaderBasedEngineTests<HttpServl
         return new Servlet3JwtAuthenticationEngine(authHeaders, realm, usernameClaims);
     }
 
+    @Override
+    protected JwtAuthenticationEngine<HttpServletRequest, HttpServletResponse> createEngine(
+            List<HeaderSource> authHeaders, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return new Servlet3JwtAuthenticationEngine(authHeaders, realm, usernameClaims, roleClaims);
+    }
+
     @Override
     protected void verifyStatusCode(HttpServletRequest request, HttpServletResponse httpServletResponse,
                                     int expectedStatus) throws IOException {
@@ -125,6 +142,11 @@ public class TestServlet3Engine extends AbstractHeaderBasedEngineTests<HttpServl
         return authenticatedRequest.getRemoteUser();
     }
 
+    @Override
+    protected boolean isUserInRole(HttpServletRequest authenticatedRequest, String role) {
+        return authenticatedRequest.isUserInRole(role);
+    }
+
     @Override
     protected Object verifyRequestAttribute(HttpServletRequest httpServletRequest, String attribute) {
         Object value = httpServletRequest.getAttribute(attribute);
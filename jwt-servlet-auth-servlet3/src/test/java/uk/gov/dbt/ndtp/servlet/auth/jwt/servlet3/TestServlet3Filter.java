@@ -31,16 +31,23 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.github.valfirst.slf4jtest.TestLogger;
+import com.github.valfirst.slf4jtest.TestLoggerFactory;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractConfigurableFilterTests;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.FilterConfigAdaptorWrapper;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.ResultRecorder;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.RuntimeConfigurationAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.JwtAuthFilter;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.Servlet3FilterConfigAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.Servlet3JwtAuthenticationEngine;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeAsyncTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.InvalidTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 import java.io.IOException;
 import java.net.URI;
@@ -48,6 +55,12 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
@@ -56,11 +69,14 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.slf4j.event.Level;
 import org.testng.Assert;
+import org.testng.annotations.Test;
 
 public class TestServlet3Filter extends
         AbstractConfigurableFilterTests<HttpServletRequest, HttpServletResponse, uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.JwtAuthFilter> {
     protected ServletContext context;
+    private final Map<JwtAuthFilter, ResultRecorder<HttpServletRequest>> recorders = new ConcurrentHashMap<>();
 
     @Override
     protected HttpServletRequest createMockRequest(String requestUri, Map<String, String> headers) {
@@ -88,7 +104,7 @@ public class TestServlet3Filter extends
         when(servletContext.getAttribute(eq(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS))).thenReturn(exclusions);
         this.context = servletContext;
 
-        return new uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.JwtAuthFilter();
+        return recording(new uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.JwtAuthFilter());
     }
 
     @Override
@@ -159,7 +175,7 @@ public class TestServlet3Filter extends
 
     @Override
     protected String getAuthenticatedUser(uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.JwtAuthFilter filter, HttpServletRequest authenticatedRequest) {
-        HttpServletRequest lastResult = filter.lastResult();
+        HttpServletRequest lastResult = this.recorders.get(filter).last();
         return lastResult != null ? lastResult.getRemoteUser() : null;
     }
 
@@ -190,7 +206,7 @@ public class TestServlet3Filter extends
 
     @Override
     protected uk.gov.dbt.ndtp.servlet.auth.jwt.servlet3.JwtAuthFilter createUnconfiguredFilter() {
-        return new JwtAuthFilter();
+        return recording(new JwtAuthFilter());
     }
 
     @Override
@@ -201,4 +217,119 @@ public class TestServlet3Filter extends
         Assert.assertNotNull(value, "Attribute " + attribute + " value unexpectedly null");
         return value;
     }
+
+    private JwtAuthFilter recording(JwtAuthFilter filter) {
+        this.recorders.put(filter, ResultRecorder.observe(filter));
+        return filter;
+    }
+
+    private HttpServletRequest mockAsyncRequest(HttpServletResponse response, AsyncContext asyncContext) {
+        HttpServletRequest request =
+                createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo"));
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        return request;
+    }
+
+    @Test
+    public void givenAsyncVerifierAndAsyncSupportedRequest_whenVerificationPending_thenRequestDispatchedAuthenticated() throws
+            IOException, ServletException {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        JwtAuthFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate), null);
+        HttpServletResponse response = createMockResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletRequest request = mockAsyncRequest(response, asyncContext);
+        FilterChain chain = mock(FilterChain.class);
+
+        // When
+        filter.doFilter(request, response, chain);
+        verify(asyncContext, never()).dispatch();
+        gate.complete(null);
+
+        // Then
+        verify(chain, never()).doFilter(any(), any());
+        verify(asyncContext).dispatch();
+        Object authenticated =
+                verifyRequestAttribute(request, JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST);
+        Assert.assertEquals(((HttpServletRequest) authenticated).getRemoteUser(), "foo");
+    }
+
+    @Test
+    public void givenAsyncVerifierAndAsyncSupportedRequest_whenTokenRejected_thenAsyncRequestCompleted() throws
+            IOException, ServletException {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        JwtAuthFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new InvalidTokenVerifier(), gate), null);
+        HttpServletResponse response = createMockResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletRequest request = mockAsyncRequest(response, asyncContext);
+
+        // When
+        filter.doFilter(request, response, mock(FilterChain.class));
+        gate.complete(null);
+
+        // Then
+        verify(asyncContext).complete();
+        verify(asyncContext, never()).dispatch();
+        TestServlet3Engine.verifyStatusCode(response, 401);
+    }
+
+    @Test
+    public void givenAsyncDispatchOfAuthenticatedRequest_whenFiltering_thenChainContinuesWithAuthenticatedRequest() throws
+            IOException, ServletException {
+        // Given
+        JwtAuthFilter filter = createFilter(createEngine(), new FakeAsyncTokenVerifier(), null);
+        HttpServletRequest authenticated = mock(HttpServletRequest.class);
+        when(authenticated.getRemoteUser()).thenReturn("foo");
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+        when(request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST)).thenReturn(
+                authenticated);
+        HttpServletResponse response = createMockResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        verify(request).removeAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST);
+        verify(chain).doFilter(authenticated, response);
+        verifyNoChallenge(request, response);
+    }
+
+    @Test
+    public void givenFilterNotMappedForAsyncDispatch_whenAsyncRequestCompletes_thenWarnedOnce() throws IOException,
+            ServletException {
+        // Given
+        TestLogger logger = TestLoggerFactory.getTestLogger(JwtAuthFilter.class);
+        logger.clearAll();
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        JwtAuthFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate), null);
+        HttpServletResponse response = createMockResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletRequest request = mockAsyncRequest(response, asyncContext);
+        filter.doFilter(request, response, mock(FilterChain.class));
+        gate.complete(null);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        AsyncEvent event = new AsyncEvent(asyncContext, request, response);
+
+        // When
+        when(request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST)).thenReturn(null);
+        listener.getValue().onComplete(event);
+        long warningsWhenMapped = logger.getAllLoggingEvents().stream().filter(e -> e.getLevel() == Level.WARN).count();
+        when(request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST)).thenReturn(
+                mock(HttpServletRequest.class));
+        listener.getValue().onComplete(event);
+        listener.getValue().onComplete(event);
+
+        // Then
+        Assert.assertEquals(warningsWhenMapped, 0);
+        Assert.assertEquals(logger.getAllLoggingEvents().stream().filter(e -> e.getLevel() == Level.WARN).count(), 1);
+    }
 }
@@ -25,6 +25,12 @@ package uk.gov.dbt.ndtp.servlet.auth.jwt.servlet5;
 
 import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractConfigurableJwtAuthFilter;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtLoggingConstants;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
@@ -34,6 +40,11 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 /**
  * A filter that requires that users provide a valid JSON Web Token (JWT) in order for their requests to proceed
@@ -41,11 +52,18 @@ import java.io.IOException;
 public class JwtAuthFilter extends AbstractConfigurableJwtAuthFilter<HttpServletRequest, HttpServletResponse>
         implements Filter {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthFilter.class);
+
     /**
      * Default engine singleton instance
      */
     private static final Servlet5JwtAuthenticationEngine DEFAULT_ENGINE = new Servlet5JwtAuthenticationEngine();
 
+    /**
+     * Whether a warning has been issued about asynchronous dispatches not passing back through this filter
+     */
+    private final AtomicBoolean warnedAsyncDispatch = new AtomicBoolean(false);
+
     @Override
     public void init(FilterConfig filterConfig) {
         this.configure(new Servlet5FilterConfigAdaptor(filterConfig));
@@ -61,6 +79,11 @@ public class JwtAuthFilter extends AbstractConfigurableJwtAuthFilter<HttpServlet
         return httpServletRequest.getRequestURI();
     }
 
+    @Override
+    protected String getMethod(HttpServletRequest httpServletRequest) {
+        return httpServletRequest.getMethod();
+    }
+
     @Override
     protected JwtAuthenticationEngine<HttpServletRequest, HttpServletResponse> getDefaultEngine() {
         return DEFAULT_ENGINE;
@@ -71,12 +94,44 @@ public class JwtAuthFilter extends AbstractConfigurableJwtAuthFilter<HttpServlet
         return httpServletResponse.getStatus();
     }
 
+    @Override
+    protected boolean isSuspendable(HttpServletRequest httpServletRequest) {
+        return httpServletRequest.isAsyncSupported()
+               && httpServletRequest.getDispatcherType() == DispatcherType.REQUEST;
+    }
+
+    @Override
+    protected Consumer<HttpServletRequest> suspend(HttpServletRequest httpServletRequest,
+                                                   HttpServletResponse httpServletResponse) {
+        AsyncContext context = httpServletRequest.startAsync(httpServletRequest, httpServletResponse);
+        context.addListener(new AsyncDispatchListener());
+        return authenticatedRequest -> {
+            if (authenticatedRequest != null) {
+                // Dispatch back through the filter chain, we pick up the authenticated request in doFilter()
+                httpServletRequest.setAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST,
+                                                authenticatedRequest);
+                context.dispatch();
+            } else {
+                context.complete();
+            }
+        };
+    }
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws
             IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
         HttpServletResponse response = (HttpServletResponse) servletResponse;
 
+        if (request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(
+                JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST) instanceof HttpServletRequest authenticated) {
+            // Resuming a request that was suspended while it was authenticated asynchronously
+            request.removeAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST);
+            MDC.put(JwtLoggingConstants.MDC_JWT_USER, authenticated.getRemoteUser());
+            filterChain.doFilter(authenticated, response);
+            return;
+        }
+
         super.doFilter(request, response, (req, resp) -> {
             try {
                 filterChain.doFilter(req, resp);
@@ -87,12 +142,38 @@ public class JwtAuthFilter extends AbstractConfigurableJwtAuthFilter<HttpServlet
     }
 
     /**
-     * Used by unit tests to check authentication results
-     *
-     * @return Last filter request results, {@code null} if authentication failed
+     * Detects authenticated requests that were dispatched without passing back through this filter, which happens if
+     * the filter is not mapped for {@link DispatcherType#ASYNC}, in which case the application receives the original
+     * request rather than the authenticated request
      */
-    final HttpServletRequest lastResult() {
-        return this.lastAuthenticatedRequest;
-    }
+    private final class AsyncDispatchListener implements AsyncListener {
 
+        @Override
+        public void onComplete(AsyncEvent event) {
+            ServletRequest request = event.getSuppliedRequest();
+            if (request != null
+                && request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST) != null
+                && warnedAsyncDispatch.compareAndSet(false, true)) {
+                LOGGER.warn(
+                        "Request authenticated asynchronously was dispatched without passing back through the JWT "
+                        + "authentication filter, the filter MUST be mapped for the ASYNC dispatcher type otherwise "
+                        + "the application does not receive the authenticated user");
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // No action needed
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // No action needed
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // No action needed
+        }
+    }
 }
@@ -40,6 +40,15 @@ public class Servlet5EngineProvider extends AbstractHeaderBasedEngineProvider {
                                                                                                   usernameClaims);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <TRequest, TResponse> JwtAuthenticationEngine<TRequest, TResponse> createEngine(
+            List<HeaderSource> headerSources, String realm, List<String> usernameClaims, List<String> roleClaims) {
+        return (JwtAuthenticationEngine<TRequest, TResponse>) new Servlet5JwtAuthenticationEngine(headerSources, realm,
+                                                                                                  usernameClaims,
+                                                                                                  roleClaims);
+    }
+
     @Override
     public int priority() {
         return 1;
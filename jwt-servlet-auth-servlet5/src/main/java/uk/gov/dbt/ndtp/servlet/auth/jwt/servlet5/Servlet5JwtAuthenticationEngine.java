@@ -37,7 +37,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +68,19 @@ public class Servlet5JwtAuthenticationEngine extends
         super(headers, realm, usernameClaims);
     }
 
+    /**
+     * Creates a new authentication engine using the provided configuration
+     *
+     * @param headers        Header sources
+     * @param realm          Realm
+     * @param usernameClaims Username claims
+     * @param roleClaims     Role claims
+     */
+    public Servlet5JwtAuthenticationEngine(Collection<HeaderSource> headers, String realm,
+                                           Collection<String> usernameClaims, Collection<String> roleClaims) {
+        super(headers, realm, usernameClaims, roleClaims);
+    }
+
     @Override
     protected boolean hasRequiredParameters(HttpServletRequest request) {
         return this.headers.stream().anyMatch(h -> StringUtils.isNotBlank(request.getHeader(h.getHeader())));
@@ -90,16 +103,19 @@ public class Servlet5JwtAuthenticationEngine extends
 
     @Override
     protected HttpServletRequest prepareRequest(HttpServletRequest request, Jws<Claims> jws, String username) {
-        return new AuthenticatedHttpServletRequest(request, jws, username);
+        return prepareRequest(request, jws, username, extractRoles(jws));
+    }
+
+    @Override
+    protected HttpServletRequest prepareRequest(HttpServletRequest request, Jws<Claims> jws, String username,
+                                                Set<String> roles) {
+        return new AuthenticatedHttpServletRequest(request, jws, username, roles);
     }
 
     @Override
     protected void sendChallenge(HttpServletRequest request, HttpServletResponse response, Challenge challenge) {
-        String realm = selectRealm(JwtHttpConstants.sanitiseHeaderParameterValue(request.getRequestURI()));
-        Map<String, String> additionalParams = buildChallengeParameters(challenge.errorCode(),
-                                                                        challenge.errorDescription());
         response.addHeader(JwtHttpConstants.HEADER_WWW_AUTHENTICATE,
-                           buildAuthorizationHeader(realm, additionalParams));
+                           buildChallengeHeader(request.getRequestURI(), challenge));
         try {
             response.sendError(challenge.statusCode());
         } catch (IOException e) {
@@ -122,6 +138,24 @@ public class Servlet5JwtAuthenticationEngine extends
         return request.getRequestURI();
     }
 
+    @Override
+    protected String getRequestPath(HttpServletRequest request) {
+        // Use the path as decoded and normalised by the container, relative to the context, rather than the raw request
+        // URI, so that authorization rules are applied to the resource the request is actually dispatched to
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (servletPath == null && pathInfo == null) {
+            return null;
+        }
+        String path = (servletPath != null ? servletPath : "") + (pathInfo != null ? pathInfo : "");
+        return path.isEmpty() ? "/" : path;
+    }
+
+    @Override
+    protected String getRequestMethod(HttpServletRequest request) {
+        return request.getMethod();
+    }
+
     @Override
     protected void setRequestAttribute(HttpServletRequest request, String attribute, Object value) {
         request.setAttribute(attribute, value);
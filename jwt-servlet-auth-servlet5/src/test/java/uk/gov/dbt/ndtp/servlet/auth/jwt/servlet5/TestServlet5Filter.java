@@ -31,6 +31,12 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.github.valfirst.slf4jtest.TestLogger;
+import com.github.valfirst.slf4jtest.TestLoggerFactory;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletContext;
@@ -43,21 +49,31 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.slf4j.event.Level;
 import org.testng.Assert;
+import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.AbstractConfigurableFilterTests;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.FilterConfigAdaptorWrapper;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtAuthenticationEngine;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtHttpConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.JwtServletConstants;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.PathExclusion;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.ResultRecorder;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.configuration.RuntimeConfigurationAdaptor;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.sources.HeaderSource;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeAsyncTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.FakeTokenVerifier;
+import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.InvalidTokenVerifier;
 import uk.gov.dbt.ndtp.servlet.auth.jwt.verification.JwtVerifier;
 
 public class TestServlet5Filter extends
         AbstractConfigurableFilterTests<HttpServletRequest, HttpServletResponse, JwtAuthFilter> {
     private ServletContext context;
+    private final Map<JwtAuthFilter, ResultRecorder<HttpServletRequest>> recorders = new ConcurrentHashMap<>();
 
     @Override
     protected HttpServletRequest createMockRequest(String requestUri, Map<String, String> headers) {
@@ -85,7 +101,7 @@ public class TestServlet5Filter extends
         when(servletContext.getAttribute(eq(JwtServletConstants.ATTRIBUTE_PATH_EXCLUSIONS))).thenReturn(exclusions);
         this.context = servletContext;
 
-        return new JwtAuthFilter();
+        return recording(new JwtAuthFilter());
     }
 
     @Override
@@ -107,7 +123,7 @@ public class TestServlet5Filter extends
 
     @Override
     protected String getAuthenticatedUser(JwtAuthFilter filter, HttpServletRequest httpServletRequest) {
-        HttpServletRequest authenticatedRequest = filter.lastResult();
+        HttpServletRequest authenticatedRequest = this.recorders.get(filter).last();
         return authenticatedRequest != null ? authenticatedRequest.getRemoteUser() : null;
     }
 
@@ -187,7 +203,7 @@ public class TestServlet5Filter extends
 
     @Override
     protected JwtAuthFilter createUnconfiguredFilter() {
-        return new JwtAuthFilter();
+        return recording(new JwtAuthFilter());
     }
 
     @Override
@@ -198,4 +214,119 @@ public class TestServlet5Filter extends
         Assert.assertNotNull(value, "Attribute " + attribute + " unexpectedly null");
         return value;
     }
+
+    private JwtAuthFilter recording(JwtAuthFilter filter) {
+        this.recorders.put(filter, ResultRecorder.observe(filter));
+        return filter;
+    }
+
+    private HttpServletRequest mockAsyncRequest(HttpServletResponse response, AsyncContext asyncContext) {
+        HttpServletRequest request =
+                createMockRequest(Map.of(JwtHttpConstants.HEADER_AUTHORIZATION, "Bearer foo"));
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        return request;
+    }
+
+    @Test
+    public void givenAsyncVerifierAndAsyncSupportedRequest_whenVerificationPending_thenRequestDispatchedAuthenticated() throws
+            IOException, ServletException {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        JwtAuthFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate), null);
+        HttpServletResponse response = createMockResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletRequest request = mockAsyncRequest(response, asyncContext);
+        FilterChain chain = mock(FilterChain.class);
+
+        // When
+        filter.doFilter(request, response, chain);
+        verify(asyncContext, never()).dispatch();
+        gate.complete(null);
+
+        // Then
+        verify(chain, never()).doFilter(any(), any());
+        verify(asyncContext).dispatch();
+        Object authenticated =
+                verifyRequestAttribute(request, JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST);
+        Assert.assertEquals(((HttpServletRequest) authenticated).getRemoteUser(), "foo");
+    }
+
+    @Test
+    public void givenAsyncVerifierAndAsyncSupportedRequest_whenTokenRejected_thenAsyncRequestCompleted() throws
+            IOException, ServletException {
+        // Given
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        JwtAuthFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new InvalidTokenVerifier(), gate), null);
+        HttpServletResponse response = createMockResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletRequest request = mockAsyncRequest(response, asyncContext);
+
+        // When
+        filter.doFilter(request, response, mock(FilterChain.class));
+        gate.complete(null);
+
+        // Then
+        verify(asyncContext).complete();
+        verify(asyncContext, never()).dispatch();
+        TestServlet5Engine.verifyStatusCode(response, 401);
+    }
+
+    @Test
+    public void givenAsyncDispatchOfAuthenticatedRequest_whenFiltering_thenChainContinuesWithAuthenticatedRequest() throws
+            IOException, ServletException {
+        // Given
+        JwtAuthFilter filter = createFilter(createEngine(), new FakeAsyncTokenVerifier(), null);
+        HttpServletRequest authenticated = mock(HttpServletRequest.class);
+        when(authenticated.getRemoteUser()).thenReturn("foo");
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+        when(request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST)).thenReturn(
+                authenticated);
+        HttpServletResponse response = createMockResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        verify(request).removeAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST);
+        verify(chain).doFilter(authenticated, response);
+        verifyNoChallenge(request, response);
+    }
+
+    @Test
+    public void givenFilterNotMappedForAsyncDispatch_whenAsyncRequestCompletes_thenWarnedOnce() throws IOException,
+            ServletException {
+        // Given
+        TestLogger logger = TestLoggerFactory.getTestLogger(JwtAuthFilter.class);
+        logger.clearAll();
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        JwtAuthFilter filter =
+                createFilter(createEngine(), new FakeAsyncTokenVerifier(new FakeTokenVerifier(), gate), null);
+        HttpServletResponse response = createMockResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletRequest request = mockAsyncRequest(response, asyncContext);
+        filter.doFilter(request, response, mock(FilterChain.class));
+        gate.complete(null);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        AsyncEvent event = new AsyncEvent(asyncContext, request, response);
+
+        // When
+        when(request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST)).thenReturn(null);
+        listener.getValue().onComplete(event);
+        long warningsWhenMapped = logger.getAllLoggingEvents().stream().filter(e -> e.getLevel() == Level.WARN).count();
+        when(request.getAttribute(JwtServletConstants.REQUEST_ATTRIBUTE_AUTHENTICATED_REQUEST)).thenReturn(
+                mock(HttpServletRequest.class));
+        listener.getValue().onComplete(event);
+        listener.getValue().onComplete(event);
+
+        // Then
+        Assert.assertEquals(warningsWhenMapped, 0);
+        Assert.assertEquals(logger.getAllLoggingEvents().stream().filter(e -> e.getLevel() == Level.WARN).count(), 1);
+    }
 }